@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.benchmarks.embedding;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.io.FileSystem;
+import org.graalvm.polyglot.io.IOAccess;
+import org.graalvm.python.embedding.utils.VirtualFileSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures how long a walk over the whole virtual directory tree of a {@link VirtualFileSystem}
+ * takes, and how long it takes to import packages served from it. The resources are a synthetic
+ * package tree that is generated into a temporary directory. {@link VirtualFileSystem} looks up
+ * its resources through its own class, so it is loaded again by a class loader that also sees the
+ * generated tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 5, time = 1)
+public class VirtualFileSystemImport {
+    private static final String VFS_PREFIX = "/vfsbench";
+    private static final String SITE_PREFIX = VFS_PREFIX + "/site";
+
+    /**
+     * Number of top-level packages. Their names share prefixes, e.g. {@code pkg1} and
+     * {@code pkg10}.
+     */
+    @Param({"50"}) public int arg1;
+
+    /**
+     * Number of modules in each package and in each of its subpackages.
+     */
+    @Param({"20"}) public int arg2;
+
+    private Path resourcesDir;
+    private URLClassLoader loader;
+    private FileSystem vfs;
+    private Path root;
+    private String sitePath;
+
+    @Setup
+    public void setup() throws Exception {
+        resourcesDir = Files.createTempDirectory("vfsbench");
+        generateTree(resourcesDir, arg1, arg2);
+        URL vfsClasses = VirtualFileSystem.class.getProtectionDomain().getCodeSource().getLocation();
+        loader = new VirtualFileSystemLoader(new URL[]{resourcesDir.toUri().toURL(), vfsClasses}, VirtualFileSystemImport.class.getClassLoader());
+        Class<?> vfsClass = loader.loadClass(VirtualFileSystem.class.getName());
+        Object builder = vfsClass.getMethod("newBuilder").invoke(null);
+        Class<?> builderClass = builder.getClass();
+        builderClass.getMethod("vfsPrefix", String.class).invoke(builder, VFS_PREFIX);
+        builderClass.getMethod("filesListPath", String.class).invoke(builder, VFS_PREFIX + "/fileslist.txt");
+        vfs = (FileSystem) builderClass.getMethod("build").invoke(builder);
+        sitePath = (String) vfsClass.getMethod("resourcePathToPlatformPath", String.class).invoke(vfs, SITE_PREFIX);
+        root = Path.of(sitePath).getParent();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        ((AutoCloseable) vfs).close();
+        loader.close();
+        try (Stream<Path> files = Files.walk(resourcesDir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public void walkTree(Blackhole bh) throws IOException {
+        ArrayDeque<Path> todo = new ArrayDeque<>();
+        todo.add(root);
+        while (!todo.isEmpty()) {
+            try (DirectoryStream<Path> ds = vfs.newDirectoryStream(todo.poll(), (p) -> true)) {
+                for (Path p : ds) {
+                    if ((boolean) vfs.readAttributes(p, "isDirectory").get("isDirectory")) {
+                        todo.add(p);
+                    }
+                    bh.consume(p);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void importPackages() {
+        try (Context context = Context.newBuilder() //
+                        .allowExperimentalOptions(true) //
+                        .allowIO(IOAccess.newBuilder().fileSystem(vfs).build()) //
+                        .option("python.PosixModuleBackend", "java") //
+                        .option("python.DontWriteBytecodeFlag", "true") //
+                        .option("python.PythonPath", sitePath) //
+                        .option("engine.WarnInterpreterOnly", "false") //
+                        .build()) {
+            context.eval("python", String.format("for i in range(%d): __import__('pkg%%d' %% i)", arg1));
+        }
+    }
+
+    /**
+     * Writes packages {@code pkg0} to {@code pkg<packages - 1>} below {@link #SITE_PREFIX}, each
+     * with a subpackage, and the {@code fileslist.txt} that lists them, in the same format as the
+     * {@code graalpy-maven-plugin} produces it.
+     */
+    private static void generateTree(Path dir, int packages, int modules) throws IOException {
+        Files.createDirectories(dir.resolve(SITE_PREFIX.substring(1)));
+        List<String> filesList = new ArrayList<>();
+        filesList.add(VFS_PREFIX + "/");
+        filesList.add(VFS_PREFIX + "/fileslist.txt");
+        filesList.add(SITE_PREFIX + "/");
+        for (int i = 0; i < packages; i++) {
+            String pkg = SITE_PREFIX + "/pkg" + i;
+            writePackage(dir, filesList, pkg, modules, "from . import sub\n");
+            writePackage(dir, filesList, pkg + "/sub", modules, "");
+        }
+        Collections.sort(filesList);
+        Files.write(dir.resolve(VFS_PREFIX.substring(1)).resolve("fileslist.txt"), filesList);
+    }
+
+    private static void writePackage(Path dir, List<String> filesList, String pkg, int modules, String extraImports) throws IOException {
+        Path pkgDir = dir.resolve(pkg.substring(1));
+        Files.createDirectories(pkgDir);
+        filesList.add(pkg + "/");
+        StringBuilder init = new StringBuilder(extraImports);
+        for (int j = 0; j < modules; j++) {
+            String module = "mod" + j;
+            init.append("from . import ").append(module).append('\n');
+            Files.writeString(pkgDir.resolve(module + ".py"), String.format("""
+                            import os
+
+                            VALUE = %d
+
+                            def f(x):
+                                return os.path.join(str(x), str(VALUE))
+
+                            class C:
+                                def m(self):
+                                    return f(self)
+                            """, j));
+            filesList.add(pkg + "/" + module + ".py");
+        }
+        Files.writeString(pkgDir.resolve("__init__.py"), init);
+        filesList.add(pkg + "/__init__.py");
+    }
+
+    /**
+     * Loads the classes of the {@link VirtualFileSystem} package itself, so that their resource
+     * lookups see the generated tree, and delegates all other classes to the parent.
+     */
+    private static final class VirtualFileSystemLoader extends URLClassLoader {
+        private static final String PACKAGE_PREFIX = VirtualFileSystem.class.getPackageName() + ".";
+
+        VirtualFileSystemLoader(URL[] urls, ClassLoader parent) {
+            super(urls, parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(PACKAGE_PREFIX)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    c = findClass(name);
+                }
+                if (resolve) {
+                    resolveClass(c);
+                }
+                return c;
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+# Request/response echo between asyncio protocols. Instead of sockets, an in-memory transport
+# stands in for the loopback connection so that the benchmark measures the event loop, futures
+# and tasks rather than the network stack.
+import asyncio
+
+
+class LoopbackTransport(asyncio.Transport):
+    def __init__(self, loop, protocol):
+        super().__init__()
+        self._loop = loop
+        self._protocol = protocol
+        self._peer = None
+        self._closing = False
+
+    def write(self, data):
+        self._loop.call_soon(self._peer.data_received, bytes(data))
+
+    def is_closing(self):
+        return self._closing
+
+    def close(self):
+        if not self._closing:
+            self._closing = True
+            self._loop.call_soon(self._protocol.connection_lost, None)
+
+
+class EchoServerProtocol(asyncio.Protocol):
+    def connection_made(self, transport):
+        self.transport = transport
+
+    def data_received(self, data):
+        self.transport.write(data)
+
+
+class EchoClientProtocol(asyncio.Protocol):
+    def __init__(self, loop):
+        self.loop = loop
+        self.waiter = None
+        self.closed = loop.create_future()
+
+    def connection_made(self, transport):
+        self.transport = transport
+
+    def data_received(self, data):
+        waiter, self.waiter = self.waiter, None
+        waiter.set_result(data)
+
+    def connection_lost(self, exc):
+        self.closed.set_result(None)
+
+    async def request(self, data):
+        self.waiter = self.loop.create_future()
+        self.transport.write(data)
+        return await self.waiter
+
+
+def connect(loop):
+    server = EchoServerProtocol()
+    client = EchoClientProtocol(loop)
+    client_transport = LoopbackTransport(loop, client)
+    server_transport = LoopbackTransport(loop, server)
+    client_transport._peer = server
+    server_transport._peer = client
+    server.connection_made(server_transport)
+    client.connection_made(client_transport)
+    return client
+
+
+async def session(loop, requests):
+    client = connect(loop)
+    received = 0
+    for i in range(requests):
+        reply = await client.request(b"ping %d" % i)
+        received += len(reply)
+    client.transport.close()
+    await client.closed
+    return received
+
+
+async def main(clients, requests):
+    loop = asyncio.get_running_loop()
+    results = await asyncio.gather(*[session(loop, requests) for _ in range(clients)])
+    return sum(results)
+
+
+def measure(num):
+    return asyncio.run(main(num, 1000))
+
+
+def __benchmark__(num=100):
+    return measure(num)
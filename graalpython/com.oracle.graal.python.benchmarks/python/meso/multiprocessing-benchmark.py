@@ -37,7 +37,9 @@
 # OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
 # SOFTWARE.
 
-from multiprocessing import Pool
+from multiprocessing import Pool, Pipe, Process
+from queue import SimpleQueue
+from threading import Thread
 from time import time
 from itertools import permutations
 from pprint import pprint
@@ -62,10 +64,67 @@ def parallel_jaccard(pair):
     return pair, jaccard(*pair)
 
 
+def pipe_producer(conn, count, size):
+    chunk = b'x' * size
+    for _ in range(count):
+        conn.send_bytes(chunk)
+    conn.send_bytes(b'')
+    conn.close()
+
+
+def pipe_throughput(count=20_000, size=4096):
+    reader, writer = Pipe(duplex=False)
+    p = Process(target=pipe_producer, args=(writer, count, size))
+    start = time()
+    p.start()
+    writer.close()
+    received = 0
+    while True:
+        data = reader.recv_bytes()
+        if not data:
+            break
+        received += len(data)
+    p.join()
+    duration = time() - start
+    print(f"\tpipe: {received / duration / (1 << 20):.1f} MiB/s", flush=True)
+
+
+def queue_throughput(count=1_000_000, producers=4):
+    q = SimpleQueue()
+
+    def produce():
+        for i in range(count // producers):
+            q.put(i)
+        q.put(None)
+
+    threads = [Thread(target=produce) for _ in range(producers)]
+    start = time()
+    for t in threads:
+        t.start()
+    done = 0
+    received = 0
+    while done < producers:
+        if q.get() is None:
+            done += 1
+        else:
+            received += 1
+    for t in threads:
+        t.join()
+    duration = time() - start
+    print(f"\tSimpleQueue: {received / duration:.0f} items/s", flush=True)
+
+
 if __name__ == '__main__':
     import sys, os
 
     iterations = 50
+    if sys.argv[1] == '--throughput':
+        for i in range(iterations):
+            print(f"#{i + 1}:", flush=True)
+            pipe_throughput()
+            queue_throughput()
+        sys.exit(0)
+
     pairs = list(permutations([os.path.join(sys.argv[1], f) for f in os.listdir(sys.argv[1])], 2))
 
     for i in range(4):
@@ -0,0 +1,88 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+# Measures the time until a small WSGI application has served its first
+# request in a fresh context. The modules imported are roughly what a
+# Flask-sized web application pulls in from the standard library, so the
+# benchmark is dominated by parsing and compiling these modules unless the
+# compiled code cache is enabled.
+
+MODULES = [
+    "argparse", "asyncio", "base64", "collections", "contextlib", "dataclasses",
+    "datetime", "decimal", "email.message", "email.parser", "email.utils",
+    "functools", "hashlib", "hmac", "html", "http.client", "http.cookies",
+    "http.server", "inspect", "io", "json", "logging", "logging.handlers",
+    "mimetypes", "pathlib", "pickle", "random", "re", "secrets", "shutil",
+    "socket", "string", "tempfile", "textwrap", "threading", "traceback",
+    "typing", "unittest", "urllib.parse", "urllib.request", "uuid", "warnings",
+    "wsgiref.handlers", "wsgiref.simple_server", "wsgiref.util", "xml.dom.minidom",
+    "xml.etree.ElementTree", "zipfile", "zlib",
+]
+
+
+def app(environ, start_response):
+    import json
+    body = json.dumps({"path": environ["PATH_INFO"], "method": environ["REQUEST_METHOD"]}).encode()
+    start_response("200 OK", [("Content-Type", "application/json"), ("Content-Length", str(len(body)))])
+    return [body]
+
+
+def first_request():
+    import importlib
+    import io
+    for name in MODULES:
+        importlib.import_module(name)
+    from wsgiref.handlers import SimpleHandler
+    from wsgiref.util import setup_testing_defaults
+    environ = {"PATH_INFO": "/hello", "REQUEST_METHOD": "GET"}
+    setup_testing_defaults(environ)
+    out = io.BytesIO()
+    SimpleHandler(io.BytesIO(), out, io.StringIO(), environ).run(app)
+    response = out.getvalue()
+    assert b"200 OK" in response, response
+    return response
+
+
+def __benchmark__(num=1):
+    for _ in range(int(num)):
+        first_request()
+
+
+def java_embedded_bench_entrypoint(num=1):
+    __benchmark__(num)
@@ -1,4 +1,4 @@
-# Copyright (c) 2020, 2022, Oracle and/or its affiliates. All rights reserved.
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
 # DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
 #
 # The Universal Permissive License (UPL), Version 1.0
@@ -36,35 +36,29 @@
 # LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
 # OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
 # SOFTWARE.
+# Many short-lived tasks awaiting futures, exercising Task stepping and done callbacks.
+import asyncio
 
-def __initialize__(owner_globals):
-    delegate_attrs = ['Struct', 'StructError', '_clearcache', 'calcsize', 'error', 'iter_unpack', 'pack',
-                          'pack_into', 'unpack', 'unpack_from']
-    res = True
-    for x in delegate_attrs:
-        if x not in owner_globals:
-            res = False
-            break
 
-    if not res:
-        __graalpython__.import_current_as_named_module_with_delegate(
-            module_name="_struct",
-            delegate_name="_cpython_struct",
-            delegate_attributes=delegate_attrs,
-            on_import_error={
-                # Just enough to make zipfile and six import successfully, but raise the
-                # original import error when someone tries to use the Struct object
-                "__all__": ["calcsize", "Struct"],
-                "_clearcache": lambda: None,
-                "__doc__": "Fake _struct",
-                "calcsize": lambda _: 8,
-                "Struct": type("Struct", (), {
-                    "__init__": lambda self, _: None,
-                    "__getattr__": lambda self, attr: (lambda *args: __import__("_cpython_struct"))
-                })
-            },
-            owner_globals=owner_globals)
+async def worker(i, fut):
+    await asyncio.sleep(0)
+    value = await fut
+    return value + i
 
-__initialize__(globals())
 
-del __initialize__
+async def main(num):
+    loop = asyncio.get_running_loop()
+    futures = [loop.create_future() for _ in range(num)]
+    tasks = [asyncio.ensure_future(worker(i, f)) for i, f in enumerate(futures)]
+    for i, f in enumerate(futures):
+        loop.call_soon(f.set_result, i)
+    results = await asyncio.gather(*tasks)
+    return sum(results)
+
+
+def measure(num):
+    return asyncio.run(main(num))
+
+
+def __benchmark__(num=100_000):
+    return measure(num)
@@ -0,0 +1,108 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+# Measures the cost of passing Python objects to C and back. Every call
+# converts its argument to a native pointer and the result back to the same
+# Python object.
+
+code = """
+#include "Python.h"
+
+static PyObject* identity(PyObject* self, PyObject* arg) {
+    Py_INCREF(arg);
+    return arg;
+}
+
+static PyObject* first(PyObject* self, PyObject* args) {
+    PyObject* result = PyTuple_GetItem(args, 0);
+    Py_XINCREF(result);
+    return result;
+}
+
+static struct PyMethodDef module_methods[] = {
+    {"identity", identity, METH_O, NULL},
+    {"first", first, METH_VARARGS, NULL},
+    {NULL, NULL, 0, NULL}
+};
+
+static PyModuleDef c_managed_roundtrip_module = {
+    PyModuleDef_HEAD_INIT,
+    "c_managed_roundtrip",
+    "",
+    -1,
+    module_methods,
+    NULL, NULL, NULL, NULL
+};
+
+PyMODINIT_FUNC
+PyInit_c_managed_roundtrip(void)
+{
+    return PyModule_Create(&c_managed_roundtrip_module);
+}
+
+"""
+
+
+ccompile("c_managed_roundtrip", code)
+import c_managed_roundtrip
+
+
+class Item:
+    def __init__(self, i):
+        self.i = i
+
+
+def roundtrip(num, size):
+    identity = c_managed_roundtrip.identity
+    first = c_managed_roundtrip.first
+    items = [Item(i) for i in range(size)]
+    total = 0
+    for i in range(num):
+        item = items[(i * 7919) % size]
+        total += identity(item).i
+        total += first(item, None, i).i
+    return total
+
+
+def measure(num, size):
+    print(roundtrip(num, size))
+
+
+def __benchmark__(num=5_000_000, size=100_000):
+    measure(num, size)
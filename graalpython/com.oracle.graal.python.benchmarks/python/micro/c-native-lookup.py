@@ -0,0 +1,189 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+# Measures the cost of converting pointers to native objects back to Python
+# objects. Every call to "get" looks up the Python object of a native object in
+# the native lookup table.
+
+code = """
+#include "Python.h"
+
+typedef struct {
+    PyObject_HEAD;
+    int64_t payload;
+} NativeTypeObject;
+
+static PyTypeObject NativeType = {
+    PyVarObject_HEAD_INIT(NULL, 0)
+        "c_native_lookup.NativeType",
+    sizeof(NativeTypeObject),       /* tp_basicsize */
+    0,                              /* tp_itemsize */
+    0,                              /* tp_dealloc */
+    0,
+    0,
+    0,
+    0,                              /* tp_reserved */
+    0,
+    0,
+    0,
+    0,
+    0,
+    0,
+    0,
+    0,
+    0,
+    0,
+    Py_TPFLAGS_DEFAULT,
+    0,
+    0,                              /* tp_traverse */
+    0,                              /* tp_clear */
+    0,                              /* tp_richcompare */
+    0,                              /* tp_weaklistoffset */
+    0,                              /* tp_iter */
+    0,                              /* tp_iternext */
+    0,                              /* tp_methods */
+    NULL,                           /* tp_members */
+    0,                              /* tp_getset */
+    0,                              /* tp_base */
+    0,                              /* tp_dict */
+    0,                              /* tp_descr_get */
+    0,                              /* tp_descr_set */
+    0,                              /* tp_dictoffset */
+    0,                              /* tp_init */
+    PyType_GenericAlloc,            /* tp_alloc */
+    PyType_GenericNew,              /* tp_new */
+    PyObject_Del,                   /* tp_free */
+};
+
+static PyObject** items = NULL;
+static Py_ssize_t n_items = 0;
+
+static PyObject* fill(PyObject* self, PyObject* arg) {
+    Py_ssize_t i, n = PyLong_AsSsize_t(arg);
+    if (n < 0) {
+        return NULL;
+    }
+    items = (PyObject**) PyMem_Malloc(n * sizeof(PyObject*));
+    if (items == NULL) {
+        return PyErr_NoMemory();
+    }
+    for (i = 0; i < n; i++) {
+        items[i] = PyType_GenericNew(&NativeType, NULL, NULL);
+        if (items[i] == NULL) {
+            return NULL;
+        }
+        ((NativeTypeObject*) items[i])->payload = i;
+    }
+    n_items = n;
+    Py_RETURN_NONE;
+}
+
+static PyObject* get(PyObject* self, PyObject* arg) {
+    Py_ssize_t i = PyLong_AsSsize_t(arg);
+    if (i < 0 || i >= n_items) {
+        PyErr_SetString(PyExc_IndexError, "index out of range");
+        return NULL;
+    }
+    Py_INCREF(items[i]);
+    return items[i];
+}
+
+static struct PyMethodDef module_methods[] = {
+    {"fill", fill, METH_O, NULL},
+    {"get", get, METH_O, NULL},
+    {NULL, NULL, 0, NULL}
+};
+
+static PyModuleDef c_native_lookup_module = {
+    PyModuleDef_HEAD_INIT,
+    "c_native_lookup",
+    "",
+    -1,
+    module_methods,
+    NULL, NULL, NULL, NULL
+};
+
+PyMODINIT_FUNC
+PyInit_c_native_lookup(void)
+{
+    PyObject* m;
+
+    if (PyType_Ready(&NativeType) < 0)
+        return NULL;
+
+    m = PyModule_Create(&c_native_lookup_module);
+    if (m == NULL)
+        return NULL;
+
+    Py_INCREF(&NativeType);
+    PyModule_AddObject(m, "NativeType", (PyObject *)&NativeType);
+    return m;
+}
+
+"""
+
+
+ccompile("c_native_lookup", code)
+import c_native_lookup
+
+
+def lookup(num, size):
+    get = c_native_lookup.get
+    # keep all objects alive on the Python side, so the lookup table is populated
+    objs = [get(i) for i in range(size)]
+    last = None
+    for i in range(num):
+        last = get((i * 7919) % size)
+    return len(objs), last
+
+
+filled = 0
+
+
+def measure(num, size):
+    global filled
+    if filled < size:
+        c_native_lookup.fill(size)
+        filled = size
+    count, last = lookup(num, size)
+    print(count, type(last).__name__)
+
+
+def __benchmark__(num=10_000_000, size=100_000):
+    measure(num, size)
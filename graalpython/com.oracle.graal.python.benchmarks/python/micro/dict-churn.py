@@ -0,0 +1,99 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+from collections import OrderedDict
+
+# Insert/delete churn, the removed entries must not pile up and force the
+# dict to rehash over and over again. Dicts with only int keys use a
+# specialized storage, so the keys are strs and objects.
+
+
+class Key:
+    def __init__(self, value):
+        self.value = value
+
+    def __hash__(self):
+        return hash(self.value)
+
+    def __eq__(self, other):
+        return type(other) is Key and self.value == other.value
+
+
+def same_key(d, num):
+    for i in range(num):
+        d['churn'] = i
+        del d['churn']
+
+
+def lru(cache, num, capacity, keys):
+    # LRU cache on top of OrderedDict: hits move the key to the end, misses
+    # evict the least recently used key
+    hits = 0
+    for i in range(num):
+        # every other access goes to a small hot set of keys
+        key = keys[(i * 7) % (capacity * 2) if i % 2 else i % 50]
+        if key in cache:
+            cache.move_to_end(key)
+            hits += 1
+        else:
+            cache[key] = i
+            if len(cache) > capacity:
+                cache.popitem(last=False)
+    return hits
+
+
+def fifo(d, num, keys):
+    # plain dict used as a FIFO cache: delete the oldest, insert a new key.
+    # The keys are reused in a cycle twice as long as the dict, so a key is
+    # always inserted some time after it was deleted.
+    for i in range(len(d), len(d) + num):
+        del d[next(iter(d))]
+        d[keys[i % len(keys)]] = i
+
+
+def measure(num):
+    str_keys = ['key%d' % i for i in range(200)]
+    d = {k: i for i, k in enumerate(str_keys[:100])}
+    same_key(d, num)
+    fifo(d, num, str_keys)
+    return lru(OrderedDict(), num, 1000, [Key(i) for i in range(2000)])
+
+
+def __benchmark__(num=1_000_000):
+    return measure(num)
@@ -0,0 +1,86 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+# Allocates and keeps alive dicts and sets of 8, 1k and 1M entries, roughly the
+# same number of entries for each size. Memory per entry shows up in the
+# allocation rate and the GC time. Dicts with only int keys use a specialized
+# storage, so str and object keys are measured as well.
+SIZES = (8, 1_000, 1_000_000)
+
+
+class Key:
+    def __init__(self, value):
+        self.value = value
+
+    def __hash__(self):
+        return hash(self.value)
+
+    def __eq__(self, other):
+        return type(other) is Key and self.value == other.value
+
+
+KEY_FACTORIES = (int, str, Key)
+_keys = {}
+
+
+def make_keys(factory, size):
+    keys = _keys.get((factory, size))
+    if keys is None:
+        keys = _keys[(factory, size)] = [factory(i) for i in range(size)]
+    return keys
+
+
+def allocate(keys, total):
+    alive = []
+    for i in range(max(1, total // len(keys))):
+        alive.append(dict.fromkeys(keys, i))
+        alive.append(set(keys))
+    return alive
+
+
+def measure(num):
+    result = 0
+    for factory in KEY_FACTORIES:
+        for size in SIZES:
+            result += len(allocate(make_keys(factory, size), num))
+    return result
+
+
+def __benchmark__(num=2_000_000):
+    return measure(num)
@@ -0,0 +1,84 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+import threading
+import time
+
+
+def cpu_bound(stop, counts, idx):
+    n = 0
+    while not stop.is_set():
+        for i in range(1000):
+            n += i % 7
+    counts[idx] = n
+
+
+def io_bound(num, delay, latencies, idx):
+    worst = 0.0
+    total = 0.0
+    for _ in range(num):
+        start = time.perf_counter()
+        time.sleep(delay)
+        # how long it took to get the GIL back after the sleep ended
+        late = time.perf_counter() - start - delay
+        total += late
+        worst = max(worst, late)
+    latencies[idx] = (total, worst)
+
+
+def measure(num, cpu_threads, io_threads, delay):
+    stop = threading.Event()
+    counts = [0] * cpu_threads
+    latencies = [None] * io_threads
+    cpu = [threading.Thread(target=cpu_bound, args=(stop, counts, i)) for i in range(cpu_threads)]
+    io = [threading.Thread(target=io_bound, args=(num, delay, latencies, i)) for i in range(io_threads)]
+    for t in cpu + io:
+        t.start()
+    for t in io:
+        t.join()
+    stop.set()
+    for t in cpu:
+        t.join()
+    total = sum(l[0] for l in latencies)
+    worst = max(l[1] for l in latencies)
+    print("mean wakeup latency %.3f ms, worst %.3f ms" % (total * 1000 / (num * io_threads), worst * 1000))
+
+
+def __benchmark__(num=200, cpu_threads=2, io_threads=2):
+    measure(num, cpu_threads, io_threads, 0.001)
@@ -0,0 +1,77 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+# Scans a memory mapped file with find, slicing and a memoryview.
+import atexit
+import mmap
+import os
+import tempfile
+
+CHUNK = b'abcdefghijklmnopqrstuvwxyz012345' * 32768  # 1 MiB
+NEEDLE = b'needle'
+_path = None
+
+
+def get_file(megabytes):
+    global _path
+    if _path is None:
+        fd, _path = tempfile.mkstemp(prefix='mmap-scan')
+        atexit.register(os.unlink, _path)
+        with os.fdopen(fd, 'wb') as f:
+            for _ in range(megabytes):
+                f.write(CHUNK)
+            f.write(NEEDLE)
+    return _path
+
+
+def measure(megabytes):
+    step = len(CHUNK)
+    with open(get_file(megabytes), 'rb') as f:
+        with mmap.mmap(f.fileno(), 0, access=mmap.ACCESS_READ) as m:
+            total = m.find(NEEDLE)
+            for offset in range(0, len(m), step):
+                total += m[offset:offset + step].count(b'z')
+            view = memoryview(m)
+            total += sum(view[offset] for offset in range(0, len(m), 4096))
+            view.release()
+    return total
+
+
+def __benchmark__(megabytes=64):
+    return measure(megabytes)
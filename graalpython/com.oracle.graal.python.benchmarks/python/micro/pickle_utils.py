@@ -52,9 +52,9 @@ def get_pickler(module):
         dumps = pickle.dumps
         loads = pickle.loads
     elif module == "cPickle":
-        import cPickle
-        dumps = cPickle.dumps
-        loads = cPickle.loads
+        import _pickle
+        dumps = _pickle.dumps
+        loads = _pickle.loads
     return dumps, loads
 
 
@@ -0,0 +1,73 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+import re
+
+LINE = re.compile(r'(?P<ip>\d+\.\d+\.\d+\.\d+) - - \[(?P<time>[^\]]+)\] "(?P<method>\w+) (?P<path>\S+) HTTP/1\.\d" (?P<status>\d{3}) (?P<size>\d+)')
+PARAM = re.compile(r'(\w+)=(\w*)')
+SEPARATOR = re.compile(r'[/?&]')
+IP = re.compile(r'(\d+)\.(\d+)\.(\d+)\.\d+')
+
+
+def make_log(size):
+    lines = []
+    for i in range(size):
+        lines.append('10.0.%d.%d - - [17/Oct/2023:10:%02d:%02d +0000] "GET /api/v%d/items?id=%d&page=%d&sort= HTTP/1.1" %d %d' % (
+            i % 256, i % 97, i % 60, i % 59, i % 3, i, i % 10, 200 if i % 7 else 404, i * 13 % 5000))
+    return '\n'.join(lines)
+
+
+def parse(log):
+    statuses = {}
+    total = 0
+    for m in LINE.finditer(log):
+        status = m.group('status')
+        statuses[status] = statuses.get(status, 0) + int(m['size'])
+        path = m.group('path')
+        total += len(PARAM.findall(path))
+        total += len(SEPARATOR.split(path))
+        total += len(IP.sub(r'\1.\2.\3.0', m.group('ip')))
+    return total, statuses
+
+
+def __benchmark__(num=200, size=2000):
+    log = make_log(size)
+    for i in range(num):
+        result = parse(log)
+    print(result)
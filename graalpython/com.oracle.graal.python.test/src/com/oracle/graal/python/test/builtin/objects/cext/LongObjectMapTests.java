@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.test.builtin.objects.cext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.oracle.graal.python.builtins.objects.cext.common.LongObjectMap;
+
+public class LongObjectMapTests {
+
+    /**
+     * Home slot of a key in a map of the minimum capacity (16 slots). This mirrors the Fibonacci
+     * hashing of {@link LongObjectMap} and is used to construct collisions.
+     */
+    private static int homeSlot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 60);
+    }
+
+    private static long[] keysWithHomeSlot(int slot, int count) {
+        long[] result = new long[count];
+        int n = 0;
+        for (long key = 8; n < count; key += 8) {
+            if (homeSlot(key) == slot) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void putAndGet() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put(16, "a"));
+        assertNull(map.put(32, "b"));
+        assertEquals("a", map.get(16));
+        assertEquals("b", map.get(32));
+        assertNull(map.get(48));
+        assertTrue(map.containsKey(32));
+        assertFalse(map.containsKey(48));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void overwrite() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(16, "a");
+        assertEquals("a", map.put(16, "b"));
+        assertEquals("b", map.get(16));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void removeShiftsBackAcrossWraparound() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        // three keys that all want the last slot, so the probe sequence wraps to slots 0 and 1
+        long[] last = keysWithHomeSlot(15, 3);
+        // a key whose home slot is 0, displaced to slot 2 by the wrapped entries
+        long first = keysWithHomeSlot(0, 1)[0];
+        for (long key : last) {
+            map.put(key, Long.toString(key));
+        }
+        map.put(first, Long.toString(first));
+
+        assertEquals(Long.toString(last[0]), map.remove(last[0]));
+        assertNull(map.remove(last[0]));
+        assertEquals(3, map.size());
+        assertFalse(map.containsKey(last[0]));
+        for (long key : new long[]{last[1], last[2], first}) {
+            assertEquals(Long.toString(key), map.get(key));
+        }
+
+        assertEquals(Long.toString(last[1]), map.remove(last[1]));
+        assertEquals(Long.toString(last[2]), map.get(last[2]));
+        assertEquals(Long.toString(first), map.get(first));
+        assertEquals(Long.toString(first), map.remove(first));
+        assertEquals(Long.toString(last[2]), map.get(last[2]));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void trimKeepsEntries() {
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        for (long i = 1; i <= 10000; i++) {
+            map.put(i * 16, i);
+        }
+        for (long i = 1; i <= 10000; i++) {
+            if (i % 100 != 0) {
+                map.remove(i * 16);
+            }
+        }
+        map.trim();
+        assertEquals(100, map.size());
+        for (long i = 1; i <= 10000; i++) {
+            if (i % 100 == 0) {
+                assertEquals(Long.valueOf(i), map.get(i * 16));
+            } else {
+                assertFalse(map.containsKey(i * 16));
+            }
+        }
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertEquals(100, keys.length);
+        assertEquals(1600, keys[0]);
+        assertEquals(160000, keys[99]);
+    }
+
+    @Test
+    public void randomizedAgainstHashMap() {
+        Random random = new Random(42);
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            long key = (random.nextInt(2000) + 1) * 16L;
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+                    break;
+                case 2:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), map.get(key));
+                    break;
+            }
+            if (i % 10000 == 0) {
+                map.trim();
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Long> e : expected.entrySet()) {
+            assertEquals(e.getValue(), map.get(e.getKey()));
+        }
+    }
+}
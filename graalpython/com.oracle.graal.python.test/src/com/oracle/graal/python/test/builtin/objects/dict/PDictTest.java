@@ -51,6 +51,7 @@ import org.junit.Test;
 import com.oracle.graal.python.builtins.objects.common.EconomicMapStorage;
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageDelItem;
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageLen;
+import com.oracle.graal.python.builtins.objects.common.LongKeyStorage;
 import com.oracle.graal.python.builtins.objects.dict.PDict;
 import com.oracle.graal.python.runtime.object.PythonObjectFactory;
 import com.oracle.graal.python.test.PythonTests;
@@ -93,9 +94,10 @@ public class PDictTest {
     public void economicMapStorageSet() {
         PDict dict = PythonObjectFactory.getUncached().createDict();
         dict.setItem(11, ts("abc"));
-        assertTrue(dict.getDictStorage() instanceof EconomicMapStorage);
+        assertTrue(dict.getDictStorage() instanceof LongKeyStorage);
 
         dict.setItem(ts("key1"), 42);
+        assertTrue(dict.getDictStorage() instanceof EconomicMapStorage);
         assertEquals(2, length(dict));
 
         assertEquals(42, dict.getItem(ts("key1")));
@@ -117,4 +119,23 @@ public class PDictTest {
 
         assertNull(dict.getItem(ts("key2")));
     }
+
+    @Test
+    public void longKeyStorage() {
+        PDict dict = PythonObjectFactory.getUncached().createDict();
+        for (int i = 0; i < 100; i++) {
+            dict.setItem(i, i * 2);
+        }
+        dict.setItem(Long.MAX_VALUE, 1);
+        assertTrue(dict.getDictStorage() instanceof LongKeyStorage);
+        assertEquals(101, length(dict));
+        assertEquals(84, dict.getItem(42));
+        assertEquals(84, dict.getItem(42L));
+        assertEquals(1, dict.getItem(Long.MAX_VALUE));
+
+        delItem(dict, 42);
+        assertNull(dict.getItem(42));
+        assertEquals(100, length(dict));
+        assertTrue(dict.getDictStorage() instanceof LongKeyStorage);
+    }
 }
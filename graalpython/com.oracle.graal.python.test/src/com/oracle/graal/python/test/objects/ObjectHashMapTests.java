@@ -55,6 +55,7 @@ import java.util.stream.Collectors;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.oracle.graal.python.builtins.objects.PNone;
 import com.oracle.graal.python.builtins.objects.common.EconomicMapStorage;
 import com.oracle.graal.python.builtins.objects.common.HashingStorage;
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageForEach;
@@ -185,6 +186,120 @@ public class ObjectHashMapTests {
         }
     }
 
+    @Test
+    public void testDummyBucketReuseKeepsCollisionChains() {
+        ObjectHashMap map = new ObjectHashMap();
+        LinkedHashMap<DictKey, Object> expected = new LinkedHashMap<>();
+        DictKey[] keys = new DictKey[5];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new DictKey(42);
+            Object value = newValue();
+            put(map, keys[i], 42, value);
+            expected.put(keys[i], value);
+        }
+        for (int i = 0; i < 20; i++) {
+            // remove from the middle of the chain and put a new colliding key, which takes over the
+            // dummy bucket, the rest of the chain must remain reachable
+            DictKey toRemove = expected.keySet().stream().skip(1).findFirst().get();
+            remove(map, toRemove, 42);
+            expected.remove(toRemove);
+            DictKey toPut = new DictKey(42);
+            Object value = newValue();
+            put(map, toPut, 42, value);
+            expected.put(toPut, value);
+            assertEqual(i, expected, map);
+        }
+    }
+
+    @Test
+    public void testLruChurn() {
+        ObjectHashMap map = new ObjectHashMap();
+        LinkedHashMap<Long, Object> expected = new LinkedHashMap<>();
+        for (long key = 0; key < 10_000; key++) {
+            Object value = newValue();
+            put(map, key, PyObjectHashNode.hash(key), value);
+            expected.put(key, value);
+            if (expected.size() > 50) {
+                long oldest = expected.keySet().iterator().next();
+                remove(map, oldest, PyObjectHashNode.hash(oldest));
+                expected.remove(oldest);
+            }
+            if (key % 997 == 0) {
+                assertEqual(Long.toString(key), expected, map);
+            }
+        }
+        assertEqual("end", expected, map);
+    }
+
+    @Test
+    public void testIndicesWidthTransitions() {
+        // grows through 1, 2 and 4 bytes wide indices and then shrinks back on removal + rehash
+        ObjectHashMap map = new ObjectHashMap();
+        LinkedHashMap<Long, Object> expected = new LinkedHashMap<>();
+        for (long key = 0; key < 40_000; key++) {
+            Object value = newValue();
+            put(map, key, PyObjectHashNode.hash(key), value);
+            expected.put(key, value);
+        }
+        assertEqual("after put", expected, map);
+        for (long key = 0; key < 39_990; key++) {
+            remove(map, key, PyObjectHashNode.hash(key));
+            expected.remove(key);
+        }
+        assertEqual("after remove", expected, map);
+        for (long key = -100; key < 0; key++) {
+            Object value = newValue();
+            put(map, key, PyObjectHashNode.hash(key), value);
+            expected.put(key, value);
+        }
+        assertEqual("after re-put", expected, map);
+    }
+
+    @Test
+    public void testCollisionsInNarrowIndices() {
+        // the collision bit must survive in all widths of the indices: all the keys fall into the
+        // same initial bucket, but the perturbation eventually sends them elsewhere
+        for (int count : new int[]{50, 1000, 30_000}) {
+            ObjectHashMap map = new ObjectHashMap();
+            LinkedHashMap<DictKey, Object> expected = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                DictKey key = new DictKey((long) i << 16);
+                Object value = newValue();
+                expected.put(key, value);
+                put(map, key, key.hash, value);
+            }
+            assertEqual(Integer.toString(count), expected, map);
+        }
+    }
+
+    @Test
+    public void testKeysOnly() {
+        ObjectHashMap map = new ObjectHashMap(0, false, true);
+        LinkedHashMap<Long, Object> expected = new LinkedHashMap<>();
+        Random rand = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            long key = rand.nextLong();
+            put(map, key, PyObjectHashNode.hash(key), PNone.NONE);
+            expected.put(key, PNone.NONE);
+        }
+        Long[] keys = expected.keySet().toArray(new Long[0]);
+        for (int i = 0; i < 100; i++) {
+            remove(map, keys[i * 2], PyObjectHashNode.hash(keys[i * 2]));
+            expected.remove(keys[i * 2]);
+        }
+        assertTrue(map.isKeysOnly());
+        assertEqual("keys only", expected, map);
+        assertTrue(map.copy().isKeysOnly());
+
+        // storing something else than None switches to the regular layout
+        Object value = newValue();
+        put(map, keys[1], PyObjectHashNode.hash(keys[1]), value);
+        expected.put(keys[1], value);
+        Assert.assertFalse(map.isKeysOnly());
+        assertEqual("switched", expected, map);
+        putValues(map, expected, rand, 100);
+    }
+
     private static void testBasics(ObjectHashMap map) {
         LinkedHashMap<Long, Object> expected = new LinkedHashMap<>();
         Random rand = new Random(42);
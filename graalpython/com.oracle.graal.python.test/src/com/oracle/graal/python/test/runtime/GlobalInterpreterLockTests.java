@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.oracle.graal.python.runtime.GlobalInterpreterLock;
+
+public class GlobalInterpreterLockTests {
+
+    private static Thread startWaiter(GlobalInterpreterLock gil, boolean preempted, List<String> order, String name) throws InterruptedException {
+        Thread t = new Thread(() -> {
+            try {
+                gil.lockInterruptibly(preempted);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            order.add(name);
+            gil.unlock();
+        });
+        t.start();
+        awaitParked(t);
+        return t;
+    }
+
+    private static void awaitParked(Thread t) throws InterruptedException {
+        while (t.getState() != Thread.State.WAITING) {
+            assertTrue(t.isAlive());
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void handOff() throws InterruptedException {
+        GlobalInterpreterLock gil = new GlobalInterpreterLock(() -> Long.MAX_VALUE);
+        assertTrue(gil.tryLock());
+        assertFalse(gil.handOff());
+        assertTrue(gil.isHeldByCurrentThread());
+
+        CountDownLatch release = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                gil.lockInterruptibly(false);
+                release.await();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            gil.unlock();
+        });
+        waiter.start();
+        awaitParked(waiter);
+        assertTrue(gil.hasWaiters());
+        assertTrue(gil.handOff());
+        // the GIL is never free in between, so nobody can barge in
+        assertSame(waiter, gil.getOwner());
+        assertFalse(gil.isHeldByCurrentThread());
+        assertFalse(gil.tryLock());
+        release.countDown();
+        waiter.join();
+        assertNull(gil.getOwner());
+
+        assertTrue(gil.tryLock());
+        gil.unlock();
+    }
+
+    @Test
+    public void interruptWhileQueued() throws InterruptedException {
+        GlobalInterpreterLock gil = new GlobalInterpreterLock(() -> Long.MAX_VALUE);
+        assertTrue(gil.tryLock());
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread waiter = new Thread(() -> {
+            try {
+                gil.lockInterruptibly(false);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        waiter.start();
+        awaitParked(waiter);
+        waiter.interrupt();
+        waiter.join();
+        assertTrue(interrupted.get());
+        assertFalse(gil.hasWaiters());
+        assertSame(Thread.currentThread(), gil.getOwner());
+
+        gil.unlock();
+        assertNull(gil.getOwner());
+        assertTrue(gil.tryLock());
+        gil.unlock();
+    }
+
+    @Test
+    public void voluntaryWaitersFirst() throws InterruptedException {
+        GlobalInterpreterLock gil = new GlobalInterpreterLock(() -> Long.MAX_VALUE);
+        assertTrue(gil.tryLock());
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        Thread preempted1 = startWaiter(gil, true, order, "preempted1");
+        Thread voluntary1 = startWaiter(gil, false, order, "voluntary1");
+        Thread preempted2 = startWaiter(gil, true, order, "preempted2");
+        Thread voluntary2 = startWaiter(gil, false, order, "voluntary2");
+        gil.unlock();
+        for (Thread t : new Thread[]{preempted1, voluntary1, preempted2, voluntary2}) {
+            t.join();
+        }
+        assertEquals(List.of("voluntary1", "voluntary2", "preempted1", "preempted2"), order);
+    }
+
+    @Test
+    public void preemptedWaiterNotStarved() throws InterruptedException {
+        GlobalInterpreterLock gil = new GlobalInterpreterLock(() -> 0L);
+        assertTrue(gil.tryLock());
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        Thread preempted = startWaiter(gil, true, order, "preempted");
+        Thread.sleep(1);
+        Thread voluntary = startWaiter(gil, false, order, "voluntary");
+        gil.unlock();
+        preempted.join();
+        voluntary.join();
+        assertEquals(List.of("preempted", "voluntary"), order);
+    }
+}
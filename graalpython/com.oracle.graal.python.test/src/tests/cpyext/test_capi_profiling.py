@@ -0,0 +1,98 @@
+# Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+from . import CPyExtType, GRAALPYTHON
+
+__dir__ = __file__.rpartition("/")[0]
+
+CApiProfilingHelper = CPyExtType(
+    'CApiProfilingHelper',
+    '''
+    static PyObject* new_list(PyObject* unused, PyObject* arg) {
+        return PyList_New(PyLong_AsSsize_t(arg));
+    }
+    ''',
+    tp_methods='{"new_list", (PyCFunction)new_list, METH_O | METH_STATIC, ""}'
+)
+
+
+def total_calls():
+    return sum(entry[2] for entry in __graalpython__.capi_profile())
+
+
+class TestCApiProfiling(object):
+
+    def test_count(self):
+        if not GRAALPYTHON:
+            return
+        previous = __graalpython__.capi_profiling('count')
+        try:
+            __graalpython__.capi_profile(reset=True)
+            for i in range(10):
+                assert CApiProfilingHelper.new_list(i) == [None] * i
+            profile = __graalpython__.capi_profile()
+            assert total_calls() >= 10, profile
+            for name, direction, calls, time, allocations in profile:
+                assert isinstance(name, str)
+                assert direction in ('downcall', 'upcall'), direction
+                # only the 'time' mode measures time
+                assert time == 0, profile
+
+            __graalpython__.capi_profile(reset=True)
+            assert total_calls() == 0
+
+            assert __graalpython__.capi_profiling('none') == 'count'
+            CApiProfilingHelper.new_list(1)
+            assert total_calls() == 0
+        finally:
+            __graalpython__.capi_profiling(previous)
+
+    def test_time(self):
+        if not GRAALPYTHON:
+            return
+        previous = __graalpython__.capi_profiling('time')
+        try:
+            __graalpython__.capi_profile(reset=True)
+            for i in range(10):
+                CApiProfilingHelper.new_list(i)
+            profile = __graalpython__.capi_profile()
+            assert total_calls() >= 10, profile
+            assert sum(entry[3] for entry in profile) > 0, profile
+        finally:
+            __graalpython__.capi_profiling(previous)
@@ -37,6 +37,7 @@
 # OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
 # SOFTWARE.
 
+import subprocess
 import sys
 import weakref
 
@@ -63,6 +64,23 @@ TestWeakRefHelper = CPyExtType(
 )
 helper = TestWeakRefHelper()
 
+TestWeakRefDealloc = CPyExtType(
+    'TestWeakRefDealloc',
+    '''
+    static void wrd_dealloc(TestWeakRefDeallocObject* self) {
+        if (self->weakreflist != NULL) {
+            PyObject_ClearWeakRefs((PyObject*) self);
+        }
+        printf("TestWeakRefDealloc deallocated\\n");
+        fflush(stdout);
+        Py_TYPE(self)->tp_free((PyObject*) self);
+    }
+    ''',
+    cmembers='PyObject* weakreflist;',
+    tp_dealloc='(destructor) wrd_dealloc',
+    ready_code='TestWeakRefDeallocType.tp_weaklistoffset = offsetof(TestWeakRefDeallocObject, weakreflist);',
+)
+
 class TestWeakRef(object):
     
     def test_simple(self):
@@ -97,3 +115,11 @@ class TestWeakRef(object):
         x = Bar()
         y = weakref.ref(x)
         assert type(y) == weakref.ReferenceType
+
+    def test_native_weakref_dealloc_at_exit(self):
+        # a native object with a weak reference that is still alive at exit must be deallocated
+        code = ("import sys, weakref; sys.path.insert(0, %r); "
+                "from TestWeakRefDealloc import TestWeakRefDealloc; "
+                "x = TestWeakRefDealloc(); r = weakref.ref(x)") % __dir__
+        out = subprocess.check_output([sys.executable, "-c", code])
+        assert b"TestWeakRefDealloc deallocated" in out, out
@@ -0,0 +1,156 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+import asyncio
+import unittest
+
+
+class FutureTests(unittest.TestCase):
+    def setUp(self):
+        self.loop = asyncio.new_event_loop()
+
+    def tearDown(self):
+        self.loop.close()
+
+    def test_result_and_callbacks(self):
+        fut = self.loop.create_future()
+        self.assertIsInstance(fut, asyncio.Future)
+        self.assertFalse(fut.done())
+        self.assertRaises(asyncio.InvalidStateError, fut.result)
+        seen = []
+        fut.add_done_callback(seen.append)
+        fut.add_done_callback(print)
+        self.assertEqual(fut.remove_done_callback(print), 1)
+        fut.set_result(42)
+        self.assertRaises(asyncio.InvalidStateError, fut.set_result, 1)
+        self.assertEqual(fut.result(), 42)
+        self.assertIsNone(fut.exception())
+        self.assertEqual(seen, [])
+        self.loop.run_until_complete(asyncio.sleep(0))
+        self.assertEqual(seen, [fut])
+
+    def test_exception(self):
+        fut = self.loop.create_future()
+        fut.set_exception(ValueError)
+        self.assertIsInstance(fut.exception(), ValueError)
+        self.assertRaises(ValueError, fut.result)
+        fut = self.loop.create_future()
+        self.assertRaises(TypeError, fut.set_exception, StopIteration())
+
+    def test_cancel(self):
+        fut = self.loop.create_future()
+        self.assertTrue(fut.cancel(msg="stop"))
+        self.assertTrue(fut.cancelled())
+        self.assertFalse(fut.cancel())
+        with self.assertRaises(asyncio.CancelledError) as cm:
+            fut.result()
+        self.assertEqual(cm.exception.args, ("stop",))
+
+    def test_await(self):
+        async def waiter(fut):
+            return await fut + 1
+
+        fut = self.loop.create_future()
+        self.loop.call_soon(fut.set_result, 1)
+        self.assertEqual(self.loop.run_until_complete(waiter(fut)), 2)
+
+
+class TaskTests(unittest.TestCase):
+    def test_gather(self):
+        async def work(i):
+            await asyncio.sleep(0)
+            return i * 2
+
+        async def main():
+            return await asyncio.gather(*[asyncio.create_task(work(i)) for i in range(100)])
+
+        self.assertEqual(asyncio.run(main()), [i * 2 for i in range(100)])
+
+    def test_current_task_and_name(self):
+        async def main():
+            task = asyncio.current_task()
+            self.assertIsInstance(task, asyncio.Task)
+            self.assertIn(task, asyncio.all_tasks())
+            task.set_name("main-task")
+            return task.get_name()
+
+        self.assertEqual(asyncio.run(main()), "main-task")
+
+    def test_cancel_task(self):
+        async def sleeper():
+            await asyncio.sleep(10)
+
+        async def main():
+            task = asyncio.create_task(sleeper())
+            await asyncio.sleep(0)
+            task.cancel()
+            with self.assertRaises(asyncio.CancelledError):
+                await task
+            return task.cancelled()
+
+        self.assertTrue(asyncio.run(main()))
+
+    def test_exception_propagates(self):
+        async def failing():
+            await asyncio.sleep(0)
+            raise KeyError("x")
+
+        async def main():
+            with self.assertRaises(KeyError):
+                await asyncio.create_task(failing())
+
+        asyncio.run(main())
+
+    def test_bad_yield(self):
+        class Bad:
+            def __await__(self):
+                yield 1
+
+        async def main():
+            with self.assertRaisesRegex(RuntimeError, "bad yield"):
+                await Bad()
+
+        asyncio.run(main())
+
+    def test_not_a_coroutine(self):
+        loop = asyncio.new_event_loop()
+        try:
+            self.assertRaises(TypeError, asyncio.Task, 42, loop=loop)
+        finally:
+            loop.close()
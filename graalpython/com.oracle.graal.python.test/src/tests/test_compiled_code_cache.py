@@ -0,0 +1,139 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+
+import os
+import shutil
+import subprocess
+import sys
+import tempfile
+import unittest
+
+
+@unittest.skipUnless(sys.implementation.name == 'graalpy' and os.name == 'posix', 'GraalPy compiled code cache')
+class CompiledCodeCacheTest(unittest.TestCase):
+
+    def setUp(self):
+        self.tmp = tempfile.mkdtemp()
+        self.addCleanup(shutil.rmtree, self.tmp, ignore_errors=True)
+        self.cache = os.path.join(self.tmp, 'cache')
+        self.src = os.path.join(self.tmp, 'src')
+        os.mkdir(self.src)
+        # the stdlib modules imported at startup are cached too
+        self.run_code('pass')
+        self.known = self.entries()
+
+    def run_code(self, code):
+        return subprocess.run([sys.executable, '--python.CompiledCodeCache=true', '--python.CompiledCodeCacheDir=' + self.cache, '-c', code],
+                              cwd=self.src, capture_output=True, text=True, check=True).stdout
+
+    def entries(self):
+        result = set()
+        for root, _, files in os.walk(self.cache):
+            result.update(os.path.join(root, f) for f in files if f.endswith('.gpyc'))
+        return result
+
+    def add_module(self, name, source):
+        with open(os.path.join(self.src, name + '.py'), 'w') as f:
+            f.write(source)
+        output = self.run_code('import ' + name)
+        new = self.entries() - self.known
+        self.known |= new
+        return output, new
+
+    def cached_module(self, name, source):
+        output, new = self.add_module(name, source)
+        self.assertEqual(1, len(new))
+        return output, new.pop()
+
+    def test_miss_and_hit(self):
+        output, entry_a = self.cached_module('mod_a', 'print("a")')
+        self.assertEqual('a\n', output)
+        output, entry_b = self.cached_module('mod_b', 'print("b")')
+        self.assertEqual('b\n', output)
+        self.assertEqual('b\n', self.run_code('import mod_b'))
+        # a hit uses the entry instead of the source, so mod_b now runs the code of mod_a
+        shutil.copyfile(entry_a, entry_b)
+        self.assertEqual('a\n', self.run_code('import mod_b'))
+
+    def test_stale_version(self):
+        _, entry = self.cached_module('mod_a', 'print("a")')
+        with open(entry, 'rb') as f:
+            data = f.read()
+        header_end = data.index(b'\n') + 1
+        with open(entry, 'wb') as f:
+            f.write(b'GPYCODE 0.0.0-stale\n' + data[header_end:])
+        self.assertEqual('a\n', self.run_code('import mod_a'))
+        with open(entry, 'rb') as f:
+            self.assertEqual(data, f.read())
+
+    def test_corrupt_entry_evicted(self):
+        _, entry = self.cached_module('mod_a', 'print("a")')
+        with open(entry, 'rb') as f:
+            data = f.read()
+        header_end = data.index(b'\n') + 1
+        with open(entry, 'wb') as f:
+            f.write(data[:header_end] + b'\xff garbage')
+        self.assertEqual('a\n', self.run_code('import mod_a'))
+        with open(entry, 'rb') as f:
+            self.assertEqual(data, f.read())
+
+    def test_not_cached_with_warnings(self):
+        output, new = self.add_module('mod_w', 'x = "\\d"\nprint("w")\n')
+        self.assertEqual('w\n', output)
+        self.assertEqual(set(), new)
+
+    def test_writable_entry_ignored(self):
+        _, entry_a = self.cached_module('mod_a', 'print("a")')
+        _, entry_b = self.cached_module('mod_b', 'print("b")')
+        shutil.copyfile(entry_a, entry_b)
+        os.chmod(entry_b, 0o620)
+        self.assertEqual('b\n', self.run_code('import mod_b'))
+
+    def test_shared_directory_rejected(self):
+        _, entry_a = self.cached_module('mod_a', 'print("a")')
+        _, entry_b = self.cached_module('mod_b', 'print("b")')
+        shutil.copyfile(entry_a, entry_b)
+        os.chmod(self.cache, 0o777)
+        self.assertEqual('b\n', self.run_code('import mod_b'))
+        _, new = self.add_module('mod_c', 'print("c")')
+        self.assertEqual(set(), new)
+
+
+if __name__ == '__main__':
+    unittest.main()
@@ -629,3 +629,43 @@ class TestBasic(unittest.TestCase):
         klass = type(reversed(deque()))
         for s in ('abcd', range(2000)):
             self.assertEqual(list(klass(deque(s))), list(reversed(s)))
+
+    def test_wraparound(self):
+        # exercise the deque after its items wrapped around the end of the underlying array
+        for maxlen in (None, 5, 8, 13):
+            d = deque(maxlen=maxlen)
+            ref = []
+            for i in range(100):
+                if i % 3 == 0:
+                    d.appendleft(i)
+                    ref.insert(0, i)
+                    if maxlen is not None and len(ref) > maxlen:
+                        ref.pop()
+                else:
+                    d.append(i)
+                    ref.append(i)
+                    if maxlen is not None and len(ref) > maxlen:
+                        ref.pop(0)
+                if i % 7 == 0 and ref:
+                    d.popleft()
+                    ref.pop(0)
+                self.assertEqual(list(d), ref)
+                self.assertEqual([d[j] for j in range(-len(d), len(d))], ref + ref)
+            for n in (1, -2, 3, len(ref), -len(ref) - 1):
+                d.rotate(n)
+                k = n % len(ref)
+                ref = ref[-k:] + ref[:-k] if k else ref
+                self.assertEqual(list(d), ref)
+            if maxlen is None or len(d) < maxlen:
+                d.insert(2, 'x')
+                ref.insert(2, 'x')
+                d.insert(-1, 'y')
+                ref.insert(-1, 'y')
+            del d[1]
+            del ref[1]
+            del d[-2]
+            del ref[-2]
+            d.reverse()
+            ref.reverse()
+            self.assertEqual(list(d), ref)
+            self.assertEqual(list(reversed(d)), ref[::-1])
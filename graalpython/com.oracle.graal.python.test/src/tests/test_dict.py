@@ -1267,3 +1267,125 @@ def test_dict_values_eq():
     d1 = {1: 1, 2: 2, 4: 4}
     assert d1.values() != d1.values()
 
+
+
+def test_int_keys():
+    big = 2 ** 62
+    keys = [0, 1, -1, -2, 42, big, -big, 2 ** 61 - 1, 2 ** 61, 2 ** 31, -2 ** 31 - 1]
+    d = {}
+    for i, k in enumerate(keys):
+        d[k] = i
+    assert list(d) == keys
+    assert list(reversed(d)) == list(reversed(keys))
+    for i, k in enumerate(keys):
+        assert d[k] == i
+        assert hash(next(key for key in d if key == k)) == hash(k)
+    # -1 and -2 have the same hash, so do 2**61-1 and 0
+    del d[-1]
+    assert -1 not in d and d[-2] == 3
+    del d[2 ** 61 - 1]
+    assert d[0] == 0
+    d[-1] = 'again'
+    assert list(d)[-1] == -1
+    assert d.copy() == d
+    assert d.pop(big) == 5 and big not in d
+    d.clear()
+    assert len(d) == 0 and 1 not in d
+    d[1] = 1
+    assert d == {1: 1}
+
+
+def test_int_keys_other_equal_keys():
+    d = {1: 'a', 2: 'b', 3: 'c'}
+    assert d[True] == 'a' and d[1.0] == 'a' and d[2.0] == 'b'
+    assert 1.5 not in d and None not in d and 'a' not in d
+    assert d.get(3.0) == 'c'
+    # pop with a key that is not an int must find the int key
+    assert d.pop(2.0) == 'b'
+    assert list(d.items()) == [(1, 'a'), (3, 'c')]
+    # setting a key that is equal to an int keeps the original key and order
+    d[True] = 'x'
+    d['s'] = 's'
+    d[4] = 'd'
+    assert list(d.items()) == [(1, 'x'), (3, 'c'), ('s', 's'), (4, 'd')]
+    assert type(list(d)[0]) is int
+
+    class IntLike:
+        def __init__(self, value):
+            self.value = value
+            self.eq_calls = 0
+
+        def __hash__(self):
+            return hash(self.value)
+
+        def __eq__(self, other):
+            self.eq_calls += 1
+            return other == self.value
+
+    d = {i: i * 10 for i in range(100)}
+    key = IntLike(42)
+    assert d[key] == 420
+    assert key.eq_calls == 1
+    del d[key]
+    assert 42 not in d and len(d) == 99
+
+
+def test_int_keys_mutation_in_eq():
+    class Key:
+        def __init__(self, d):
+            self.d = d
+
+        def __hash__(self):
+            return 1
+
+        def __eq__(self, other):
+            # forces reallocation of the storage
+            for i in range(100, 200):
+                self.d[i] = i
+            return other == 1
+
+    d = {1: 'one', 2: 'two'}
+    assert d[Key(d)] == 'one'
+    assert len(d) == 102
+
+
+def test_int_keys_generalized_in_eq():
+    class Key:
+        def __init__(self, d, remove_one=False):
+            self.d = d
+            self.remove_one = remove_one
+
+        def __hash__(self):
+            return 1
+
+        def __eq__(self, other):
+            if self.d is not None:
+                d, self.d = self.d, None
+                # replaces the int keys storage with a generic one
+                d['s'] = 's'
+                if self.remove_one:
+                    del d[1]
+            return other == 1
+
+    d = {1: 'one', 2: 'two'}
+    del d[Key(d)]
+    assert d == {2: 'two', 's': 's'}
+
+    d = {1: 'one', 2: 'two'}
+    assert d.pop(Key(d)) == 'one'
+    assert list(d.items()) == [(2, 'two'), ('s', 's')]
+
+    d = {1: 'one', 2: 'two'}
+    assert d.get(Key(d, remove_one=True)) is None
+    assert d == {2: 'two', 's': 's'}
+
+
+def test_int_keys_set():
+    s = set(range(10))
+    s.add(10)
+    assert 5 in s and 5.0 in s and True in s and 11 not in s
+    s.discard(5.0)
+    assert 5 not in s
+    s.add('x')
+    assert s == set(range(11)) - {5} | {'x'}
+    assert {1, 2} | {2.0, 3} == {1, 2, 3}
@@ -39,6 +39,7 @@
 
 import hashlib
 import hmac
+import threading
 import unittest
 
 
@@ -80,6 +81,49 @@ class HashlibTest(unittest.TestCase):
         hm = hmac.new(self._get_buffer(), b'data', digestmod=hashlib.sha256)
         self.assertEqual('c449f6626bf7f997cda786d07895f086c2fa18eab25b1c08c4de66a5d46a2a08', hm.hexdigest())
 
+    def test_large_update(self):
+        # updates of at least 2048 bytes run without the GIL
+        data = bytes(range(256)) * 40
+        for name in ('md5', 'sha1', 'sha256', 'sha512', 'sha3_256'):
+            small = hashlib.new(name)
+            for i in range(0, len(data), 1000):
+                small.update(data[i:i + 1000])
+            self.assertEqual(small.hexdigest(), hashlib.new(name, data).hexdigest())
+            large = hashlib.new(name)
+            large.update(memoryview(data))
+            self.assertEqual(small.hexdigest(), large.hexdigest())
+            large.update(bytearray(data))
+            small.update(data)
+            self.assertEqual(small.digest(), large.copy().digest())
+        shake = hashlib.shake_128()
+        shake.update(data)
+        self.assertEqual(hashlib.shake_128(data).hexdigest(16), shake.hexdigest(16))
+
+    def test_concurrent_update(self):
+        data = b'0123456789abcdef' * 256
+        thread_count = 4
+        updates = 50
+        h = hashlib.sha256()
+        errors = []
+
+        def update():
+            try:
+                for i in range(updates):
+                    h.update(data)
+                    h.hexdigest()
+                    h.copy()
+            except BaseException as e:
+                errors.append(e)
+
+        threads = [threading.Thread(target=update) for i in range(thread_count)]
+        for t in threads:
+            t.start()
+        for t in threads:
+            t.join()
+        self.assertEqual([], errors)
+        # all chunks are equal, so the order of the updates does not matter, but none may be lost
+        self.assertEqual(hashlib.sha256(data * (thread_count * updates)).hexdigest(), h.hexdigest())
+
     @staticmethod
     def _get_buffer():
         ba = bytearray(b'ab')
@@ -312,5 +312,38 @@ class IOBaseTests(unittest.TestCase):
         self.assertEqual(["ab\r\n", "cd"], t.readlines())
 
 
+class FileIOReadintoTests(unittest.TestCase):
+
+    def test_readinto_targets(self):
+        import os
+        import tempfile
+        data = bytes(range(256)) * 64
+        fd, path = tempfile.mkstemp()
+        try:
+            os.write(fd, data)
+            os.close(fd)
+            with _io.FileIO(path, 'r') as f:
+                b = bytearray(1000)
+                self.assertEqual(1000, f.readinto(b))
+                self.assertEqual(data[:1000], b)
+                m = bytearray(1000)
+                self.assertEqual(500, f.readinto(memoryview(m)[250:750]))
+                self.assertEqual(bytes(250) + data[1000:1500] + bytes(250), m)
+                rest = bytearray(len(data))
+                self.assertEqual(len(data) - 1500, f.readinto(rest))
+                self.assertEqual(0, f.readinto(rest))
+            with _io.open(path, 'rb', buffering=100) as f:
+                chunks = []
+                while True:
+                    chunk = f.read(37)
+                    if not chunk:
+                        break
+                    chunks.append(chunk)
+                self.assertEqual(data, b''.join(chunks))
+                self.assertEqual(len(data), f.tell())
+        finally:
+            os.unlink(path)
+
+
 if __name__ == '__main__':
     unittest.main()
@@ -83,3 +83,88 @@ class JsonTest(unittest.TestCase):
             1521583201347000000,
             10,
         }
+
+    def test_load_repeated_keys(self):
+        import json
+        keys = ["key%d" % i for i in range(100)]
+        objects = [{k: i for k in keys[:i]} for i in range(len(keys))]
+        self.assertEqual(json.loads(json.dumps(objects)), objects)
+        # a second document must not see keys memoized for the first one
+        self.assertEqual(json.loads('[{"a": 1}, {"a": 2, "b": 3}]'), [{"a": 1}, {"a": 2, "b": 3}])
+        self.assertEqual(json.loads('[{"b": 1}, {"c": 2, "b": 3}]'), [{"b": 1}, {"c": 2, "b": 3}])
+        # escaped keys and their unescaped spelling are the same key
+        self.assertEqual(json.loads('[{"a\\u0062": 1}, {"ab": 2}, {"a\\u0062": 3}]'), [{"ab": 1}, {"ab": 2}, {"ab": 3}])
+        self.assertEqual(json.loads('[{"\\u00e9": 1}, {"é": 2}]'), [{"é": 1}, {"é": 2}])
+
+    def test_load_large_objects(self):
+        import json
+        for size in (0, 1, 7, 8, 9, 1000):
+            obj = {"k%d" % i: [i, {"n%d" % i: i}] for i in range(size)}
+            self.assertEqual(json.loads(json.dumps(obj)), obj)
+            self.assertEqual(list(json.loads(json.dumps(obj))), list(obj))
+
+    def test_dump_non_str_keys(self):
+        import json
+        d = {1: "a", 2.5: "b", False: "c", None: "d", "e": "e"}
+        self.assertEqual(json.dumps(d), '{"1": "a", "2.5": "b", "false": "c", "null": "d", "e": "e"}')
+        self.assertEqual(json.dumps({2: 1, 1: 2, 10: 3}, sort_keys=True), '{"1": 2, "2": 1, "10": 3}')
+        self.assertEqual(json.dumps({(1, 2): 1, "a": 2}, skipkeys=True), '{"a": 2}')
+        self.assertRaises(TypeError, json.dumps, {(1, 2): 1})
+        d = {i: i for i in range(100)}
+        for i in range(0, 100, 3):
+            del d[i]
+        self.assertEqual(json.dumps(d), "{%s}" % ", ".join('"%d": %d' % (i, i) for i in d))
+
+    def test_dump_escapes(self):
+        import json
+        cases = [
+            ('abc"\\/', '"abc\\"\\\\/"', '"abc\\"\\\\/"'),
+            ('\x00\x1f\b\f\n\r\t\x7f', '"\\u0000\\u001f\\b\\f\\n\\r\\t\\u007f"', '"\\u0000\\u001f\\b\\f\\n\\r\\t\x7f"'),
+            ('é€\U0001f600', '"\\u00e9\\u20ac\\ud83d\\ude00"', '"é€\U0001f600"'),
+            ('x' * 100 + '\n' + 'é' * 3, '"%s\\n\\u00e9\\u00e9\\u00e9"' % ('x' * 100), '"%s\\nééé"' % ('x' * 100)),
+            ('\u2028', '"\\u2028"', '"\u2028"'),
+        ]
+        for s, ascii_only, unicode in cases:
+            self.assertEqual(json.dumps(s), ascii_only)
+            self.assertEqual(json.dumps(s, ensure_ascii=True), ascii_only)
+            self.assertEqual(json.dumps(s, ensure_ascii=False), unicode)
+            self.assertEqual(json.dumps({s: [s]}, ensure_ascii=False), '{%s: [%s]}' % (unicode, unicode))
+            self.assertEqual(json.loads(json.dumps(s, ensure_ascii=False)), s)
+
+    def test_load_object_pairs_hook(self):
+        import json
+        from collections import OrderedDict
+        s = '{"b": 1, "a": {"d": 2, "c": 3}, "b": 4}'
+        pairs = json.loads(s, object_pairs_hook=lambda p: p)
+        self.assertEqual(pairs, [("b", 1), ("a", [("d", 2), ("c", 3)]), ("b", 4)])
+        ordered = json.loads(s, object_pairs_hook=OrderedDict)
+        self.assertIsInstance(ordered, OrderedDict)
+        self.assertIsInstance(ordered["a"], OrderedDict)
+        self.assertEqual(list(ordered.items()), [("b", 4), ("a", OrderedDict([("d", 2), ("c", 3)]))])
+        self.assertEqual(json.loads(s, object_hook=dict, object_pairs_hook=lambda p: len(p)), 3)
+
+    def test_load_duplicate_keys(self):
+        import json
+        self.assertEqual(json.loads('{"a": 1, "b": 2, "a": 3}'), {"a": 3, "b": 2})
+        self.assertEqual(list(json.loads('{"a": 1, "b": 2, "a": 3}')), ["a", "b"])
+        self.assertEqual(json.loads('[{"a": 1, "a": 2}, {"a": 3, "a": 4}]'), [{"a": 2}, {"a": 4}])
+
+    def test_round_trip_numeric_arrays(self):
+        import json
+        arrays = [
+            list(range(-5000, 5000)),
+            [i * (1 << 40) for i in range(-1000, 1000)],
+            [i * (1 << 70) for i in range(-100, 100)],
+            [i / 7 for i in range(-5000, 5000)],
+            [1e300, -1e-300, 0.0, -0.0, 5e-324, 1.7976931348623157e308],
+            [1, 2.5, 1 << 40, True, None, "x"],
+        ]
+        for a in arrays:
+            for seq in (a, tuple(a)):
+                s = json.dumps(seq)
+                self.assertEqual(s, "[%s]" % ", ".join(json.dumps(x) for x in a))
+                self.assertEqual(json.loads(s), a)
+                self.assertEqual(json.loads(json.dumps(seq, separators=(",", ":"))), a)
+        self.assertEqual(json.dumps([-0.0, 1e16]), "[-0.0, 1e+16]")
+        self.assertEqual(json.dumps([float("nan"), float("inf"), -float("inf")]), "[NaN, Infinity, -Infinity]")
+        self.assertRaises(ValueError, json.dumps, [1.0, float("inf")], allow_nan=False)
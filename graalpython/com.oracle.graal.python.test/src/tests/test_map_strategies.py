@@ -51,6 +51,7 @@ try:
         lambda: set_strategy(dict(), 'empty'),
         lambda: set_strategy(dict(), 'dynamicobject'),
         lambda: set_strategy(dict(), 'economicmap'),
+        lambda: set_strategy(dict(), 'longkeys'),
     ]
 except NameError:
     # For CPython, just to verify the test results
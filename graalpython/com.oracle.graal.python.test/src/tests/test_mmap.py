@@ -224,6 +224,33 @@ def test_readline():
     assert m.readline() == b'ab'
 
 
+def test_file_access_modes():
+    fn = TESTFN + '_access'
+    with open(fn, 'wb') as f:
+        f.write(b'0123456789' * 500)
+    try:
+        with open(fn, 'r+b') as f:
+            with mmap.mmap(f.fileno(), 0, access=mmap.ACCESS_COPY) as m:
+                m[0:5] = b'abcde'
+                assert m[0:7] == b'abcde56'
+            with mmap.mmap(f.fileno(), 0, access=mmap.ACCESS_WRITE) as m:
+                assert m[0:7] == b'0123456'
+                m[4990:] = b'ABCDEFGHIJ'
+                m.flush()
+            with mmap.mmap(f.fileno(), 0, access=mmap.ACCESS_READ) as m:
+                assert m.find(b'ABCDEFGHIJ') == 4990
+                view = memoryview(m)
+                assert view.readonly
+                assert bytes(view[4988:4995]) == b'89ABCDE'
+                view.release()
+        with open(fn, 'rb') as f:
+            data = f.read()
+        assert data[:5] == b'01234'
+        assert data[-10:] == b'ABCDEFGHIJ'
+    finally:
+        os.unlink(fn)
+
+
 def test_main():
     #run_unittest(MmapTests, LargeMmapTests)
     run_unittest(MmapTests)
@@ -84,3 +84,37 @@ def test_array_read():
     num = multiprocessing.Value('d', 0.0)
     arr = multiprocessing.Array('i', range(10))
     assert arr[1] == 1
+
+
+def test_pipe_data_is_not_aliased():
+    x, y = multiprocessing.connection.Pipe(False)
+    data = bytearray(b'abcdef')
+    y.send_bytes(data)
+    data[0] = ord('X')
+    view = memoryview(data)
+    y.send_bytes(view, 1, 3)
+    view[1] = ord('Y')
+    assert x.recv_bytes() == b'abcdef'
+    assert x.recv_bytes() == b'bcd'
+    x.close()
+    y.close()
+
+
+def test_multiprocessing_write_read():
+    if sys.implementation.name != 'graalpy':
+        return
+    import _multiprocessing
+    r, w = _multiprocessing._pipe()
+    try:
+        data = b'hello' * 1000
+        assert _multiprocessing._write(w, data) == len(data)
+        assert _multiprocessing._write(w, b'') == 0
+        assert _multiprocessing._write(w, b'!') == 1
+        result = _multiprocessing._read(r, len(data))
+        assert result == data
+        assert type(result) is bytes
+        assert _multiprocessing._read(r, 1) == b''
+        assert _multiprocessing._read(r, 1) == b'!'
+    finally:
+        _multiprocessing._close(r)
+        _multiprocessing._close(w)
@@ -72,6 +72,232 @@ class TestPickle(unittest.TestCase):
             import _pickle
             assert "built-in" in repr(_pickle)
 
+    def test_accelerator_roundtrip(self):
+        import _pickle
+        shared = [1, 2.5, "x"]
+        values = [None, True, False, 0, -1, 255, 65536, 2**31, -2**63, 2**100, 1.5, float("inf"), "", "abc", "\u20ac\U0001f600",
+                  b"", b"\x00\xff" * 300, bytearray(b"ab"), (), (1,), (1, 2), (1, 2, 3), tuple(range(10)),
+                  list(range(2500)), [1.5, 2.5], {"a": 1, 2: [3]}, set(range(5)), frozenset({1, 2}), complex(1, 2),
+                  [shared, shared, (shared,)], {i: str(i) for i in range(1500)}, len, OSError, range(3)]
+        for proto in range(pickle.HIGHEST_PROTOCOL + 1):
+            for v in values:
+                data = _pickle.dumps(v, proto)
+                self.assertEqual(v, _pickle.loads(data))
+                # the pure-Python implementation must be able to read our output and vice versa
+                self.assertEqual(v, pickle._loads(data))
+                self.assertEqual(v, _pickle.loads(pickle._dumps(v, proto)))
+
+    def test_accelerator_memo(self):
+        import _pickle
+        shared = [1, 2]
+        a, b = _pickle.loads(_pickle.dumps([shared, shared]))
+        self.assertIs(a, b)
+        cyclic = []
+        cyclic.append(cyclic)
+        r = _pickle.loads(_pickle.dumps(cyclic))
+        self.assertIs(r, r[0])
+
+    def test_accelerator_file(self):
+        import _pickle, io
+        f = io.BytesIO()
+        _pickle.dump({"k": list(range(100000))}, f, protocol=4)
+        _pickle.dump("second", f)
+        f.seek(0)
+        self.assertEqual({"k": list(range(100000))}, _pickle.load(f))
+        self.assertEqual("second", _pickle.load(f))
+        self.assertRaises(EOFError, _pickle.load, f)
+
+    def test_accelerator_subclass(self):
+        import _pickle, io
+
+        class MyPickler(_pickle.Pickler):
+            def persistent_id(self, obj):
+                return "ID" if obj == "secret" else None
+
+        class MyUnpickler(_pickle.Unpickler):
+            def persistent_load(self, pid):
+                return "restored " + pid
+
+        f = io.BytesIO()
+        MyPickler(f, 2).dump(["secret", "public"])
+        f.seek(0)
+        self.assertEqual(["restored ID", "public"], MyUnpickler(f).load())
+        self.assertRaises(_pickle.UnpicklingError, _pickle.loads, f.getvalue())
+
+    def test_accelerator_errors(self):
+        import _pickle
+        self.assertRaises(_pickle.UnpicklingError, _pickle.loads, b"\x80\x04\xff")
+        self.assertRaises(EOFError, _pickle.loads, b"")
+        self.assertRaises(ValueError, _pickle.dumps, 1, 6)
+        self.assertRaises(AttributeError, _pickle.dumps, lambda: 1)
+        self.assertRaises((TypeError, _pickle.PicklingError), _pickle.dumps, (i for i in range(2)))
+        # the BINSTRING size is unsigned, it must not wrap around to a negative size
+        self.assertRaises((_pickle.UnpicklingError, OverflowError), _pickle.loads, b"T\xff\xff\xff\xff.", encoding="latin1")
+        self.assertEqual("ab", _pickle.loads(b"T\x02\x00\x00\x00ab.", encoding="latin1"))
+
+    def test_pickle_buffer(self):
+        import _pickle
+        buf = _pickle.PickleBuffer(bytearray(b"data"))
+        self.assertEqual(b"data", bytes(buf.raw()))
+        buffers = []
+        data = _pickle.dumps(buf, 5, buffer_callback=buffers.append)
+        self.assertEqual(1, len(buffers))
+        self.assertEqual(bytearray(b"data"), _pickle.loads(data, buffers=buffers))
+        buf.release()
+        self.assertRaises(ValueError, buf.raw)
+
+    def test_accelerator_persistent_id(self):
+        import _pickle, io
+        store = {"ID1": object(), "ID2": [1, 2]}
+        ids = {id(v): k for k, v in store.items()}
+        for proto in range(pickle.HIGHEST_PROTOCOL + 1):
+            f = io.BytesIO()
+            p = _pickle.Pickler(f, proto)
+            p.persistent_id = lambda obj: ids.get(id(obj))
+            p.dump([store["ID1"], store["ID2"], store["ID2"], "plain"])
+            u = _pickle.Unpickler(io.BytesIO(f.getvalue()))
+            u.persistent_load = lambda pid: store[pid]
+            result = u.load()
+            self.assertIs(store["ID1"], result[0])
+            self.assertIs(store["ID2"], result[1])
+            self.assertIs(store["ID2"], result[2])
+            self.assertEqual("plain", result[3])
+
+    def test_accelerator_reducer_override(self):
+        import _pickle, io
+
+        class Point:
+            def __init__(self, x):
+                self.x = x
+
+        calls = []
+
+        class MyPickler(_pickle.Pickler):
+            def reducer_override(self, obj):
+                calls.append(type(obj))
+                if isinstance(obj, Point):
+                    return int, (obj.x,)
+                return NotImplemented
+
+        f = io.BytesIO()
+        MyPickler(f, 4).dump([Point(3), Point(4), "x", 5, b"y", None, 1.5])
+        self.assertEqual([3, 4, "x", 5, b"y", None, 1.5], _pickle.loads(f.getvalue()))
+        # atomic types are saved without consulting the override
+        self.assertEqual(2, calls.count(Point))
+        self.assertFalse({str, bytes, int, float, type(None)} & set(calls))
+
+    def test_accelerator_dispatch_table(self):
+        import _pickle, copyreg, io
+
+        class A:
+            pass
+
+        def reduce_a(obj):
+            return str, ("reduced A",)
+
+        # per instance
+        f = io.BytesIO()
+        p = _pickle.Pickler(f, 2)
+        p.dispatch_table = {A: reduce_a}
+        p.dump(A())
+        self.assertEqual("reduced A", _pickle.loads(f.getvalue()))
+
+        # per class
+        class MyPickler(_pickle.Pickler):
+            dispatch_table = copyreg.dispatch_table.copy()
+
+        MyPickler.dispatch_table[A] = reduce_a
+        f = io.BytesIO()
+        MyPickler(f, 2).dump([A(), complex(1, 2)])
+        self.assertEqual(["reduced A", complex(1, 2)], _pickle.loads(f.getvalue()))
+
+        # the global dispatch table is not affected
+        self.assertNotIn(A, copyreg.dispatch_table)
+        self.assertRaises(AttributeError, _pickle.dumps, A(), 2)
+
+    def test_accelerator_find_class(self):
+        import _pickle, io
+        data = _pickle.dumps([len, OSError, complex(1, 2)], 4)
+
+        class Restricted(_pickle.Unpickler):
+            def find_class(self, module, name):
+                if module == "builtins" and name in ("len", "complex"):
+                    return super().find_class(module, name)
+                raise _pickle.UnpicklingError("forbidden %s.%s" % (module, name))
+
+        with self.assertRaisesRegex(_pickle.UnpicklingError, "forbidden builtins.OSError"):
+            Restricted(io.BytesIO(data)).load()
+
+        class Renaming(_pickle.Unpickler):
+            def find_class(self, module, name):
+                if name == "OSError":
+                    return ValueError
+                return super().find_class(module, name)
+
+        self.assertEqual([len, ValueError, complex(1, 2)], Renaming(io.BytesIO(data)).load())
+
+    def test_accelerator_framing(self):
+        import _pickle, io, pickletools
+        def frames(data):
+            return [arg for op, arg, pos in pickletools.genops(data) if op.name == "FRAME"]
+
+        for proto in (4, 5):
+            # frames with less than 4 bytes are not worth it
+            self.assertEqual([], frames(_pickle.dumps(None, proto)))
+            obj = [str(i) for i in range(50000)]
+            data = _pickle.dumps(obj, proto)
+            self.assertEqual(obj, _pickle.loads(data))
+            self.assertEqual(obj, pickle._loads(data))
+            sizes = frames(data)
+            self.assertGreater(len(sizes), 1)
+            # everything except PROTO is inside a frame
+            self.assertEqual(len(data), sum(sizes) + 9 * len(sizes) + 2)
+
+            # a large payload is written outside of any frame
+            big = b"x" * (256 * 1024)
+            f = io.BytesIO()
+            _pickle.dump([1, big, 2], f, proto)
+            self.assertEqual([1, big, 2], _pickle.loads(f.getvalue()))
+            self.assertTrue(all(size < len(big) for size in frames(f.getvalue())))
+
+        for proto in range(4):
+            self.assertEqual([], frames(_pickle.dumps([str(i) for i in range(50000)], proto)))
+
+    def test_accelerator_out_of_band_buffers(self):
+        import _pickle
+        ba = bytearray(b"abcdef")
+        ro = b"readonly" * 10
+        obj = [_pickle.PickleBuffer(ba), _pickle.PickleBuffer(ro)]
+
+        buffers = []
+        data = _pickle.dumps(obj, 5, buffer_callback=buffers.append)
+        self.assertEqual(2, len(buffers))
+        self.assertNotIn(b"abcdef", data)
+        # the out-of-band buffers are returned as they are
+        result = _pickle.loads(data, buffers=buffers)
+        self.assertIs(buffers[0], result[0])
+        self.assertEqual(b"abcdef", bytes(result[0]))
+        self.assertEqual(ro, bytes(result[1]))
+        self.assertTrue(memoryview(result[1]).readonly)
+        result = _pickle.loads(data, buffers=[bytearray(b"ABCDEF"), ro])
+        self.assertEqual([bytearray(b"ABCDEF"), ro], result)
+        self.assertIs(ro, result[1])
+        self.assertEqual([bytearray(b"ABCDEF"), ro], pickle._loads(data, buffers=[bytearray(b"ABCDEF"), ro]))
+
+        # a true result from the callback keeps the buffer in band
+        data = _pickle.dumps(obj, 5, buffer_callback=lambda b: True)
+        self.assertIn(b"abcdef", data)
+        self.assertEqual([bytearray(b"abcdef"), ro], _pickle.loads(data))
+
+        # without a callback the buffers are in band as well, protocol 5 keeps bytearray
+        self.assertEqual([bytearray(b"abcdef"), ro], _pickle.loads(_pickle.dumps(obj, 5)))
+        self.assertEqual(bytearray, type(_pickle.loads(_pickle.dumps(obj, 5))[0]))
+
+        data = _pickle.dumps(obj, 5, buffer_callback=buffers.append)
+        self.assertRaises(_pickle.UnpicklingError, _pickle.loads, data)
+        self.assertRaises(_pickle.UnpicklingError, _pickle.loads, data, buffers=[])
+        self.assertRaises(ValueError, _pickle.dumps, obj, 4, buffer_callback=buffers.append)
+
 
 if __name__ == '__main__':
     unittest.main()
@@ -488,3 +488,39 @@ class ReTests(unittest.TestCase):
             r"(//?| ==?)|([[]]+)")
         for m in regex.finditer(''):
             self.fail()
+
+    def test_match_type(self):
+        m = re.match(r'(?P<key>\w+)=(?P<value>\w*)', 'a=b')
+        self.assertIs(type(m), re.Match)
+        self.assertEqual(m.lastindex, 2)
+        self.assertEqual(m.lastgroup, 'value')
+        self.assertEqual(m.groupdict(), {'key': 'a', 'value': 'b'})
+        self.assertEqual(m.regs, ((0, 3), (0, 1), (2, 3)))
+        self.assertEqual(m['key'], 'a')
+        self.assertEqual(m.group(0, 'value'), ('a=b', 'b'))
+        self.assertEqual(repr(m), "<re.Match object; span=(0, 3), match='a=b'>")
+        self.assertRaises(IndexError, m.group, 3)
+        self.assertRaises(IndexError, m.group, 'missing')
+        m = re.match(rb'(a)|(b)', b'b')
+        self.assertEqual(m.groups(), (None, b'b'))
+        self.assertEqual(m.groups(b''), (b'', b'b'))
+        self.assertEqual(m.span(1), (-1, -1))
+        self.assertEqual(m.lastindex, 2)
+        self.assertIsNone(m.lastgroup)
+
+    def test_sub_template_and_callable(self):
+        self.assertEqual(re.sub(r'(\w+)=(\w+)', r'\2=\1', 'a=1, b=2'), '1=a, 2=b')
+        self.assertEqual(re.sub(r'(?P<k>\w+)=(x)?', r'[\g<k>\2]', 'a=x b='), '[ax] [b]')
+        self.assertEqual(re.subn(r'\d', lambda m: str(int(m.group()) + 1), 'a1b2c3', 2), ('a2b3c3', 2))
+        self.assertEqual(re.sub(r'\d', lambda m: None, 'a1b2'), 'ab')
+        self.assertEqual(re.sub(rb'(\d)', rb'<\1>', bytearray(b'a1b')), b'a<1>b')
+        self.assertEqual(re.sub(rb'\d', lambda m: bytearray(b'#'), b'a1b'), b'a#b')
+        self.assertRaises(TypeError, re.sub, r'\d', lambda m: 1, 'a1')
+        self.assertRaises(TypeError, re.sub, rb'\d', lambda m: 'x', b'a1')
+        self.assertRaises(TypeError, re.sub, r'\d', b'x', 'a1')
+
+    def test_findall_split_bytes(self):
+        self.assertEqual(re.findall(rb'(\w)(\d)?', memoryview(b'a1b')), [(b'a', b'1'), (b'b', b'')])
+        self.assertEqual(re.compile(r'\w').findall('abcd', 1, 3), ['b', 'c'])
+        self.assertEqual(re.split(rb'(,)|;', b'a,b;c'), [b'a', b',', b'b', None, b'c'])
+        self.assertEqual(re.split(r'x*', 'axbc'), ['', 'a', '', 'b', 'c', ''])
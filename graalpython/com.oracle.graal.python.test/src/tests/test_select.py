@@ -95,3 +95,31 @@ class SelectTests(unittest.TestCase):
             fds = [F(f.fileno()), F(stdout_fd), F(f.fileno())]
             res = select.select(fds, [], [], 1)
             assert res == ([fds[0], fds[2]], [], [])
+
+    def test_poll_pipe(self):
+        r, w = os.pipe()
+        try:
+            p = select.poll()
+            p.register(r, select.POLLIN)
+            p.register(w, select.POLLOUT)
+            self.assertEqual(p.poll(0), [(w, select.POLLOUT)])
+            os.write(w, b'x')
+            self.assertEqual(sorted(p.poll(1000)), sorted([(r, select.POLLIN), (w, select.POLLOUT)]))
+            p.modify(w, select.POLLIN)
+            self.assertEqual(p.poll(0), [(r, select.POLLIN)])
+            p.unregister(w)
+            self.assertRaises(KeyError, p.unregister, w)
+            self.assertRaises(OSError, p.modify, w, select.POLLIN)
+            os.read(r, 1)
+            self.assertEqual(p.poll(10), [])
+        finally:
+            os.close(r)
+            os.close(w)
+
+    def test_poll_arg_validation(self):
+        p = select.poll()
+        self.assertRaises(TypeError, p.register, 'abc')
+        self.assertRaises(ValueError, p.register, 0, -1)
+        self.assertRaises(OverflowError, p.register, 0, 1 << 16)
+        self.assertRaises(KeyError, p.unregister, 0)
+        self.assertEqual(p.poll(0), [])
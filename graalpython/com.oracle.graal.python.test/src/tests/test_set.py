@@ -647,3 +647,44 @@ def test_set_iterator_reduce():
     it = s.__iter__()
     it.__reduce__()
     assert [i for i in it] == [1, 2, 3]
+
+
+def test_int_set_algebra():
+    a = set(range(0, 1000, 2))
+    b = set(range(0, 1000, 3))
+    assert a & b == {x for x in range(0, 1000, 6)}
+    assert a | b == {x for x in range(1000) if x % 2 == 0 or x % 3 == 0}
+    assert a - b == {x for x in range(0, 1000, 2) if x % 3 != 0}
+    assert a ^ b == {x for x in range(1000) if (x % 2 == 0) != (x % 3 == 0)}
+    assert a == set(range(0, 1000, 2)) and b == set(range(0, 1000, 3))
+    a.add(2 ** 40)
+    b.add(2 ** 40)
+    assert 2 ** 40 in a & b
+    a.update(b)
+    assert a == {x for x in range(1000) if x % 2 == 0 or x % 3 == 0} | {2 ** 40}
+    a.discard(4)
+    a.add(-4)
+    assert -4 in a and 4 not in a
+
+
+def test_int_set_algebra_mixed():
+    a = {1, 2, 3}
+    b = {2, 3.0, 'x', True}
+    assert a & b == {1, 2, 3}
+    assert a | b == {1, 2, 3, 'x'}
+    assert a - b == set()
+    assert b - a == {'x'}
+    assert a ^ b == {'x'}
+    d = dict.fromkeys(range(3), 'v')
+    assert set(d) & {1, 2, 5} == {1, 2}
+    assert d.keys() & {1, 2, 5} == {1, 2}
+
+
+def test_set_from_range():
+    for r in (range(0), range(10), range(-5, 5), range(10, -10, -3), range(2 ** 31 - 5, 2 ** 31 + 5)):
+        s = set(r)
+        assert s == set(list(r))
+        assert len(s) == len(r)
+        assert frozenset(r) == s
+        s.add('x')
+        assert 'x' in s and len(s) == len(r) + 1
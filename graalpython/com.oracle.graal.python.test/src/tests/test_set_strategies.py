@@ -51,6 +51,7 @@ try:
         lambda: set_strategy(set(), 'empty'),
         lambda: set_strategy(set(), 'dynamicobject'),
         lambda: set_strategy(set(), 'economicmap'),
+        lambda: set_strategy(set(), 'longkeys'),
     ]
 except NameError:
     # For CPython, just to verify the test results
@@ -0,0 +1,110 @@
+# Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+import queue
+import threading
+import time
+import unittest
+from _queue import SimpleQueue
+
+
+class SimpleQueueTest(unittest.TestCase):
+
+    def test_fifo_wraparound_and_grow(self):
+        q = SimpleQueue()
+        expected = []
+        next_item = 0
+        # interleave puts and gets, so that the head moves around the buffer while it grows
+        for batch in (10, 20, 5, 40, 100, 3):
+            for i in range(batch):
+                q.put(next_item)
+                expected.append(next_item)
+                next_item += 1
+            for i in range(batch // 2 + 1):
+                self.assertEqual(expected.pop(0), q.get_nowait())
+            self.assertEqual(len(expected), q.qsize())
+        while expected:
+            self.assertEqual(expected.pop(0), q.get(block=False))
+        self.assertTrue(q.empty())
+        self.assertRaises(queue.Empty, q.get_nowait)
+
+    def test_get_timeout(self):
+        q = SimpleQueue()
+        start = time.monotonic()
+        self.assertRaises(queue.Empty, q.get, timeout=0.2)
+        self.assertGreaterEqual(time.monotonic() - start, 0.15)
+        self.assertRaises(queue.Empty, q.get, True, 0)
+        self.assertRaises(ValueError, q.get, True, -1)
+
+        t = threading.Timer(0.1, q.put, args=('item',))
+        t.start()
+        try:
+            self.assertEqual('item', q.get(timeout=30))
+        finally:
+            t.join()
+        self.assertTrue(q.empty())
+
+    def test_multiple_waiting_getters(self):
+        q = SimpleQueue()
+        count = 8
+        results = []
+        results_lock = threading.Lock()
+        started = threading.Barrier(count + 1)
+
+        def getter():
+            started.wait()
+            item = q.get(timeout=30)
+            with results_lock:
+                results.append(item)
+
+        threads = [threading.Thread(target=getter) for i in range(count)]
+        for t in threads:
+            t.start()
+        started.wait()
+        # give the getters a chance to block on the empty queue
+        time.sleep(0.2)
+        for i in range(count):
+            q.put(i)
+        for t in threads:
+            t.join()
+        self.assertEqual(list(range(count)), sorted(results))
+        self.assertTrue(q.empty())
+
+
+if __name__ == '__main__':
+    unittest.main()
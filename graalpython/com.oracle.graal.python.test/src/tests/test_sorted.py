@@ -3,8 +3,39 @@
 #
 # Licensed under the PYTHON SOFTWARE FOUNDATION LICENSE VERSION 2
 # Test of a sorted() written in Python
+import builtins
+import random
+import subprocess
+import sys
 import unittest
 
+# Compares sorts of lists of ints, floats and strs with sorts of the same values boxed in objects,
+# which cannot take any shortcuts. The repr tells apart 0.0 and -0.0, which are equal, so it also
+# checks that the sort is stable.
+SORT_CHECK = '''
+import random
+
+class Boxed:
+    def __init__(self, value):
+        self.value = value
+
+    def __lt__(self, other):
+        return self.value < other.value
+
+random.seed(42)
+n = 1000
+for data in ([random.randrange(-100, 100) for i in range(n)],
+             [random.randrange(-100, 100) * 2 ** 40 for i in range(n)],
+             [random.choice([0.0, -0.0, 1.5, -2.5, 1e300]) for i in range(n)],
+             [random.choice(['a', 'b', 'ab', '', '\u20ac']) for i in range(n)]):
+    for reverse in (False, True):
+        expected = [repr(b.value) for b in sorted([Boxed(x) for x in data], reverse=reverse)]
+        assert [repr(x) for x in sorted(data, reverse=reverse)] == expected, (type(data[0]), reverse)
+        copy = list(data)
+        copy.sort(reverse=reverse)
+        assert [repr(x) for x in copy] == expected, (type(data[0]), reverse)
+'''
+
 def sorted(iterable):
     result = list(iterable)
 
@@ -45,3 +76,50 @@ class TestSorted(unittest.TestCase):
 
         # Use eval to get the fast path specialization
         self.assertEqual(eval("sorted(MyList())", {"MyList": MyList}), [2, 4, 5])
+
+    def test_primitive_keys(self):
+        class Boxed:
+            def __init__(self, value):
+                self.value = value
+
+            def __lt__(self, other):
+                return self.value < other.value
+
+        data = list(range(100))
+        random.shuffle(data)
+        for key in (lambda x: x % 7, lambda x: (x % 7) * 0.5, lambda x: str(x % 7), lambda x: x % 2 == 0,
+                    lambda x: (x % 7) - 3 if x < 50 else ((x % 7) - 3) * 2**62):
+            for reverse in (False, True):
+                expected = builtins.sorted(data, key=lambda x: Boxed(key(x)), reverse=reverse)
+                self.assertEqual(builtins.sorted(data, key=key, reverse=reverse), expected)
+
+    def test_mixed_keys(self):
+        self.assertEqual(builtins.sorted([3, 1, 2], key=lambda x: [1.5, 1, 2 ** 70][x - 1]), [2, 1, 3])
+        self.assertEqual(builtins.sorted([0, 1, 2, 3], key=lambda x: [0.0, -0.0, 0, False][x]), [0, 1, 2, 3])
+        self.assertRaises(TypeError, builtins.sorted, [1, 2], key=lambda x: 'a' if x == 1 else 1)
+
+    def test_tuples(self):
+        data = [(i % 5, str(-i)) for i in range(50)]
+        random.shuffle(data)
+        self.assertEqual(builtins.sorted(data), builtins.sorted(data, key=lambda t: (t[0], t[1])))
+        self.assertEqual(builtins.sorted(data, reverse=True), builtins.sorted(data, key=lambda t: (t[0], t[1]), reverse=True))
+        self.assertEqual(builtins.sorted([(1.5, 'b'), (0.5, 'c'), (1.5, 'a')]), [(0.5, 'c'), (1.5, 'a'), (1.5, 'b')])
+        self.assertEqual(builtins.sorted([('b', 2), ('a', 3), ('b', 1)]), [('a', 3), ('b', 1), ('b', 2)])
+        self.assertEqual(builtins.sorted([(2,), (), (1, 2), (1,)]), [(), (1,), (1, 2), (2,)])
+        self.assertEqual(builtins.sorted([(2, 1), (1.5, 1), (1, 0)]), [(1, 0), (1.5, 1), (2, 1)])
+        self.assertRaises(TypeError, builtins.sorted, [(1, {1: 2}), (1, {})])
+        self.assertEqual(builtins.sorted([(2, {}), (1, {})]), [(1, {}), (2, {})])
+
+    def test_tuples_nan(self):
+        # tuples with the same NaN object as first item are ordered by the remaining items
+        nan = float('nan')
+        data = [(nan, i) for i in range(40)]
+        random.shuffle(data)
+        self.assertEqual([t[1] for t in builtins.sorted(data)], list(range(40)))
+        self.assertEqual([t[1] for t in builtins.sorted(data, reverse=True)], list(range(39, -1, -1)))
+
+    def test_primitive_and_str_lists(self):
+        exec(SORT_CHECK, {})
+        if sys.implementation.name == 'graalpy':
+            # lists of this size are sorted in parallel with the GIL released
+            subprocess.check_call([sys.executable, '--python.ParallelSortThreshold=16', '-c', SORT_CHECK])
@@ -261,6 +261,130 @@ def test_iter_unpack():
     assert lh(it) == 0
 
 
+def _assert_struct_error(msg, fn, *args):
+    try:
+        fn(*args)
+    except struct.error as e:
+        assert str(e) == msg, "'%s' != '%s'" % (e, msg)
+    else:
+        assert False, "struct.error not raised"
+
+
+def test_pack_into_negative_offset():
+    buf = bytearray(b'x' * 10)
+    struct.pack_into('4s', buf, -4, b'abcd')
+    assert buf == b'xxxxxxabcd'
+    struct.pack_into('<h', buf, -10, 0x4142)
+    assert buf == b'BAxxxxabcd'
+    _assert_struct_error("no space to pack 4 bytes at offset -2", struct.pack_into, '4s', buf, -2, b'ab')
+    _assert_struct_error("offset -11 out of range for 10-byte buffer", struct.pack_into, '4s', buf, -11, b'ab')
+    _assert_struct_error("pack_into requires a buffer of at least 12 bytes for packing 4 bytes at offset 8 "
+                         "(actual buffer size is 10)", struct.pack_into, '4s', buf, 8, b'ab')
+    assert buf == b'BAxxxxabcd'
+
+
+def test_unpack_from_negative_offset():
+    for data in (b'abcd012345', bytearray(b'abcd012345'), memoryview(b'abcd012345')):
+        assert struct.unpack_from('4s', data, -4) == (b'2345',)
+        assert struct.unpack_from('4s', data, -10) == (b'abcd',)
+        _assert_struct_error("not enough data to unpack 4 bytes at offset -2", struct.unpack_from, '4s', data, -2)
+        _assert_struct_error("offset -11 out of range for 10-byte buffer", struct.unpack_from, '4s', data, -11)
+        _assert_struct_error("unpack_from requires a buffer of at least 12 bytes for unpacking 4 bytes at offset 8 "
+                             "(actual buffer size is 10)", struct.unpack_from, '4s', data, 8)
+
+
+def test_native_alignment():
+    isize = struct.calcsize('i')
+    qsize = struct.calcsize('q')
+    # padding is inserted before an item, but never at the end
+    assert struct.calcsize('@bi') == 2 * isize
+    assert struct.calcsize('@ib') == isize + 1
+    assert struct.calcsize('=bi') == 5
+    assert struct.calcsize('@b0i') == isize
+    assert struct.calcsize('@bq') == 2 * qsize
+    packed = struct.pack('@bi', 1, 2)
+    assert packed[1:isize] == b'\0' * (isize - 1)
+    assert struct.unpack('@bi', packed) == (1, 2)
+    assert struct.pack('@b0i', 1) == b'\1' + b'\0' * (isize - 1)
+    buf = bytearray(b'\xff' * (2 * isize))
+    struct.pack_into('@bi', buf, 0, 1, 2)
+    assert buf[1:isize] == b'\0' * (isize - 1)
+
+
+def test_half_float():
+    import math
+    assert struct.pack('<e', 1.0) == b'\x00\x3c'
+    assert struct.pack('>e', -2.0) == b'\xc0\x00'
+    assert struct.unpack('<e', struct.pack('<e', math.inf)) == (math.inf,)
+    assert math.isnan(struct.unpack('<e', struct.pack('<e', math.nan))[0])
+    assert struct.unpack('<e', b'\x01\x00') == (2 ** -24,)
+    assert_raises(OverflowError, struct.pack, '<e', 1e10)
+
+
+def test_bool():
+    assert struct.unpack('??', b'\x00\x02') == (False, True)
+    assert struct.pack('3?', 0, 'x', None) == b'\x00\x01\x00'
+
+
+def test_pascal_string():
+    assert struct.pack('5p', b'abc') == b'\x03abc\x00'
+    assert struct.pack('3p', b'abcdef') == b'\x02ab'
+    assert struct.pack('1p', b'abc') == b'\x00'
+    assert struct.pack('300p', b'a' * 300)[0] == 255
+    # the length byte is clamped to the available space
+    assert struct.unpack('5p', b'\x09abcd') == (b'abcd',)
+    assert struct.unpack('5p', b'\x02abcd') == (b'ab',)
+
+
+def test_pointer():
+    size = struct.calcsize('P')
+    assert size in (4, 8)
+    value = 2 ** (8 * size) - 1
+    assert struct.unpack('P', struct.pack('P', value)) == (value,)
+    for fmt in ('<P', '>P', '=P', '!P'):
+        _assert_struct_error("bad char in struct format", struct.calcsize, fmt)
+
+
+def test_pack_float_non_float():
+    class BadFloat:
+        def __float__(self):
+            return 'not a float'
+
+    for fmt in ('<e', '<f', '<d', '@f', '@d'):
+        for value in ('1.0', None, object(), BadFloat()):
+            _assert_struct_error("required argument is not a float", struct.pack, fmt, value)
+        assert struct.pack(fmt, 1) == struct.pack(fmt, 1.0)
+
+
+def _release_when_collected(view):
+    import gc, time
+    for i in range(500):
+        try:
+            view.release()
+            return True
+        except BufferError:
+            gc.collect()
+            time.sleep(0.01)
+    return False
+
+
+def test_iter_unpack_releases_buffer():
+    view = memoryview(bytearray(range(8)))
+    it = struct.iter_unpack('<I', view)
+    assert_raises(BufferError, view.release)
+    assert list(it) == [(0x03020100,), (0x07060504,)]
+    # an exhausted iterator releases its buffer
+    view.release()
+
+    view = memoryview(bytearray(range(8)))
+    it = struct.iter_unpack('<I', view)
+    assert next(it) == (0x03020100,)
+    assert_raises(BufferError, view.release)
+    # a dropped iterator releases its buffer when collected
+    del it
+    assert _release_when_collected(view)
+
+
 def test_pack_varargs():
     assert struct.Struct(">B").pack(3) == b'\x03'
     raised = False
@@ -127,6 +127,40 @@ class TestSubprocess(unittest.TestCase):
             p.kill()
             p.wait()
 
+    @staticmethod
+    def _python_args():
+        if sys.implementation.name == "graalpy":
+            # the output forwarding under test is done by the emulated backend
+            return [sys.executable, "--python.PosixModuleBackend=java"]
+        return [sys.executable]
+
+    def test_system_forwards_all_output(self):
+        code = "import os; os.system('seq 1 100000; seq 1 1000 >&2')"
+        result = subprocess.run(self._python_args() + ["-c", code], capture_output=True, text=True)
+        self.assertEqual(0, result.returncode)
+        self.assertEqual("".join("%d\n" % i for i in range(1, 100001)), result.stdout)
+        self.assertEqual("".join("%d\n" % i for i in range(1, 1001)), result.stderr)
+
+    def test_system_background_command(self):
+        # a command started in the background keeps the output pipes open, system must not wait
+        # for it
+        code = "import os, sys, time; t = time.monotonic(); os.system('sleep 5 &'); sys.exit(0 if time.monotonic() - t < 4 else 1)"
+        rc = subprocess.call(self._python_args() + ["-c", code], stdout=subprocess.DEVNULL, stderr=subprocess.DEVNULL)
+        self.assertEqual(0, rc)
+
+    def test_only_stdout_piped(self):
+        code = """if 1:
+            import subprocess, sys
+            result = subprocess.run(['sh', '-c', 'echo out; echo err >&2'], stdout=subprocess.PIPE)
+            assert result.stdout == b'out\\n', result.stdout
+            result = subprocess.run(['sh', '-c', 'echo out; echo err >&2'], stderr=subprocess.PIPE)
+            assert result.stderr == b'err\\n', result.stderr
+            """
+        result = subprocess.run(self._python_args() + ["-c", code], capture_output=True, text=True)
+        self.assertEqual(0, result.returncode, result.stderr)
+        self.assertEqual("out\n", result.stdout)
+        self.assertEqual("err\n", result.stderr)
+
     def test_java_asserts(self):
         import sys
         if sys.implementation.name == "graalpy":
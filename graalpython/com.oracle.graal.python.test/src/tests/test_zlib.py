@@ -85,6 +85,37 @@ class ChecksumTests(unittest.TestCase):
         self.assertRaises(TypeError, zlib.adler32, 10)
         self.assertRaises(TypeError, zlib.adler32, 'ahoj')
 
+    def test_wrong_input_messages(self):
+        for func in (zlib.crc32, zlib.adler32, zlib.compress, zlib.decompress):
+            self.assertRaisesRegex(TypeError, "a bytes-like object is required, not 'int'", func, 10)
+            self.assertRaisesRegex(TypeError, "a bytes-like object is required, not 'str'", func, 'ahoj')
+
+    def test_adler32_buffer_slice(self):
+        # longer than the 5552 bytes the adler32 sums can take without a modulo, and a view into a
+        # larger buffer, so that reading past the slice would change the result
+        data = bytes(range(256)) * 100
+        view = memoryview(data)[1000:20000]
+        self.assertEqual(adler32_reference(view), zlib.adler32(view))
+        self.assertEqual(zlib.adler32(bytes(view)), zlib.adler32(view))
+        self.assertEqual(adler32_reference(view, 12345), zlib.adler32(view, 12345))
+        self.assertEqual(zlib.adler32(view[5000:], zlib.adler32(view[:5000])), zlib.adler32(view))
+        self.assertEqual(zlib.crc32(bytes(view)), zlib.crc32(view))
+        self.assertEqual(zlib.crc32(view[5000:], zlib.crc32(view[:5000])), zlib.crc32(view))
+
+    def test_large_checksums(self):
+        # large inputs are checksummed without holding the GIL, compare with small chunks
+        data = HAMLET_SCENE * 20
+        adler = 1
+        crc = 0
+        for i in range(0, len(data), 1000):
+            adler = zlib.adler32(data[i:i + 1000], adler)
+            crc = zlib.crc32(data[i:i + 1000], crc)
+        self.assertEqual(adler, zlib.adler32(data))
+        self.assertEqual(crc, zlib.crc32(data))
+        self.assertEqual(adler, zlib.adler32(bytearray(data)))
+        self.assertEqual(crc, zlib.crc32(memoryview(data)))
+
+
 class BaseCompressTestCase(object):
     def check_big_compress_buffer(self, size, compress_func):
         _1M = 1024 * 1024
@@ -160,6 +191,35 @@ class CompressTests(BaseCompressTestCase, unittest.TestCase):
         self.assertRaises(zlib.error, d.decompress, b"asdf")
         d.flush()
 
+    def test_large_compress_decompress(self):
+        # large inputs are (de)compressed without holding the GIL
+        data = os.urandom(8000) + HAMLET_SCENE * 20
+        for ob in data, bytearray(data), memoryview(b'x' + data)[1:]:
+            x = zlib.compress(ob)
+            self.assertGreater(len(x), 5 * 1024)
+            self.assertEqual(zlib.decompress(x), data)
+            self.assertEqual(zlib.decompress(memoryview(x)), data)
+
+    def test_large_decompress_errors(self):
+        x = zlib.compress(os.urandom(10000))
+        self.assertGreater(len(x), 5 * 1024)
+        self.assertRaisesRegex(zlib.error,
+            "Error -5 while decompressing data: incomplete or truncated stream",
+            zlib.decompress, x[:-100])
+        self.assertRaises(zlib.error, zlib.decompress, b'\xff' * 10000)
+        # the errors above were raised with the GIL held again, so this can proceed
+        self.assertEqual(len(zlib.decompress(x)), 10000)
+
+
+
+def adler32_reference(data, value=1):
+    a = value & 0xffff
+    b = (value >> 16) & 0xffff
+    for byte in bytes(data):
+        a = (a + byte) % 65521
+        b = (b + a) % 65521
+    return (b << 16) | a
+
 
 HAMLET_SCENE = b"""
 LAERTES
@@ -86,6 +86,7 @@ import com.oracle.graal.python.pegparser.sst.ArgumentsTy;
 import com.oracle.graal.python.pegparser.sst.ModTy;
 import com.oracle.graal.python.pegparser.sst.StmtTy;
 import com.oracle.graal.python.pegparser.tokenizer.SourceRange;
+import com.oracle.graal.python.runtime.CompiledCodeCache;
 import com.oracle.graal.python.runtime.GilNode;
 import com.oracle.graal.python.runtime.PythonContext;
 import com.oracle.graal.python.runtime.PythonContext.PythonThreadState;
@@ -541,7 +542,20 @@ public final class PythonLanguage extends TruffleLanguage<PythonContext> {
             throw CompilerDirectives.shouldNotReachHere("Invalid value for optlevel or flags: " + optimize + "," + flags + " from mime type: " + mime);
         }
         assert !source.isInteractive();
-        return parse(context, source, type, false, optimize, false, null, FutureFeature.fromFlags(flags));
+        CompiledCodeCache codeCache = type == InputType.FILE && CompiledCodeCache.isCacheable(source) ? context.getCompiledCodeCache() : null;
+        if (codeCache != null) {
+            CodeUnit code = codeCache.lookup(source, optimize, flags);
+            if (code != null) {
+                RaisePythonExceptionErrorCallback errorCb = new RaisePythonExceptionErrorCallback(source, PythonOptions.isPExceptionWithJavaStacktrace(this));
+                return PythonUtils.getOrCreateCallTarget(PBytecodeRootNode.create(this, code, source, errorCb));
+            }
+        }
+        RootCallTarget ct = parse(context, source, type, false, optimize, false, null, FutureFeature.fromFlags(flags));
+        // the parser warnings are not part of the cache entry, so code that has any is not cached
+        if (codeCache != null && ct.getRootNode() instanceof PBytecodeRootNode rootNode && !rootNode.hasDeferredDeprecationWarnings()) {
+            codeCache.store(source, optimize, flags, rootNode.getCodeUnit());
+        }
+        return ct;
     }
 
     private static Source tryLoadSource(PythonContext context, CodeUnit code, boolean internal, String path) {
@@ -198,6 +198,16 @@ import com.oracle.graal.python.builtins.modules.json.JSONScannerBuiltins;
 import com.oracle.graal.python.builtins.modules.lzma.LZMACompressorBuiltins;
 import com.oracle.graal.python.builtins.modules.lzma.LZMADecompressorBuiltins;
 import com.oracle.graal.python.builtins.modules.lzma.LZMAModuleBuiltins;
+import com.oracle.graal.python.builtins.modules.pickle.PickleBufferBuiltins;
+import com.oracle.graal.python.builtins.modules.pickle.PickleModuleBuiltins;
+import com.oracle.graal.python.builtins.modules.pickle.PicklerBuiltins;
+import com.oracle.graal.python.builtins.modules.pickle.PicklerMemoProxyBuiltins;
+import com.oracle.graal.python.builtins.modules.pickle.UnpicklerBuiltins;
+import com.oracle.graal.python.builtins.modules.pickle.UnpicklerMemoProxyBuiltins;
+import com.oracle.graal.python.builtins.modules.re.MatchBuiltins;
+import com.oracle.graal.python.builtins.modules.struct.StructBuiltins;
+import com.oracle.graal.python.builtins.modules.struct.StructModuleBuiltins;
+import com.oracle.graal.python.builtins.modules.struct.StructUnpackIteratorBuiltins;
 import com.oracle.graal.python.builtins.modules.zlib.ZLibModuleBuiltins;
 import com.oracle.graal.python.builtins.modules.zlib.ZlibCompressBuiltins;
 import com.oracle.graal.python.builtins.modules.zlib.ZlibDecompressBuiltins;
@@ -209,6 +219,11 @@ import com.oracle.graal.python.builtins.objects.asyncio.AsyncGenSendBuiltins;
 import com.oracle.graal.python.builtins.objects.asyncio.AsyncGenThrowBuiltins;
 import com.oracle.graal.python.builtins.objects.asyncio.AsyncGeneratorBuiltins;
 import com.oracle.graal.python.builtins.objects.asyncio.CoroutineWrapperBuiltins;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureBuiltins;
+import com.oracle.graal.python.builtins.objects.asyncio.FutureIterBuiltins;
+import com.oracle.graal.python.builtins.objects.asyncio.TaskBuiltins;
+import com.oracle.graal.python.builtins.objects.asyncio.TaskStepMethWrapperBuiltins;
+import com.oracle.graal.python.builtins.objects.asyncio.TaskWakeupMethWrapperBuiltins;
 import com.oracle.graal.python.builtins.objects.bool.BoolBuiltins;
 import com.oracle.graal.python.builtins.objects.bytes.ByteArrayBuiltins;
 import com.oracle.graal.python.builtins.objects.bytes.BytesBuiltins;
@@ -314,6 +329,7 @@ import com.oracle.graal.python.builtins.objects.posix.DirEntryBuiltins;
 import com.oracle.graal.python.builtins.objects.posix.ScandirIteratorBuiltins;
 import com.oracle.graal.python.builtins.objects.property.PropertyBuiltins;
 import com.oracle.graal.python.builtins.objects.queue.SimpleQueueBuiltins;
+import com.oracle.graal.python.builtins.objects.select.PollBuiltins;
 import com.oracle.graal.python.builtins.objects.random.RandomBuiltins;
 import com.oracle.graal.python.builtins.objects.range.RangeBuiltins;
 import com.oracle.graal.python.builtins.objects.referencetype.ReferenceTypeBuiltins;
@@ -395,8 +411,7 @@ public abstract class Python3Core {
                         toTruffleStringUncached("function"),
                         toTruffleStringUncached("_sysconfig"),
                         toTruffleStringUncached("java"),
-                        toTruffleStringUncached("pip_hook"),
-                        toTruffleStringUncached("_struct")));
+                        toTruffleStringUncached("pip_hook")));
         // add service loader defined python file extensions
         if (!ImageInfo.inImageRuntimeCode()) {
             ServiceLoader<PythonBuiltins> providers = ServiceLoader.load(PythonBuiltins.class, Python3Core.class.getClassLoader());
@@ -608,9 +623,20 @@ public abstract class Python3Core {
                         new JArrayModuleBuiltins(),
                         new CSVModuleBuiltins(),
                         new JSONModuleBuiltins(),
+                        new StructModuleBuiltins(),
+                        new StructBuiltins(),
+                        new StructUnpackIteratorBuiltins(),
+                        new PickleModuleBuiltins(),
+                        new PicklerBuiltins(),
+                        new PicklerMemoProxyBuiltins(),
+                        new UnpicklerBuiltins(),
+                        new UnpicklerMemoProxyBuiltins(),
+                        new PickleBufferBuiltins(),
                         new SREModuleBuiltins(),
+                        new MatchBuiltins(),
                         new AstModuleBuiltins(),
                         PythonOptions.WITHOUT_NATIVE_POSIX && (PythonOptions.WITHOUT_JAVA_INET || !socketIOAllowed) ? null : new SelectModuleBuiltins(),
+                        PythonOptions.WITHOUT_NATIVE_POSIX && (PythonOptions.WITHOUT_JAVA_INET || !socketIOAllowed) ? null : new PollBuiltins(),
                         PythonOptions.WITHOUT_NATIVE_POSIX && (PythonOptions.WITHOUT_JAVA_INET || !socketIOAllowed) ? null : new SocketModuleBuiltins(),
                         PythonOptions.WITHOUT_NATIVE_POSIX && (PythonOptions.WITHOUT_JAVA_INET || !socketIOAllowed) ? null : new SocketBuiltins(),
                         PythonOptions.WITHOUT_PLATFORM_ACCESS ? null : new SignalModuleBuiltins(),
@@ -743,7 +769,12 @@ public abstract class Python3Core {
                         new AsyncioModuleBuiltins(),
                         new AsyncGeneratorBuiltins(),
                         new AsyncGenSendBuiltins(),
-                        new AsyncGenThrowBuiltins()));
+                        new AsyncGenThrowBuiltins(),
+                        new FutureBuiltins(),
+                        new FutureIterBuiltins(),
+                        new TaskBuiltins(),
+                        new TaskStepMethWrapperBuiltins(),
+                        new TaskWakeupMethWrapperBuiltins()));
         if (hasProfilerTool) {
             builtins.add(new LsprofModuleBuiltins());
             builtins.add(LsprofModuleBuiltins.newProfilerBuiltins());
@@ -795,10 +826,11 @@ public abstract class Python3Core {
     }
 
     @CompilerDirectives.ValueType
-    public static class SysModuleState {
+    public final class SysModuleState {
         private int recursionLimit = ImageInfo.inImageCode() ? NATIVE_REC_LIM : REC_LIM;
         private int checkInterval = 100;
-        private double switchInterval = 0.005;
+        // in microseconds
+        private volatile double switchInterval = 5000;
 
         public int getRecursionLimit() {
             return recursionLimit;
@@ -822,6 +854,7 @@ public abstract class Python3Core {
 
         public void setSwitchInterval(double switchInterval) {
             this.switchInterval = switchInterval;
+            getContext().getAsyncHandler().switchIntervalChanged();
         }
     }
 
@@ -89,9 +89,11 @@ import static com.oracle.graal.python.nodes.BuiltinNames.J_SIMPLE_QUEUE;
 import static com.oracle.graal.python.nodes.BuiltinNames.J_TUPLE_GETTER;
 import static com.oracle.graal.python.nodes.BuiltinNames.J_TYPES;
 import static com.oracle.graal.python.nodes.BuiltinNames.J_WRAPPER_DESCRIPTOR;
+import static com.oracle.graal.python.nodes.BuiltinNames.J__ASYNCIO;
 import static com.oracle.graal.python.nodes.BuiltinNames.J__CONTEXTVARS;
 import static com.oracle.graal.python.nodes.BuiltinNames.J__CTYPES;
 import static com.oracle.graal.python.nodes.BuiltinNames.J__SOCKET;
+import static com.oracle.graal.python.nodes.BuiltinNames.J__SRE;
 import static com.oracle.graal.python.nodes.BuiltinNames.J__SSL;
 import static com.oracle.graal.python.nodes.BuiltinNames.J__STRUCT;
 import static com.oracle.graal.python.nodes.BuiltinNames.J__THREAD;
@@ -178,6 +180,12 @@ public enum PythonBuiltinClassType implements TruffleObject {
     PGenerator("generator", Flags.PRIVATE_DERIVED_WODICT),
     PCoroutine("coroutine", Flags.PRIVATE_DERIVED_WODICT),
     PCoroutineWrapper("coroutine_wrapper", Flags.PRIVATE_DERIVED_WODICT),
+    PFuture("Future", J__ASYNCIO, Flags.PUBLIC_BASE_WDICT),
+    PTask("Task", J__ASYNCIO, Flags.PUBLIC_BASE_WDICT),
+    PFutureIter("FutureIter", Flags.PRIVATE_DERIVED_WODICT),
+    PTaskStepMethWrapper("TaskStepMethWrapper", Flags.PRIVATE_DERIVED_WODICT),
+    SREMatch("Match", J__SRE, "re", Flags.PUBLIC_DERIVED_WODICT),
+    PTaskWakeupMethWrapper("TaskWakeupMethWrapper", Flags.PRIVATE_DERIVED_WODICT),
     PAsyncGenerator("async_generator", Flags.PRIVATE_DERIVED_WODICT),
     PInt("int", J_BUILTINS, INT_M_FLAGS),
     PList("list", J_BUILTINS, LIST_M_FLAGS),
@@ -218,6 +226,7 @@ public enum PythonBuiltinClassType implements TruffleObject {
     PRLock("RLock", J__THREAD),
     PSemLock("SemLock", "_multiprocessing"),
     PSocket("socket", J__SOCKET),
+    PPoll("poll", "select", Flags.PRIVATE_DERIVED_WODICT),
     PStaticmethod("staticmethod", J_BUILTINS, Flags.PUBLIC_BASE_WDICT),
     PClassmethod("classmethod", J_BUILTINS, Flags.PUBLIC_BASE_WDICT),
     PInstancemethod("instancemethod", J_BUILTINS, Flags.PUBLIC_BASE_WDICT),
@@ -865,6 +874,8 @@ public enum PythonBuiltinClassType implements TruffleObject {
 
         Empty.base = Exception;
 
+        PTask.base = PFuture;
+
         boolean assertionsEnabled = false;
         assert (assertionsEnabled = true) == true;
         HashSet<String> set = assertionsEnabled ? new HashSet<>() : null;
@@ -54,7 +54,10 @@ import com.oracle.graal.python.builtins.Python3Core;
 import com.oracle.graal.python.builtins.PythonBuiltinClassType;
 import com.oracle.graal.python.builtins.PythonBuiltins;
 import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.asyncio.PFuture;
+import com.oracle.graal.python.builtins.objects.asyncio.PTask;
 import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.builtins.objects.function.PKeyword;
 import com.oracle.graal.python.builtins.objects.module.PythonModule;
 import com.oracle.graal.python.lib.PyDictDelItem;
 import com.oracle.graal.python.lib.PyDictGetItem;
@@ -69,8 +72,10 @@ import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
 import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
 import com.oracle.graal.python.nodes.statement.AbstractImportNode;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
 import com.oracle.graal.python.runtime.object.PythonObjectSlowPathFactory;
 import com.oracle.graal.python.util.PythonUtils;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Bind;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
@@ -88,6 +93,26 @@ public final class AsyncioModuleBuiltins extends PythonBuiltins {
         return AsyncioModuleBuiltinsFactory.getFactories();
     }
 
+    @Builtin(name = "Future", minNumOfPositionalArgs = 1, constructsClass = PythonBuiltinClassType.PFuture, takesVarArgs = true, takesVarKeywordArgs = true)
+    @GenerateNodeFactory
+    abstract static class FutureNode extends PythonBuiltinNode {
+        @Specialization
+        static PFuture doGeneric(Object cls, @SuppressWarnings("unused") Object[] args, @SuppressWarnings("unused") PKeyword[] kwargs,
+                        @Cached PythonObjectFactory factory) {
+            return factory.createFuture(cls);
+        }
+    }
+
+    @Builtin(name = "Task", minNumOfPositionalArgs = 1, constructsClass = PythonBuiltinClassType.PTask, takesVarArgs = true, takesVarKeywordArgs = true)
+    @GenerateNodeFactory
+    abstract static class TaskNode extends PythonBuiltinNode {
+        @Specialization
+        static PTask doGeneric(Object cls, @SuppressWarnings("unused") Object[] args, @SuppressWarnings("unused") PKeyword[] kwargs,
+                        @Cached PythonObjectFactory factory) {
+            return factory.createTask(cls);
+        }
+    }
+
     @Builtin(name = "get_running_loop")
     @GenerateNodeFactory
     public abstract static class GetRunningLoop extends PythonBuiltinNode {
@@ -174,14 +199,8 @@ public final class AsyncioModuleBuiltins extends PythonBuiltins {
                         @Bind("this") Node inliningTarget,
                         @Cached PyDictSetItem set,
                         @Cached PyDictGetItem get,
-                        @Cached PRaiseNode raise) {
-            PDict dict = (PDict) self.getAttribute(CURRENT_TASKS_ATTR);
-            Object item = get.execute(frame, inliningTarget, dict, loop);
-            if (item == null) {
-                set.execute(frame, inliningTarget, dict, loop, task);
-            } else {
-                throw raise.raise(PythonBuiltinClassType.RuntimeError, ErrorMessages.CANT_ENTER_TASK_ALREADY_RUNNING, task, item);
-            }
+                        @Cached PRaiseNode.Lazy raise) {
+            AsyncioModuleBuiltins.enterTask(frame, inliningTarget, (PDict) self.getAttribute(CURRENT_TASKS_ATTR), loop, task, get, set, raise);
             return PNone.NONE;
         }
     }
@@ -194,20 +213,42 @@ public final class AsyncioModuleBuiltins extends PythonBuiltins {
                         @Bind("this") Node inliningTarget,
                         @Cached PyDictDelItem del,
                         @Cached PyDictGetItem get,
-                        @Cached PRaiseNode raise) {
-            PDict dict = (PDict) self.getAttribute(CURRENT_TASKS_ATTR);
-            Object item = get.execute(frame, inliningTarget, dict, loop);
-            if (item == null) {
-                item = PNone.NONE;
-            }
-            if (item != task) {
-                throw raise.raise(PythonBuiltinClassType.RuntimeError, ErrorMessages.TASK_NOT_ENTERED, task, item);
-            }
-            del.execute(frame, inliningTarget, dict, loop);
+                        @Cached PRaiseNode.Lazy raise) {
+            AsyncioModuleBuiltins.leaveTask(frame, inliningTarget, (PDict) self.getAttribute(CURRENT_TASKS_ATTR), loop, task, get, del, raise);
             return PNone.NONE;
         }
     }
 
+    public static void enterTask(VirtualFrame frame, Node inliningTarget, PDict currentTasks, Object loop, Object task, PyDictGetItem get, PyDictSetItem set, PRaiseNode.Lazy raise) {
+        Object item = get.execute(frame, inliningTarget, currentTasks, loop);
+        if (item == null) {
+            set.execute(frame, inliningTarget, currentTasks, loop, task);
+        } else {
+            throw raise.get(inliningTarget).raise(PythonBuiltinClassType.RuntimeError, ErrorMessages.CANT_ENTER_TASK_ALREADY_RUNNING, task, item);
+        }
+    }
+
+    public static void leaveTask(VirtualFrame frame, Node inliningTarget, PDict currentTasks, Object loop, Object task, PyDictGetItem get, PyDictDelItem del, PRaiseNode.Lazy raise) {
+        Object item = get.execute(frame, inliningTarget, currentTasks, loop);
+        if (item == null) {
+            item = PNone.NONE;
+        }
+        if (item != task) {
+            throw raise.get(inliningTarget).raise(PythonBuiltinClassType.RuntimeError, ErrorMessages.TASK_NOT_ENTERED, task, item);
+        }
+        del.execute(frame, inliningTarget, currentTasks, loop);
+    }
+
+    @TruffleBoundary
+    public static PDict getCurrentTasks(Python3Core core) {
+        return (PDict) core.lookupBuiltinModule(T__ASYNCIO).getAttribute(CURRENT_TASKS_ATTR);
+    }
+
+    @TruffleBoundary
+    public static Object getAllTasks(Python3Core core) {
+        return core.lookupBuiltinModule(T__ASYNCIO).getAttribute(ALL_TASKS_ATTR);
+    }
+
     @Builtin(name = "_register_task", declaresExplicitSelf = true, minNumOfPositionalArgs = 2)
     @GenerateNodeFactory
     public abstract static class RegisterTask extends PythonBuiltinNode {
@@ -93,6 +93,7 @@ import com.oracle.graal.python.builtins.objects.bytes.PBytesLike;
 import com.oracle.graal.python.builtins.objects.cext.PythonAbstractNativeObject;
 import com.oracle.graal.python.builtins.objects.cext.capi.CApiContext;
 import com.oracle.graal.python.builtins.objects.cext.capi.PySequenceArrayWrapper.ToNativeStorageNode;
+import com.oracle.graal.python.builtins.objects.cext.capi.transitions.CApiTiming;
 import com.oracle.graal.python.builtins.objects.code.CodeNodes;
 import com.oracle.graal.python.builtins.objects.code.PCode;
 import com.oracle.graal.python.builtins.objects.common.DynamicObjectStorage;
@@ -100,6 +101,7 @@ import com.oracle.graal.python.builtins.objects.common.EconomicMapStorage;
 import com.oracle.graal.python.builtins.objects.common.EmptyStorage;
 import com.oracle.graal.python.builtins.objects.common.HashingStorage;
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageLen;
+import com.oracle.graal.python.builtins.objects.common.LongKeyStorage;
 import com.oracle.graal.python.builtins.objects.dict.PDict;
 import com.oracle.graal.python.builtins.objects.exception.OSErrorEnum;
 import com.oracle.graal.python.builtins.objects.exception.OSErrorEnum.ErrorAndMessagePair;
@@ -133,14 +135,17 @@ import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonBinaryClinicBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonQuaternaryBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryClinicBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
 import com.oracle.graal.python.nodes.object.GetClassNode;
 import com.oracle.graal.python.nodes.statement.AbstractImportNode;
 import com.oracle.graal.python.nodes.truffle.PythonArithmeticTypes;
+import com.oracle.graal.python.nodes.util.CannotCastException;
 import com.oracle.graal.python.nodes.util.CastToTruffleStringNode;
 import com.oracle.graal.python.runtime.PosixSupportLibrary;
 import com.oracle.graal.python.runtime.PythonContext;
 import com.oracle.graal.python.runtime.PythonOptions;
+import com.oracle.graal.python.runtime.PythonOptions.CApiProfilingMode;
 import com.oracle.graal.python.runtime.exception.PException;
 import com.oracle.graal.python.runtime.exception.PythonExitException;
 import com.oracle.graal.python.runtime.object.PythonObjectFactory;
@@ -787,6 +792,8 @@ public final class GraalPythonModuleBuiltins extends PythonBuiltins {
                     return new DynamicObjectStorage(lang);
                 case "economicmap":
                     return EconomicMapStorage.create();
+                case "longkeys":
+                    return new LongKeyStorage();
                 default:
                     throw PRaiseNode.raiseUncached(this, PythonBuiltinClassType.ValueError, ErrorMessages.UNKNOWN_STORAGE_STRATEGY);
             }
@@ -1016,6 +1023,64 @@ public final class GraalPythonModuleBuiltins extends PythonBuiltins {
         }
     }
 
+    @Builtin(name = "capi_profiling", minNumOfPositionalArgs = 0, parameterNames = {"mode"}, doc = "capi_profiling([mode])\n\n" +
+                    "Returns the C API profiling mode, 'none', 'count' or 'time', and switches to the given mode if there is one.")
+    @GenerateNodeFactory
+    abstract static class CApiProfilingNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        @TruffleBoundary
+        Object doIt(Object mode) {
+            TruffleString previous = toTruffleStringUncached(CApiTiming.getMode().name().toLowerCase());
+            if (mode != PNone.NO_VALUE) {
+                String name;
+                try {
+                    name = CastToTruffleStringNode.executeUncached(mode).toJavaStringUncached();
+                } catch (CannotCastException e) {
+                    throw PRaiseNode.raiseUncached(this, TypeError, ErrorMessages.MUST_BE_STR_NOT_P, mode);
+                }
+                CApiProfilingMode newMode;
+                try {
+                    newMode = CApiProfilingMode.valueOf(name.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw PRaiseNode.raiseUncached(this, PythonBuiltinClassType.ValueError, ErrorMessages.UNKNOWN_CAPI_PROFILING_MODE, name);
+                }
+                CApiTiming.setMode(newMode);
+            }
+            return previous;
+        }
+    }
+
+    @Builtin(name = "capi_profile", minNumOfPositionalArgs = 0, parameterNames = {"reset"}, doc = "capi_profile(reset=False)\n\n" +
+                    "Returns the C API profile as a list of (function, direction, calls, time_ns, wrapper_allocations) tuples, " +
+                    "sorted by descending time and calls. Direction is 'downcall' or 'upcall'. Clears the profile afterwards if reset is true.")
+    @ArgumentClinic(name = "reset", conversion = ArgumentClinic.ClinicConversion.Boolean, defaultValue = "false")
+    @GenerateNodeFactory
+    abstract static class CApiProfileNode extends PythonUnaryClinicBuiltinNode {
+        private static final TruffleString T_DOWNCALL = tsLiteral("downcall");
+        private static final TruffleString T_UPCALL = tsLiteral("upcall");
+
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return GraalPythonModuleBuiltinsClinicProviders.CApiProfileNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        @TruffleBoundary
+        Object doIt(boolean reset) {
+            List<CApiTiming.Entry> statistics = CApiTiming.getStatistics();
+            if (reset) {
+                CApiTiming.reset();
+            }
+            PythonObjectFactory factory = PythonObjectFactory.getUncached();
+            Object[] result = new Object[statistics.size()];
+            for (int i = 0; i < result.length; i++) {
+                CApiTiming.Entry e = statistics.get(i);
+                result[i] = factory.createTuple(new Object[]{toTruffleStringUncached(e.name()), e.downcall() ? T_DOWNCALL : T_UPCALL, e.count(), e.time(), e.allocations()});
+            }
+            return factory.createList(result);
+        }
+    }
+
     @Builtin(name = "get_graalvm_version", minNumOfPositionalArgs = 0)
     @GenerateNodeFactory
     abstract static class GetGraalVmVersion extends PythonBuiltinNode {
@@ -1033,7 +1033,7 @@ public final class MarshalModuleBuiltins extends PythonBuiltins {
                 case TYPE_SET:
                 case TYPE_FROZENSET:
                     int setSz = readSize();
-                    HashingStorage setStore = EconomicMapStorage.create(setSz);
+                    HashingStorage setStore = EconomicMapStorage.createForSet(setSz);
                     PBaseSet set;
                     if (type == TYPE_FROZENSET) {
                         set = factory.createFrozenSet(setStore);
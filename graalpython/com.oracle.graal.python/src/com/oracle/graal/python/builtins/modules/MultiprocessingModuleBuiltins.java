@@ -84,6 +84,7 @@ import com.oracle.graal.python.runtime.PythonContext;
 import com.oracle.graal.python.runtime.PythonContext.SharedMultiprocessingData;
 import com.oracle.graal.python.runtime.object.PythonObjectFactory;
 import com.oracle.graal.python.runtime.sequence.PSequence;
+import com.oracle.graal.python.runtime.sequence.storage.ByteSequenceStorage;
 import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage;
 import com.oracle.graal.python.util.ArrayBuilder;
 import com.oracle.graal.python.util.PythonUtils;
@@ -303,15 +304,20 @@ public final class MultiprocessingModuleBuiltins extends PythonBuiltins {
             SharedMultiprocessingData sharedData = getContext().getSharedMultiprocessingData();
             gil.release(true);
             try {
-                byte[] bytes = bufferLib.getCopiedByteArray(data);
-                sharedData.addPipeData(fd, bytes,
+                /*
+                 * Bytes are immutable, so the reading side can take over the internal array
+                 * without a copy.
+                 */
+                int length = bufferLib.getBufferLength(data);
+                ByteSequenceStorage chunk = new ByteSequenceStorage(bufferLib.getInternalOrCopiedByteArray(data), length);
+                sharedData.addPipeData(fd, chunk,
                                 () -> {
                                     throw PRaiseNode.raiseUncached(this, OSError, ErrorMessages.BAD_FILE_DESCRIPTOR);
                                 },
                                 () -> {
                                     throw PConstructAndRaiseNode.getUncached().raiseOSError(null, OSErrorEnum.EPIPE.getNumber(), OSErrorEnum.EPIPE.getMessage(), null);
                                 });
-                return bytes.length;
+                return length;
             } finally {
                 gil.acquire();
             }
@@ -341,7 +347,7 @@ public final class MultiprocessingModuleBuiltins extends PythonBuiltins {
                 if (data == PNone.NONE) {
                     return factory.createBytes(PythonUtils.EMPTY_BYTE_ARRAY, 0, 0);
                 }
-                return factory.createBytes((byte[]) data);
+                return factory.createBytes((ByteSequenceStorage) data);
             } finally {
                 gil.acquire();
             }
@@ -906,6 +906,33 @@ public final class PosixModuleBuiltins extends PythonBuiltins {
                 gil.acquire();
             }
         }
+
+        /**
+         * Like {@link #read}, but reads directly into the given array instead of allocating a new
+         * bytes object.
+         */
+        public int readInto(int fd, byte[] buf, int offset, int length,
+                        Node inliningTarget,
+                        PosixSupportLibrary posixLib,
+                        InlinedBranchProfile errorProfile, GilNode gil) throws PosixException {
+            gil.release(true);
+            try {
+                while (true) {
+                    try {
+                        return posixLib.readInto(getPosixSupport(), fd, buf, offset, length);
+                    } catch (PosixException e) {
+                        errorProfile.enter(inliningTarget);
+                        if (e.getErrorCode() == OSErrorEnum.EINTR.getNumber()) {
+                            PythonContext.triggerAsyncActions(this);
+                        } else {
+                            throw e;
+                        }
+                    }
+                }
+            } finally {
+                gil.acquire();
+            }
+        }
     }
 
     @Builtin(name = "write", minNumOfPositionalArgs = 2, parameterNames = {"fd", "data"})
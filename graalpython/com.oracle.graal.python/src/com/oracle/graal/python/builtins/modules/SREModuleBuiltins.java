@@ -43,6 +43,7 @@ package com.oracle.graal.python.builtins.modules;
 import static com.oracle.graal.python.runtime.exception.PythonErrorType.TypeError;
 import static com.oracle.graal.python.runtime.exception.PythonErrorType.ValueError;
 import static com.oracle.graal.python.util.PythonUtils.TS_ENCODING;
+import static com.oracle.graal.python.util.PythonUtils.toTruffleStringUncached;
 import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
 
 import java.nio.charset.StandardCharsets;
@@ -56,6 +57,7 @@ import com.oracle.graal.python.builtins.CoreFunctions;
 import com.oracle.graal.python.builtins.Python3Core;
 import com.oracle.graal.python.builtins.PythonBuiltinClassType;
 import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.modules.re.PMatch;
 import com.oracle.graal.python.builtins.objects.PNone;
 import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
 import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAcquireLibrary;
@@ -63,9 +65,11 @@ import com.oracle.graal.python.builtins.objects.exception.PBaseException;
 import com.oracle.graal.python.builtins.objects.module.PythonModule;
 import com.oracle.graal.python.builtins.objects.slice.SliceNodes;
 import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.lib.PyCallableCheckNode;
 import com.oracle.graal.python.lib.PyLongAsIntNode;
 import com.oracle.graal.python.lib.PyNumberAsSizeNode;
 import com.oracle.graal.python.lib.PyNumberIndexNode;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
 import com.oracle.graal.python.lib.PyObjectGetItem;
 import com.oracle.graal.python.lib.PyObjectLookupAttr;
 import com.oracle.graal.python.lib.PyObjectSizeNode;
@@ -78,8 +82,10 @@ import com.oracle.graal.python.nodes.attributes.ReadAttributeFromObjectNode;
 import com.oracle.graal.python.nodes.attributes.WriteAttributeToObjectNode;
 import com.oracle.graal.python.nodes.call.CallNode;
 import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonSenaryBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonTernaryBuiltinNode;
+import com.oracle.graal.python.nodes.statement.AbstractImportNode;
 import com.oracle.graal.python.nodes.truffle.PythonArithmeticTypes;
 import com.oracle.graal.python.nodes.util.BufferToTruffleStringNode;
 import com.oracle.graal.python.nodes.util.CannotCastException;
@@ -88,6 +94,7 @@ import com.oracle.graal.python.runtime.PythonContext;
 import com.oracle.graal.python.runtime.PythonOptions;
 import com.oracle.graal.python.runtime.exception.PException;
 import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.util.ArrayBuilder;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Bind;
@@ -107,6 +114,7 @@ import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.interop.ArityException;
 import com.oracle.truffle.api.interop.ExceptionType;
 import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.InvalidArrayIndexException;
 import com.oracle.truffle.api.interop.UnknownIdentifierException;
 import com.oracle.truffle.api.interop.UnsupportedMessageException;
 import com.oracle.truffle.api.interop.UnsupportedTypeException;
@@ -118,6 +126,7 @@ import com.oracle.truffle.api.profiles.InlinedConditionProfile;
 import com.oracle.truffle.api.source.Source;
 import com.oracle.truffle.api.source.SourceSection;
 import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
 
 @CoreFunctions(defineModule = "_sre")
 public final class SREModuleBuiltins extends PythonBuiltins {
@@ -178,6 +187,14 @@ public final class SREModuleBuiltins extends PythonBuiltins {
         private Object mustAdvanceFullMatchRegexp;
         private final EconomicMap<RegexKey, Object> localeSensitiveRegexps;
 
+        /*
+         * The group layout is the same for all the regexps compiled from the pattern, it is read
+         * from the first one that TRegex supports.
+         */
+        private int groupCount = -1;
+        private TruffleString[] groupNames;
+        private EconomicMap<TruffleString, Integer> groupIndex;
+
         private static final String ENCODING_UTF_32 = "Encoding=UTF-32";
         private static final String ENCODING_LATIN_1 = "Encoding=LATIN-1";
         private static final TruffleString T_ERROR = tsLiteral("error");
@@ -229,6 +246,60 @@ public final class SREModuleBuiltins extends PythonBuiltins {
             return binary;
         }
 
+        public Object getOriginalPattern() {
+            return originalPattern;
+        }
+
+        /**
+         * The number of capturing groups, not counting the whole match.
+         */
+        public int getGroupCount() {
+            assert groupCount >= 0;
+            return groupCount;
+        }
+
+        /**
+         * The name of the group with the given index, or {@code null} if it is not named.
+         */
+        public TruffleString getGroupName(int index) {
+            return groupNames[index];
+        }
+
+        /**
+         * The index of the group with the given name, or {@code -1} if there is no such group.
+         */
+        @TruffleBoundary
+        public int getGroupIndex(TruffleString name) {
+            Integer index = groupIndex.get(name);
+            return index == null ? -1 : index;
+        }
+
+        @TruffleBoundary
+        private void initGroups(InteropLibrary lib, Object regexp) {
+            try {
+                int count = lib.asInt(lib.readMember(regexp, "groupCount")) - 1;
+                TruffleString[] names = new TruffleString[count + 1];
+                EconomicMap<TruffleString, Integer> index = EconomicMap.create();
+                Object groups = lib.readMember(regexp, "groups");
+                if (!lib.isNull(groups)) {
+                    Object members = lib.getMembers(groups);
+                    long size = lib.getArraySize(members);
+                    for (long i = 0; i < size; i++) {
+                        String name = lib.asString(lib.readArrayElement(members, i));
+                        int groupIdx = lib.asInt(lib.readMember(groups, name));
+                        TruffleString tsName = toTruffleStringUncached(name);
+                        names[groupIdx] = tsName;
+                        index.put(tsName, groupIdx);
+                    }
+                }
+                groupNames = names;
+                groupIndex = index;
+                groupCount = count;
+            } catch (UnsupportedMessageException | UnknownIdentifierException | InvalidArrayIndexException e) {
+                throw CompilerDirectives.shouldNotReachHere(e);
+            }
+        }
+
         @Idempotent
         public boolean isLocaleSensitive() {
             return localeSensitive;
@@ -395,6 +466,9 @@ public final class SREModuleBuiltins extends PythonBuiltins {
                     regexp = PNone.NONE;
                 } else {
                     regexp = compiledRegex;
+                    if (groupCount < 0) {
+                        initGroups(lib, compiledRegex);
+                    }
                 }
             } catch (RuntimeException e) {
                 throw handleCompilationError(e, lib, context);
@@ -591,36 +665,21 @@ public final class SREModuleBuiltins extends PythonBuiltins {
     @GenerateCached(false)
     abstract static class CreateMatchFromTRegexResultNode extends PNodeWithContext {
 
-        private static final TruffleString T_MATCH_CONSTRUCTOR = tsLiteral("Match");
-        private static final TruffleString T__PATTERN__INDEXGROUP = tsLiteral("_Pattern__indexgroup");
-
-        public abstract Object execute(VirtualFrame frame, Node inliningTarget, Object pattern, int pos, int endPos, Object regexResult, Object input);
+        public abstract Object execute(Node inliningTarget, Object pattern, TRegexCache tRegexCache, int pos, int endPos, Object regexResult, Object input);
 
         @Specialization
-        static Object createMatch(VirtualFrame frame, Node inliningTarget, Object pattern, int pos, int endPos, Object regexResult, Object input,
-                        @Cached("lookupMatchConstructor()") Object matchConstructor,
+        static Object createMatch(Node inliningTarget, Object pattern, TRegexCache tRegexCache, int pos, int endPos, Object regexResult, Object input,
                         @Cached InlinedConditionProfile matchProfile,
                         @CachedLibrary(limit = "1") InteropLibrary libResult,
-                        @Cached PyObjectLookupAttr lookupIndexGroupNode,
-                        @Cached(inline = false) CallNode constructResultNode) {
-            try {
-                if (matchProfile.profile(inliningTarget, (boolean) libResult.readMember(regexResult, "isMatch"))) {
-                    Object indexGroup = lookupIndexGroupNode.execute(frame, inliningTarget, pattern, T__PATTERN__INDEXGROUP);
-                    return constructResultNode.execute(matchConstructor, pattern, pos, endPos, regexResult, input, indexGroup);
-                } else {
-                    return PNone.NONE;
-                }
-            } catch (UnsupportedMessageException | UnknownIdentifierException e) {
-                throw CompilerDirectives.shouldNotReachHere();
+                        @Cached CastToTruffleStringNode castToTruffleStringNode,
+                        @Cached PythonObjectFactory factory) {
+            if (matchProfile.profile(inliningTarget, isMatch(libResult, regexResult))) {
+                TruffleString inputString = tRegexCache.isBinary() ? null : castToTruffleStringNode.execute(inliningTarget, input);
+                return factory.createMatch(pattern, tRegexCache, input, inputString, regexResult, pos, endPos);
+            } else {
+                return PNone.NONE;
             }
         }
-
-        @TruffleBoundary
-        @NeverDefault
-        protected Object lookupMatchConstructor() {
-            PythonModule module = getContext().lookupBuiltinModule(BuiltinNames.T__SRE);
-            return PyObjectLookupAttr.executeUncached(module, T_MATCH_CONSTRUCTOR);
-        }
     }
 
     @Builtin(name = "tregex_search", minNumOfPositionalArgs = 6)
@@ -684,7 +743,7 @@ public final class SREModuleBuiltins extends PythonBuiltins {
             }
             Object regexResult = tRegexCallExec.execute(frame, compiledRegex, truncatedInput, pos);
 
-            return createMatchFromTRegexResultNode.execute(frame, inliningTarget, pattern, pos, endPos, regexResult, input);
+            return createMatchFromTRegexResultNode.execute(inliningTarget, pattern, tRegexCache, pos, endPos, regexResult, input);
         }
 
         @Specialization(guards = {"tRegexCompileNode.execute(frame, pattern, method, mustAdvance) == compiledRegex", "method == cachedMethod",
@@ -844,4 +903,501 @@ public final class SREModuleBuiltins extends PythonBuiltins {
             return bufferToTruffleStringNode;
         }
     }
+
+    /*
+     * TRegex creates a new result object for each exec and has no way to fill in an existing one,
+     * so the loops below cannot reuse it. They only read the bounds they need right away and never
+     * let the result escape, which allows the compiler to remove the allocation once exec is
+     * inlined.
+     */
+    static Object execRegex(InteropLibrary lib, Object compiledRegex, TruffleString input, int fromIndex) {
+        try {
+            return lib.invokeMember(compiledRegex, "exec", input, fromIndex);
+        } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException | UnknownIdentifierException e) {
+            throw CompilerDirectives.shouldNotReachHere("could not call TRegex exec method", e);
+        }
+    }
+
+    static boolean isMatch(InteropLibrary lib, Object regexResult) {
+        try {
+            return (boolean) lib.readMember(regexResult, "isMatch");
+        } catch (UnsupportedMessageException | UnknownIdentifierException e) {
+            throw CompilerDirectives.shouldNotReachHere(e);
+        }
+    }
+
+    static int getStart(InteropLibrary lib, Object regexResult, int group) {
+        try {
+            return (int) lib.invokeMember(regexResult, "getStart", group);
+        } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException | UnknownIdentifierException e) {
+            throw CompilerDirectives.shouldNotReachHere(e);
+        }
+    }
+
+    static int getEnd(InteropLibrary lib, Object regexResult, int group) {
+        try {
+            return (int) lib.invokeMember(regexResult, "getEnd", group);
+        } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException | UnknownIdentifierException e) {
+            throw CompilerDirectives.shouldNotReachHere(e);
+        }
+    }
+
+    /**
+     * Converts the input of a search loop to the string TRegex runs on. Bytes-like inputs are
+     * passed as a buffer that the caller has acquired and keeps acquired for the whole loop.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    abstract static class TRegexInputNode extends Node {
+
+        public abstract TruffleString execute(Node inliningTarget, Object input, Object buffer);
+
+        @Specialization
+        static TruffleString convert(Node inliningTarget, Object input, Object buffer,
+                        @Cached InlinedConditionProfile binaryProfile,
+                        @Cached CastToTruffleStringNode castToTruffleStringNode,
+                        @Cached(inline = false) BufferToTruffleStringNode bufferToTruffleStringNode) {
+            if (binaryProfile.profile(inliningTarget, buffer != null)) {
+                return bufferToTruffleStringNode.execute(buffer, 0);
+            }
+            return castToTruffleStringNode.execute(inliningTarget, input);
+        }
+    }
+
+    /**
+     * Creates the {@code str} or {@code bytes} object for a part of the input of a search loop.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    abstract static class TRegexSliceNode extends Node {
+
+        public abstract Object execute(Node inliningTarget, TruffleString input, Object buffer, int start, int end);
+
+        @Specialization
+        static Object slice(Node inliningTarget, TruffleString input, Object buffer, int start, int end,
+                        @Cached InlinedConditionProfile binaryProfile,
+                        @Cached(inline = false) TruffleString.SubstringNode substringNode,
+                        @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib,
+                        @Cached PythonObjectFactory factory) {
+            if (binaryProfile.profile(inliningTarget, buffer != null)) {
+                return factory.createBytes(bufferLib.getCopyOfRange(buffer, start, end));
+            }
+            return substringNode.execute(input, start, end - start, TS_ENCODING, false);
+        }
+    }
+
+    /**
+     * Converts a replacement returned by the {@code repl} callable of {@code sub} to a string in
+     * the encoding of the input, raising the same {@code TypeError} as {@code str.join} and
+     * {@code bytes.join} would for an item of the wrong type.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    abstract static class TRegexReplacementNode extends Node {
+
+        public abstract TruffleString execute(Node inliningTarget, Object replacement, boolean binary, int index);
+
+        @Specialization
+        static TruffleString convert(Node inliningTarget, Object replacement, boolean binary, int index,
+                        @Cached CastToTruffleStringNode castToTruffleStringNode,
+                        @CachedLibrary(limit = "3") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib,
+                        @Cached(inline = false) TruffleString.FromByteArrayNode fromByteArrayNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            if (binary) {
+                if (!acquireLib.hasBuffer(replacement)) {
+                    throw raiseNode.get(inliningTarget).raise(TypeError, ErrorMessages.INVALID_BYTES_SEQ_ITEM, index, replacement);
+                }
+                Object buffer = acquireLib.acquireReadonly(replacement);
+                try {
+                    return fromByteArrayNode.execute(bufferLib.getCopiedByteArray(buffer), TruffleString.Encoding.ISO_8859_1, false);
+                } finally {
+                    bufferLib.release(buffer);
+                }
+            }
+            try {
+                return castToTruffleStringNode.execute(inliningTarget, replacement);
+            } catch (CannotCastException e) {
+                throw raiseNode.get(inliningTarget).raise(TypeError, ErrorMessages.INVALID_SEQ_ITEM, index, replacement);
+            }
+        }
+    }
+
+    /**
+     * Base class of the builtins that run TRegex repeatedly over the same input. They convert the
+     * input only once and look up the capture groups only if the result needs them, instead of
+     * creating a match object for every match.
+     */
+    abstract static class TRegexLoopNode extends PythonBuiltinNode {
+
+        @Child private ReadAttributeFromObjectNode readCacheNode = ReadAttributeFromObjectNode.create();
+
+        protected final TRegexCache getTRegexCache(Object pattern) {
+            return (TRegexCache) readCacheNode.execute(pattern, TREGEX_CACHE);
+        }
+
+        protected static TruffleString.Encoding getEncoding(TRegexCache tRegexCache) {
+            return tRegexCache.isBinary() ? TruffleString.Encoding.ISO_8859_1 : TS_ENCODING;
+        }
+    }
+
+    @Builtin(name = "tregex_findall", minNumOfPositionalArgs = 4)
+    @GenerateNodeFactory
+    abstract static class TRegexFindAll extends TRegexLoopNode {
+
+        @Specialization
+        @SuppressWarnings("truffle-static-method")
+        Object findall(VirtualFrame frame, Object pattern, Object string, Object posArg, Object endPosArg,
+                        @Bind("this") Node inliningTarget,
+                        @Cached TRegexCompile compileNode,
+                        @Cached TRegexCompile compileMustAdvanceNode,
+                        @Cached RECheckInputTypeNode reCheckInputTypeNode,
+                        @Cached PyNumberIndexNode indexNode,
+                        @Cached PyNumberAsSizeNode asSizeNode,
+                        @CachedLibrary(limit = "3") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "1") PythonBufferAccessLibrary bufferLib,
+                        @Cached TRegexInputNode inputNode,
+                        @Cached(inline = false) TruffleString.CodePointLengthNode codePointLengthNode,
+                        @Cached(inline = false) TruffleString.SubstringNode substringNode,
+                        @CachedLibrary(limit = "2") InteropLibrary execLib,
+                        @CachedLibrary(limit = "1") InteropLibrary resultLib,
+                        @Cached TRegexSliceNode sliceNode,
+                        @Cached PythonObjectFactory factory) {
+            TRegexCache tRegexCache = getTRegexCache(pattern);
+            reCheckInputTypeNode.execute(frame, string, tRegexCache.isBinary());
+            Object compiledRegex = compileNode.execute(frame, pattern, PythonMethod.Search, false);
+            Object mustAdvanceRegex = compileMustAdvanceNode.execute(frame, pattern, PythonMethod.Search, true);
+            int pos = asSizeNode.executeExact(frame, inliningTarget, indexNode.execute(frame, inliningTarget, posArg));
+            int endPos = asSizeNode.executeExact(frame, inliningTarget, indexNode.execute(frame, inliningTarget, endPosArg));
+            Object buffer = tRegexCache.isBinary() ? acquireLib.acquireReadonly(string, frame, this) : null;
+            try {
+                TruffleString input = inputNode.execute(inliningTarget, string, buffer);
+                TruffleString.Encoding encoding = getEncoding(tRegexCache);
+                int length = codePointLengthNode.execute(input, encoding);
+                if (endPos < 0) {
+                    endPos = 0;
+                } else if (endPos > length) {
+                    endPos = length;
+                }
+                if (pos < 0) {
+                    pos = 0;
+                } else if (pos > endPos) {
+                    pos = endPos;
+                }
+                TruffleString searchInput = endPos == length ? input : substringNode.execute(input, 0, endPos, encoding, true);
+                int groupCount = tRegexCache.getGroupCount();
+                ArrayBuilder<Object> matches = new ArrayBuilder<>();
+                boolean mustAdvance = false;
+                while (pos <= endPos) {
+                    Object regexResult = execRegex(execLib, mustAdvance ? mustAdvanceRegex : compiledRegex, searchInput, pos);
+                    if (!isMatch(resultLib, regexResult)) {
+                        break;
+                    }
+                    int start = getStart(resultLib, regexResult, 0);
+                    int end = getEnd(resultLib, regexResult, 0);
+                    if (groupCount == 0) {
+                        matches.add(sliceNode.execute(inliningTarget, input, buffer, start, end));
+                    } else if (groupCount == 1) {
+                        matches.add(getGroup(inliningTarget, resultLib, sliceNode, regexResult, input, buffer, 1));
+                    } else {
+                        Object[] groups = new Object[groupCount];
+                        for (int i = 0; i < groupCount; i++) {
+                            groups[i] = getGroup(inliningTarget, resultLib, sliceNode, regexResult, input, buffer, i + 1);
+                        }
+                        matches.add(factory.createTuple(groups));
+                    }
+                    pos = end;
+                    mustAdvance = start == end;
+                }
+                return factory.createList(matches.toArray(new Object[0]));
+            } finally {
+                if (buffer != null) {
+                    bufferLib.release(buffer, frame, this);
+                }
+            }
+        }
+
+        private static Object getGroup(Node inliningTarget, InteropLibrary resultLib, TRegexSliceNode sliceNode, Object regexResult, TruffleString input, Object buffer, int group) {
+            int start = getStart(resultLib, regexResult, group);
+            if (start < 0) {
+                // groups that did not participate in the match are reported as empty strings
+                return sliceNode.execute(inliningTarget, input, buffer, 0, 0);
+            }
+            return sliceNode.execute(inliningTarget, input, buffer, start, getEnd(resultLib, regexResult, group));
+        }
+    }
+
+    @Builtin(name = "tregex_split", minNumOfPositionalArgs = 3)
+    @GenerateNodeFactory
+    abstract static class TRegexSplit extends TRegexLoopNode {
+
+        @Specialization
+        @SuppressWarnings("truffle-static-method")
+        Object split(VirtualFrame frame, Object pattern, Object string, Object maxSplitArg,
+                        @Bind("this") Node inliningTarget,
+                        @Cached TRegexCompile compileNode,
+                        @Cached TRegexCompile compileMustAdvanceNode,
+                        @Cached RECheckInputTypeNode reCheckInputTypeNode,
+                        @Cached PyNumberIndexNode indexNode,
+                        @Cached PyNumberAsSizeNode asSizeNode,
+                        @CachedLibrary(limit = "3") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "1") PythonBufferAccessLibrary bufferLib,
+                        @Cached TRegexInputNode inputNode,
+                        @Cached(inline = false) TruffleString.CodePointLengthNode codePointLengthNode,
+                        @CachedLibrary(limit = "2") InteropLibrary execLib,
+                        @CachedLibrary(limit = "1") InteropLibrary resultLib,
+                        @Cached TRegexSliceNode sliceNode,
+                        @Cached PythonObjectFactory factory) {
+            TRegexCache tRegexCache = getTRegexCache(pattern);
+            reCheckInputTypeNode.execute(frame, string, tRegexCache.isBinary());
+            Object compiledRegex = compileNode.execute(frame, pattern, PythonMethod.Search, false);
+            Object mustAdvanceRegex = compileMustAdvanceNode.execute(frame, pattern, PythonMethod.Search, true);
+            int maxSplit = asSizeNode.executeExact(frame, inliningTarget, indexNode.execute(frame, inliningTarget, maxSplitArg));
+            Object buffer = tRegexCache.isBinary() ? acquireLib.acquireReadonly(string, frame, this) : null;
+            try {
+                TruffleString input = inputNode.execute(inliningTarget, string, buffer);
+                int length = codePointLengthNode.execute(input, getEncoding(tRegexCache));
+                int groupCount = tRegexCache.getGroupCount();
+                ArrayBuilder<Object> parts = new ArrayBuilder<>();
+                int n = 0;
+                int collectPos = 0;
+                int searchPos = 0;
+                boolean mustAdvance = false;
+                while ((maxSplit == 0 || n < maxSplit) && searchPos <= length) {
+                    Object regexResult = execRegex(execLib, mustAdvance ? mustAdvanceRegex : compiledRegex, input, searchPos);
+                    if (!isMatch(resultLib, regexResult)) {
+                        break;
+                    }
+                    n++;
+                    int start = getStart(resultLib, regexResult, 0);
+                    int end = getEnd(resultLib, regexResult, 0);
+                    parts.add(sliceNode.execute(inliningTarget, input, buffer, collectPos, start));
+                    for (int i = 1; i <= groupCount; i++) {
+                        int groupStart = getStart(resultLib, regexResult, i);
+                        if (groupStart >= 0) {
+                            parts.add(sliceNode.execute(inliningTarget, input, buffer, groupStart, getEnd(resultLib, regexResult, i)));
+                        } else {
+                            parts.add(PNone.NONE);
+                        }
+                    }
+                    collectPos = end;
+                    searchPos = end;
+                    mustAdvance = start == end;
+                }
+                parts.add(sliceNode.execute(inliningTarget, input, buffer, collectPos, length));
+                return factory.createList(parts.toArray(new Object[0]));
+            } finally {
+                if (buffer != null) {
+                    bufferLib.release(buffer, frame, this);
+                }
+            }
+        }
+    }
+
+    /**
+     * A replacement template of {@code sub} that refers to groups, as returned by
+     * {@code re._compile_repl}. A group number of {@code -1} marks a literal part.
+     */
+    static final class ReplacementTemplate {
+        final TruffleString[] literals;
+        final int[] groups;
+
+        ReplacementTemplate(TruffleString[] literals, int[] groups) {
+            this.literals = literals;
+            this.groups = groups;
+        }
+
+        @TruffleBoundary
+        static ReplacementTemplate create(Object template, boolean binary) {
+            Object groupsList = PyObjectGetItem.executeUncached(template, 0);
+            Object literalsList = PyObjectGetItem.executeUncached(template, 1);
+            int size = PyObjectSizeNode.executeUncached(literalsList);
+            TruffleString[] literals = new TruffleString[size];
+            int[] groups = new int[size];
+            for (int i = 0; i < size; i++) {
+                Object literal = PyObjectGetItem.executeUncached(literalsList, i);
+                groups[i] = -1;
+                if (literal != PNone.NONE) {
+                    literals[i] = toLiteral(literal, binary);
+                }
+            }
+            int groupsSize = PyObjectSizeNode.executeUncached(groupsList);
+            for (int i = 0; i < groupsSize; i++) {
+                Object item = PyObjectGetItem.executeUncached(groupsList, i);
+                int index = PyLongAsIntNode.executeUncached(PyObjectGetItem.executeUncached(item, 0));
+                groups[index] = PyLongAsIntNode.executeUncached(PyObjectGetItem.executeUncached(item, 1));
+            }
+            return new ReplacementTemplate(literals, groups);
+        }
+
+        private static TruffleString toLiteral(Object literal, boolean binary) {
+            if (binary) {
+                PythonBufferAcquireLibrary acquireLib = PythonBufferAcquireLibrary.getUncached();
+                PythonBufferAccessLibrary bufferLib = PythonBufferAccessLibrary.getUncached();
+                Object buffer = acquireLib.acquireReadonly(literal);
+                try {
+                    return TruffleString.fromByteArrayUncached(bufferLib.getCopiedByteArray(buffer), TruffleString.Encoding.ISO_8859_1, false);
+                } finally {
+                    bufferLib.release(buffer);
+                }
+            }
+            return CastToTruffleStringNode.executeUncached(literal);
+        }
+    }
+
+    @Builtin(name = "tregex_subn", minNumOfPositionalArgs = 4)
+    @GenerateNodeFactory
+    abstract static class TRegexSubn extends TRegexLoopNode {
+
+        private static final TruffleString T_RE = tsLiteral("re");
+        private static final TruffleString T__COMPILE_REPL = tsLiteral("_compile_repl");
+
+        @Specialization
+        @SuppressWarnings("truffle-static-method")
+        Object subn(VirtualFrame frame, Object pattern, Object repl, Object string, Object countArg,
+                        @Bind("this") Node inliningTarget,
+                        @Cached TRegexCompile compileNode,
+                        @Cached TRegexCompile compileMustAdvanceNode,
+                        @Cached RECheckInputTypeNode reCheckInputTypeNode,
+                        @Cached RECheckInputTypeNode reCheckReplTypeNode,
+                        @Cached PyNumberIndexNode indexNode,
+                        @Cached PyNumberAsSizeNode asSizeNode,
+                        @Cached PyCallableCheckNode callableCheckNode,
+                        @Cached InlinedConditionProfile callableProfile,
+                        @Cached InlinedConditionProfile templateProfile,
+                        @CachedLibrary(limit = "3") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "1") PythonBufferAccessLibrary bufferLib,
+                        @Cached TRegexInputNode inputNode,
+                        @Cached TRegexReplacementNode replacementNode,
+                        @Cached(inline = false) TruffleString.CodePointLengthNode codePointLengthNode,
+                        @Cached(inline = false) TruffleString.IndexOfCodePointNode indexOfCodePointNode,
+                        @Cached(inline = false) TruffleString.SubstringNode substringNode,
+                        @Cached(inline = false) TruffleStringBuilder.AppendStringNode appendStringNode,
+                        @Cached(inline = false) TruffleStringBuilder.ToStringNode toStringNode,
+                        @Cached(inline = false) TruffleString.CopyToByteArrayNode copyToByteArrayNode,
+                        @CachedLibrary(limit = "2") InteropLibrary execLib,
+                        @CachedLibrary(limit = "1") InteropLibrary resultLib,
+                        @Cached PyObjectCallMethodObjArgs callCompileRepl,
+                        @Cached CallNode callFilterNode,
+                        @Cached PythonObjectFactory factory) {
+            TRegexCache tRegexCache = getTRegexCache(pattern);
+            boolean binary = tRegexCache.isBinary();
+            TruffleString.Encoding encoding = getEncoding(tRegexCache);
+            reCheckInputTypeNode.execute(frame, string, binary);
+            Object compiledRegex = compileNode.execute(frame, pattern, PythonMethod.Search, false);
+            Object mustAdvanceRegex = compileMustAdvanceNode.execute(frame, pattern, PythonMethod.Search, true);
+            int count = asSizeNode.executeExact(frame, inliningTarget, indexNode.execute(frame, inliningTarget, countArg));
+
+            Object filter = null;
+            TruffleString literal = null;
+            ReplacementTemplate template = null;
+            if (callableProfile.profile(inliningTarget, callableCheckNode.execute(inliningTarget, repl))) {
+                filter = repl;
+            } else {
+                reCheckReplTypeNode.execute(frame, repl, binary);
+                literal = replacementNode.execute(inliningTarget, repl, binary, 0);
+                int replLength = codePointLengthNode.execute(literal, encoding);
+                if (templateProfile.profile(inliningTarget, indexOfCodePointNode.execute(literal, '\\', 0, replLength, encoding) >= 0)) {
+                    Object compiledRepl = callCompileRepl.execute(frame, inliningTarget, importRe(), T__COMPILE_REPL, repl, pattern);
+                    template = ReplacementTemplate.create(compiledRepl, binary);
+                    if (template.literals.length == 1 && template.groups[0] < 0) {
+                        // the escapes did not refer to any group
+                        literal = template.literals[0];
+                        template = null;
+                    } else {
+                        literal = null;
+                    }
+                }
+            }
+
+            Object buffer = binary ? acquireLib.acquireReadonly(string, frame, this) : null;
+            try {
+                TruffleString input = inputNode.execute(inliningTarget, string, buffer);
+                int length = codePointLengthNode.execute(input, encoding);
+                TruffleStringBuilder sb = TruffleStringBuilder.create(encoding);
+                int n = 0;
+                // index of the next part of the result, for error messages only
+                int partIndex = 0;
+                int pos = 0;
+                boolean mustAdvance = false;
+                while ((count == 0 || n < count) && pos <= length) {
+                    Object regexResult = execRegex(execLib, mustAdvance ? mustAdvanceRegex : compiledRegex, input, pos);
+                    if (!isMatch(resultLib, regexResult)) {
+                        break;
+                    }
+                    n++;
+                    int start = getStart(resultLib, regexResult, 0);
+                    int end = getEnd(resultLib, regexResult, 0);
+                    if (start > pos) {
+                        appendStringNode.execute(sb, substringNode.execute(input, pos, start - pos, encoding, true));
+                        partIndex++;
+                    }
+                    if (literal != null) {
+                        appendStringNode.execute(sb, literal);
+                        partIndex++;
+                    } else if (template != null) {
+                        appendTemplate(template, regexResult, input, encoding, sb, resultLib, substringNode, appendStringNode);
+                        partIndex++;
+                    } else {
+                        PMatch match = factory.createMatch(pattern, tRegexCache, string, binary ? null : input, regexResult, 0, length);
+                        Object replacement = callFilterNode.execute(frame, filter, match);
+                        if (replacement != PNone.NONE) {
+                            appendStringNode.execute(sb, replacementNode.execute(inliningTarget, replacement, binary, partIndex));
+                            partIndex++;
+                        }
+                    }
+                    pos = end;
+                    mustAdvance = start == end;
+                }
+                if (pos < length) {
+                    appendStringNode.execute(sb, substringNode.execute(input, pos, length - pos, encoding, true));
+                }
+                TruffleString result = toStringNode.execute(sb);
+                Object resultObject = binary ? factory.createBytes(copyToByteArrayNode.execute(result, encoding)) : result;
+                return factory.createTuple(new Object[]{resultObject, n});
+            } finally {
+                if (buffer != null) {
+                    bufferLib.release(buffer, frame, this);
+                }
+            }
+        }
+
+        private static void appendTemplate(ReplacementTemplate template, Object regexResult, TruffleString input, TruffleString.Encoding encoding, TruffleStringBuilder sb,
+                        InteropLibrary resultLib, TruffleString.SubstringNode substringNode, TruffleStringBuilder.AppendStringNode appendStringNode) {
+            for (int i = 0; i < template.literals.length; i++) {
+                int group = template.groups[i];
+                if (group < 0) {
+                    appendStringNode.execute(sb, template.literals[i]);
+                } else {
+                    int groupStart = getStart(resultLib, regexResult, group);
+                    if (groupStart >= 0) {
+                        int groupEnd = getEnd(resultLib, regexResult, group);
+                        appendStringNode.execute(sb, substringNode.execute(input, groupStart, groupEnd - groupStart, encoding, true));
+                    }
+                }
+            }
+        }
+
+        @TruffleBoundary
+        private static Object importRe() {
+            return AbstractImportNode.importModule(T_RE);
+        }
+    }
+
+    @Builtin(name = "tregex_create_match", minNumOfPositionalArgs = 5)
+    @GenerateNodeFactory
+    abstract static class TRegexCreateMatch extends TRegexLoopNode {
+
+        @Specialization
+        @SuppressWarnings("truffle-static-method")
+        Object create(Object pattern, Object posArg, Object endPosArg, Object regexResult, Object input,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyLongAsIntNode posAsIntNode,
+                        @Cached PyLongAsIntNode endPosAsIntNode,
+                        @Cached CreateMatchFromTRegexResultNode createMatchFromTRegexResultNode) {
+            int pos = posAsIntNode.execute(null, inliningTarget, posArg);
+            int endPos = endPosAsIntNode.execute(null, inliningTarget, endPosArg);
+            return createMatchFromTRegexResultNode.execute(inliningTarget, pattern, getTRegexCache(pattern), pos, endPos, regexResult, input);
+        }
+    }
 }
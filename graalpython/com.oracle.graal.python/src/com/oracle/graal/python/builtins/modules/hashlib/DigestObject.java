@@ -46,6 +46,7 @@ import javax.crypto.Mac;
 
 import com.oracle.graal.python.builtins.PythonBuiltinClassType;
 import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
+import com.oracle.graal.python.builtins.objects.thread.PLock;
 import com.oracle.graal.python.runtime.object.PythonObjectFactory;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -63,6 +64,11 @@ import com.oracle.truffle.api.object.Shape;
  */
 public abstract class DigestObject extends PythonBuiltinObject {
     private final String name;
+    /*
+     * Guards the digest state once it has been updated without holding the GIL. Like in CPython,
+     * it is only created on the first such update.
+     */
+    private PLock lock;
 
     DigestObject(Object cls, Shape instanceShape, String name) {
         super(cls, instanceShape);
@@ -79,6 +85,14 @@ public abstract class DigestObject extends PythonBuiltinObject {
         }
     }
 
+    PLock getLock() {
+        return lock;
+    }
+
+    void setLock(PLock lock) {
+        this.lock = lock;
+    }
+
     public PythonBuiltinClassType getType() {
         return (PythonBuiltinClassType) getInitialPythonClass();
     }
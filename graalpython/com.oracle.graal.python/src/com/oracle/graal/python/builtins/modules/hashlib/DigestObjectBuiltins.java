@@ -52,23 +52,28 @@ import com.oracle.graal.python.builtins.objects.PNone;
 import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
 import com.oracle.graal.python.builtins.objects.bytes.BytesNodes;
 import com.oracle.graal.python.builtins.objects.bytes.PBytes;
+import com.oracle.graal.python.builtins.objects.thread.PLock;
 import com.oracle.graal.python.nodes.ErrorMessages;
 import com.oracle.graal.python.nodes.PRaiseNode;
 import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonBinaryClinicBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
+import com.oracle.graal.python.runtime.GilNode;
 import com.oracle.graal.python.runtime.object.PythonObjectFactory;
 import com.oracle.graal.python.util.PythonUtils;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Bind;
 import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateCached;
+import com.oracle.truffle.api.dsl.GenerateInline;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.library.CachedLibrary;
 import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.profiles.InlinedConditionProfile;
 import com.oracle.truffle.api.strings.TruffleString;
 
 @CoreFunctions(extendClasses = {PythonBuiltinClassType.MD5Type, PythonBuiltinClassType.SHA1Type, PythonBuiltinClassType.SHA224Type, PythonBuiltinClassType.SHA256Type,
@@ -82,18 +87,65 @@ public final class DigestObjectBuiltins extends PythonBuiltins {
         return DigestObjectBuiltinsFactory.getFactories();
     }
 
+    /**
+     * Updates with at least this many bytes run without the GIL, like {@code HASHLIB_GIL_MINSIZE}
+     * in CPython.
+     */
+    static final int HASHLIB_GIL_MINSIZE = 2048;
+
+    /**
+     * Implementation of CPython's {@code ENTER_HASHLIB}. Takes the lock of a digest object that has
+     * been updated without the GIL, if there is one, and waits for it with the GIL released. The
+     * result must be passed to {@link #leave(PLock)}.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    abstract static class EnterDigestNode extends Node {
+
+        abstract PLock execute(Node inliningTarget, DigestObject self);
+
+        @Specialization
+        static PLock enter(Node inliningTarget, DigestObject self,
+                        @Cached InlinedConditionProfile hasLockProfile,
+                        @Cached InlinedConditionProfile contendedProfile,
+                        @Cached(inline = false) GilNode gil) {
+            PLock lock = self.getLock();
+            if (hasLockProfile.profile(inliningTarget, lock != null)) {
+                if (contendedProfile.profile(inliningTarget, !lock.acquireNonBlocking())) {
+                    gil.release(true);
+                    try {
+                        lock.acquireBlocking(inliningTarget);
+                    } finally {
+                        gil.acquire();
+                    }
+                }
+            }
+            return lock;
+        }
+
+        static void leave(PLock lock) {
+            if (lock != null) {
+                lock.release();
+            }
+        }
+    }
+
     @Builtin(name = "copy", parameterNames = {"self"})
     @GenerateNodeFactory
     abstract static class CopyNode extends PythonUnaryBuiltinNode {
         @Specialization
         static DigestObject copy(DigestObject self,
                         @Bind("this") Node inliningTarget,
+                        @Cached EnterDigestNode enterNode,
                         @Cached PythonObjectFactory factory,
                         @Cached PRaiseNode.Lazy raiseNode) {
+            PLock lock = enterNode.execute(inliningTarget, self);
             try {
                 return self.copy(factory);
             } catch (CloneNotSupportedException e) {
                 throw raiseNode.get(inliningTarget).raise(PythonBuiltinClassType.ValueError);
+            } finally {
+                EnterDigestNode.leave(lock);
             }
         }
     }
@@ -103,8 +155,10 @@ public final class DigestObjectBuiltins extends PythonBuiltins {
     abstract static class DigestNode extends PythonUnaryBuiltinNode {
         @Specialization
         static PBytes digest(DigestObject self,
+                        @Bind("this") Node inliningTarget,
+                        @Cached EnterDigestNode enterNode,
                         @Cached PythonObjectFactory factory) {
-            return factory.createBytes(self.digest());
+            return factory.createBytes(digestLocked(inliningTarget, self, enterNode));
         }
     }
 
@@ -114,12 +168,22 @@ public final class DigestObjectBuiltins extends PythonBuiltins {
         @Specialization
         static TruffleString hexdigest(DigestObject self,
                         @Bind("this") Node inliningTarget,
+                        @Cached EnterDigestNode enterNode,
                         @Cached BytesNodes.ByteToHexNode toHexNode) {
-            byte[] digest = self.digest();
+            byte[] digest = digestLocked(inliningTarget, self, enterNode);
             return toHexNode.execute(inliningTarget, digest, digest.length, (byte) 0, 0);
         }
     }
 
+    static byte[] digestLocked(Node inliningTarget, DigestObject self, EnterDigestNode enterNode) {
+        PLock lock = enterNode.execute(inliningTarget, self);
+        try {
+            return self.digest();
+        } finally {
+            EnterDigestNode.leave(lock);
+        }
+    }
+
     @Builtin(name = "update", parameterNames = {"self", "obj"})
     @ArgumentClinic(name = "obj", conversion = ArgumentClinic.ClinicConversion.ReadableBuffer)
     @GenerateNodeFactory
@@ -134,12 +198,36 @@ public final class DigestObjectBuiltins extends PythonBuiltins {
         PNone update(VirtualFrame frame, DigestObject self, Object buffer,
                         @Bind("this") Node inliningTarget,
                         @CachedLibrary("buffer") PythonBufferAccessLibrary bufferLib,
+                        @Cached InlinedConditionProfile largeProfile,
+                        @Cached EnterDigestNode enterNode,
+                        @Cached GilNode gil,
+                        @Cached PythonObjectFactory factory,
                         @Cached PRaiseNode.Lazy raiseNode) {
-            if (self.wasReset()) {
-                throw raiseNode.get(inliningTarget).raise(PythonBuiltinClassType.ValueError, ErrorMessages.UPDATING_FINALIZED_DIGEST_IS_NOT_SUPPORTED);
-            }
             try {
-                self.update(bufferLib.getInternalOrCopiedByteArray(buffer), bufferLib.getBufferLength(buffer));
+                byte[] bytes = bufferLib.getInternalOrCopiedByteArray(buffer);
+                int length = bufferLib.getBufferLength(buffer);
+                boolean large = largeProfile.profile(inliningTarget, length >= HASHLIB_GIL_MINSIZE);
+                if (large && self.getLock() == null) {
+                    self.setLock(factory.createLock());
+                }
+                PLock lock = enterNode.execute(inliningTarget, self);
+                try {
+                    if (self.wasReset()) {
+                        throw raiseNode.get(inliningTarget).raise(PythonBuiltinClassType.ValueError, ErrorMessages.UPDATING_FINALIZED_DIGEST_IS_NOT_SUPPORTED);
+                    }
+                    if (large) {
+                        gil.release(true);
+                        try {
+                            self.update(bytes, length);
+                        } finally {
+                            gil.acquire();
+                        }
+                    } else {
+                        self.update(bytes, length);
+                    }
+                } finally {
+                    EnterDigestNode.leave(lock);
+                }
             } finally {
                 bufferLib.release(buffer, frame, this);
             }
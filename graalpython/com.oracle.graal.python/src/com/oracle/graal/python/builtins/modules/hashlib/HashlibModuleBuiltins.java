@@ -81,6 +81,7 @@ import com.oracle.graal.python.nodes.function.builtins.PythonQuaternaryBuiltinNo
 import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
 import com.oracle.graal.python.nodes.util.CastToJavaStringNode;
 import com.oracle.graal.python.nodes.util.CastToTruffleStringNode;
+import com.oracle.graal.python.runtime.GilNode;
 import com.oracle.graal.python.runtime.object.PythonObjectFactory;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Bind;
@@ -96,6 +97,7 @@ import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.library.CachedLibrary;
 import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.profiles.InlinedConditionProfile;
 import com.oracle.truffle.api.object.HiddenKey;
 import com.oracle.truffle.api.strings.TruffleString;
 import com.oracle.truffle.api.strings.TruffleString.CodeRange;
@@ -372,6 +374,8 @@ public final class HashlibModuleBuiltins extends PythonBuiltins {
                         @Cached(inline = false) PythonObjectFactory factory,
                         @CachedLibrary(limit = "2") PythonBufferAcquireLibrary acquireLib,
                         @CachedLibrary(limit = "2") PythonBufferAccessLibrary bufferLib,
+                        @Cached InlinedConditionProfile largeProfile,
+                        @Cached(inline = false) GilNode gil,
                         @Cached PRaiseNode.Lazy raise) {
             Object buffer;
             if (value instanceof PNone) {
@@ -386,10 +390,23 @@ public final class HashlibModuleBuiltins extends PythonBuiltins {
                 int bytesLen = buffer == null ? 0 : bufferLib.getBufferLength(buffer);
                 MessageDigest digest;
                 try {
-                    digest = createDigest(javaName, bytes, bytesLen);
+                    digest = createDigest(javaName);
                 } catch (NoSuchAlgorithmException e) {
                     throw raise.get(inliningTarget).raise(PythonBuiltinClassType.UnsupportedDigestmodError, e);
                 }
+                if (bytes != null) {
+                    // the digest is not shared yet, so it needs no lock when updated without the GIL
+                    if (largeProfile.profile(inliningTarget, bytesLen >= DigestObjectBuiltins.HASHLIB_GIL_MINSIZE)) {
+                        gil.release(true);
+                        try {
+                            update(digest, bytes, bytesLen);
+                        } finally {
+                            gil.acquire();
+                        }
+                    } else {
+                        update(digest, bytes, bytesLen);
+                    }
+                }
                 return factory.createDigestObject(type, pythonName, digest);
             } finally {
                 if (buffer != null) {
@@ -399,12 +416,13 @@ public final class HashlibModuleBuiltins extends PythonBuiltins {
         }
 
         @TruffleBoundary
-        private static MessageDigest createDigest(String name, byte[] bytes, int bytesLen) throws NoSuchAlgorithmException {
-            MessageDigest digest = MessageDigest.getInstance(name);
-            if (bytes != null) {
-                digest.update(bytes, 0, bytesLen);
-            }
-            return digest;
+        private static MessageDigest createDigest(String name) throws NoSuchAlgorithmException {
+            return MessageDigest.getInstance(name);
+        }
+
+        @TruffleBoundary
+        private static void update(MessageDigest digest, byte[] bytes, int bytesLen) {
+            digest.update(bytes, 0, bytesLen);
         }
     }
 
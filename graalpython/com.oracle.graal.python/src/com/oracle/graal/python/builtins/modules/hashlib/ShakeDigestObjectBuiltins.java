@@ -94,12 +94,13 @@ public final class ShakeDigestObjectBuiltins extends PythonBuiltins {
         @Specialization
         static PBytes digest(DigestObject self, int length,
                         @Bind("this") Node inliningTarget,
+                        @Cached DigestObjectBuiltins.EnterDigestNode enterNode,
                         @Cached PythonObjectFactory factory,
                         @Cached PRaiseNode.Lazy raiseNode) {
             if (self.getDigestLength() != length) {
                 throw raiseNode.get(inliningTarget).raise(PythonBuiltinClassType.ValueError, ErrorMessages.ONLY_DEFAULT_DIGEST_LENGTHS);
             }
-            return factory.createBytes(self.digest());
+            return factory.createBytes(DigestObjectBuiltins.digestLocked(inliningTarget, self, enterNode));
         }
     }
 
@@ -115,12 +116,13 @@ public final class ShakeDigestObjectBuiltins extends PythonBuiltins {
         @Specialization
         static TruffleString hexdigest(DigestObject self, int length,
                         @Bind("this") Node inliningTarget,
+                        @Cached DigestObjectBuiltins.EnterDigestNode enterNode,
                         @Cached BytesNodes.ByteToHexNode toHexNode,
                         @Cached PRaiseNode.Lazy raiseNode) {
             if (self.getDigestLength() != length) {
                 throw raiseNode.get(inliningTarget).raise(PythonBuiltinClassType.ValueError, ErrorMessages.ONLY_DEFAULT_DIGEST_LENGTHS);
             }
-            byte[] digest = self.digest();
+            byte[] digest = DigestObjectBuiltins.digestLocked(inliningTarget, self, enterNode);
             return toHexNode.execute(inliningTarget, digest, digest.length, (byte) 0, 0);
         }
     }
@@ -678,6 +678,9 @@ public final class FileIOBuiltins extends PythonBuiltins {
                     return 0;
                 }
                 try {
+                    if (bufferLib.hasInternalByteArray(buffer)) {
+                        return posixRead.readInto(self.getFD(), bufferLib.getInternalByteArray(buffer), 0, size, inliningTarget, posixLib, readErrorProfile, gil);
+                    }
                     PBytes data = posixRead.read(self.getFD(), size, inliningTarget, posixLib, readErrorProfile, gil, factory);
                     int n = bufferLib.getBufferLength(data);
                     bufferLib.readIntoBuffer(data, 0, buffer, 0, n, bufferLib);
@@ -30,6 +30,7 @@ import com.oracle.graal.python.builtins.CoreFunctions;
 import com.oracle.graal.python.builtins.PythonBuiltinClassType;
 import com.oracle.graal.python.builtins.PythonBuiltins;
 import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.common.EconomicMapStorage;
 import com.oracle.graal.python.builtins.objects.common.HashingStorage;
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageGetIterator;
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIterator;
@@ -37,6 +38,7 @@ import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.Hashi
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorNext;
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorValue;
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageLen;
+import com.oracle.graal.python.builtins.objects.common.ObjectHashMap.MapCursor;
 import com.oracle.graal.python.builtins.objects.dict.PDict;
 import com.oracle.graal.python.builtins.objects.floats.FloatBuiltins;
 import com.oracle.graal.python.builtins.objects.floats.PFloat;
@@ -63,6 +65,9 @@ import com.oracle.graal.python.runtime.exception.PException;
 import com.oracle.graal.python.runtime.formatting.FloatFormatter;
 import com.oracle.graal.python.runtime.object.PythonObjectFactory;
 import com.oracle.graal.python.runtime.sequence.PSequence;
+import com.oracle.graal.python.runtime.sequence.storage.DoubleSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.IntSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.LongSequenceStorage;
 import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
@@ -241,7 +246,13 @@ public final class JSONEncoderBuiltins extends PythonBuiltins {
                 startRecursion(encoder, dict);
                 builder.appendCodePointUncached('{');
 
-                if (!encoder.sortKeys && IsBuiltinObjectProfile.profileObjectUncached(dict, PDict)) {
+                if (!encoder.sortKeys && IsBuiltinObjectProfile.profileObjectUncached(dict, PDict) && storage instanceof EconomicMapStorage economicMapStorage) {
+                    MapCursor cursor = economicMapStorage.getEntries();
+                    boolean first = true;
+                    while (cursor.advance()) {
+                        first = appendDictEntry(encoder, builder, first, cursor.getRawKey(), cursor.getValue());
+                    }
+                } else if (!encoder.sortKeys && IsBuiltinObjectProfile.profileObjectUncached(dict, PDict)) {
                     HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
                     boolean first = true;
                     while (HashingStorageIteratorNext.executeUncached(storage, it)) {
@@ -314,15 +325,39 @@ public final class JSONEncoderBuiltins extends PythonBuiltins {
                 startRecursion(encoder, list);
                 builder.appendCodePointUncached('[');
 
-                if (IsBuiltinObjectProfile.profileObjectUncached(list, PTuple) || IsBuiltinObjectProfile.profileObjectUncached(list, PList)) {
+                if (!(IsBuiltinObjectProfile.profileObjectUncached(list, PTuple) || IsBuiltinObjectProfile.profileObjectUncached(list, PList))) {
+                    appendListSlowPath(encoder, builder, list);
+                } else if (storage instanceof IntSequenceStorage intStorage) {
+                    int[] values = intStorage.getInternalIntArray();
                     for (int i = 0; i < storage.length(); i++) {
                         if (i > 0) {
                             builder.appendStringUncached(encoder.itemSeparator);
                         }
-                        appendListObj(encoder, builder, storage.getItemNormalized(i));
+                        builder.appendIntNumberUncached(values[i]);
+                    }
+                } else if (storage instanceof LongSequenceStorage longStorage) {
+                    long[] values = longStorage.getInternalLongArray();
+                    for (int i = 0; i < storage.length(); i++) {
+                        if (i > 0) {
+                            builder.appendStringUncached(encoder.itemSeparator);
+                        }
+                        builder.appendLongNumberUncached(values[i]);
+                    }
+                } else if (storage instanceof DoubleSequenceStorage doubleStorage) {
+                    double[] values = doubleStorage.getInternalDoubleArray();
+                    for (int i = 0; i < storage.length(); i++) {
+                        if (i > 0) {
+                            builder.appendStringUncached(encoder.itemSeparator);
+                        }
+                        appendFloat(encoder, builder, values[i]);
                     }
                 } else {
-                    appendListSlowPath(encoder, builder, list);
+                    for (int i = 0; i < storage.length(); i++) {
+                        if (i > 0) {
+                            builder.appendStringUncached(encoder.itemSeparator);
+                        }
+                        appendListObj(encoder, builder, storage.getItemNormalized(i));
+                    }
                 }
 
                 builder.appendCodePointUncached(']');
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.json;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * The key memo of a {@link PJSONScanner}. It maps the text of object keys to the TruffleString
+ * created for their first occurrence. Lookups take a region of the input string, so a repeated key
+ * is found without allocating a substring or a new TruffleString for it.
+ */
+final class JSONKeyMemo {
+    private static final int INITIAL_CAPACITY = 32;
+
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private TruffleString[] values = new TruffleString[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size;
+
+    static int hash(String string, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + string.charAt(i);
+        }
+        return h;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns the memoized key equal to {@code string[start:end]}, whose {@link #hash} is
+     * {@code hash}, or {@code null}.
+     */
+    TruffleString get(String string, int start, int end, int hash) {
+        int len = end - start;
+        int mask = keys.length - 1;
+        for (int i = mix(hash) & mask;; i = (i + 1) & mask) {
+            String key = keys[i];
+            if (key == null) {
+                return null;
+            }
+            if (hashes[i] == hash && key.length() == len && key.regionMatches(0, string, start, len)) {
+                return values[i];
+            }
+        }
+    }
+
+    void put(String key, TruffleString value, int hash) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        insert(key, value, hash);
+        size++;
+    }
+
+    private void insert(String key, TruffleString value, int hash) {
+        int mask = keys.length - 1;
+        int i = mix(hash) & mask;
+        while (keys[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        hashes[i] = hash;
+    }
+
+    private void grow() {
+        String[] oldKeys = keys;
+        TruffleString[] oldValues = values;
+        int[] oldHashes = hashes;
+        int capacity = oldKeys.length * 2;
+        keys = new String[capacity];
+        values = new TruffleString[capacity];
+        hashes = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                insert(oldKeys[i], oldValues[i], oldHashes[i]);
+            }
+        }
+    }
+
+    void clear() {
+        if (keys.length > INITIAL_CAPACITY) {
+            keys = new String[INITIAL_CAPACITY];
+            values = new TruffleString[INITIAL_CAPACITY];
+            hashes = new int[INITIAL_CAPACITY];
+        } else if (size > 0) {
+            Arrays.fill(keys, null);
+            Arrays.fill(values, null);
+        }
+        size = 0;
+    }
+}
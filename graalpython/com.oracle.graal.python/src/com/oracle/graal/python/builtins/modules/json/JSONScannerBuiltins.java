@@ -21,8 +21,6 @@ import com.oracle.graal.python.builtins.PythonBuiltins;
 import com.oracle.graal.python.builtins.modules.BuiltinConstructors;
 import com.oracle.graal.python.builtins.objects.PNone;
 import com.oracle.graal.python.builtins.objects.common.EconomicMapStorage;
-import com.oracle.graal.python.builtins.objects.common.HashingStorage;
-import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageSetItem;
 import com.oracle.graal.python.builtins.objects.dict.PDict;
 import com.oracle.graal.python.builtins.objects.floats.FloatUtils;
 import com.oracle.graal.python.builtins.objects.tuple.PTuple;
@@ -105,10 +103,68 @@ public final class JSONScannerBuiltins extends PythonBuiltins {
                 dictInstanceShape = PythonLanguage.get(this).getBuiltinTypeInstanceShape(PythonBuiltinClassType.PDict);
             }
             IntRef nextIdx = new IntRef();
-            Object result = scanOnceUnicode(self, toJavaStringNode.execute(string), idx, nextIdx);
+            Object result;
+            try {
+                result = scanOnceUnicode(self, toJavaStringNode.execute(string), idx, nextIdx);
+            } finally {
+                // like CPython, only share keys within one document, otherwise the memo keeps
+                // all keys of all documents ever decoded with this scanner alive
+                clearMemo(self);
+            }
             return factory.createTuple(new Object[]{result, nextIdx.value});
         }
 
+        @TruffleBoundary
+        private static void clearMemo(PJSONScanner scanner) {
+            scanner.memo.clear();
+        }
+
+        /**
+         * Reads an object key starting after the opening quote. Keys without escape sequences are
+         * looked up in the memo before a TruffleString is created for them, so repeated keys
+         * (which is the common case for arrays of objects) do not allocate a new string each time.
+         */
+        private TruffleString scanKeyUnicode(PJSONScanner scanner, String string, int start, IntRef nextIdx) {
+            int end = findSimpleStringEnd(string, start, scanner.strict);
+            if (end >= 0) {
+                nextIdx.value = end + 1;
+                int hash = JSONKeyMemo.hash(string, start, end);
+                TruffleString key = scanner.memo.get(string, start, end, hash);
+                if (key == null) {
+                    String javaKey = string.substring(start, end);
+                    key = toTruffleStringUncached(javaKey);
+                    scanner.memo.put(javaKey, key, hash);
+                }
+                return key;
+            }
+            TruffleString newKey = scanStringUnicode(string, start, scanner.strict, nextIdx, this);
+            String javaKey = newKey.toJavaStringUncached();
+            int hash = JSONKeyMemo.hash(javaKey, 0, javaKey.length());
+            TruffleString key = scanner.memo.get(javaKey, 0, javaKey.length(), hash);
+            if (key == null) {
+                scanner.memo.put(javaKey, newKey, hash);
+                return newKey;
+            }
+            return key;
+        }
+
+        /**
+         * Returns the index of the closing quote if the string starting at {@code start} contains
+         * neither escape sequences nor (in strict mode) control characters, otherwise -1.
+         */
+        private static int findSimpleStringEnd(String string, int start, boolean strict) {
+            int length = string.length();
+            for (int idx = start; idx < length; idx++) {
+                char c = string.charAt(idx);
+                if (c == '"') {
+                    return idx;
+                } else if (c == '\\' || (strict && c < 0x20)) {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
         @TruffleBoundary
         private Object parseObjectUnicode(PJSONScanner scanner, String string, int start, IntRef nextIdx) {
             /*
@@ -128,7 +184,7 @@ public final class JSONScannerBuiltins extends PythonBuiltins {
             if (hasPairsHook) {
                 listStorage = new ObjectSequenceStorage(4);
             } else {
-                mapStorage = EconomicMapStorage.create();
+                mapStorage = EconomicMapStorage.create(scanner.objectSizeHint);
             }
 
             /* skip whitespace after { */
@@ -142,11 +198,7 @@ public final class JSONScannerBuiltins extends PythonBuiltins {
                     if (idx >= length || string.charAt(idx) != '"') {
                         throw decodeError(this, string, idx, ErrorMessages.EXPECTING_PROP_NAME_ECLOSED_IN_DBL_QUOTES);
                     }
-                    TruffleString newKey = scanStringUnicode(string, idx + 1, scanner.strict, nextIdx, this);
-                    TruffleString key = scanner.memo.putIfAbsent(newKey, newKey);
-                    if (key == null) {
-                        key = newKey;
-                    }
+                    TruffleString key = scanKeyUnicode(scanner, string, idx + 1, nextIdx);
                     idx = nextIdx.value;
 
                     /* skip whitespace between key and : delimiter, read :, skip whitespace */
@@ -163,8 +215,8 @@ public final class JSONScannerBuiltins extends PythonBuiltins {
                     if (hasPairsHook) {
                         listStorage.insertItem(listStorage.length(), factory.createTuple(PythonBuiltinClassType.PTuple, tupleInstanceShape, new Object[]{key, val}));
                     } else {
-                        HashingStorage newStorage = HashingStorageSetItem.executeUncached(mapStorage, key, val);
-                        assert newStorage == mapStorage;
+                        // keys are always exact strings, so we can hash them directly
+                        mapStorage.putUncached(key, val);
                     }
 
                     /* skip whitespace before } or , */
@@ -186,9 +238,11 @@ public final class JSONScannerBuiltins extends PythonBuiltins {
             nextIdx.value = idx + 1;
 
             if (hasPairsHook) {
+                scanner.objectSizeHint = listStorage.length();
                 return callObjectPairsHook.executeObject(scanner.objectPairsHook, factory.createList(PythonBuiltinClassType.PList, listInstanceShape, listStorage));
             }
 
+            scanner.objectSizeHint = mapStorage.length();
             /* if object_hook is not None: rval = object_hook(rval) */
             PDict rval = factory.createDict(PythonBuiltinClassType.PDict, dictInstanceShape, mapStorage);
             if (scanner.objectHook != PNone.NONE) {
@@ -63,56 +63,75 @@ public abstract class JSONUtils {
     private static final TruffleString T_ESC_R = tsLiteral("\\r");
     private static final TruffleString T_ESC_T = tsLiteral("\\t");
 
+    /**
+     * Escape sequences for the ASCII range, {@code null} for characters that are copied verbatim.
+     */
+    private static final TruffleString[] ASCII_ESCAPES = new TruffleString[128];
+
+    static {
+        for (int c = 0; c <= 0x1f; c++) {
+            ASCII_ESCAPES[c] = TruffleString.fromByteArrayUncached(new byte[]{'\\', 'u', '0', '0', HEXDIGITS[(c >> 4) & 0xf], HEXDIGITS[c & 0xf]}, TruffleString.Encoding.US_ASCII)
+                            .switchEncodingUncached(TS_ENCODING);
+        }
+        ASCII_ESCAPES['\\'] = T_ESC_BACKSLASH;
+        ASCII_ESCAPES['"'] = T_ESC_QUOTE;
+        ASCII_ESCAPES['\b'] = T_ESC_B;
+        ASCII_ESCAPES['\f'] = T_ESC_F;
+        ASCII_ESCAPES['\n'] = T_ESC_N;
+        ASCII_ESCAPES['\r'] = T_ESC_R;
+        ASCII_ESCAPES['\t'] = T_ESC_T;
+    }
+
     static void appendStringUncached(TruffleString ts, TruffleStringBuilderUTF32 builder, boolean asciiOnly) {
-        // Note: appending in chunks does not pay off in the uncached case
         builder.appendCodePointUncached('"');
+        // Runs of characters that need no escaping are appended as (lazy) substrings, so the
+        // common case of a string without any escapes costs a single append.
+        int chunkStart = 0;
+        int currentIndex = 0;
         TruffleStringIterator it = ts.createCodePointIteratorUncached(TS_ENCODING);
         while (it.hasNext()) {
             int c = it.nextUncached();
-            switch (c) {
-                case '\\':
-                    builder.appendStringUncached(T_ESC_BACKSLASH);
-                    break;
-                case '"':
-                    builder.appendStringUncached(T_ESC_QUOTE);
-                    break;
-                case '\b':
-                    builder.appendStringUncached(T_ESC_B);
-                    break;
-                case '\f':
-                    builder.appendStringUncached(T_ESC_F);
-                    break;
-                case '\n':
-                    builder.appendStringUncached(T_ESC_N);
-                    break;
-                case '\r':
-                    builder.appendStringUncached(T_ESC_R);
-                    break;
-                case '\t':
-                    builder.appendStringUncached(T_ESC_T);
-                    break;
-                default:
-                    if (c <= 0x1f || (asciiOnly && c > '~')) {
-                        // appendSubstringUncached(builder, ts, chunkStart, currentIndex);
-                        if (c <= 0xffff) {
-                            appendEscapedUtf16Uncached((char) c, builder);
-                        } else {
-                            // split SMP codepoint to surrogate pair
-                            appendEscapedUtf16Uncached((char) (0xD800 + ((c - 0x10000) >> 10)), builder);
-                            appendEscapedUtf16Uncached((char) (0xDC00 + ((c - 0x10000) & 0x3FF)), builder);
-                        }
-                    } else {
-                        builder.appendCodePointUncached(c);
-                    }
-                    break;
+            if (c < 128) {
+                TruffleString escape = ASCII_ESCAPES[c];
+                if (escape != null) {
+                    appendSubstringUncached(builder, ts, chunkStart, currentIndex);
+                    chunkStart = currentIndex + 1;
+                    builder.appendStringUncached(escape);
+                } else if (asciiOnly && c == 0x7f) {
+                    appendSubstringUncached(builder, ts, chunkStart, currentIndex);
+                    chunkStart = currentIndex + 1;
+                    appendEscapedUtf16Uncached((char) c, builder);
+                }
+            } else if (asciiOnly) {
+                appendSubstringUncached(builder, ts, chunkStart, currentIndex);
+                chunkStart = currentIndex + 1;
+                if (c <= 0xffff) {
+                    appendEscapedUtf16Uncached((char) c, builder);
+                } else {
+                    // split SMP codepoint to surrogate pair
+                    appendEscapedUtf16Uncached((char) (0xD800 + ((c - 0x10000) >> 10)), builder);
+                    appendEscapedUtf16Uncached((char) (0xDC00 + ((c - 0x10000) & 0x3FF)), builder);
+                }
             }
+            currentIndex++;
         }
+        appendSubstringUncached(builder, ts, chunkStart, currentIndex);
         builder.appendCodePointUncached('"');
     }
 
+    private static void appendSubstringUncached(TruffleStringBuilderUTF32 builder, TruffleString ts, int startIndex, int endIndex) {
+        if (startIndex < endIndex) {
+            builder.appendStringUncached(ts.substringUncached(startIndex, endIndex - startIndex, TS_ENCODING, true));
+        }
+    }
+
     private static void appendEscapedUtf16Uncached(char c, TruffleStringBuilderUTF32 builder) {
-        builder.appendStringUncached(TruffleString.fromByteArrayUncached(
-                        new byte[]{'\\', 'u', HEXDIGITS[(c >> 12) & 0xf], HEXDIGITS[(c >> 8) & 0xf], HEXDIGITS[(c >> 4) & 0xf], HEXDIGITS[c & 0xf]}, TruffleString.Encoding.US_ASCII));
+        builder.appendCodePointUncached('\\');
+        builder.appendCodePointUncached('u');
+        builder.appendCodePointUncached(HEXDIGITS[(c >> 12) & 0xf]);
+        builder.appendCodePointUncached(HEXDIGITS[(c >> 8) & 0xf]);
+        builder.appendCodePointUncached(HEXDIGITS[(c >> 4) & 0xf]);
+        builder.appendCodePointUncached(HEXDIGITS[c & 0xf]);
     }
 
     static void appendString(TruffleString s, TruffleStringIterator it, TruffleStringBuilder builder, boolean asciiOnly, TruffleStringIterator.NextNode nextNode,
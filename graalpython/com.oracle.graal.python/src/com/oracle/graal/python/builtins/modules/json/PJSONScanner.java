@@ -40,8 +40,6 @@
  */
 package com.oracle.graal.python.builtins.modules.json;
 
-import java.util.HashMap;
-
 import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.object.Shape;
@@ -49,7 +47,12 @@ import com.oracle.truffle.api.strings.TruffleString;
 
 public final class PJSONScanner extends PythonBuiltinObject {
 
-    final HashMap<TruffleString, TruffleString> memo;
+    final JSONKeyMemo memo;
+    /**
+     * The number of entries of the last decoded object, used to presize the next one. Objects
+     * decoded one after another usually are records with the same keys.
+     */
+    int objectSizeHint;
     final boolean strict;
     final Object objectHook;
     final Object objectPairsHook;
@@ -60,7 +63,7 @@ public final class PJSONScanner extends PythonBuiltinObject {
     public PJSONScanner(Object cls, Shape instanceShape, boolean strict, Object objectHook, Object objectPairsHook, Object parseFloat, Object parseInt, Object parseConstant) {
         super(cls, instanceShape);
         CompilerAsserts.neverPartOfCompilation();
-        this.memo = new HashMap<>();
+        this.memo = new JSONKeyMemo();
         this.strict = strict;
         this.objectHook = objectHook;
         this.objectPairsHook = objectPairsHook;
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import java.util.IdentityHashMap;
+
+import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.Shape;
+
+public final class PPickler extends PythonBuiltinObject {
+    /* The bound write method of the file, null if not initialized or when used by dumps(). */
+    private Object write;
+    private boolean initialized;
+    private int proto;
+    private boolean bin;
+    private boolean fixImports;
+    private int fast;
+    private Object bufferCallback;
+    private Object persFunc;
+    private Object dispatchTable;
+
+    /*
+     * Maps objects to their memo index. Objects are compared by identity, like CPython's
+     * PyMemoTable, and the map keeps them alive for as long as they can be referenced.
+     */
+    private final IdentityHashMap<Object, Integer> memo = new IdentityHashMap<>();
+
+    public PPickler(Object cls, Shape instanceShape) {
+        super(cls, instanceShape);
+    }
+
+    void init(Object writeMethod, int protocol, boolean fixImportsArg, Object bufferCallbackArg) {
+        this.write = writeMethod;
+        this.proto = protocol;
+        this.bin = protocol > 0;
+        this.fixImports = fixImportsArg && protocol < 3;
+        this.bufferCallback = bufferCallbackArg;
+        this.fast = 0;
+        this.initialized = true;
+    }
+
+    boolean isInitialized() {
+        return initialized;
+    }
+
+    Object getWrite() {
+        return write;
+    }
+
+    int getProto() {
+        return proto;
+    }
+
+    boolean isBin() {
+        return bin;
+    }
+
+    void setBin(boolean bin) {
+        this.bin = bin;
+    }
+
+    boolean isFixImports() {
+        return fixImports;
+    }
+
+    int getFast() {
+        return fast;
+    }
+
+    void setFast(int fast) {
+        this.fast = fast;
+    }
+
+    Object getBufferCallback() {
+        return bufferCallback;
+    }
+
+    Object getPersFunc() {
+        return persFunc;
+    }
+
+    void setPersFunc(Object persFunc) {
+        this.persFunc = persFunc;
+    }
+
+    Object getDispatchTable() {
+        return dispatchTable;
+    }
+
+    void setDispatchTable(Object dispatchTable) {
+        this.dispatchTable = dispatchTable;
+    }
+
+    IdentityHashMap<Object, Integer> getMemo() {
+        return memo;
+    }
+
+    @TruffleBoundary
+    void clearMemo() {
+        memo.clear();
+    }
+}
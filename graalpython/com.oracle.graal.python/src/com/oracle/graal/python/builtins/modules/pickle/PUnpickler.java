@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
+import com.oracle.graal.python.util.PythonUtils;
+import com.oracle.truffle.api.object.Shape;
+import com.oracle.truffle.api.strings.TruffleString;
+
+public final class PUnpickler extends PythonBuiltinObject {
+    /* The bound methods of the file, null if not initialized or when used by loads(). */
+    private Object read;
+    private Object readline;
+    private boolean initialized;
+    private int proto;
+    private boolean fixImports;
+    private TruffleString encoding;
+    private TruffleString errors;
+    /* Iterator over the out-of-band buffers, null if none were given. */
+    private Object buffers;
+    private Object persFunc;
+
+    /* The memo is indexed by the PUT/MEMOIZE indices, which are dense in practice. */
+    private Object[] memo = new Object[32];
+    private int memoLen;
+
+    public PUnpickler(Object cls, Shape instanceShape) {
+        super(cls, instanceShape);
+    }
+
+    void init(Object readMethod, Object readlineMethod, boolean fixImportsArg, TruffleString encodingArg, TruffleString errorsArg, Object buffersIter) {
+        this.read = readMethod;
+        this.readline = readlineMethod;
+        this.fixImports = fixImportsArg;
+        this.encoding = encodingArg;
+        this.errors = errorsArg;
+        this.buffers = buffersIter;
+        this.proto = 0;
+        this.memo = new Object[32];
+        this.memoLen = 0;
+        this.initialized = true;
+    }
+
+    boolean isInitialized() {
+        return initialized;
+    }
+
+    Object getRead() {
+        return read;
+    }
+
+    Object getReadline() {
+        return readline;
+    }
+
+    int getProto() {
+        return proto;
+    }
+
+    void setProto(int proto) {
+        this.proto = proto;
+    }
+
+    boolean isFixImports() {
+        return fixImports;
+    }
+
+    TruffleString getEncoding() {
+        return encoding;
+    }
+
+    TruffleString getErrors() {
+        return errors;
+    }
+
+    Object getBuffers() {
+        return buffers;
+    }
+
+    Object getPersFunc() {
+        return persFunc;
+    }
+
+    void setPersFunc(Object persFunc) {
+        this.persFunc = persFunc;
+    }
+
+    Object memoGet(long idx) {
+        return idx >= 0 && idx < memo.length ? memo[(int) idx] : null;
+    }
+
+    void memoPut(int idx, Object value) {
+        assert idx >= 0 && value != null;
+        if (idx >= memo.length) {
+            memo = PythonUtils.arrayCopyOf(memo, Math.max(idx + 1, memo.length * 2));
+        }
+        if (memo[idx] == null) {
+            memoLen++;
+        }
+        memo[idx] = value;
+    }
+
+    int getMemoLen() {
+        return memoLen;
+    }
+
+    /**
+     * Returns the internal memo array. Unused indices contain {@code null}.
+     */
+    Object[] getMemo() {
+        return memo;
+    }
+
+    void clearMemo() {
+        memo = new Object[32];
+        memoLen = 0;
+    }
+}
@@ -0,0 +1,1033 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.HIGHEST_PROTOCOL;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_ADD;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_APPEND;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_BYTES;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_CODECS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_COPYREG;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_ESCAPE_DECODE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_EXTEND;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_FIND_CLASS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_IMPORT_MAPPING;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_LOCALS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_NAME_MAPPING;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_RAW_UNICODE_ESCAPE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_TOREADONLY;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T__COMPAT_PICKLE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T__EXTENSION_CACHE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T__INVERTED_REGISTRY;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.getModule;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.getModuleAttr;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.raiseUnpicklingError;
+import static com.oracle.graal.python.nodes.BuiltinNames.T_DECODE;
+import static com.oracle.graal.python.nodes.SpecialAttributeNames.T___DICT__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T___GETINITARGS__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T___NEW__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T___SETSTATE__;
+import static com.oracle.graal.python.nodes.StringLiterals.T_SURROGATEPASS;
+import static com.oracle.graal.python.nodes.StringLiterals.T_UTF8;
+import static com.oracle.graal.python.util.PythonUtils.TS_ENCODING;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAcquireLibrary;
+import com.oracle.graal.python.builtins.objects.common.EconomicMapStorage;
+import com.oracle.graal.python.builtins.objects.common.EmptyStorage;
+import com.oracle.graal.python.builtins.objects.common.HashingStorage;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageGetIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorKey;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorNext;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorValue;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageSetItem;
+import com.oracle.graal.python.builtins.objects.common.SequenceStorageNodes;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.builtins.objects.function.PKeyword;
+import com.oracle.graal.python.builtins.objects.list.PList;
+import com.oracle.graal.python.builtins.objects.memoryview.PMemoryView;
+import com.oracle.graal.python.builtins.objects.set.PSet;
+import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.builtins.objects.type.TypeNodes.IsSameTypeNode;
+import com.oracle.graal.python.builtins.objects.type.TypeNodes.IsTypeNode;
+import com.oracle.graal.python.lib.PyDictCheckExactNode;
+import com.oracle.graal.python.lib.PyIterNextNode;
+import com.oracle.graal.python.lib.PyListCheckExactNode;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.lib.PyObjectGetAttr;
+import com.oracle.graal.python.lib.PyObjectGetItem;
+import com.oracle.graal.python.lib.PyObjectLookupAttr;
+import com.oracle.graal.python.lib.PyObjectReprAsTruffleStringNode;
+import com.oracle.graal.python.lib.PyObjectSetAttr;
+import com.oracle.graal.python.lib.PyObjectSetItem;
+import com.oracle.graal.python.lib.PyUnicodeCheckNode;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.builtins.ListNodes;
+import com.oracle.graal.python.nodes.call.CallNode;
+import com.oracle.graal.python.nodes.object.GetClassNode;
+import com.oracle.graal.python.nodes.util.CannotCastException;
+import com.oracle.graal.python.nodes.util.CastToTruffleStringNode;
+import com.oracle.graal.python.runtime.exception.PException;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.runtime.sequence.storage.BasicSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.NativeSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.ObjectSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.SequenceStorageFactory;
+import com.oracle.graal.python.util.PythonUtils;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleString.Encoding;
+
+/**
+ * Reads a single pickle for {@link PUnpickler}, see CPython's {@code load} in
+ * {@code Modules/_pickle.c}. Containers are created directly with storages of the right size, the
+ * exact builtin types are filled without going through their Python-level methods.
+ *
+ * All methods must be called behind a {@code TruffleBoundary}.
+ */
+final class PickleReader {
+    private static final PythonObjectFactory factory = PythonObjectFactory.getUncached();
+
+    private final Node node;
+    private final PUnpickler unpickler;
+    private final Object read;
+    private final Object readline;
+    /* Whether find_class can be called directly, i.e., it is not overridden in a subclass. */
+    private final boolean exactUnpickler;
+
+    /* The input data. When reading from a file, it holds the current frame or the last read. */
+    private byte[] input;
+    private int pos;
+    private int limit;
+
+    private Object[] stack = new Object[16];
+    private int sp;
+    private int fence;
+    private int[] marks = new int[8];
+    private int numMarks;
+
+    PickleReader(Node node, PUnpickler unpickler, byte[] data, int length) {
+        this.node = node;
+        this.unpickler = unpickler;
+        this.read = null;
+        this.readline = null;
+        this.exactUnpickler = isExactUnpickler(unpickler);
+        this.input = data;
+        this.limit = length;
+    }
+
+    PickleReader(Node node, PUnpickler unpickler) {
+        this.node = node;
+        this.unpickler = unpickler;
+        this.read = unpickler.getRead();
+        this.readline = unpickler.getReadline();
+        this.exactUnpickler = isExactUnpickler(unpickler);
+        this.input = PythonUtils.EMPTY_BYTE_ARRAY;
+    }
+
+    private static boolean isExactUnpickler(PUnpickler unpickler) {
+        return IsSameTypeNode.executeUncached(GetClassNode.executeUncached(unpickler), PythonBuiltinClassType.Unpickler);
+    }
+
+    // input
+
+    /**
+     * Makes sure that {@code n} bytes are available at {@link #pos} and returns the start index.
+     */
+    private int read(int n) {
+        if (limit - pos >= n) {
+            int start = pos;
+            pos += n;
+            return start;
+        }
+        if (read == null) {
+            throw raiseUnpicklingError(node, ErrorMessages.PICKLE_DATA_WAS_TRUNCATED);
+        }
+        if (pos < limit) {
+            throw raiseUnpicklingError(node, ErrorMessages.PICKLE_EXHAUSTED_BEFORE_END_OF_FRAME);
+        }
+        readFromFile(n);
+        pos = n;
+        return 0;
+    }
+
+    private void readFromFile(int n) {
+        Object data = CallNode.getUncached().execute(read, n);
+        PythonBufferAccessLibrary bufferLib = PythonBufferAccessLibrary.getUncached();
+        if (!PythonBufferAcquireLibrary.getUncached().hasBuffer(data)) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.TypeError, ErrorMessages.A_BYTES_LIKE_OBJECT_IS_REQUIRED_NOT_P, data);
+        }
+        int length = bufferLib.getBufferLength(data);
+        if (length < n) {
+            throw raiseUnpicklingError(node, ErrorMessages.PICKLE_DATA_WAS_TRUNCATED);
+        }
+        input = bufferLib.getInternalOrCopiedByteArray(data);
+        limit = length;
+    }
+
+    private int readByte() {
+        return input[read(1)] & 0xff;
+    }
+
+    private int readOpcode() {
+        if (pos < limit) {
+            return input[pos++];
+        }
+        try {
+            return input[read(1)];
+        } catch (PException e) {
+            e.expectUncached(PythonBuiltinClassType.UnpicklingError);
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.EOFError, ErrorMessages.RAN_OUT_OF_INPUT);
+        }
+    }
+
+    private long readLE(int nbytes) {
+        int start = read(nbytes);
+        long value = 0;
+        for (int i = nbytes - 1; i >= 0; i--) {
+            value = (value << 8) | (input[start + i] & 0xff);
+        }
+        return value;
+    }
+
+    private int readSize(int nbytes) {
+        long size = readLE(nbytes);
+        if (size < 0 || size > Integer.MAX_VALUE - 8) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.OverflowError, ErrorMessages.S_EXCEEDS_SYSTEMS_MAXIMUM_SIZE, size);
+        }
+        return (int) size;
+    }
+
+    /**
+     * Returns the next line without the trailing newline.
+     */
+    private byte[] readLine() {
+        for (int i = pos; i < limit; i++) {
+            if (input[i] == '\n') {
+                byte[] line = PythonUtils.arrayCopyOfRange(input, pos, i);
+                pos = i + 1;
+                return line;
+            }
+        }
+        if (readline == null) {
+            throw raiseUnpicklingError(node, ErrorMessages.PICKLE_DATA_WAS_TRUNCATED);
+        }
+        Object data = CallNode.getUncached().execute(readline);
+        PythonBufferAccessLibrary bufferLib = PythonBufferAccessLibrary.getUncached();
+        if (!PythonBufferAcquireLibrary.getUncached().hasBuffer(data)) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.TypeError, ErrorMessages.A_BYTES_LIKE_OBJECT_IS_REQUIRED_NOT_P, data);
+        }
+        int length = bufferLib.getBufferLength(data);
+        byte[] bytes = bufferLib.getInternalOrCopiedByteArray(data);
+        if (length == 0 || bytes[length - 1] != '\n') {
+            throw raiseUnpicklingError(node, ErrorMessages.PICKLE_DATA_WAS_TRUNCATED);
+        }
+        input = PythonUtils.EMPTY_BYTE_ARRAY;
+        pos = limit = 0;
+        return PythonUtils.arrayCopyOfRange(bytes, 0, length - 1);
+    }
+
+    private static TruffleString asciiString(byte[] bytes) {
+        return TruffleString.fromByteArrayUncached(bytes, 0, bytes.length, Encoding.ISO_8859_1, true).switchEncodingUncached(TS_ENCODING);
+    }
+
+    private static TruffleString utf8String(byte[] bytes) {
+        return TruffleString.fromByteArrayUncached(bytes, 0, bytes.length, Encoding.UTF_8, true).switchEncodingUncached(TS_ENCODING);
+    }
+
+    // stack
+
+    private void push(Object value) {
+        if (sp == stack.length) {
+            stack = PythonUtils.arrayCopyOf(stack, stack.length * 2);
+        }
+        stack[sp++] = value;
+    }
+
+    private Object pop() {
+        if (sp <= fence) {
+            throw stackUnderflow();
+        }
+        Object value = stack[--sp];
+        stack[sp] = null;
+        return value;
+    }
+
+    private Object peek() {
+        if (sp <= fence) {
+            throw stackUnderflow();
+        }
+        return stack[sp - 1];
+    }
+
+    private PException stackUnderflow() {
+        throw raiseUnpicklingError(node, numMarks > 0 ? ErrorMessages.UNEXPECTED_MARK_FOUND : ErrorMessages.UNPICKLING_STACK_UNDERFLOW);
+    }
+
+    /**
+     * Pops the items above {@code start}.
+     */
+    private Object[] popItems(int start) {
+        Object[] items = PythonUtils.arrayCopyOfRange(stack, start, sp);
+        for (int i = start; i < sp; i++) {
+            stack[i] = null;
+        }
+        sp = start;
+        return items;
+    }
+
+    private Object[] popItemsCount(int count) {
+        if (sp - count < fence) {
+            throw stackUnderflow();
+        }
+        return popItems(sp - count);
+    }
+
+    private void pushMark() {
+        if (numMarks == marks.length) {
+            marks = PythonUtils.arrayCopyOf(marks, marks.length * 2);
+        }
+        marks[numMarks++] = sp;
+        fence = sp;
+    }
+
+    private int popMark() {
+        if (numMarks < 1) {
+            throw raiseUnpicklingError(node, ErrorMessages.COULD_NOT_FIND_MARK);
+        }
+        int mark = marks[--numMarks];
+        fence = numMarks > 0 ? marks[numMarks - 1] : 0;
+        return mark;
+    }
+
+    // load
+
+    Object load() {
+        unpickler.setProto(0);
+        while (true) {
+            int opcode = readOpcode();
+            switch (opcode) {
+                case PickleUtils.MARK -> pushMark();
+                case PickleUtils.STOP -> {
+                    return pop();
+                }
+                case PickleUtils.POP -> loadPop();
+                case PickleUtils.POP_MARK -> popItems(popMark());
+                case PickleUtils.DUP -> push(peek());
+                case PickleUtils.FLOAT -> push(parseFloat(readLine()));
+                case PickleUtils.INT -> loadInt();
+                case PickleUtils.BININT -> push((int) readLE(4));
+                case PickleUtils.BININT1 -> push(readByte());
+                case PickleUtils.LONG -> loadLong();
+                case PickleUtils.BININT2 -> push((int) readLE(2));
+                case PickleUtils.NONE -> push(PNone.NONE);
+                case PickleUtils.PERSID -> loadPersid();
+                case PickleUtils.BINPERSID -> push(persistentLoad(pop()));
+                case PickleUtils.REDUCE -> loadReduce();
+                case PickleUtils.STRING -> loadString();
+                case PickleUtils.BINSTRING -> loadBinString(readSize(4));
+                case PickleUtils.SHORT_BINSTRING -> loadBinString(readByte());
+                case PickleUtils.UNICODE -> push(PyObjectCallMethodObjArgs.executeUncached(factory.createBytes(readLine()), T_DECODE, T_RAW_UNICODE_ESCAPE));
+                case PickleUtils.BINUNICODE -> loadBinUnicode(readSize(4));
+                case PickleUtils.APPEND -> loadAppends(sp - 1);
+                case PickleUtils.BUILD -> loadBuild();
+                case PickleUtils.GLOBAL -> loadGlobal();
+                case PickleUtils.DICT -> push(createDict(popItems(popMark())));
+                case PickleUtils.EMPTY_DICT -> push(factory.createDict());
+                case PickleUtils.APPENDS -> loadAppends(popMark());
+                case PickleUtils.GET -> memoGet(parseIndex(readLine()));
+                case PickleUtils.BINGET -> memoGet(readByte());
+                case PickleUtils.INST -> loadInst();
+                case PickleUtils.LONG_BINGET -> memoGet(readLE(4));
+                case PickleUtils.LIST -> push(factory.createList(popItems(popMark())));
+                case PickleUtils.EMPTY_LIST -> push(factory.createList());
+                case PickleUtils.OBJ -> loadObj();
+                case PickleUtils.PUT -> memoPut(parseIndex(readLine()));
+                case PickleUtils.BINPUT -> memoPut(readByte());
+                case PickleUtils.LONG_BINPUT -> memoPut(readLE(4));
+                case PickleUtils.SETITEM -> loadSetItems(sp - 2);
+                case PickleUtils.TUPLE -> push(factory.createTuple(popItems(popMark())));
+                case PickleUtils.EMPTY_TUPLE -> push(factory.createEmptyTuple());
+                case PickleUtils.SETITEMS -> loadSetItems(popMark());
+                case PickleUtils.BINFLOAT -> push(Double.longBitsToDouble(Long.reverseBytes(readLE(8))));
+                case PickleUtils.PROTO -> loadProto();
+                case PickleUtils.NEWOBJ -> loadNewObj();
+                case PickleUtils.EXT1 -> loadExtension(readByte());
+                case PickleUtils.EXT2 -> loadExtension(readLE(2));
+                case PickleUtils.EXT4 -> loadExtension((int) readLE(4));
+                case PickleUtils.TUPLE1 -> push(factory.createTuple(popItemsCount(1)));
+                case PickleUtils.TUPLE2 -> push(factory.createTuple(popItemsCount(2)));
+                case PickleUtils.TUPLE3 -> push(factory.createTuple(popItemsCount(3)));
+                case PickleUtils.NEWTRUE -> push(true);
+                case PickleUtils.NEWFALSE -> push(false);
+                case PickleUtils.LONG1 -> push(decodeLong(readByte()));
+                case PickleUtils.LONG4 -> loadLong4();
+                case PickleUtils.BINBYTES -> push(readBytesObject(readSize(4)));
+                case PickleUtils.SHORT_BINBYTES -> push(readBytesObject(readByte()));
+                case PickleUtils.SHORT_BINUNICODE -> loadBinUnicode(readByte());
+                case PickleUtils.BINUNICODE8 -> loadBinUnicode(readSize(8));
+                case PickleUtils.BINBYTES8 -> push(readBytesObject(readSize(8)));
+                case PickleUtils.EMPTY_SET -> push(factory.createSet());
+                case PickleUtils.ADDITEMS -> loadAddItems();
+                case PickleUtils.FROZENSET -> push(factory.createFrozenSet(createSetStorage(popItems(popMark()))));
+                case PickleUtils.NEWOBJ_EX -> loadNewObjEx();
+                case PickleUtils.STACK_GLOBAL -> loadStackGlobal();
+                case PickleUtils.MEMOIZE -> memoPut(unpickler.getMemoLen());
+                case PickleUtils.FRAME -> loadFrame();
+                case PickleUtils.BYTEARRAY8 -> loadByteArray(readSize(8));
+                case PickleUtils.NEXT_BUFFER -> loadNextBuffer();
+                case PickleUtils.READONLY_BUFFER -> loadReadonlyBuffer();
+                default -> throw invalidLoadKey(opcode);
+            }
+        }
+    }
+
+    private PException invalidLoadKey(int opcode) {
+        char c = (char) (opcode & 0xff);
+        if (c >= 0x20 && c <= 0x7e && c != '\'' && c != '\\') {
+            throw raiseUnpicklingError(node, ErrorMessages.INVALID_LOAD_KEY_S, String.valueOf(c));
+        }
+        throw raiseUnpicklingError(node, ErrorMessages.INVALID_LOAD_KEY_S, String.format("\\x%02x", (int) c));
+    }
+
+    private void loadProto() {
+        int proto = readByte();
+        if (proto > HIGHEST_PROTOCOL) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.ValueError, ErrorMessages.UNSUPPORTED_PICKLE_PROTOCOL_D, proto);
+        }
+        unpickler.setProto(proto);
+    }
+
+    private void loadFrame() {
+        int frameLen = readSize(8);
+        /* Fetch the whole frame, then rewind to its start. */
+        read(frameLen);
+        pos -= frameLen;
+    }
+
+    private void loadPop() {
+        if (sp <= fence && numMarks > 0 && marks[numMarks - 1] == sp) {
+            popMark();
+        } else {
+            pop();
+        }
+    }
+
+    // numbers
+
+    private static Object normalizeInt(BigInteger value) {
+        if (value.bitLength() < 32) {
+            return value.intValue();
+        } else if (value.bitLength() < 64) {
+            return value.longValue();
+        }
+        return factory.createInt(value);
+    }
+
+    private static boolean isDecimal(byte[] s) {
+        int start = s.length > 0 && (s[0] == '-' || s[0] == '+') ? 1 : 0;
+        if (s.length == start || s.length - start > 18 || (s[start] == '0' && s.length - start > 1)) {
+            return false;
+        }
+        for (int i = start; i < s.length; i++) {
+            if (s[i] < '0' || s[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object parseDecimal(byte[] s) {
+        long value = Long.parseLong(new String(s, 0, s.length, StandardCharsets.ISO_8859_1));
+        if (value == (int) value) {
+            return (int) value;
+        }
+        return value;
+    }
+
+    private void loadInt() {
+        byte[] s = readLine();
+        if (s.length == 2 && s[0] == '0' && (s[1] == '0' || s[1] == '1')) {
+            /* Protocols 0 and 1 write bools as "I00" and "I01". */
+            push(s[1] == '1');
+        } else if (isDecimal(s)) {
+            push(parseDecimal(s));
+        } else {
+            push(CallNode.getUncached().execute(PythonBuiltinClassType.PInt, asciiString(s), 0));
+        }
+    }
+
+    private void loadLong() {
+        byte[] s = readLine();
+        int len = s.length;
+        if (len > 0 && s[len - 1] == 'L') {
+            len--;
+        }
+        byte[] digits = PythonUtils.arrayCopyOfRange(s, 0, len);
+        if (isDecimal(digits)) {
+            push(parseDecimal(digits));
+        } else {
+            push(CallNode.getUncached().execute(PythonBuiltinClassType.PInt, asciiString(digits), 0));
+        }
+    }
+
+    private void loadLong4() {
+        int n = (int) readLE(4);
+        if (n < 0) {
+            throw raiseUnpicklingError(node, ErrorMessages.LONG_PICKLE_HAS_NEGATIVE_BYTE_COUNT);
+        }
+        push(decodeLong(n));
+    }
+
+    private Object decodeLong(int n) {
+        if (n == 0) {
+            return 0;
+        }
+        int start = read(n);
+        byte[] bigEndian = new byte[n];
+        for (int i = 0; i < n; i++) {
+            bigEndian[i] = input[start + n - 1 - i];
+        }
+        return normalizeInt(new BigInteger(bigEndian));
+    }
+
+    private static Object parseFloat(byte[] s) {
+        boolean simple = s.length > 0;
+        for (byte b : s) {
+            if (!((b >= '0' && b <= '9') || b == '.' || b == 'e' || b == 'E' || b == '-' || b == '+')) {
+                simple = false;
+                break;
+            }
+        }
+        if (simple) {
+            try {
+                return Double.parseDouble(new String(s, 0, s.length, StandardCharsets.ISO_8859_1));
+            } catch (NumberFormatException e) {
+                // fall through to float() for the error message
+            }
+        }
+        return CallNode.getUncached().execute(PythonBuiltinClassType.PFloat, asciiString(s));
+    }
+
+    // strings and bytes
+
+    private void loadString() {
+        byte[] s = readLine();
+        /* Strip the outermost quotes. */
+        int len = s.length;
+        if (len < 2 || s[0] != s[len - 1] || (s[0] != '\'' && s[0] != '"')) {
+            throw raiseUnpicklingError(node, ErrorMessages.THE_STRING_OPCODE_ARGUMENT_MUST_BE_QUOTED);
+        }
+        Object bytes = factory.createBytes(PythonUtils.arrayCopyOfRange(s, 1, len - 1));
+        Object decoded = CallNode.getUncached().execute(getModuleAttr(T_CODECS, T_ESCAPE_DECODE), bytes);
+        push(decodeString(PyObjectGetItem.executeUncached(decoded, 0)));
+    }
+
+    private void loadBinString(int size) {
+        push(decodeString(readBytesObject(size)));
+    }
+
+    /**
+     * Decodes a Python 2 {@code str} according to the {@code encoding} of the unpickler.
+     */
+    private Object decodeString(Object bytes) {
+        TruffleString encoding = unpickler.getEncoding();
+        if (encoding.equalsUncached(T_BYTES, TS_ENCODING)) {
+            return bytes;
+        }
+        return PyObjectCallMethodObjArgs.executeUncached(bytes, T_DECODE, encoding, unpickler.getErrors());
+    }
+
+    private void loadBinUnicode(int size) {
+        int start = read(size);
+        TruffleString utf8 = TruffleString.fromByteArrayUncached(input, start, size, Encoding.UTF_8, true);
+        if (utf8.isValidUncached(Encoding.UTF_8)) {
+            push(utf8.switchEncodingUncached(TS_ENCODING));
+        } else {
+            /* Lone surrogates need the 'surrogatepass' error handler. */
+            Object bytes = factory.createBytes(PythonUtils.arrayCopyOfRange(input, start, start + size));
+            push(PyObjectCallMethodObjArgs.executeUncached(bytes, T_DECODE, T_UTF8, T_SURROGATEPASS));
+        }
+    }
+
+    private Object readBytesObject(int size) {
+        int start = read(size);
+        if (start == 0 && size == input.length) {
+            /* The buffer was read from the file just for this object, no need to copy it. */
+            byte[] data = input;
+            input = PythonUtils.EMPTY_BYTE_ARRAY;
+            pos = limit = 0;
+            return factory.createBytes(data);
+        }
+        return factory.createBytes(PythonUtils.arrayCopyOfRange(input, start, start + size));
+    }
+
+    private void loadByteArray(int size) {
+        int start = read(size);
+        push(factory.createByteArray(PythonUtils.arrayCopyOfRange(input, start, start + size)));
+    }
+
+    private void loadNextBuffer() {
+        Object buffers = unpickler.getBuffers();
+        if (buffers == null) {
+            throw raiseUnpicklingError(node, ErrorMessages.PICKLE_STREAM_REFERS_TO_OUT_OF_BAND_DATA_BUT_NO_BUFFERS);
+        }
+        Object buffer = PyIterNextNode.getUncached().execute(null, buffers);
+        if (buffer == null) {
+            throw raiseUnpicklingError(node, ErrorMessages.NOT_ENOUGH_OUT_OF_BAND_BUFFERS);
+        }
+        push(buffer);
+    }
+
+    private void loadReadonlyBuffer() {
+        Object buffer = peek();
+        Object view = CallNode.getUncached().execute(PythonBuiltinClassType.PMemoryView, buffer);
+        if (!(view instanceof PMemoryView memoryView) || !memoryView.isReadOnly()) {
+            stack[sp - 1] = PyObjectCallMethodObjArgs.executeUncached(view, T_TOREADONLY);
+        }
+    }
+
+    // containers
+
+    private static HashingStorage createDictStorage(Object[] items, Node node) {
+        if ((items.length & 1) != 0) {
+            throw raiseUnpicklingError(node, ErrorMessages.ODD_NUMBER_OF_ITEMS_FOR_S, "DICT");
+        }
+        HashingStorage storage = EconomicMapStorage.create(items.length / 2);
+        for (int i = 0; i < items.length; i += 2) {
+            storage = HashingStorageSetItem.executeUncached(storage, items[i], items[i + 1]);
+        }
+        return storage;
+    }
+
+    private PDict createDict(Object[] items) {
+        return factory.createDict(createDictStorage(items, node));
+    }
+
+    private static HashingStorage createSetStorage(Object[] items) {
+        HashingStorage storage = EconomicMapStorage.createForSet(items.length);
+        for (Object item : items) {
+            storage = HashingStorageSetItem.executeUncached(storage, item, PNone.NONE);
+        }
+        return storage;
+    }
+
+    private void loadAppends(int mark) {
+        if (mark > sp || mark <= fence) {
+            throw stackUnderflow();
+        }
+        Object list = stack[mark - 1];
+        Object[] items = popItems(mark);
+        if (items.length == 0) {
+            return;
+        }
+        if (PyListCheckExactNode.executeUncached(list)) {
+            appendToList((PList) list, items);
+        } else {
+            Object extend = PyObjectLookupAttr.executeUncached(list, T_EXTEND);
+            if (extend != PNone.NO_VALUE) {
+                CallNode.getUncached().execute(extend, factory.createList(items));
+            } else {
+                /* Fall back on append() for objects without extend(), for compatibility. */
+                Object append = PyObjectGetAttr.executeUncached(list, T_APPEND);
+                for (Object item : items) {
+                    CallNode.getUncached().execute(append, item);
+                }
+            }
+        }
+    }
+
+    private static void appendToList(PList list, Object[] items) {
+        SequenceStorage storage = list.getSequenceStorage();
+        int length = storage.length();
+        if (length == 0 && !(storage instanceof NativeSequenceStorage)) {
+            /* Picks the most specific storage for the items, like the list literal does. */
+            list.setSequenceStorage(SequenceStorageFactory.createStorage(items));
+        } else if (storage instanceof ObjectSequenceStorage objectStorage) {
+            objectStorage.ensureCapacity(length + items.length);
+            System.arraycopy(items, 0, objectStorage.getInternalArray(), length, items.length);
+            objectStorage.setNewLength(length + items.length);
+        } else {
+            if (storage instanceof BasicSequenceStorage basicStorage) {
+                basicStorage.ensureCapacity(length + items.length);
+            }
+            ListNodes.AppendNode append = ListNodes.AppendNode.getUncached();
+            for (Object item : items) {
+                append.execute(list, item);
+            }
+        }
+    }
+
+    private void loadSetItems(int mark) {
+        if (mark > sp || mark <= fence) {
+            throw stackUnderflow();
+        }
+        Object dict = stack[mark - 1];
+        Object[] items = popItems(mark);
+        if ((items.length & 1) != 0) {
+            throw raiseUnpicklingError(node, ErrorMessages.ODD_NUMBER_OF_ITEMS_FOR_S, "SETITEMS");
+        }
+        if (PyDictCheckExactNode.executeUncached(dict)) {
+            PDict pdict = (PDict) dict;
+            HashingStorage storage = pdict.getDictStorage();
+            if (storage instanceof EmptyStorage) {
+                storage = EconomicMapStorage.create(items.length / 2);
+            }
+            for (int i = 0; i < items.length; i += 2) {
+                storage = HashingStorageSetItem.executeUncached(storage, items[i], items[i + 1]);
+            }
+            pdict.setDictStorage(storage);
+        } else {
+            for (int i = 0; i < items.length; i += 2) {
+                PyObjectSetItem.executeUncached(dict, items[i], items[i + 1]);
+            }
+        }
+    }
+
+    private void loadAddItems() {
+        int mark = popMark();
+        if (mark <= fence) {
+            throw stackUnderflow();
+        }
+        Object set = stack[mark - 1];
+        Object[] items = popItems(mark);
+        if (set instanceof PSet pset) {
+            HashingStorage storage = pset.getDictStorage();
+            for (Object item : items) {
+                storage = HashingStorageSetItem.executeUncached(storage, item, PNone.NONE);
+            }
+            pset.setDictStorage(storage);
+        } else {
+            Object add = PyObjectGetAttr.executeUncached(set, T_ADD);
+            for (Object item : items) {
+                CallNode.getUncached().execute(add, item);
+            }
+        }
+    }
+
+    // objects
+
+    private void loadReduce() {
+        Object args = pop();
+        Object callable = pop();
+        if (!(args instanceof PTuple tuple)) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.TypeError, ErrorMessages.S_ARGS_ARGUMENT_MUST_BE_A_TUPLE_NOT_P, "REDUCE", args);
+        }
+        push(CallNode.getUncached().execute(callable, getTupleItems(tuple)));
+    }
+
+    private void loadNewObj() {
+        Object args = pop();
+        Object cls = pop();
+        if (!IsTypeNode.executeUncached(cls)) {
+            throw raiseUnpicklingError(node, ErrorMessages.S_CLASS_ARGUMENT_MUST_BE_A_TYPE_NOT_P, "NEWOBJ", cls);
+        }
+        if (!(args instanceof PTuple tuple)) {
+            throw raiseUnpicklingError(node, ErrorMessages.S_ARGS_ARGUMENT_MUST_BE_A_TUPLE_NOT_P, "NEWOBJ", args);
+        }
+        push(callNew(cls, getTupleItems(tuple), PKeyword.EMPTY_KEYWORDS));
+    }
+
+    private void loadNewObjEx() {
+        Object kwargs = pop();
+        Object args = pop();
+        Object cls = pop();
+        if (!IsTypeNode.executeUncached(cls)) {
+            throw raiseUnpicklingError(node, ErrorMessages.S_CLASS_ARGUMENT_MUST_BE_A_TYPE_NOT_P, "NEWOBJ_EX", cls);
+        }
+        if (!(args instanceof PTuple tuple)) {
+            throw raiseUnpicklingError(node, ErrorMessages.S_ARGS_ARGUMENT_MUST_BE_A_TUPLE_NOT_P, "NEWOBJ_EX", args);
+        }
+        if (!(kwargs instanceof PDict dict)) {
+            throw raiseUnpicklingError(node, ErrorMessages.NEWOBJ_EX_KWARGS_ARGUMENT_MUST_BE_A_DICT_NOT_P, kwargs);
+        }
+        push(callNew(cls, getTupleItems(tuple), toKeywords(dict)));
+    }
+
+    private static Object callNew(Object cls, Object[] args, PKeyword[] kwargs) {
+        Object[] newArgs = new Object[args.length + 1];
+        newArgs[0] = cls;
+        System.arraycopy(args, 0, newArgs, 1, args.length);
+        return CallNode.getUncached().execute(PyObjectGetAttr.executeUncached(cls, T___NEW__), newArgs, kwargs);
+    }
+
+    private PKeyword[] toKeywords(PDict kwargs) {
+        HashingStorage storage = kwargs.getDictStorage();
+        ArrayList<PKeyword> keywords = new ArrayList<>();
+        HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+        while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+            TruffleString name;
+            try {
+                name = CastToTruffleStringNode.executeUncached(HashingStorageIteratorKey.executeUncached(storage, it));
+            } catch (CannotCastException e) {
+                throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.TypeError, ErrorMessages.KEYWORDS_S_MUST_BE_STRINGS);
+            }
+            keywords.add(new PKeyword(name, HashingStorageIteratorValue.executeUncached(storage, it)));
+        }
+        return keywords.toArray(PKeyword.EMPTY_KEYWORDS);
+    }
+
+    private void loadObj() {
+        int mark = popMark();
+        if (sp - mark < 1) {
+            throw stackUnderflow();
+        }
+        Object[] items = popItems(mark);
+        push(instantiate(items[0], PythonUtils.arrayCopyOfRange(items, 1, items.length)));
+    }
+
+    private void loadInst() {
+        TruffleString moduleName = asciiString(readLine());
+        TruffleString name = asciiString(readLine());
+        Object cls = findClass(moduleName, name);
+        push(instantiate(cls, popItems(popMark())));
+    }
+
+    private static Object instantiate(Object cls, Object[] args) {
+        if (args.length == 0 && IsTypeNode.executeUncached(cls) && PyObjectLookupAttr.executeUncached(cls, T___GETINITARGS__) == PNone.NO_VALUE) {
+            return PyObjectCallMethodObjArgs.executeUncached(cls, T___NEW__, cls);
+        }
+        return CallNode.getUncached().execute(cls, args);
+    }
+
+    private void loadBuild() {
+        Object state = pop();
+        Object inst = peek();
+        Object setstate = PyObjectLookupAttr.executeUncached(inst, T___SETSTATE__);
+        if (setstate != PNone.NO_VALUE) {
+            CallNode.getUncached().execute(setstate, state);
+            return;
+        }
+        /* The default __setstate__, see pickle.py. The state may embed a slot state dict. */
+        Object slotstate = null;
+        if (state instanceof PTuple tuple && tuple.getSequenceStorage().length() == 2) {
+            Object[] items = getTupleItems(tuple);
+            state = items[0];
+            slotstate = items[1];
+        }
+        if (state != PNone.NONE) {
+            if (!(state instanceof PDict stateDict)) {
+                throw raiseUnpicklingError(node, ErrorMessages.STATE_IS_NOT_A_DICTIONARY);
+            }
+            Object instDict = PyObjectGetAttr.executeUncached(inst, T___DICT__);
+            HashingStorage storage = stateDict.getDictStorage();
+            HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+            while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+                PyObjectSetItem.executeUncached(instDict, HashingStorageIteratorKey.executeUncached(storage, it), HashingStorageIteratorValue.executeUncached(storage, it));
+            }
+        }
+        if (slotstate != null && slotstate != PNone.NONE) {
+            if (!(slotstate instanceof PDict slotDict)) {
+                throw raiseUnpicklingError(node, ErrorMessages.SLOT_STATE_IS_NOT_A_DICTIONARY);
+            }
+            HashingStorage storage = slotDict.getDictStorage();
+            HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+            PyObjectSetAttr setAttr = PyObjectSetAttr.getUncached();
+            while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+                setAttr.execute(null, inst, HashingStorageIteratorKey.executeUncached(storage, it), HashingStorageIteratorValue.executeUncached(storage, it));
+            }
+        }
+    }
+
+    private static Object[] getTupleItems(PTuple tuple) {
+        SequenceStorage storage = tuple.getSequenceStorage();
+        Object[] items = new Object[storage.length()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = SequenceStorageNodes.GetItemScalarNode.executeUncached(storage, i);
+        }
+        return items;
+    }
+
+    // globals
+
+    private void loadGlobal() {
+        TruffleString moduleName = utf8String(readLine());
+        TruffleString name = utf8String(readLine());
+        push(findClass(moduleName, name));
+    }
+
+    private void loadStackGlobal() {
+        Object name = pop();
+        Object moduleName = pop();
+        if (!PyUnicodeCheckNode.executeUncached(name) || !PyUnicodeCheckNode.executeUncached(moduleName)) {
+            throw raiseUnpicklingError(node, ErrorMessages.STACK_GLOBAL_REQUIRES_STR);
+        }
+        push(findClass(moduleName, name));
+    }
+
+    private Object findClass(Object moduleName, Object name) {
+        if (exactUnpickler) {
+            return findClass(node, unpickler, CastToTruffleStringNode.executeUncached(moduleName), CastToTruffleStringNode.executeUncached(name));
+        }
+        return PyObjectCallMethodObjArgs.executeUncached(unpickler, T_FIND_CLASS, moduleName, name);
+    }
+
+    /**
+     * The implementation of {@code Unpickler.find_class}.
+     */
+    static Object findClass(Node node, PUnpickler unpickler, TruffleString moduleNameArg, TruffleString nameArg) {
+        TruffleString moduleName = moduleNameArg;
+        TruffleString name = nameArg;
+        if (unpickler.getProto() < 3 && unpickler.isFixImports()) {
+            Object nameMapping = getModuleAttr(T__COMPAT_PICKLE, T_NAME_MAPPING);
+            Object item = nameMapping instanceof PDict dict ? dict.getItem(factory.createTuple(new Object[]{moduleName, name})) : null;
+            if (item != null) {
+                if (!(item instanceof PTuple tuple) || tuple.getSequenceStorage().length() != 2) {
+                    throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.RuntimeError, ErrorMessages.COMPAT_PICKLE_S_VALUES_SHOULD_BE_S_NOT_P, "NAME_MAPPING", "2-tuples", item);
+                }
+                Object[] pair = getTupleItems(tuple);
+                moduleName = CastToTruffleStringNode.executeUncached(pair[0]);
+                name = CastToTruffleStringNode.executeUncached(pair[1]);
+            } else {
+                Object importMapping = getModuleAttr(T__COMPAT_PICKLE, T_IMPORT_MAPPING);
+                item = importMapping instanceof PDict dict ? dict.getItem(moduleName) : null;
+                if (item != null) {
+                    if (!PyUnicodeCheckNode.executeUncached(item)) {
+                        throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.RuntimeError, ErrorMessages.COMPAT_PICKLE_S_VALUES_SHOULD_BE_S_NOT_P, "IMPORT_MAPPING", "strings", item);
+                    }
+                    moduleName = CastToTruffleStringNode.executeUncached(item);
+                }
+            }
+        }
+        Object module = getModule(moduleName);
+        if (unpickler.getProto() >= 4) {
+            Object result = module;
+            int length = name.codePointLengthUncached(TS_ENCODING);
+            int start = 0;
+            while (true) {
+                int dot = name.indexOfCodePointUncached('.', start, length, TS_ENCODING);
+                TruffleString part = name.substringUncached(start, (dot < 0 ? length : dot) - start, TS_ENCODING, true);
+                if (part.equalsUncached(T_LOCALS, TS_ENCODING)) {
+                    throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.AttributeError, ErrorMessages.CANT_GET_LOCAL_ATTRIBUTE_S_ON_S, PyObjectReprAsTruffleStringNode.executeUncached(name),
+                                    PyObjectReprAsTruffleStringNode.executeUncached(module));
+                }
+                result = PyObjectGetAttr.executeUncached(result, part);
+                if (dot < 0) {
+                    return result;
+                }
+                start = dot + 1;
+            }
+        }
+        return PyObjectGetAttr.executeUncached(module, name);
+    }
+
+    private void loadExtension(long code) {
+        Object cache = getModuleAttr(T_COPYREG, T__EXTENSION_CACHE);
+        Object codeObj = (int) code;
+        Object obj = cache instanceof PDict dict ? dict.getItem(codeObj) : null;
+        if (obj != null) {
+            push(obj);
+            return;
+        }
+        Object registry = getModuleAttr(T_COPYREG, T__INVERTED_REGISTRY);
+        Object key = registry instanceof PDict dict ? dict.getItem(codeObj) : null;
+        if (key == null) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.ValueError, ErrorMessages.UNREGISTERED_EXTENSION_CODE_D, code);
+        }
+        if (!(key instanceof PTuple tuple) || tuple.getSequenceStorage().length() != 2) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.ValueError, ErrorMessages.INVERTED_REGISTRY_D_ISNT_A_2_TUPLE_OF_STRINGS, code);
+        }
+        Object[] pair = getTupleItems(tuple);
+        if (!PyUnicodeCheckNode.executeUncached(pair[0]) || !PyUnicodeCheckNode.executeUncached(pair[1])) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.ValueError, ErrorMessages.INVERTED_REGISTRY_D_ISNT_A_2_TUPLE_OF_STRINGS, code);
+        }
+        obj = findClass(pair[0], pair[1]);
+        PyObjectSetItem.executeUncached(cache, codeObj, obj);
+        push(obj);
+    }
+
+    // persistent ids
+
+    private void loadPersid() {
+        byte[] s = readLine();
+        for (byte b : s) {
+            if (b < 0) {
+                throw raiseUnpicklingError(node, ErrorMessages.PERSISTENT_IDS_IN_PROTOCOL_0_MUST_BE_ASCII);
+            }
+        }
+        push(persistentLoad(asciiString(s)));
+    }
+
+    private Object persistentLoad(Object pid) {
+        Object persFunc = unpickler.getPersFunc();
+        if (persFunc == null) {
+            throw raiseUnpicklingError(node, ErrorMessages.NO_PERSISTENT_LOAD_FUNCTION);
+        }
+        return CallNode.getUncached().execute(persFunc, pid);
+    }
+
+    // memo
+
+    private long parseIndex(byte[] s) {
+        if (!isDecimal(s)) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.ValueError, ErrorMessages.INVALID_LITERAL_FOR_INT_WITH_BASE, 10, asciiString(s));
+        }
+        Object value = parseDecimal(s);
+        return value instanceof Integer i ? i : (long) value;
+    }
+
+    private void memoGet(long idx) {
+        Object value = unpickler.memoGet(idx);
+        if (value == null) {
+            throw raiseUnpicklingError(node, ErrorMessages.MEMO_VALUE_NOT_FOUND_AT_INDEX_D, idx);
+        }
+        push(value);
+    }
+
+    private void memoPut(long idx) {
+        if (idx < 0) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.ValueError, ErrorMessages.NEGATIVE_PUT_ARGUMENT);
+        }
+        if (idx > Integer.MAX_VALUE - 8) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.OverflowError, ErrorMessages.S_EXCEEDS_SYSTEMS_MAXIMUM_SIZE, idx);
+        }
+        unpickler.memoPut((int) idx, peek());
+    }
+}
@@ -0,0 +1,1557 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.ADDITEMS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.APPEND;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.APPENDS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BATCHSIZE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BINBYTES;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BINFLOAT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BINGET;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BININT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BININT1;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BININT2;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BINPERSID;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BINPUT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BINUNICODE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BUILD;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.BYTEARRAY8;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.DICT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.EMPTY_DICT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.EMPTY_LIST;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.EMPTY_SET;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.EMPTY_TUPLE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.EXT1;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.EXT2;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.EXT4;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.FLOAT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.FRAME;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.FRAME_HEADER_SIZE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.FRAME_SIZE_MIN;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.FRAME_SIZE_TARGET;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.FROZENSET;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.GET;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.GLOBAL;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.INT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.LIST;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.LONG;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.LONG1;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.LONG4;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.LONG_BINGET;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.LONG_BINPUT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.MARK;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.MEMOIZE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.NEWFALSE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.NEWOBJ;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.NEWOBJ_EX;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.NEWTRUE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.NEXT_BUFFER;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.NONE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.PERSID;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.POP;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.POP_MARK;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.PROTO;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.PUT;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.READONLY_BUFFER;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.REDUCE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.SETITEM;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.SETITEMS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.SHORT_BINBYTES;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.SHORT_BINUNICODE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.STACK_GLOBAL;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.STOP;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.TUPLE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.TUPLE1;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.TUPLE2;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.TUPLE3;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_CODECS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_COPYREG;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_DISPATCH_TABLE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_ENCODE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_FUNCTOOLS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_LATIN1;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_LOCALS;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_PARTIAL;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_REVERSE_IMPORT_MAPPING;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_REVERSE_NAME_MAPPING;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T__COMPAT_PICKLE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T__EXTENSION_REGISTRY;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T___MP_MAIN__;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T___NEWOBJ_EX__;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T___NEWOBJ__;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.getModule;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.getModuleAttr;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.nullIfNone;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.raisePicklingError;
+import static com.oracle.graal.python.nodes.BuiltinNames.T_GETATTR;
+import static com.oracle.graal.python.nodes.BuiltinNames.T___MAIN__;
+import static com.oracle.graal.python.nodes.SpecialAttributeNames.T___CLASS__;
+import static com.oracle.graal.python.nodes.SpecialAttributeNames.T___MODULE__;
+import static com.oracle.graal.python.nodes.SpecialAttributeNames.T___NAME__;
+import static com.oracle.graal.python.nodes.SpecialAttributeNames.T___QUALNAME__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T___NEW__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T___REDUCE_EX__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T___REDUCE__;
+import static com.oracle.graal.python.util.PythonUtils.TS_ENCODING;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.PNotImplemented;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
+import com.oracle.graal.python.builtins.objects.common.HashingStorage;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageGetIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorKey;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorNext;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorValue;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageLen;
+import com.oracle.graal.python.builtins.objects.common.PHashingCollection;
+import com.oracle.graal.python.builtins.objects.common.SequenceStorageNodes;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.builtins.objects.ellipsis.PEllipsis;
+import com.oracle.graal.python.builtins.objects.floats.PFloat;
+import com.oracle.graal.python.builtins.objects.function.PKeyword;
+import com.oracle.graal.python.builtins.objects.ints.PInt;
+import com.oracle.graal.python.builtins.objects.list.PList;
+import com.oracle.graal.python.builtins.objects.str.PString;
+import com.oracle.graal.python.builtins.objects.str.StringNodes.StringMaterializeNode;
+import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.builtins.objects.type.PythonBuiltinClass;
+import com.oracle.graal.python.builtins.objects.type.TypeNodes.IsSameTypeNode;
+import com.oracle.graal.python.builtins.objects.type.TypeNodes.IsTypeNode;
+import com.oracle.graal.python.lib.PyCallableCheckNode;
+import com.oracle.graal.python.lib.PyIterCheckNodeGen;
+import com.oracle.graal.python.lib.PyIterNextNode;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.lib.PyObjectGetAttr;
+import com.oracle.graal.python.lib.PyObjectGetItem;
+import com.oracle.graal.python.lib.PyObjectGetIter;
+import com.oracle.graal.python.lib.PyObjectIsTrueNode;
+import com.oracle.graal.python.lib.PyObjectLookupAttr;
+import com.oracle.graal.python.lib.PyObjectReprAsTruffleStringNode;
+import com.oracle.graal.python.lib.PyObjectStrAsTruffleStringNode;
+import com.oracle.graal.python.lib.PyUnicodeCheckNode;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.call.CallNode;
+import com.oracle.graal.python.nodes.classes.IsSubtypeNode;
+import com.oracle.graal.python.nodes.object.GetClassNode;
+import com.oracle.graal.python.nodes.util.CannotCastException;
+import com.oracle.graal.python.nodes.util.CastToTruffleStringNode;
+import com.oracle.graal.python.runtime.PythonContext;
+import com.oracle.graal.python.runtime.exception.PException;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.runtime.sequence.storage.DoubleSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.IntSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.LongSequenceStorage;
+import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage;
+import com.oracle.graal.python.util.ByteArrayBuilder;
+import com.oracle.graal.python.util.PythonUtils;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.InternalByteArray;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleString.CodeRange;
+import com.oracle.truffle.api.strings.TruffleString.Encoding;
+
+/**
+ * Serializes a single object graph for {@link PPickler}, see CPython's {@code save} and friends in
+ * {@code Modules/_pickle.c}. The exact builtin containers, strings and numbers are written directly
+ * from their storages; everything else goes through the reduce protocol.
+ *
+ * All methods must be called behind a {@code TruffleBoundary}.
+ */
+final class PickleWriter {
+    private static final PythonObjectFactory factory = PythonObjectFactory.getUncached();
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    private static final byte[] HEXDIGITS = "0123456789abcdef".getBytes();
+
+    private final PythonContext context;
+    private final Node node;
+    private final PPickler pickler;
+    private final int proto;
+    private final boolean bin;
+    private final Object write;
+    private final IdentityHashMap<Object, Integer> memo;
+    private final Object persFunc;
+    private final Object dispatchTable;
+    private final Object reducerOverride;
+    private final ByteArrayBuilder output = new ByteArrayBuilder(INITIAL_BUFFER_SIZE);
+    private Object copyregDispatchTable;
+
+    private boolean framing;
+    private int frameStart = -1;
+    private int depth;
+    private final int recursionLimit;
+
+    PickleWriter(PythonContext context, Node node, PPickler pickler, Object reducerOverride) {
+        this.context = context;
+        this.node = node;
+        this.pickler = pickler;
+        this.proto = pickler.getProto();
+        this.bin = pickler.isBin();
+        this.write = pickler.getWrite();
+        this.memo = pickler.getMemo();
+        this.persFunc = pickler.getPersFunc();
+        this.dispatchTable = pickler.getDispatchTable();
+        this.reducerOverride = reducerOverride;
+        this.recursionLimit = context.getSysModuleState().getRecursionLimit();
+    }
+
+    void dump(Object obj) {
+        if (proto >= 2) {
+            output.add(PROTO);
+            output.add((byte) proto);
+            if (proto >= 4) {
+                framing = true;
+            }
+        }
+        save(obj, false);
+        write(STOP);
+        commitFrame();
+        framing = false;
+    }
+
+    /**
+     * Returns the pickled data that was not yet written to the file.
+     */
+    byte[] getOutput() {
+        return output.toArray();
+    }
+
+    void flushToFile() {
+        assert write != null;
+        if (output.size() > 0) {
+            CallNode.getUncached().execute(write, factory.createBytes(output.toArray()));
+            output.clear();
+        }
+    }
+
+    // output and framing
+
+    private void ensureFrame() {
+        if (framing && frameStart == -1) {
+            frameStart = output.reserve(FRAME_HEADER_SIZE);
+        }
+    }
+
+    private void write(byte b) {
+        ensureFrame();
+        output.add(b);
+    }
+
+    private void write(byte b1, byte b2) {
+        ensureFrame();
+        output.add(b1);
+        output.add(b2);
+    }
+
+    private void write(byte[] data, int off, int len) {
+        ensureFrame();
+        output.add(data, off, len);
+    }
+
+    private void write(byte[] data) {
+        write(data, 0, data.length);
+    }
+
+    private void writeAscii(String s) {
+        ensureFrame();
+        for (int i = 0; i < s.length(); i++) {
+            output.add((byte) s.charAt(i));
+        }
+    }
+
+    private void writeIntLE(int value, int nbytes) {
+        for (int i = 0; i < nbytes; i++) {
+            output.add((byte) (value >>> (8 * i)));
+        }
+    }
+
+    private void commitFrame() {
+        if (!framing || frameStart == -1) {
+            return;
+        }
+        int frameLen = output.size() - frameStart - FRAME_HEADER_SIZE;
+        if (frameLen >= FRAME_SIZE_MIN) {
+            output.set(frameStart, FRAME);
+            for (int i = 0; i < 8; i++) {
+                output.set(frameStart + 1 + i, (byte) ((long) frameLen >>> (8 * i)));
+            }
+        } else {
+            output.remove(frameStart, FRAME_HEADER_SIZE);
+        }
+        frameStart = -1;
+    }
+
+    private void opcodeBoundary() {
+        if (!framing || frameStart == -1) {
+            return;
+        }
+        int frameLen = output.size() - frameStart - FRAME_HEADER_SIZE;
+        if (frameLen >= FRAME_SIZE_TARGET) {
+            commitFrame();
+            if (write != null) {
+                /* Streaming the frames keeps the memory footprint of large dumps bounded. */
+                flushToFile();
+            }
+        }
+    }
+
+    /**
+     * Writes an opcode header followed by a possibly large payload. Payloads bigger than a frame
+     * are written outside of any frame and, when pickling to a file, passed to {@code write}
+     * directly without copying them into the output buffer.
+     */
+    private void writeBytes(byte[] header, int headerLen, byte[] data, int off, int len, Object payload) {
+        if (len < FRAME_SIZE_TARGET) {
+            write(header, 0, headerLen);
+            write(data, off, len);
+            return;
+        }
+        boolean wasFraming = framing;
+        commitFrame();
+        framing = false;
+        write(header, 0, headerLen);
+        if (write != null) {
+            flushToFile();
+            Object p = payload;
+            if (p == null) {
+                p = factory.createBytes(PythonUtils.arrayCopyOfRange(data, off, off + len));
+            }
+            CallNode.getUncached().execute(write, p);
+        } else {
+            write(data, off, len);
+        }
+        framing = wasFraming;
+    }
+
+    // save
+
+    private void save(Object objArg, boolean persSave) {
+        Object obj = objArg;
+        if (obj instanceof PythonBuiltinClassType type) {
+            obj = context.lookupType(type);
+        }
+        opcodeBoundary();
+        if (!persSave && persFunc != null && savePers(obj)) {
+            return;
+        }
+        if (obj == PNone.NONE) {
+            write(NONE);
+            return;
+        } else if (obj instanceof Boolean b) {
+            saveBool(b);
+            return;
+        } else if (obj instanceof Integer i) {
+            saveLong(i);
+            return;
+        } else if (obj instanceof Long l) {
+            saveLong(l);
+            return;
+        } else if (obj instanceof Double d) {
+            saveFloat(d);
+            return;
+        }
+
+        Object cls = GetClassNode.executeUncached(obj);
+        PythonBuiltinClassType type = getExactBuiltinType(cls);
+        if (type == PythonBuiltinClassType.Boolean) {
+            saveBool(obj == context.getTrue());
+            return;
+        } else if (type == PythonBuiltinClassType.PInt && obj instanceof PInt pint) {
+            saveBigInteger(pint.getValue());
+            return;
+        } else if (type == PythonBuiltinClassType.PFloat && obj instanceof PFloat pfloat) {
+            saveFloat(pfloat.getValue());
+            return;
+        }
+
+        Integer memoIndex = memo.get(obj);
+        if (memoIndex != null) {
+            memoGet(memoIndex);
+            return;
+        }
+
+        if (obj instanceof TruffleString ts) {
+            saveUnicode(obj, ts);
+            return;
+        } else if (type == PythonBuiltinClassType.PString && obj instanceof PString pstring) {
+            saveUnicode(obj, StringMaterializeNode.executeUncached(pstring));
+            return;
+        } else if (type == PythonBuiltinClassType.PBytes) {
+            saveBytes(obj);
+            return;
+        }
+
+        if (++depth > recursionLimit) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.RecursionError, ErrorMessages.MAXIMUM_RECURSION_DEPTH_EXCEEDED_WHILE_PICKLING);
+        }
+        try {
+            saveComplex(obj, cls, type);
+        } finally {
+            depth--;
+        }
+    }
+
+    /**
+     * Returns the builtin type if {@code cls} is exactly a builtin class, otherwise {@code null}.
+     * The common builtin types are then dispatched by comparing this single value instead of
+     * running an exact type check node for each of them.
+     */
+    private static PythonBuiltinClassType getExactBuiltinType(Object cls) {
+        if (cls instanceof PythonBuiltinClassType builtinType) {
+            return builtinType;
+        } else if (cls instanceof PythonBuiltinClass builtinClass) {
+            return builtinClass.getType();
+        }
+        return null;
+    }
+
+    private void saveComplex(Object obj, Object cls, PythonBuiltinClassType type) {
+        if (reducerOverride != null) {
+            Object reduceValue = CallNode.getUncached().execute(reducerOverride, obj);
+            if (reduceValue != PNotImplemented.NOT_IMPLEMENTED) {
+                saveReduceValue(obj, reduceValue);
+                return;
+            }
+        }
+
+        if (type == PythonBuiltinClassType.PDict && obj instanceof PDict dict) {
+            saveDict(dict);
+        } else if (type == PythonBuiltinClassType.PList && obj instanceof PList list) {
+            saveList(list);
+        } else if (type == PythonBuiltinClassType.PTuple && obj instanceof PTuple tuple) {
+            saveTuple(tuple);
+        } else if (type == PythonBuiltinClassType.PSet && obj instanceof PHashingCollection set) {
+            saveSet(set);
+        } else if (type == PythonBuiltinClassType.PFrozenSet && obj instanceof PHashingCollection set) {
+            saveFrozenSet(set);
+        } else if (type == PythonBuiltinClassType.PByteArray) {
+            saveByteArray(obj);
+        } else if (obj instanceof PPickleBuffer buffer) {
+            savePickleBuffer(buffer);
+        } else if (type == PythonBuiltinClassType.PythonClass) {
+            saveType(obj);
+        } else if (type == PythonBuiltinClassType.PFunction) {
+            saveGlobal(obj, null);
+        } else {
+            saveGeneric(obj, type != null ? context.lookupType(type) : cls);
+        }
+    }
+
+    private boolean savePers(Object obj) {
+        Object pid = CallNode.getUncached().execute(persFunc, obj);
+        if (pid == PNone.NONE) {
+            return false;
+        }
+        if (bin) {
+            save(pid, true);
+            write(BINPERSID);
+        } else {
+            TruffleString pidStr = PyObjectStrAsTruffleStringNode.executeUncached(pid);
+            if (pidStr.getCodeRangeUncached(TS_ENCODING) != CodeRange.ASCII) {
+                throw raisePicklingError(node, ErrorMessages.PERSISTENT_IDS_IN_PROTOCOL_0_MUST_BE_ASCII);
+            }
+            write(PERSID);
+            writeAscii(pidStr.toJavaStringUncached());
+            write((byte) '\n');
+        }
+        return true;
+    }
+
+    private void saveBool(boolean value) {
+        if (proto >= 2) {
+            write(value ? NEWTRUE : NEWFALSE);
+        } else {
+            /*
+             * Protocols 0 and 1 store bools as ints that later unpicklers can still recognize.
+             */
+            writeAscii(value ? "I01\n" : "I00\n");
+        }
+    }
+
+    private void saveLong(long value) {
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            if (bin) {
+                ensureFrame();
+                if ((value & ~0xffL) == 0) {
+                    output.add(BININT1);
+                    output.add((byte) value);
+                } else if ((value & ~0xffffL) == 0) {
+                    output.add(BININT2);
+                    writeIntLE((int) value, 2);
+                } else {
+                    output.add(BININT);
+                    writeIntLE((int) value, 4);
+                }
+            } else {
+                write(INT);
+                writeAscii(Long.toString(value));
+                write((byte) '\n');
+            }
+        } else {
+            saveBigInteger(BigInteger.valueOf(value));
+        }
+    }
+
+    private void saveBigInteger(BigInteger value) {
+        if (value.bitLength() < 32) {
+            saveLong(value.intValue());
+            return;
+        }
+        if (proto >= 2) {
+            /* Linear-time pickling as little-endian two's complement. */
+            byte[] bigEndian = value.toByteArray();
+            int nbytes = bigEndian.length;
+            ensureFrame();
+            if (nbytes < 256) {
+                output.add(LONG1);
+                output.add((byte) nbytes);
+            } else {
+                output.add(LONG4);
+                writeIntLE(nbytes, 4);
+            }
+            for (int i = nbytes - 1; i >= 0; i--) {
+                output.add(bigEndian[i]);
+            }
+        } else {
+            /* The trailing 'L' is kept for compatibility with Python 2. */
+            write(LONG);
+            writeAscii(value.toString());
+            writeAscii("L\n");
+        }
+    }
+
+    private void saveFloat(double value) {
+        if (bin) {
+            ensureFrame();
+            output.add(BINFLOAT);
+            long bits = Double.doubleToRawLongBits(value);
+            for (int i = 7; i >= 0; i--) {
+                output.add((byte) (bits >>> (8 * i)));
+            }
+        } else {
+            write(FLOAT);
+            writeAscii(PyObjectReprAsTruffleStringNode.executeUncached(value).toJavaStringUncached());
+            write((byte) '\n');
+        }
+    }
+
+    private void saveBytes(Object obj) {
+        PythonBufferAccessLibrary bufferLib = PythonBufferAccessLibrary.getUncached();
+        byte[] data = bufferLib.getInternalOrCopiedByteArray(obj);
+        int len = bufferLib.getBufferLength(obj);
+        if (proto < 3) {
+            /*
+             * Older protocols have no opcode for bytes, so we fake the copy protocol. We use
+             * codecs.encode so that Python 2 unpicklers get a 'str' object.
+             */
+            Object reduceValue;
+            if (len == 0) {
+                reduceValue = factory.createTuple(new Object[]{context.lookupType(PythonBuiltinClassType.PBytes), factory.createEmptyTuple()});
+            } else {
+                TruffleString latin1 = TruffleString.fromByteArrayUncached(data, 0, len, Encoding.ISO_8859_1, true).switchEncodingUncached(TS_ENCODING);
+                Object encode = getModuleAttr(T_CODECS, T_ENCODE);
+                reduceValue = factory.createTuple(new Object[]{encode, factory.createTuple(new Object[]{latin1, T_LATIN1})});
+            }
+            saveReduceValue(obj, reduceValue);
+        } else {
+            saveBytesData(obj, data, len);
+        }
+    }
+
+    private void saveBytesData(Object obj, byte[] data, int len) {
+        byte[] header = new byte[9];
+        int headerLen;
+        if (len <= 0xff) {
+            header[0] = SHORT_BINBYTES;
+            header[1] = (byte) len;
+            headerLen = 2;
+        } else {
+            header[0] = BINBYTES;
+            putIntLE(header, 1, len);
+            headerLen = 5;
+        }
+        writeBytes(header, headerLen, data, 0, len, obj);
+        memoPut(obj);
+    }
+
+    private void saveByteArray(Object obj) {
+        PythonBufferAccessLibrary bufferLib = PythonBufferAccessLibrary.getUncached();
+        byte[] data = bufferLib.getInternalOrCopiedByteArray(obj);
+        int len = bufferLib.getBufferLength(obj);
+        if (proto < 5) {
+            Object args;
+            if (len == 0) {
+                args = factory.createEmptyTuple();
+            } else {
+                args = factory.createTuple(new Object[]{factory.createBytes(PythonUtils.arrayCopyOfRange(data, 0, len))});
+            }
+            saveReduceValue(obj, factory.createTuple(new Object[]{GetClassNode.executeUncached(obj), args}));
+        } else {
+            saveByteArrayData(obj, data, len);
+        }
+    }
+
+    private void saveByteArrayData(Object obj, byte[] data, int len) {
+        byte[] header = new byte[9];
+        header[0] = BYTEARRAY8;
+        putSizeLE(header, 1, len);
+        writeBytes(header, 9, data, 0, len, obj);
+        memoPut(obj);
+    }
+
+    private void savePickleBuffer(PPickleBuffer obj) {
+        if (proto < 5) {
+            throw raisePicklingError(node, ErrorMessages.PICKLEBUFFER_CAN_ONLY_BE_PICKLED_WITH_PROTOCOL_5);
+        }
+        Object view = obj.getView();
+        if (view == null) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.ValueError, ErrorMessages.OPERATION_FORBIDDEN_ON_RELEASED_PICKLEBUFFER);
+        }
+        boolean inBand = true;
+        Object bufferCallback = pickler.getBufferCallback();
+        if (bufferCallback != null) {
+            Object ret = CallNode.getUncached().execute(bufferCallback, obj);
+            inBand = PyObjectIsTrueNode.getUncached().execute(null, null, ret);
+        }
+        PythonBufferAccessLibrary bufferLib = PythonBufferAccessLibrary.getUncached();
+        boolean readonly = bufferLib.isReadonly(view);
+        if (inBand) {
+            byte[] data = bufferLib.getInternalOrCopiedByteArray(view);
+            int len = bufferLib.getBufferLength(view);
+            if (readonly) {
+                saveBytesData(obj, data, len);
+            } else {
+                saveByteArrayData(obj, data, len);
+            }
+        } else {
+            write(NEXT_BUFFER);
+            if (readonly) {
+                write(READONLY_BUFFER);
+            }
+        }
+    }
+
+    private void saveUnicode(Object obj, TruffleString str) {
+        if (bin) {
+            byte[] data;
+            int off;
+            int len;
+            if (str.isValidUncached(TS_ENCODING)) {
+                InternalByteArray ba = str.switchEncodingUncached(Encoding.UTF_8).getInternalByteArrayUncached(Encoding.UTF_8);
+                data = ba.getArray();
+                off = ba.getOffset();
+                len = ba.getLength();
+            } else {
+                /* Lone surrogates are written as is, like the 'surrogatepass' error handler. */
+                data = encodeUtf8SurrogatePass(str);
+                off = 0;
+                len = data.length;
+            }
+            byte[] header = new byte[9];
+            int headerLen;
+            if (len <= 0xff && proto >= 4) {
+                header[0] = SHORT_BINUNICODE;
+                header[1] = (byte) len;
+                headerLen = 2;
+            } else {
+                header[0] = BINUNICODE;
+                putIntLE(header, 1, len);
+                headerLen = 5;
+            }
+            writeBytes(header, headerLen, data, off, len, null);
+        } else {
+            write(PickleUtils.UNICODE);
+            writeRawUnicodeEscape(str);
+            write((byte) '\n');
+        }
+        memoPut(obj);
+    }
+
+    private static byte[] encodeUtf8SurrogatePass(TruffleString str) {
+        int length = str.codePointLengthUncached(TS_ENCODING);
+        ByteArrayBuilder builder = new ByteArrayBuilder(length * 3);
+        for (int i = 0; i < length; i++) {
+            int cp = str.codePointAtIndexUncached(i, TS_ENCODING);
+            if (cp < 0x80) {
+                builder.add((byte) cp);
+            } else if (cp < 0x800) {
+                builder.add((byte) (0xc0 | (cp >> 6)));
+                builder.add((byte) (0x80 | (cp & 0x3f)));
+            } else if (cp < 0x10000) {
+                builder.add((byte) (0xe0 | (cp >> 12)));
+                builder.add((byte) (0x80 | ((cp >> 6) & 0x3f)));
+                builder.add((byte) (0x80 | (cp & 0x3f)));
+            } else {
+                builder.add((byte) (0xf0 | (cp >> 18)));
+                builder.add((byte) (0x80 | ((cp >> 12) & 0x3f)));
+                builder.add((byte) (0x80 | ((cp >> 6) & 0x3f)));
+                builder.add((byte) (0x80 | (cp & 0x3f)));
+            }
+        }
+        return builder.toArray();
+    }
+
+    /**
+     * Like the 'raw-unicode-escape' codec, but additionally escapes the backslash and the line
+     * endings, see CPython's {@code raw_unicode_escape} in {@code _pickle.c}.
+     */
+    private void writeRawUnicodeEscape(TruffleString str) {
+        ensureFrame();
+        int length = str.codePointLengthUncached(TS_ENCODING);
+        for (int i = 0; i < length; i++) {
+            int ch = str.codePointAtIndexUncached(i, TS_ENCODING);
+            if (ch >= 0x10000) {
+                output.add((byte) '\\');
+                output.add((byte) 'U');
+                writeHex(ch, 8);
+            } else if (ch >= 256 || ch == '\\' || ch == 0 || ch == '\n' || ch == '\r' || ch == 0x1a) {
+                output.add((byte) '\\');
+                output.add((byte) 'u');
+                writeHex(ch, 4);
+            } else {
+                output.add((byte) ch);
+            }
+        }
+    }
+
+    private void writeHex(int value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            output.add(HEXDIGITS[(value >> (4 * i)) & 0xf]);
+        }
+    }
+
+    private void saveTuple(PTuple obj) {
+        SequenceStorage storage = obj.getSequenceStorage();
+        int len = storage.length();
+        if (len == 0) {
+            if (proto > 0) {
+                write(EMPTY_TUPLE);
+            } else {
+                write(MARK, TUPLE);
+            }
+            return;
+        }
+        if (len <= 3 && proto >= 2) {
+            for (int i = 0; i < len; i++) {
+                save(SequenceStorageNodes.GetItemScalarNode.executeUncached(storage, i), false);
+            }
+            Integer memoIndex = memo.get(obj);
+            if (memoIndex != null) {
+                /* The tuple is recursive, throw away the items and fetch it from the memo. */
+                for (int i = 0; i < len; i++) {
+                    write(POP);
+                }
+                memoGet(memoIndex);
+                return;
+            }
+            write(len == 1 ? TUPLE1 : len == 2 ? TUPLE2 : TUPLE3);
+        } else {
+            write(MARK);
+            for (int i = 0; i < len; i++) {
+                save(SequenceStorageNodes.GetItemScalarNode.executeUncached(storage, i), false);
+            }
+            Integer memoIndex = memo.get(obj);
+            if (memoIndex != null) {
+                if (bin) {
+                    write(POP_MARK);
+                } else {
+                    for (int i = 0; i <= len; i++) {
+                        write(POP);
+                    }
+                }
+                memoGet(memoIndex);
+                return;
+            }
+            write(TUPLE);
+        }
+        memoPut(obj);
+    }
+
+    private void saveList(PList obj) {
+        if (bin) {
+            write(EMPTY_LIST);
+        } else {
+            write(MARK, LIST);
+        }
+        memoPut(obj);
+        if (obj.getSequenceStorage().length() != 0) {
+            if (proto > 0) {
+                batchListExact(obj);
+            } else {
+                batchAppends(PyObjectGetIter.executeUncached(obj));
+            }
+        }
+    }
+
+    /**
+     * Writes the items of an exact list. The storage is re-read for every item since saving an
+     * item may run arbitrary code that modifies the list.
+     */
+    private void batchListExact(PList obj) {
+        SequenceStorage storage = obj.getSequenceStorage();
+        if (storage.length() == 1) {
+            saveListItem(storage, 0);
+            write(APPEND);
+            return;
+        }
+        int total = 0;
+        do {
+            int thisBatch = 0;
+            write(MARK);
+            while (total < (storage = obj.getSequenceStorage()).length()) {
+                saveListItem(storage, total);
+                total++;
+                if (++thisBatch == BATCHSIZE) {
+                    break;
+                }
+            }
+            write(APPENDS);
+        } while (total < obj.getSequenceStorage().length());
+    }
+
+    private void saveListItem(SequenceStorage storage, int index) {
+        if (persFunc == null) {
+            /* Primitive storages cannot contain anything that would need the memo. */
+            if (storage instanceof IntSequenceStorage intStorage) {
+                opcodeBoundary();
+                saveLong(intStorage.getInternalIntArray()[index]);
+                return;
+            } else if (storage instanceof LongSequenceStorage longStorage) {
+                opcodeBoundary();
+                saveLong(longStorage.getInternalLongArray()[index]);
+                return;
+            } else if (storage instanceof DoubleSequenceStorage doubleStorage) {
+                opcodeBoundary();
+                saveFloat(doubleStorage.getInternalDoubleArray()[index]);
+                return;
+            }
+        }
+        save(SequenceStorageNodes.GetItemScalarNode.executeUncached(storage, index), false);
+    }
+
+    private void batchAppends(Object iterator) {
+        if (!bin) {
+            Object item;
+            while ((item = next(iterator)) != null) {
+                save(item, false);
+                write(APPEND);
+            }
+            return;
+        }
+        int n;
+        do {
+            Object first = next(iterator);
+            if (first == null) {
+                break;
+            }
+            Object item = next(iterator);
+            if (item == null) {
+                save(first, false);
+                write(APPEND);
+                break;
+            }
+            write(MARK);
+            save(first, false);
+            n = 1;
+            while (item != null) {
+                save(item, false);
+                if (++n == BATCHSIZE) {
+                    break;
+                }
+                item = next(iterator);
+            }
+            write(APPENDS);
+        } while (n == BATCHSIZE);
+    }
+
+    private void saveDict(PDict obj) {
+        if (bin) {
+            write(EMPTY_DICT);
+        } else {
+            write(MARK, DICT);
+        }
+        memoPut(obj);
+        if (HashingStorageLen.executeUncached(obj.getDictStorage()) != 0) {
+            if (proto > 0) {
+                batchDictExact(obj);
+            } else {
+                Object items = PyObjectCallMethodObjArgs.executeUncached(obj, PickleUtils.T_ITEMS);
+                batchSetItems(PyObjectGetIter.executeUncached(items));
+            }
+        }
+    }
+
+    private void batchDictExact(PDict obj) {
+        HashingStorage storage = obj.getDictStorage();
+        int size = HashingStorageLen.executeUncached(storage);
+        HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+        if (size == 1) {
+            HashingStorageIteratorNext.executeUncached(storage, it);
+            save(HashingStorageIteratorKey.executeUncached(storage, it), false);
+            save(HashingStorageIteratorValue.executeUncached(storage, it), false);
+            write(SETITEM);
+            return;
+        }
+        int i;
+        do {
+            i = 0;
+            write(MARK);
+            while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+                save(HashingStorageIteratorKey.executeUncached(storage, it), false);
+                save(HashingStorageIteratorValue.executeUncached(storage, it), false);
+                if (++i == BATCHSIZE) {
+                    break;
+                }
+            }
+            write(SETITEMS);
+            if (HashingStorageLen.executeUncached(obj.getDictStorage()) != size) {
+                throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.RuntimeError, ErrorMessages.CHANGED_SIZE_DURING_ITERATION, "dictionary");
+            }
+        } while (i == BATCHSIZE);
+    }
+
+    private void batchSetItems(Object iterator) {
+        if (!bin) {
+            Object item;
+            while ((item = next(iterator)) != null) {
+                Object[] pair = getItemPair(item);
+                save(pair[0], false);
+                save(pair[1], false);
+                write(SETITEM);
+            }
+            return;
+        }
+        int n;
+        do {
+            Object first = next(iterator);
+            if (first == null) {
+                break;
+            }
+            Object[] firstPair = getItemPair(first);
+            Object item = next(iterator);
+            if (item == null) {
+                save(firstPair[0], false);
+                save(firstPair[1], false);
+                write(SETITEM);
+                break;
+            }
+            write(MARK);
+            save(firstPair[0], false);
+            save(firstPair[1], false);
+            n = 1;
+            while (item != null) {
+                Object[] pair = getItemPair(item);
+                save(pair[0], false);
+                save(pair[1], false);
+                if (++n == BATCHSIZE) {
+                    break;
+                }
+                item = next(iterator);
+            }
+            write(SETITEMS);
+        } while (n == BATCHSIZE);
+    }
+
+    private Object[] getItemPair(Object item) {
+        if (!(item instanceof PTuple tuple) || tuple.getSequenceStorage().length() != 2) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.TypeError, ErrorMessages.DICT_ITEMS_ITERATOR_MUST_RETURN_2_TUPLES);
+        }
+        SequenceStorage storage = tuple.getSequenceStorage();
+        return new Object[]{SequenceStorageNodes.GetItemScalarNode.executeUncached(storage, 0), SequenceStorageNodes.GetItemScalarNode.executeUncached(storage, 1)};
+    }
+
+    private void saveSet(PHashingCollection obj) {
+        if (proto < 4) {
+            Object items = factory.createList(getSetItems(obj));
+            saveReduceValue(obj, factory.createTuple(new Object[]{context.lookupType(PythonBuiltinClassType.PSet), factory.createTuple(new Object[]{items})}));
+            return;
+        }
+        write(EMPTY_SET);
+        memoPut(obj);
+        HashingStorage storage = obj.getDictStorage();
+        int size = HashingStorageLen.executeUncached(storage);
+        if (size == 0) {
+            return;
+        }
+        HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+        int i;
+        do {
+            i = 0;
+            write(MARK);
+            while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+                save(HashingStorageIteratorKey.executeUncached(storage, it), false);
+                if (++i == BATCHSIZE) {
+                    break;
+                }
+            }
+            write(ADDITEMS);
+            if (HashingStorageLen.executeUncached(obj.getDictStorage()) != size) {
+                throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.RuntimeError, ErrorMessages.CHANGED_SIZE_DURING_ITERATION, "set");
+            }
+        } while (i == BATCHSIZE);
+    }
+
+    private void saveFrozenSet(PHashingCollection obj) {
+        if (proto < 4) {
+            Object items = factory.createList(getSetItems(obj));
+            saveReduceValue(obj, factory.createTuple(new Object[]{GetClassNode.executeUncached(obj), factory.createTuple(new Object[]{items})}));
+            return;
+        }
+        write(MARK);
+        HashingStorage storage = obj.getDictStorage();
+        HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+        while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+            save(HashingStorageIteratorKey.executeUncached(storage, it), false);
+        }
+        Integer memoIndex = memo.get(obj);
+        if (memoIndex != null) {
+            /* The frozenset is recursive, throw away the items and fetch it from the memo. */
+            write(POP_MARK);
+            memoGet(memoIndex);
+            return;
+        }
+        write(FROZENSET);
+        memoPut(obj);
+    }
+
+    private static Object[] getSetItems(PHashingCollection obj) {
+        HashingStorage storage = obj.getDictStorage();
+        Object[] items = new Object[HashingStorageLen.executeUncached(storage)];
+        HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+        int i = 0;
+        while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+            items[i++] = HashingStorageIteratorKey.executeUncached(storage, it);
+        }
+        return items;
+    }
+
+    private void saveType(Object obj) {
+        Object singleton = null;
+        if (obj == context.lookupType(PythonBuiltinClassType.PNone)) {
+            singleton = PNone.NONE;
+        } else if (obj == context.lookupType(PythonBuiltinClassType.PNotImplemented)) {
+            singleton = PNotImplemented.NOT_IMPLEMENTED;
+        } else if (obj == context.lookupType(PythonBuiltinClassType.PEllipsis)) {
+            singleton = PEllipsis.INSTANCE;
+        }
+        if (singleton != null) {
+            Object reduceValue = factory.createTuple(new Object[]{context.lookupType(PythonBuiltinClassType.PythonClass), factory.createTuple(new Object[]{singleton})});
+            saveReduceValue(obj, reduceValue);
+        } else {
+            saveGlobal(obj, null);
+        }
+    }
+
+    private void saveGeneric(Object obj, Object type) {
+        Object reduceFunc = null;
+        if (dispatchTable != null) {
+            try {
+                reduceFunc = PyObjectGetItem.executeUncached(dispatchTable, type);
+            } catch (PException e) {
+                e.expectUncached(PythonBuiltinClassType.KeyError);
+            }
+        } else {
+            if (copyregDispatchTable == null) {
+                /* CPython's _pickle also reads copyreg.dispatch_table only once. */
+                copyregDispatchTable = getModuleAttr(T_COPYREG, T_DISPATCH_TABLE);
+            }
+            if (copyregDispatchTable instanceof PDict dict) {
+                reduceFunc = dict.getItem(type);
+            }
+        }
+
+        Object reduceValue;
+        if (reduceFunc != null) {
+            reduceValue = CallNode.getUncached().execute(reduceFunc, obj);
+        } else if (IsSubtypeNode.getUncached().execute(type, PythonBuiltinClassType.PythonClass)) {
+            saveGlobal(obj, null);
+            return;
+        } else {
+            Object reduceEx = PyObjectLookupAttr.executeUncached(obj, T___REDUCE_EX__);
+            if (reduceEx != PNone.NO_VALUE) {
+                reduceValue = CallNode.getUncached().execute(reduceEx, proto);
+            } else {
+                Object reduce = PyObjectLookupAttr.executeUncached(obj, T___REDUCE__);
+                if (reduce == PNone.NO_VALUE) {
+                    throw raisePicklingError(node, ErrorMessages.CANNOT_PICKLE_OBJECT_TYPE, obj);
+                }
+                reduceValue = CallNode.getUncached().execute(reduce);
+            }
+        }
+        saveReduceValue(obj, reduceValue);
+    }
+
+    private void saveReduceValue(Object obj, Object reduceValue) {
+        if (PyUnicodeCheckNode.executeUncached(reduceValue)) {
+            saveGlobal(obj, reduceValue);
+        } else if (!(reduceValue instanceof PTuple)) {
+            throw raisePicklingError(node, ErrorMessages.REDUCE_MUST_RETURN_STRING_OR_TUPLE);
+        } else {
+            saveReduce(getTupleItems((PTuple) reduceValue), obj);
+        }
+    }
+
+    private static Object[] getTupleItems(PTuple tuple) {
+        SequenceStorage storage = tuple.getSequenceStorage();
+        Object[] items = new Object[storage.length()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = SequenceStorageNodes.GetItemScalarNode.executeUncached(storage, i);
+        }
+        return items;
+    }
+
+    private void saveReduce(Object[] reduceValue, Object obj) {
+        int size = reduceValue.length;
+        if (size < 2 || size > 6) {
+            throw raisePicklingError(node, ErrorMessages.TUPLE_RETURNED_BY_REDUCE_MUST_CONTAIN_2_THROUGH_6_ELEMENTS);
+        }
+        Object callable = reduceValue[0];
+        Object argtup = reduceValue[1];
+        Object state = size > 2 ? nullIfNone(reduceValue[2]) : null;
+        Object listitems = size > 3 ? nullIfNone(reduceValue[3]) : null;
+        Object dictitems = size > 4 ? nullIfNone(reduceValue[4]) : null;
+        Object stateSetter = size > 5 ? nullIfNone(reduceValue[5]) : null;
+
+        if (!PyCallableCheckNode.executeUncached(callable)) {
+            throw raisePicklingError(node, ErrorMessages.FIRST_ITEM_OF_REDUCE_TUPLE_MUST_BE_CALLABLE);
+        }
+        if (!(argtup instanceof PTuple)) {
+            throw raisePicklingError(node, ErrorMessages.SECOND_ITEM_OF_REDUCE_TUPLE_MUST_BE_TUPLE);
+        }
+        if (listitems != null && !PyIterCheckNodeGen.getUncached().execute(null, listitems)) {
+            throw raisePicklingError(node, ErrorMessages.S_ELEMENT_OF_REDUCE_TUPLE_MUST_BE_ITERATOR_NOT_P, "fourth", listitems);
+        }
+        if (dictitems != null && !PyIterCheckNodeGen.getUncached().execute(null, dictitems)) {
+            throw raisePicklingError(node, ErrorMessages.S_ELEMENT_OF_REDUCE_TUPLE_MUST_BE_ITERATOR_NOT_P, "fifth", dictitems);
+        }
+        if (stateSetter != null && !PyCallableCheckNode.executeUncached(stateSetter)) {
+            throw raisePicklingError(node, ErrorMessages.SIXTH_ELEMENT_OF_REDUCE_TUPLE_MUST_BE_FUNCTION_NOT_P, stateSetter);
+        }
+
+        boolean useNewobj = false;
+        boolean useNewobjEx = false;
+        if (proto >= 2) {
+            Object name = PyObjectLookupAttr.executeUncached(callable, T___NAME__);
+            if (PyUnicodeCheckNode.executeUncached(name)) {
+                TruffleString nameStr = CastToTruffleStringNode.executeUncached(name);
+                useNewobjEx = nameStr.equalsUncached(T___NEWOBJ_EX__, TS_ENCODING);
+                useNewobj = !useNewobjEx && nameStr.equalsUncached(T___NEWOBJ__, TS_ENCODING);
+            }
+        }
+
+        Object[] args = getTupleItems((PTuple) argtup);
+        if (useNewobjEx) {
+            if (args.length != 3) {
+                throw raisePicklingError(node, ErrorMessages.LENGTH_OF_NEWOBJ_EX_ARGUMENT_TUPLE_MUST_BE_3_NOT_D, args.length);
+            }
+            Object cls = args[0];
+            if (!IsTypeNode.executeUncached(cls)) {
+                throw raisePicklingError(node, ErrorMessages.S_ITEM_FROM_NEWOBJ_EX_ARGUMENT_TUPLE_MUST_BE_S_NOT_P, "first", "a class", cls);
+            }
+            Object newArgs = args[1];
+            if (!(newArgs instanceof PTuple)) {
+                throw raisePicklingError(node, ErrorMessages.S_ITEM_FROM_NEWOBJ_EX_ARGUMENT_TUPLE_MUST_BE_S_NOT_P, "second", "a tuple", newArgs);
+            }
+            Object kwargs = args[2];
+            if (!(kwargs instanceof PDict)) {
+                throw raisePicklingError(node, ErrorMessages.S_ITEM_FROM_NEWOBJ_EX_ARGUMENT_TUPLE_MUST_BE_S_NOT_P, "third", "a dict", kwargs);
+            }
+            if (proto >= 4) {
+                save(cls, false);
+                save(newArgs, false);
+                save(kwargs, false);
+                write(NEWOBJ_EX);
+            } else {
+                /* Older protocols get partial(cls.__new__, cls, *args, **kwargs) instead. */
+                Object[] clsArgs = getTupleItems((PTuple) newArgs);
+                Object[] partialArgs = new Object[clsArgs.length + 2];
+                partialArgs[0] = PyObjectGetAttr.executeUncached(cls, T___NEW__);
+                partialArgs[1] = cls;
+                System.arraycopy(clsArgs, 0, partialArgs, 2, clsArgs.length);
+                Object partial = CallNode.getUncached().execute(getModuleAttr(T_FUNCTOOLS, T_PARTIAL), partialArgs, toKeywords((PDict) kwargs));
+                save(partial, false);
+                save(factory.createEmptyTuple(), false);
+                write(REDUCE);
+            }
+        } else if (useNewobj) {
+            if (args.length == 0) {
+                throw raisePicklingError(node, ErrorMessages.NEWOBJ_ARGLIST_IS_EMPTY);
+            }
+            Object cls = args[0];
+            if (!IsTypeNode.executeUncached(cls)) {
+                throw raisePicklingError(node, ErrorMessages.ARGS0_FROM_NEWOBJ_ARGS_IS_NOT_A_TYPE);
+            }
+            if (obj != null) {
+                Object objClass = PyObjectLookupAttr.executeUncached(obj, T___CLASS__);
+                if (objClass == PNone.NO_VALUE || !IsSameTypeNode.executeUncached(cls, objClass)) {
+                    throw raisePicklingError(node, ErrorMessages.ARGS0_FROM_NEWOBJ_ARGS_HAS_THE_WRONG_CLASS);
+                }
+            }
+            save(cls, false);
+            save(factory.createTuple(PythonUtils.arrayCopyOfRange(args, 1, args.length)), false);
+            write(NEWOBJ);
+        } else {
+            save(callable, false);
+            save(argtup, false);
+            write(REDUCE);
+        }
+
+        /*
+         * obj can be null when save_reduce() is used by save_global() for nested attributes. The
+         * object may already be memoized if the reduce arguments refer to it.
+         */
+        if (obj != null) {
+            Integer memoIndex = memo.get(obj);
+            if (memoIndex != null) {
+                write(POP);
+                memoGet(memoIndex);
+            } else {
+                memoPut(obj);
+            }
+        }
+
+        if (listitems != null) {
+            batchAppends(listitems);
+        }
+        if (dictitems != null) {
+            batchSetItems(dictitems);
+        }
+        if (state != null) {
+            if (stateSetter == null) {
+                save(state, false);
+                write(BUILD);
+            } else {
+                /*
+                 * Calls state_setter(obj, state) and pops the result, so that the object stays on
+                 * top of the stack.
+                 */
+                save(stateSetter, false);
+                save(obj, false);
+                save(state, false);
+                write(TUPLE2);
+                write(REDUCE);
+                write(POP);
+            }
+        }
+    }
+
+    private PKeyword[] toKeywords(PDict kwargs) {
+        HashingStorage storage = kwargs.getDictStorage();
+        ArrayList<PKeyword> keywords = new ArrayList<>();
+        HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+        while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+            Object key = HashingStorageIteratorKey.executeUncached(storage, it);
+            TruffleString name;
+            try {
+                name = CastToTruffleStringNode.executeUncached(key);
+            } catch (CannotCastException e) {
+                throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.TypeError, ErrorMessages.KEYWORDS_S_MUST_BE_STRINGS);
+            }
+            keywords.add(new PKeyword(name, HashingStorageIteratorValue.executeUncached(storage, it)));
+        }
+        return keywords.toArray(PKeyword.EMPTY_KEYWORDS);
+    }
+
+    // globals
+
+    private void saveGlobal(Object obj, Object nameArg) {
+        Object globalName = nameArg;
+        if (globalName == null) {
+            globalName = PyObjectLookupAttr.executeUncached(obj, T___QUALNAME__);
+            if (globalName == PNone.NO_VALUE) {
+                globalName = PyObjectGetAttr.executeUncached(obj, T___NAME__);
+            }
+        }
+        TruffleString name = castName(globalName);
+        TruffleString[] dottedPath = getDottedPath(name);
+        TruffleString moduleName = whichModule(obj, dottedPath);
+
+        Object module;
+        try {
+            module = getModule(moduleName);
+        } catch (PException e) {
+            throw raisePicklingError(node, ErrorMessages.CANT_PICKLE_S_IMPORT_OF_MODULE_S_FAILED, repr(obj), repr(moduleName));
+        }
+        Object parent = module;
+        Object cls = module;
+        try {
+            for (TruffleString part : dottedPath) {
+                parent = cls;
+                cls = PyObjectGetAttr.executeUncached(cls, part);
+            }
+        } catch (PException e) {
+            e.expectUncached(PythonBuiltinClassType.AttributeError);
+            throw raisePicklingError(node, ErrorMessages.CANT_PICKLE_S_ATTRIBUTE_LOOKUP_S_ON_S_FAILED, repr(obj), repr(name), repr(moduleName));
+        }
+        if (cls != obj) {
+            throw raisePicklingError(node, ErrorMessages.CANT_PICKLE_S_ITS_NOT_THE_SAME_OBJECT_AS_S_S, repr(obj), moduleName, name);
+        }
+
+        if (proto >= 2) {
+            /* Check the extension registry for an extension code. */
+            Object registry = getModuleAttr(T_COPYREG, T__EXTENSION_REGISTRY);
+            if (registry instanceof PDict dict) {
+                Object code = dict.getItem(factory.createTuple(new Object[]{moduleName, name}));
+                if (code != null) {
+                    saveExtension(obj, code);
+                    return;
+                }
+            }
+        }
+
+        TruffleString lastName = dottedPath[dottedPath.length - 1];
+        if (parent == module) {
+            name = lastName;
+        }
+        if (proto >= 4) {
+            save(moduleName, false);
+            save(name, false);
+            write(STACK_GLOBAL);
+        } else if (parent != module) {
+            Object getattr = PyObjectGetAttr.executeUncached(context.getBuiltins(), T_GETATTR);
+            saveReduce(new Object[]{getattr, factory.createTuple(new Object[]{parent, lastName})}, null);
+        } else {
+            TruffleString writtenModule = moduleName;
+            TruffleString writtenName = name;
+            Encoding encoding = Encoding.UTF_8;
+            if (proto < 3) {
+                if (pickler.isFixImports()) {
+                    TruffleString[] fixed = fixImports(writtenModule, writtenName);
+                    writtenModule = fixed[0];
+                    writtenName = fixed[1];
+                }
+                encoding = Encoding.US_ASCII;
+                if (writtenModule.getCodeRangeUncached(TS_ENCODING) != CodeRange.ASCII) {
+                    throw raisePicklingError(node, ErrorMessages.CANT_PICKLE_S_IDENTIFIER_S_USING_PICKLE_PROTOCOL_D, "module", writtenModule, proto);
+                }
+                if (writtenName.getCodeRangeUncached(TS_ENCODING) != CodeRange.ASCII) {
+                    throw raisePicklingError(node, ErrorMessages.CANT_PICKLE_S_IDENTIFIER_S_USING_PICKLE_PROTOCOL_D, "global", writtenName, proto);
+                }
+            }
+            write(GLOBAL);
+            writeEncoded(writtenModule, encoding);
+            write((byte) '\n');
+            writeEncoded(writtenName, encoding);
+            write((byte) '\n');
+        }
+        memoPut(obj);
+    }
+
+    private void writeEncoded(TruffleString str, Encoding encoding) {
+        InternalByteArray ba = str.switchEncodingUncached(encoding).getInternalByteArrayUncached(encoding);
+        write(ba.getArray(), ba.getOffset(), ba.getLength());
+    }
+
+    private void saveExtension(Object obj, Object codeObj) {
+        long code = codeObj instanceof Integer i ? i : codeObj instanceof Long l ? l : -1;
+        if (code <= 0 || code > 0x7fffffffL) {
+            throw raisePicklingError(node, ErrorMessages.CANT_PICKLE_S_EXTENSION_CODE_S_IS_OUT_OF_RANGE, repr(obj), repr(codeObj));
+        }
+        ensureFrame();
+        if (code <= 0xff) {
+            output.add(EXT1);
+            output.add((byte) code);
+        } else if (code <= 0xffff) {
+            output.add(EXT2);
+            writeIntLE((int) code, 2);
+        } else {
+            output.add(EXT4);
+            writeIntLE((int) code, 4);
+        }
+    }
+
+    private TruffleString castName(Object name) {
+        try {
+            return CastToTruffleStringNode.executeUncached(name);
+        } catch (CannotCastException e) {
+            throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.TypeError, ErrorMessages.ATTR_NAME_MUST_BE_STRING, name);
+        }
+    }
+
+    private TruffleString[] getDottedPath(TruffleString name) {
+        ArrayList<TruffleString> parts = new ArrayList<>();
+        int length = name.codePointLengthUncached(TS_ENCODING);
+        int start = 0;
+        while (true) {
+            int dot = name.indexOfCodePointUncached('.', start, length, TS_ENCODING);
+            TruffleString part = name.substringUncached(start, (dot < 0 ? length : dot) - start, TS_ENCODING, true);
+            if (part.equalsUncached(T_LOCALS, TS_ENCODING)) {
+                throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.AttributeError, ErrorMessages.CANT_PICKLE_LOCAL_OBJECT_S, repr(name));
+            }
+            parts.add(part);
+            if (dot < 0) {
+                break;
+            }
+            start = dot + 1;
+        }
+        return parts.toArray(new TruffleString[0]);
+    }
+
+    private TruffleString whichModule(Object obj, TruffleString[] dottedPath) {
+        Object moduleName = PyObjectLookupAttr.executeUncached(obj, T___MODULE__);
+        if (moduleName != PNone.NO_VALUE && moduleName != PNone.NONE) {
+            return castName(moduleName);
+        }
+        /* Fallback on walking sys.modules, copying it first since imports may modify it. */
+        HashingStorage storage = context.getSysModules().getDictStorage();
+        ArrayList<Object[]> modules = new ArrayList<>();
+        HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+        while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+            modules.add(new Object[]{HashingStorageIteratorKey.executeUncached(storage, it), HashingStorageIteratorValue.executeUncached(storage, it)});
+        }
+        for (Object[] entry : modules) {
+            Object name = entry[0];
+            Object module = entry[1];
+            if (!(name instanceof TruffleString tsName) || module == PNone.NONE || tsName.equalsUncached(T___MAIN__, TS_ENCODING) || tsName.equalsUncached(T___MP_MAIN__, TS_ENCODING)) {
+                continue;
+            }
+            Object candidate = module;
+            try {
+                for (TruffleString part : dottedPath) {
+                    candidate = PyObjectGetAttr.executeUncached(candidate, part);
+                }
+            } catch (PException e) {
+                continue;
+            }
+            if (candidate == obj) {
+                return tsName;
+            }
+        }
+        return T___MAIN__;
+    }
+
+    private TruffleString[] fixImports(TruffleString moduleName, TruffleString name) {
+        Object nameMapping = getModuleAttr(T__COMPAT_PICKLE, T_REVERSE_NAME_MAPPING);
+        Object importMapping = getModuleAttr(T__COMPAT_PICKLE, T_REVERSE_IMPORT_MAPPING);
+        if (nameMapping instanceof PDict dict) {
+            Object item = dict.getItem(factory.createTuple(new Object[]{moduleName, name}));
+            if (item != null) {
+                if (!(item instanceof PTuple tuple) || tuple.getSequenceStorage().length() != 2) {
+                    throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.RuntimeError, ErrorMessages.COMPAT_PICKLE_S_VALUES_SHOULD_BE_S_NOT_P, "REVERSE_NAME_MAPPING", "2-tuples", item);
+                }
+                Object[] pair = getTupleItems(tuple);
+                return new TruffleString[]{castName(pair[0]), castName(pair[1])};
+            }
+        }
+        if (importMapping instanceof PDict dict) {
+            Object item = dict.getItem(moduleName);
+            if (item != null) {
+                if (!PyUnicodeCheckNode.executeUncached(item)) {
+                    throw PRaiseNode.raiseUncached(node, PythonBuiltinClassType.RuntimeError, ErrorMessages.COMPAT_PICKLE_S_VALUES_SHOULD_BE_S_NOT_P, "REVERSE_IMPORT_MAPPING", "strings", item);
+                }
+                return new TruffleString[]{castName(item), name};
+            }
+        }
+        return new TruffleString[]{moduleName, name};
+    }
+
+    // memo
+
+    private void memoPut(Object obj) {
+        if (pickler.getFast() != 0) {
+            return;
+        }
+        int idx = memo.size();
+        memo.put(obj, idx);
+        if (proto >= 4) {
+            write(MEMOIZE);
+        } else if (bin) {
+            ensureFrame();
+            if (idx < 256) {
+                output.add(BINPUT);
+                output.add((byte) idx);
+            } else {
+                output.add(LONG_BINPUT);
+                writeIntLE(idx, 4);
+            }
+        } else {
+            write(PUT);
+            writeAscii(Integer.toString(idx));
+            write((byte) '\n');
+        }
+    }
+
+    private void memoGet(int idx) {
+        if (!bin) {
+            write(GET);
+            writeAscii(Integer.toString(idx));
+            write((byte) '\n');
+        } else {
+            ensureFrame();
+            if (idx < 256) {
+                output.add(BINGET);
+                output.add((byte) idx);
+            } else {
+                output.add(LONG_BINGET);
+                writeIntLE(idx, 4);
+            }
+        }
+    }
+
+    // helpers
+
+    private static Object next(Object iterator) {
+        return PyIterNextNode.getUncached().execute(null, iterator);
+    }
+
+    private static TruffleString repr(Object obj) {
+        return PyObjectReprAsTruffleStringNode.executeUncached(obj);
+    }
+
+    private static void putIntLE(byte[] dst, int off, int value) {
+        for (int i = 0; i < 4; i++) {
+            dst[off + i] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    private static void putSizeLE(byte[] dst, int off, long value) {
+        for (int i = 0; i < 8; i++) {
+            dst[off + i] = (byte) (value >>> (8 * i));
+        }
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.AttributeError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.TypeError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.ValueError;
+import static com.oracle.graal.python.builtins.modules.io.IONodes.T_WRITE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.DEFAULT_PROTOCOL;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.HIGHEST_PROTOCOL;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_DISPATCH_TABLE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_PERSISTENT_ID;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_REDUCER_OVERRIDE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.nullIfNone;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.raisePicklingError;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___INIT__;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import com.oracle.graal.python.annotations.ArgumentClinic;
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.common.HashingStorage;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageGetIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorNext;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorValue;
+import com.oracle.graal.python.builtins.objects.common.SequenceStorageNodes;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.builtins.objects.getsetdescriptor.DescriptorDeleteMarker;
+import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.builtins.objects.type.TypeNodes.IsSameTypeNode;
+import com.oracle.graal.python.lib.PyCallableCheckNode;
+import com.oracle.graal.python.lib.PyLongAsIntNode;
+import com.oracle.graal.python.lib.PyObjectIsTrueNode;
+import com.oracle.graal.python.lib.PyObjectLookupAttr;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonClinicBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
+import com.oracle.graal.python.nodes.object.GetClassNode;
+import com.oracle.graal.python.runtime.ExecutionContext.IndirectCallContext;
+import com.oracle.graal.python.runtime.PythonContext;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+
+@CoreFunctions(extendClasses = PythonBuiltinClassType.Pickler)
+public final class PicklerBuiltins extends PythonBuiltins {
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return PicklerBuiltinsFactory.getFactories();
+    }
+
+    @TruffleBoundary
+    static int getProtocol(Node node, Object protocol) {
+        if (protocol == PNone.NONE || protocol == PNone.NO_VALUE) {
+            return DEFAULT_PROTOCOL;
+        }
+        int proto = PyLongAsIntNode.executeUncached(protocol);
+        if (proto < 0) {
+            return HIGHEST_PROTOCOL;
+        }
+        if (proto > HIGHEST_PROTOCOL) {
+            throw PRaiseNode.raiseUncached(node, ValueError, ErrorMessages.PICKLE_PROTOCOL_MUST_BE_LE_D, HIGHEST_PROTOCOL);
+        }
+        return proto;
+    }
+
+    /**
+     * Initializes {@code self} for writing to {@code file}, or to memory if {@code file} is
+     * {@code null}.
+     */
+    @TruffleBoundary
+    static void initPickler(Node node, PPickler self, Object file, Object protocol, boolean fixImports, Object bufferCallback) {
+        int proto = getProtocol(node, protocol);
+        Object callback = nullIfNone(bufferCallback);
+        if (callback != null && proto < 5) {
+            throw PRaiseNode.raiseUncached(node, ValueError, ErrorMessages.BUFFER_CALLBACK_NEEDS_PROTOCOL_5);
+        }
+        Object write = null;
+        if (file != null) {
+            write = PyObjectLookupAttr.executeUncached(file, T_WRITE);
+            if (write == PNone.NO_VALUE) {
+                throw PRaiseNode.raiseUncached(node, TypeError, ErrorMessages.FILE_MUST_HAVE_A_WRITE_ATTRIBUTE);
+            }
+        }
+        self.init(write, proto, fixImports, callback);
+        self.clearMemo();
+    }
+
+    /**
+     * Pickles {@code obj} and writes the result to the file of {@code self}, or returns it if
+     * {@code self} writes to memory.
+     */
+    @TruffleBoundary
+    static byte[] dump(Node node, PPickler self, Object obj) {
+        if (!self.isInitialized()) {
+            throw raisePicklingError(node, ErrorMessages.PICKLER_INIT_NOT_CALLED_BY_P, self);
+        }
+        Object reducerOverride = null;
+        if (!IsSameTypeNode.executeUncached(GetClassNode.executeUncached(self), PythonBuiltinClassType.Pickler)) {
+            reducerOverride = nullIfNone(PyObjectLookupAttr.executeUncached(self, T_REDUCER_OVERRIDE));
+        }
+        PickleWriter writer = new PickleWriter(PythonContext.get(node), node, self, reducerOverride);
+        writer.dump(obj);
+        if (self.getWrite() == null) {
+            return writer.getOutput();
+        }
+        writer.flushToFile();
+        return null;
+    }
+
+    @Builtin(name = J___INIT__, minNumOfPositionalArgs = 2, parameterNames = {"$self", "file", "protocol", "fix_imports", "buffer_callback"})
+    @ArgumentClinic(name = "fix_imports", conversion = ArgumentClinic.ClinicConversion.Boolean, defaultValue = "true")
+    @GenerateNodeFactory
+    abstract static class InitNode extends PythonClinicBuiltinNode {
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return PicklerBuiltinsClinicProviders.InitNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        Object init(VirtualFrame frame, PPickler self, Object file, Object protocol, boolean fixImports, Object bufferCallback) {
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                initPickler(this, self, file, protocol, fixImports, bufferCallback);
+                lookupOverrides(self);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+            return PNone.NONE;
+        }
+
+        /*
+         * Subclasses may define persistent_id and dispatch_table as methods or class attributes.
+         * Without overrides, the lookup finds our getters, which raise AttributeError while unset.
+         */
+        @TruffleBoundary
+        private static void lookupOverrides(PPickler self) {
+            self.setPersFunc(null);
+            self.setDispatchTable(null);
+            self.setPersFunc(nullIfNone(PyObjectLookupAttr.executeUncached(self, T_PERSISTENT_ID)));
+            self.setDispatchTable(nullIfNone(PyObjectLookupAttr.executeUncached(self, T_DISPATCH_TABLE)));
+        }
+    }
+
+    @Builtin(name = "dump", minNumOfPositionalArgs = 2, parameterNames = {"$self", "obj"})
+    @GenerateNodeFactory
+    abstract static class DumpNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        Object dump(VirtualFrame frame, PPickler self, Object obj) {
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                PicklerBuiltins.dump(this, self, obj);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "clear_memo", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class ClearMemoNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object clear(PPickler self) {
+            self.clearMemo();
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "memo", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    abstract static class MemoNode extends PythonBinaryBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PPickler self, @SuppressWarnings("unused") PNone value,
+                        @Cached PythonObjectFactory factory) {
+            return factory.createPicklerMemoProxy(self);
+        }
+
+        @Specialization(guards = "!isNoValue(value)")
+        Object set(VirtualFrame frame, PPickler self, Object value) {
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                setMemo(this, self, value);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+            return PNone.NONE;
+        }
+
+        @TruffleBoundary
+        private static void setMemo(Node node, PPickler self, Object value) {
+            IdentityHashMap<Object, Integer> newMemo;
+            if (value instanceof DescriptorDeleteMarker) {
+                throw PRaiseNode.raiseUncached(node, TypeError, ErrorMessages.ATTRIBUTE_DELETION_IS_NOT_SUPPORTED);
+            } else if (value instanceof PPicklerMemoProxy proxy) {
+                newMemo = new IdentityHashMap<>(proxy.getPickler().getMemo());
+            } else if (value instanceof PDict dict) {
+                newMemo = new IdentityHashMap<>();
+                HashingStorage storage = dict.getDictStorage();
+                HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+                while (HashingStorageIteratorNext.executeUncached(storage, it)) {
+                    Object entry = HashingStorageIteratorValue.executeUncached(storage, it);
+                    if (!(entry instanceof PTuple tuple) || tuple.getSequenceStorage().length() != 2) {
+                        throw PRaiseNode.raiseUncached(node, TypeError, ErrorMessages.MEMO_VALUES_MUST_BE_2_ITEM_TUPLES);
+                    }
+                    SequenceStorage entryStorage = tuple.getSequenceStorage();
+                    int idx = PyLongAsIntNode.executeUncached(SequenceStorageNodes.GetItemScalarNode.executeUncached(entryStorage, 0));
+                    newMemo.put(SequenceStorageNodes.GetItemScalarNode.executeUncached(entryStorage, 1), idx);
+                }
+            } else {
+                throw PRaiseNode.raiseUncached(node, TypeError, ErrorMessages.MEMO_MUST_BE_PICKLER_MEMO_PROXY_OR_DICT_NOT_P, value);
+            }
+            self.clearMemo();
+            self.getMemo().putAll(newMemo);
+        }
+    }
+
+    @Builtin(name = "persistent_id", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    abstract static class PersistentIdNode extends PythonBinaryBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PPickler self, @SuppressWarnings("unused") PNone value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            Object persFunc = self.getPersFunc();
+            if (persFunc == null) {
+                throw raiseNode.get(inliningTarget).raise(AttributeError, ErrorMessages.S, T_PERSISTENT_ID);
+            }
+            return persFunc;
+        }
+
+        @Specialization(guards = "!isNoValue(value)")
+        static Object set(PPickler self, Object value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyCallableCheckNode callableCheckNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            if (value instanceof DescriptorDeleteMarker) {
+                throw raiseNode.get(inliningTarget).raise(TypeError, ErrorMessages.ATTRIBUTE_DELETION_IS_NOT_SUPPORTED);
+            }
+            if (!callableCheckNode.execute(inliningTarget, value)) {
+                throw raiseNode.get(inliningTarget).raise(TypeError, ErrorMessages.S_MUST_BE_CALLABLE_TAKING_ONE_ARGUMENT, T_PERSISTENT_ID);
+            }
+            self.setPersFunc(value);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "dispatch_table", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    abstract static class DispatchTableNode extends PythonBinaryBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PPickler self, @SuppressWarnings("unused") PNone value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            Object dispatchTable = self.getDispatchTable();
+            if (dispatchTable == null) {
+                throw raiseNode.get(inliningTarget).raise(AttributeError, ErrorMessages.S, T_DISPATCH_TABLE);
+            }
+            return dispatchTable;
+        }
+
+        @Specialization
+        static Object delete(PPickler self, @SuppressWarnings("unused") DescriptorDeleteMarker value) {
+            self.setDispatchTable(null);
+            return PNone.NONE;
+        }
+
+        @Specialization(guards = {"!isNoValue(value)", "!isDeleteMarker(value)"})
+        static Object set(PPickler self, Object value) {
+            self.setDispatchTable(nullIfNone(value));
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "bin", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    abstract static class BinNode extends PythonBinaryBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PPickler self, @SuppressWarnings("unused") PNone value) {
+            return self.isBin() ? 1 : 0;
+        }
+
+        @Specialization(guards = "!isNoValue(value)")
+        static Object set(VirtualFrame frame, PPickler self, Object value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectIsTrueNode isTrueNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            if (value instanceof DescriptorDeleteMarker) {
+                throw raiseNode.get(inliningTarget).raise(TypeError, ErrorMessages.ATTRIBUTE_DELETION_IS_NOT_SUPPORTED);
+            }
+            self.setBin(isTrueNode.execute(frame, inliningTarget, value));
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "fast", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    abstract static class FastNode extends PythonBinaryBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PPickler self, @SuppressWarnings("unused") PNone value) {
+            return self.getFast();
+        }
+
+        @Specialization(guards = "!isNoValue(value)")
+        static Object set(VirtualFrame frame, PPickler self, Object value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectIsTrueNode isTrueNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            if (value instanceof DescriptorDeleteMarker) {
+                throw raiseNode.get(inliningTarget).raise(TypeError, ErrorMessages.ATTRIBUTE_DELETION_IS_NOT_SUPPORTED);
+            }
+            self.setFast(isTrueNode.execute(frame, inliningTarget, value) ? 1 : 0);
+            return PNone.NONE;
+        }
+    }
+}
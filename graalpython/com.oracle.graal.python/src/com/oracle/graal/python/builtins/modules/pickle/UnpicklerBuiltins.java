@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.pickle;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.AttributeError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.TypeError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.ValueError;
+import static com.oracle.graal.python.builtins.modules.io.IONodes.T_READ;
+import static com.oracle.graal.python.builtins.modules.io.IONodes.T_READLINE;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.T_PERSISTENT_LOAD;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.nullIfNone;
+import static com.oracle.graal.python.builtins.modules.pickle.PickleUtils.raiseUnpicklingError;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___INIT__;
+import static com.oracle.graal.python.nodes.StringLiterals.T_ASCII_UPPERCASE;
+import static com.oracle.graal.python.nodes.StringLiterals.T_STRICT;
+
+import java.util.List;
+
+import com.oracle.graal.python.annotations.ArgumentClinic;
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.common.HashingStorage;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageGetIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIterator;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorKey;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorNext;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageIteratorValue;
+import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageLen;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.builtins.objects.getsetdescriptor.DescriptorDeleteMarker;
+import com.oracle.graal.python.lib.PyCallableCheckNode;
+import com.oracle.graal.python.lib.PyLongAsIntNode;
+import com.oracle.graal.python.lib.PyLongCheckNode;
+import com.oracle.graal.python.lib.PyObjectGetIter;
+import com.oracle.graal.python.lib.PyObjectLookupAttr;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonClinicBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryClinicBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
+import com.oracle.graal.python.runtime.ExecutionContext.IndirectCallContext;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+@CoreFunctions(extendClasses = PythonBuiltinClassType.Unpickler)
+public final class UnpicklerBuiltins extends PythonBuiltins {
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return UnpicklerBuiltinsFactory.getFactories();
+    }
+
+    /**
+     * Initializes {@code self} for reading from {@code file}, or from memory if {@code file} is
+     * {@code null}.
+     */
+    @TruffleBoundary
+    static void initUnpickler(Node node, PUnpickler self, Object file, boolean fixImports, TruffleString encoding, TruffleString errors, Object buffers) {
+        Object read = null;
+        Object readline = null;
+        if (file != null) {
+            read = PyObjectLookupAttr.executeUncached(file, T_READ);
+            readline = PyObjectLookupAttr.executeUncached(file, T_READLINE);
+            if (read == PNone.NO_VALUE || readline == PNone.NO_VALUE) {
+                throw PRaiseNode.raiseUncached(node, TypeError, ErrorMessages.FILE_MUST_HAVE_READ_AND_READLINE_ATTRIBUTES);
+            }
+        }
+        Object buffersIter = null;
+        if (nullIfNone(buffers) != null) {
+            buffersIter = PyObjectGetIter.executeUncached(buffers);
+        }
+        self.init(read, readline, fixImports, encoding, errors, buffersIter);
+    }
+
+    /**
+     * Unpickles an object from the file of {@code self}.
+     */
+    @TruffleBoundary
+    static Object load(Node node, PUnpickler self) {
+        if (!self.isInitialized()) {
+            throw raiseUnpicklingError(node, ErrorMessages.UNPICKLER_INIT_NOT_CALLED_BY_P, self);
+        }
+        return new PickleReader(node, self).load();
+    }
+
+    /**
+     * Unpickles an object from the first {@code length} bytes of {@code data}.
+     */
+    @TruffleBoundary
+    static Object load(Node node, PUnpickler self, byte[] data, int length) {
+        return new PickleReader(node, self, data, length).load();
+    }
+
+    @Builtin(name = J___INIT__, minNumOfPositionalArgs = 2, parameterNames = {"$self", "file"}, keywordOnlyNames = {"fix_imports", "encoding", "errors", "buffers"})
+    @ArgumentClinic(name = "fix_imports", conversion = ArgumentClinic.ClinicConversion.Boolean, defaultValue = "true")
+    @ArgumentClinic(name = "encoding", conversion = ArgumentClinic.ClinicConversion.TString, defaultValue = "T_ASCII_UPPERCASE")
+    @ArgumentClinic(name = "errors", conversion = ArgumentClinic.ClinicConversion.TString, defaultValue = "T_STRICT")
+    @GenerateNodeFactory
+    abstract static class InitNode extends PythonClinicBuiltinNode {
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return UnpicklerBuiltinsClinicProviders.InitNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        Object init(VirtualFrame frame, PUnpickler self, Object file, boolean fixImports, TruffleString encoding, TruffleString errors, Object buffers) {
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                initUnpickler(this, self, file, fixImports, encoding, errors, buffers);
+                lookupPersistentLoad(self);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+            return PNone.NONE;
+        }
+
+        /*
+         * Subclasses may define persistent_load as a method. Without an override, the lookup finds
+         * our getter, which raises AttributeError while unset.
+         */
+        @TruffleBoundary
+        private static void lookupPersistentLoad(PUnpickler self) {
+            self.setPersFunc(null);
+            self.setPersFunc(nullIfNone(PyObjectLookupAttr.executeUncached(self, T_PERSISTENT_LOAD)));
+        }
+    }
+
+    @Builtin(name = "load", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class LoadNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        Object load(VirtualFrame frame, PUnpickler self) {
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                return UnpicklerBuiltins.load(this, self);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+        }
+    }
+
+    @Builtin(name = "find_class", minNumOfPositionalArgs = 3, parameterNames = {"$self", "module_name", "global_name"})
+    @ArgumentClinic(name = "module_name", conversion = ArgumentClinic.ClinicConversion.TString)
+    @ArgumentClinic(name = "global_name", conversion = ArgumentClinic.ClinicConversion.TString)
+    @GenerateNodeFactory
+    abstract static class FindClassNode extends PythonTernaryClinicBuiltinNode {
+        @Override
+        protected ArgumentClinicProvider getArgumentClinic() {
+            return UnpicklerBuiltinsClinicProviders.FindClassNodeClinicProviderGen.INSTANCE;
+        }
+
+        @Specialization
+        Object findClass(VirtualFrame frame, PUnpickler self, TruffleString moduleName, TruffleString globalName) {
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                return doFindClass(this, self, moduleName, globalName);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+        }
+
+        @TruffleBoundary
+        private static Object doFindClass(Node node, PUnpickler self, TruffleString moduleName, TruffleString globalName) {
+            return PickleReader.findClass(node, self, moduleName, globalName);
+        }
+    }
+
+    @Builtin(name = "memo", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    abstract static class MemoNode extends PythonBinaryBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PUnpickler self, @SuppressWarnings("unused") PNone value,
+                        @Cached PythonObjectFactory factory) {
+            return factory.createUnpicklerMemoProxy(self);
+        }
+
+        @Specialization(guards = "!isNoValue(value)")
+        Object set(VirtualFrame frame, PUnpickler self, Object value) {
+            Object savedState = IndirectCallContext.enter(frame, this);
+            try {
+                setMemo(this, self, value);
+            } finally {
+                IndirectCallContext.exit(frame, this, savedState);
+            }
+            return PNone.NONE;
+        }
+
+        @TruffleBoundary
+        private static void setMemo(Node node, PUnpickler self, Object value) {
+            if (value instanceof DescriptorDeleteMarker) {
+                throw PRaiseNode.raiseUncached(node, TypeError, ErrorMessages.ATTRIBUTE_DELETION_IS_NOT_SUPPORTED);
+            } else if (value instanceof PUnpicklerMemoProxy proxy) {
+                Object[] memo = proxy.getUnpickler().getMemo();
+                self.clearMemo();
+                for (int i = 0; i < memo.length; i++) {
+                    if (memo[i] != null) {
+                        self.memoPut(i, memo[i]);
+                    }
+                }
+            } else if (value instanceof PDict dict) {
+                HashingStorage storage = dict.getDictStorage();
+                int len = HashingStorageLen.executeUncached(storage);
+                int[] indices = new int[len];
+                Object[] values = new Object[len];
+                HashingStorageIterator it = HashingStorageGetIterator.executeUncached(storage);
+                for (int i = 0; HashingStorageIteratorNext.executeUncached(storage, it); i++) {
+                    Object key = HashingStorageIteratorKey.executeUncached(storage, it);
+                    if (!PyLongCheckNode.executeUncached(key)) {
+                        throw PRaiseNode.raiseUncached(node, TypeError, ErrorMessages.MEMO_KEY_MUST_BE_INTEGERS);
+                    }
+                    indices[i] = PyLongAsIntNode.executeUncached(key);
+                    if (indices[i] < 0) {
+                        throw PRaiseNode.raiseUncached(node, ValueError, ErrorMessages.MEMO_KEY_MUST_BE_POSITIVE_INTEGERS);
+                    }
+                    values[i] = HashingStorageIteratorValue.executeUncached(storage, it);
+                }
+                self.clearMemo();
+                for (int i = 0; i < len; i++) {
+                    self.memoPut(indices[i], values[i]);
+                }
+            } else {
+                throw PRaiseNode.raiseUncached(node, TypeError, ErrorMessages.MEMO_MUST_BE_UNPICKLER_MEMO_PROXY_OR_DICT_NOT_P, value);
+            }
+        }
+    }
+
+    @Builtin(name = "persistent_load", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    abstract static class PersistentLoadNode extends PythonBinaryBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PUnpickler self, @SuppressWarnings("unused") PNone value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            Object persFunc = self.getPersFunc();
+            if (persFunc == null) {
+                throw raiseNode.get(inliningTarget).raise(AttributeError, ErrorMessages.S, T_PERSISTENT_LOAD);
+            }
+            return persFunc;
+        }
+
+        @Specialization(guards = "!isNoValue(value)")
+        static Object set(PUnpickler self, Object value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyCallableCheckNode callableCheckNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            if (value instanceof DescriptorDeleteMarker) {
+                throw raiseNode.get(inliningTarget).raise(TypeError, ErrorMessages.ATTRIBUTE_DELETION_IS_NOT_SUPPORTED);
+            }
+            if (!callableCheckNode.execute(inliningTarget, value)) {
+                throw raiseNode.get(inliningTarget).raise(TypeError, ErrorMessages.S_MUST_BE_CALLABLE_TAKING_ONE_ARGUMENT, T_PERSISTENT_LOAD);
+            }
+            self.setPersFunc(value);
+            return PNone.NONE;
+        }
+    }
+}
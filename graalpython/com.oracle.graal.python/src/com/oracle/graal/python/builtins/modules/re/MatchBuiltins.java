@@ -0,0 +1,369 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.re;
+
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___CLASS_GETITEM__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___COPY__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___DEEPCOPY__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___GETITEM__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___REPR__;
+import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
+
+import java.util.List;
+
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.function.PKeyword;
+import com.oracle.graal.python.builtins.objects.str.StringUtils.SimpleTruffleStringFormatNode;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.lib.PyObjectReprAsTruffleStringNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.statement.AbstractImportNode;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.UnknownIdentifierException;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+@CoreFunctions(extendClasses = PythonBuiltinClassType.SREMatch)
+public final class MatchBuiltins extends PythonBuiltins {
+
+    private static final TruffleString T_RE = tsLiteral("re");
+    private static final TruffleString T__EXPAND = tsLiteral("_expand");
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return MatchBuiltinsFactory.getFactories();
+    }
+
+    @Builtin(name = "group", minNumOfPositionalArgs = 1, takesVarArgs = true)
+    @GenerateNodeFactory
+    abstract static class GroupNode extends PythonBuiltinNode {
+        @Specialization(guards = "args.length == 0")
+        static Object doWhole(PMatch self, @SuppressWarnings("unused") Object[] args,
+                        @Bind("this") Node inliningTarget,
+                        @Cached MatchNodes.GetGroupNode getGroupNode) {
+            return getGroupNode.execute(inliningTarget, self, 0, PNone.NONE);
+        }
+
+        @Specialization(guards = "args.length == 1")
+        static Object doOne(VirtualFrame frame, PMatch self, Object[] args,
+                        @Bind("this") Node inliningTarget,
+                        @Cached MatchNodes.GetGroupIndexNode getGroupIndexNode,
+                        @Cached MatchNodes.GetGroupNode getGroupNode) {
+            return getGroupNode.execute(inliningTarget, self, getGroupIndexNode.execute(frame, inliningTarget, self, args[0]), PNone.NONE);
+        }
+
+        @Specialization(guards = "args.length > 1")
+        static Object doMany(VirtualFrame frame, PMatch self, Object[] args,
+                        @Bind("this") Node inliningTarget,
+                        @Cached MatchNodes.GetGroupIndexNode getGroupIndexNode,
+                        @Cached MatchNodes.GetGroupNode getGroupNode,
+                        @Cached PythonObjectFactory factory) {
+            Object[] result = new Object[args.length];
+            for (int i = 0; i < args.length; i++) {
+                result[i] = getGroupNode.execute(inliningTarget, self, getGroupIndexNode.execute(frame, inliningTarget, self, args[i]), PNone.NONE);
+            }
+            return factory.createTuple(result);
+        }
+    }
+
+    @Builtin(name = J___GETITEM__, minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    abstract static class GetItemNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object getItem(VirtualFrame frame, PMatch self, Object group,
+                        @Bind("this") Node inliningTarget,
+                        @Cached MatchNodes.GetGroupIndexNode getGroupIndexNode,
+                        @Cached MatchNodes.GetGroupNode getGroupNode) {
+            return getGroupNode.execute(inliningTarget, self, getGroupIndexNode.execute(frame, inliningTarget, self, group), PNone.NONE);
+        }
+    }
+
+    @Builtin(name = "groups", minNumOfPositionalArgs = 1, parameterNames = {"$self", "default"})
+    @GenerateNodeFactory
+    abstract static class GroupsNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object groups(PMatch self, Object defaultArg,
+                        @Bind("this") Node inliningTarget,
+                        @Cached MatchNodes.GetGroupNode getGroupNode,
+                        @Cached PythonObjectFactory factory) {
+            Object defaultValue = defaultArg == PNone.NO_VALUE ? PNone.NONE : defaultArg;
+            Object[] result = new Object[self.getGroupCount()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = getGroupNode.execute(inliningTarget, self, i + 1, defaultValue);
+            }
+            return factory.createTuple(result);
+        }
+    }
+
+    @Builtin(name = "groupdict", minNumOfPositionalArgs = 1, parameterNames = {"$self", "default"})
+    @GenerateNodeFactory
+    abstract static class GroupDictNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object groupdict(PMatch self, Object defaultArg,
+                        @Bind("this") Node inliningTarget,
+                        @Cached MatchNodes.GetGroupNode getGroupNode,
+                        @Cached PythonObjectFactory factory) {
+            Object defaultValue = defaultArg == PNone.NO_VALUE ? PNone.NONE : defaultArg;
+            int count = self.getGroupCount();
+            int named = 0;
+            for (int i = 1; i <= count; i++) {
+                if (self.getCache().getGroupName(i) != null) {
+                    named++;
+                }
+            }
+            PKeyword[] items = new PKeyword[named];
+            for (int i = 1, j = 0; i <= count; i++) {
+                TruffleString name = self.getCache().getGroupName(i);
+                if (name != null) {
+                    items[j++] = new PKeyword(name, getGroupNode.execute(inliningTarget, self, i, defaultValue));
+                }
+            }
+            return factory.createDict(items);
+        }
+    }
+
+    @Builtin(name = "start", minNumOfPositionalArgs = 1, parameterNames = {"$self", "group"})
+    @GenerateNodeFactory
+    abstract static class StartNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static int start(VirtualFrame frame, PMatch self, Object group,
+                        @Bind("this") Node inliningTarget,
+                        @Cached MatchNodes.GetGroupIndexNode getGroupIndexNode,
+                        @Cached MatchNodes.GetSpanNode getSpanNode) {
+            int index = group == PNone.NO_VALUE ? 0 : getGroupIndexNode.execute(frame, inliningTarget, self, group);
+            getSpanNode.execute(inliningTarget, self, index);
+            return self.getStart(index);
+        }
+    }
+
+    @Builtin(name = "end", minNumOfPositionalArgs = 1, parameterNames = {"$self", "group"})
+    @GenerateNodeFactory
+    abstract static class EndNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static int end(VirtualFrame frame, PMatch self, Object group,
+                        @Bind("this") Node inliningTarget,
+                        @Cached MatchNodes.GetGroupIndexNode getGroupIndexNode,
+                        @Cached MatchNodes.GetSpanNode getSpanNode) {
+            int index = group == PNone.NO_VALUE ? 0 : getGroupIndexNode.execute(frame, inliningTarget, self, group);
+            getSpanNode.execute(inliningTarget, self, index);
+            return self.getEnd(index);
+        }
+    }
+
+    @Builtin(name = "span", minNumOfPositionalArgs = 1, parameterNames = {"$self", "group"})
+    @GenerateNodeFactory
+    abstract static class SpanNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object span(VirtualFrame frame, PMatch self, Object group,
+                        @Bind("this") Node inliningTarget,
+                        @Cached MatchNodes.GetGroupIndexNode getGroupIndexNode,
+                        @Cached MatchNodes.GetSpanNode getSpanNode,
+                        @Cached PythonObjectFactory factory) {
+            int index = group == PNone.NO_VALUE ? 0 : getGroupIndexNode.execute(frame, inliningTarget, self, group);
+            getSpanNode.execute(inliningTarget, self, index);
+            return factory.createTuple(new Object[]{self.getStart(index), self.getEnd(index)});
+        }
+    }
+
+    @Builtin(name = "regs", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class RegsNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object regs(PMatch self,
+                        @Bind("this") Node inliningTarget,
+                        @Cached MatchNodes.GetSpanNode getSpanNode,
+                        @Cached PythonObjectFactory factory) {
+            Object[] spans = new Object[self.getGroupCount() + 1];
+            for (int i = 0; i < spans.length; i++) {
+                getSpanNode.execute(inliningTarget, self, i);
+                spans[i] = factory.createTuple(new Object[]{self.getStart(i), self.getEnd(i)});
+            }
+            return factory.createTuple(spans);
+        }
+    }
+
+    @Builtin(name = "expand", minNumOfPositionalArgs = 2, parameterNames = {"$self", "template"})
+    @GenerateNodeFactory
+    abstract static class ExpandNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object expand(VirtualFrame frame, PMatch self, Object template,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectCallMethodObjArgs callMethod) {
+            return callMethod.execute(frame, inliningTarget, importRe(), T__EXPAND, self.getPattern(), self, template);
+        }
+
+        @TruffleBoundary
+        private static Object importRe() {
+            return AbstractImportNode.importModule(T_RE);
+        }
+    }
+
+    @Builtin(name = "string", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class StringNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object string(PMatch self) {
+            return self.getString();
+        }
+    }
+
+    @Builtin(name = "re", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class ReNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object re(PMatch self) {
+            return self.getPattern();
+        }
+    }
+
+    @Builtin(name = "pos", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class PosNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static int pos(PMatch self) {
+            return self.getPos();
+        }
+    }
+
+    @Builtin(name = "endpos", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class EndPosNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static int endpos(PMatch self) {
+            return self.getEndPos();
+        }
+    }
+
+    @Builtin(name = "lastindex", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class LastIndexNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object lastindex(PMatch self,
+                        @CachedLibrary(limit = "1") InteropLibrary lib) {
+            int lastIndex = getLastIndex(self, lib);
+            return lastIndex < 0 ? PNone.NONE : lastIndex;
+        }
+    }
+
+    @Builtin(name = "lastgroup", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class LastGroupNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object lastgroup(PMatch self,
+                        @CachedLibrary(limit = "1") InteropLibrary lib) {
+            int lastIndex = getLastIndex(self, lib);
+            if (lastIndex < 0) {
+                return PNone.NONE;
+            }
+            TruffleString name = self.getCache().getGroupName(lastIndex);
+            return name == null ? PNone.NONE : name;
+        }
+    }
+
+    static int getLastIndex(PMatch self, InteropLibrary lib) {
+        try {
+            return (int) lib.readMember(self.getRegexResult(), "lastGroup");
+        } catch (UnsupportedMessageException | UnknownIdentifierException e) {
+            throw CompilerDirectives.shouldNotReachHere(e);
+        }
+    }
+
+    @Builtin(name = J___REPR__, minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class ReprNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static TruffleString repr(VirtualFrame frame, PMatch self,
+                        @Bind("this") Node inliningTarget,
+                        @Cached MatchNodes.GetGroupNode getGroupNode,
+                        @Cached PyObjectReprAsTruffleStringNode reprNode,
+                        @Cached SimpleTruffleStringFormatNode simpleTruffleStringFormatNode) {
+            Object group = getGroupNode.execute(inliningTarget, self, 0, PNone.NONE);
+            return simpleTruffleStringFormatNode.format("<re.Match object; span=(%d, %d), match=%s>", self.getStart(0), self.getEnd(0),
+                            reprNode.execute(frame, inliningTarget, group));
+        }
+    }
+
+    @Builtin(name = J___COPY__, minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class CopyNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object copy(PMatch self) {
+            return self;
+        }
+    }
+
+    @Builtin(name = J___DEEPCOPY__, minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    abstract static class DeepCopyNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object deepcopy(PMatch self, @SuppressWarnings("unused") Object memo) {
+            return self;
+        }
+    }
+
+    @Builtin(name = J___CLASS_GETITEM__, minNumOfPositionalArgs = 2, isClassmethod = true)
+    @GenerateNodeFactory
+    abstract static class ClassGetItemNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object classGetItem(Object cls, Object key,
+                        @Cached PythonObjectFactory factory) {
+            return factory.createGenericAlias(cls, key);
+        }
+    }
+}
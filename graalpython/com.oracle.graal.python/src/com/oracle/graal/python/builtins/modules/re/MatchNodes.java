@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.re;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.IndexError;
+import static com.oracle.graal.python.util.PythonUtils.TS_ENCODING;
+
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAcquireLibrary;
+import com.oracle.graal.python.lib.PyIndexCheckNode;
+import com.oracle.graal.python.lib.PyNumberAsSizeNode;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.util.CannotCastException;
+import com.oracle.graal.python.nodes.util.CastToTruffleStringNode;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateCached;
+import com.oracle.truffle.api.dsl.GenerateInline;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.UnknownIdentifierException;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.profiles.InlinedConditionProfile;
+import com.oracle.truffle.api.strings.TruffleString;
+
+public abstract class MatchNodes {
+
+    /**
+     * Makes sure that the bounds of the given group have been read from the TRegex result.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    public abstract static class GetSpanNode extends Node {
+        public abstract void execute(Node inliningTarget, PMatch match, int group);
+
+        @Specialization
+        static void get(Node inliningTarget, PMatch match, int group,
+                        @Cached InlinedConditionProfile knownProfile,
+                        @CachedLibrary(limit = "1") InteropLibrary lib) {
+            if (knownProfile.profile(inliningTarget, !match.hasSpan(group))) {
+                try {
+                    Object result = match.getRegexResult();
+                    int start = (int) lib.invokeMember(result, "getStart", group);
+                    int end = (int) lib.invokeMember(result, "getEnd", group);
+                    match.setSpan(group, start, end);
+                } catch (UnsupportedMessageException | UnknownIdentifierException | ArityException | UnsupportedTypeException e) {
+                    throw CompilerDirectives.shouldNotReachHere(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves a group number or name to the index of the group, raising {@code IndexError} if
+     * there is no such group.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    public abstract static class GetGroupIndexNode extends Node {
+        public abstract int execute(VirtualFrame frame, Node inliningTarget, PMatch match, Object group);
+
+        @Specialization
+        static int get(VirtualFrame frame, Node inliningTarget, PMatch match, Object group,
+                        @Cached PyIndexCheckNode indexCheckNode,
+                        @Cached PyNumberAsSizeNode asSizeNode,
+                        @Cached CastToTruffleStringNode castToStringNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            int index;
+            if (indexCheckNode.execute(inliningTarget, group)) {
+                index = asSizeNode.executeLossy(frame, inliningTarget, group);
+            } else {
+                try {
+                    index = match.getCache().getGroupIndex(castToStringNode.execute(inliningTarget, group));
+                } catch (CannotCastException e) {
+                    index = -1;
+                }
+            }
+            if (index < 0 || index > match.getGroupCount()) {
+                throw raiseNode.get(inliningTarget).raise(IndexError, ErrorMessages.NO_SUCH_GROUP);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Returns the string or bytes matched by the group, or the default value if the group did not
+     * participate in the match.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    public abstract static class GetGroupNode extends Node {
+        public abstract Object execute(Node inliningTarget, PMatch match, int group, Object defaultValue);
+
+        @Specialization
+        static Object get(Node inliningTarget, PMatch match, int group, Object defaultValue,
+                        @Cached GetSpanNode getSpanNode,
+                        @Cached InlinedConditionProfile binaryProfile,
+                        @Cached(inline = false) TruffleString.SubstringNode substringNode,
+                        @CachedLibrary(limit = "3") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "3") PythonBufferAccessLibrary bufferLib,
+                        @Cached PythonObjectFactory factory) {
+            getSpanNode.execute(inliningTarget, match, group);
+            int start = match.getStart(group);
+            if (start < 0) {
+                return defaultValue;
+            }
+            int end = match.getEnd(group);
+            if (binaryProfile.profile(inliningTarget, match.isBinary())) {
+                Object buffer = acquireLib.acquireReadonly(match.getString());
+                try {
+                    return factory.createBytes(bufferLib.getCopyOfRange(buffer, start, end));
+                } finally {
+                    bufferLib.release(buffer);
+                }
+            }
+            return substringNode.execute(match.getInput(), start, end - start, TS_ENCODING, false);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.re;
+
+import java.util.Arrays;
+
+import com.oracle.graal.python.builtins.modules.SREModuleBuiltins.TRegexCache;
+import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
+import com.oracle.truffle.api.object.Shape;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * A {@code re.Match} object produced by a TRegex-backed pattern. It keeps the TRegex result and
+ * reads the group bounds from it only when they are asked for, so that TRegex does not have to
+ * compute the capture groups of matches whose groups are never looked at. The group values are
+ * sliced from the input on demand as well.
+ */
+public final class PMatch extends PythonBuiltinObject {
+    private static final int UNKNOWN = -2;
+
+    private final Object pattern;
+    private final TRegexCache cache;
+    private final Object string;
+    /* The input as a string, or null if the input is a bytes-like object. */
+    private final TruffleString input;
+    private final Object regexResult;
+    private final int pos;
+    private final int endPos;
+    /* Start and end of each group, UNKNOWN until read from the regex result. */
+    private int[] spans;
+
+    public PMatch(Object cls, Shape instanceShape, Object pattern, TRegexCache cache, Object string, TruffleString input, Object regexResult, int pos, int endPos) {
+        super(cls, instanceShape);
+        this.pattern = pattern;
+        this.cache = cache;
+        this.string = string;
+        this.input = input;
+        this.regexResult = regexResult;
+        this.pos = pos;
+        this.endPos = endPos;
+    }
+
+    public Object getPattern() {
+        return pattern;
+    }
+
+    public TRegexCache getCache() {
+        return cache;
+    }
+
+    public Object getString() {
+        return string;
+    }
+
+    public TruffleString getInput() {
+        return input;
+    }
+
+    public boolean isBinary() {
+        return input == null;
+    }
+
+    public Object getRegexResult() {
+        return regexResult;
+    }
+
+    public int getPos() {
+        return pos;
+    }
+
+    public int getEndPos() {
+        return endPos;
+    }
+
+    public int getGroupCount() {
+        return cache.getGroupCount();
+    }
+
+    boolean hasSpan(int group) {
+        return spans != null && spans[group * 2] != UNKNOWN;
+    }
+
+    void setSpan(int group, int start, int end) {
+        if (spans == null) {
+            spans = new int[(getGroupCount() + 1) * 2];
+            Arrays.fill(spans, UNKNOWN);
+        }
+        spans[group * 2] = start;
+        spans[group * 2 + 1] = end;
+    }
+
+    /**
+     * The start of the group, which must have been read by {@link MatchNodes.GetSpanNode} before.
+     */
+    int getStart(int group) {
+        return spans[group * 2];
+    }
+
+    int getEnd(int group) {
+        return spans[group * 2 + 1];
+    }
+}
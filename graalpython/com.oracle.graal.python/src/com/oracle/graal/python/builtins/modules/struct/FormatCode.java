@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.struct;
+
+/**
+ * A single entry of a compiled struct format, i.e., a format character together with its repeat
+ * count and the byte offset at which its first item starts. Padding ({@code x}) does not produce a
+ * {@link FormatCode}, it is only accounted for in the offsets.
+ */
+final class FormatCode {
+
+    enum Kind {
+        /** {@code c}: a bytes object of length 1. */
+        CHAR,
+        /** {@code ?}: a single byte interpreted as a bool. */
+        BOOL,
+        /** {@code b h i l q n}: two's complement integers. */
+        SIGNED,
+        /** {@code B H I L Q N P}: unsigned integers. */
+        UNSIGNED,
+        /** {@code e f d}: IEEE 754 half, single and double precision. */
+        FLOAT,
+        /** {@code s}: a fixed-size bytes object. */
+        STRING,
+        /** {@code p}: a length-prefixed bytes object. */
+        PASCAL
+    }
+
+    final Kind kind;
+    final char code;
+    /** Byte offset of the first item relative to the start of the packed data. */
+    final int offset;
+    /** Size of a single item in bytes. For {@code s} and {@code p}, this is the whole field. */
+    final int size;
+    /** Number of consecutive items. Always 1 for {@code s} and {@code p}. */
+    final int count;
+
+    FormatCode(Kind kind, char code, int offset, int size, int count) {
+        this.kind = kind;
+        this.code = code;
+        this.offset = offset;
+        this.size = size;
+        this.count = count;
+    }
+
+    boolean isStringLike() {
+        return kind == Kind.STRING || kind == Kind.PASCAL;
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.struct;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.StructError;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___INIT__;
+
+import java.util.List;
+
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.modules.struct.StructNodes.FormatArgNode;
+import com.oracle.graal.python.builtins.modules.struct.StructNodes.PackNode;
+import com.oracle.graal.python.builtins.modules.struct.StructNodes.UnpackNode;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAcquireLibrary;
+import com.oracle.graal.python.builtins.objects.bytes.PBytes;
+import com.oracle.graal.python.builtins.objects.bytes.PBytesLike;
+import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.lib.PyNumberAsSizeNode;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PGuards;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.util.PythonUtils;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+@CoreFunctions(extendClasses = PythonBuiltinClassType.PStruct)
+public final class StructBuiltins extends PythonBuiltins {
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return StructBuiltinsFactory.getFactories();
+    }
+
+    @Builtin(name = J___INIT__, minNumOfPositionalArgs = 2, parameterNames = {"$self", "format"})
+    @GenerateNodeFactory
+    public abstract static class StructInitNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static PNone init(PStruct self, Object format,
+                        @Bind("this") Node inliningTarget,
+                        @Cached FormatArgNode formatArgNode) {
+            TruffleString formatString = formatArgNode.execute(inliningTarget, format);
+            self.setFormat(formatString, StructNodes.GetStructNode.getCached(inliningTarget, formatString).getFormat());
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "format", minNumOfPositionalArgs = 1, isGetter = true, doc = "struct format string")
+    @GenerateNodeFactory
+    public abstract static class FormatNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static TruffleString get(PStruct self) {
+            return self.getFormatString();
+        }
+    }
+
+    @Builtin(name = "size", minNumOfPositionalArgs = 1, isGetter = true, doc = "struct size in bytes")
+    @GenerateNodeFactory
+    public abstract static class SizeNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static int get(PStruct self) {
+            return self.getSize();
+        }
+    }
+
+    @Builtin(name = "pack", minNumOfPositionalArgs = 1, takesVarArgs = true, doc = "S.pack(v1, v2, ...) -> bytes\n\n" +
+                    "Return a bytes object containing values v1, v2, ... packed according\n" +
+                    "to the format string S.format.  See help(struct) for more on format\n" +
+                    "strings.")
+    @GenerateNodeFactory
+    public abstract static class StructPackNode extends PythonBuiltinNode {
+        public abstract PBytes execute(VirtualFrame frame, PStruct self, Object[] args);
+
+        @Specialization
+        static PBytes pack(VirtualFrame frame, PStruct self, Object[] args,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PackNode packNode,
+                        @Cached PythonObjectFactory factory,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            StructFormat format = self.getFormat();
+            if (args.length != format.len) {
+                throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_PACK_EXPECTED_N_ITEMS_GOT_M, "pack", format.len, args.length);
+            }
+            byte[] bytes = new byte[format.size];
+            packNode.execute(frame, inliningTarget, format, args, 0, bytes, 0);
+            return factory.createBytes(bytes);
+        }
+    }
+
+    @Builtin(name = "pack_into", minNumOfPositionalArgs = 1, takesVarArgs = true, doc = "S.pack_into(buffer, offset, v1, v2, ...)\n\n" +
+                    "Pack the values v1, v2, ... according to the format string S.format\n" +
+                    "and write the packed bytes into the writable buffer buf starting at\n" +
+                    "offset.  Note that the offset is a required argument.  See\n" +
+                    "help(struct) for more on format strings.")
+    @GenerateNodeFactory
+    public abstract static class StructPackIntoNode extends PythonBuiltinNode {
+        public abstract PNone execute(VirtualFrame frame, PStruct self, Object[] args);
+
+        @Specialization
+        PNone packInto(VirtualFrame frame, PStruct self, Object[] args,
+                        @Bind("this") Node inliningTarget,
+                        @CachedLibrary(limit = "3") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "1") PythonBufferAccessLibrary bufferLib,
+                        @Cached PyNumberAsSizeNode asSizeNode,
+                        @Cached PackNode packNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            StructFormat format = self.getFormat();
+            if (args.length != format.len + 2) {
+                if (args.length == 0) {
+                    throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_PACK_INTO_EXPECTED_BUFFER_ARG);
+                } else if (args.length == 1) {
+                    throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_PACK_INTO_EXPECTED_OFFSET_ARG);
+                }
+                throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_PACK_EXPECTED_N_ITEMS_GOT_M, "pack_into", format.len, args.length - 2);
+            }
+            Object buffer = acquireLib.acquireWritableWithTypeError(args[0], "pack_into", frame, this);
+            try {
+                int offset = asSizeNode.executeExact(frame, inliningTarget, args[1]);
+                int bufferLength = bufferLib.getBufferLength(buffer);
+                if (offset < 0) {
+                    if (offset + format.size > 0) {
+                        throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_NO_SPACE_TO_PACK_N_BYTES, format.size, offset);
+                    }
+                    if (offset + bufferLength < 0) {
+                        throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_OFFSET_OUT_OF_RANGE, offset, bufferLength);
+                    }
+                    offset += bufferLength;
+                }
+                if (bufferLength - offset < format.size) {
+                    throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_PACK_INTO_REQ_BUFFER_TO_PACK, (long) format.size + offset, format.size, offset, bufferLength);
+                }
+                if (bufferLib.hasInternalByteArray(buffer)) {
+                    // pack in place, CPython also clears the target range first
+                    byte[] bytes = bufferLib.getInternalByteArray(buffer);
+                    PythonUtils.fill(bytes, offset, offset + format.size, (byte) 0);
+                    packNode.execute(frame, inliningTarget, format, args, 2, bytes, offset);
+                } else {
+                    byte[] bytes = new byte[format.size];
+                    packNode.execute(frame, inliningTarget, format, args, 2, bytes, 0);
+                    bufferLib.writeFromByteArray(buffer, offset, bytes, 0, bytes.length);
+                }
+                return PNone.NONE;
+            } finally {
+                bufferLib.release(buffer, frame, this);
+            }
+        }
+    }
+
+    @Builtin(name = "unpack", minNumOfPositionalArgs = 2, parameterNames = {"$self", "buffer"}, doc = "Return a tuple containing unpacked values.\n\n" +
+                    "Unpack according to the format string Struct.format. The buffer's size\n" +
+                    "in bytes must be Struct.size.\n\n" +
+                    "See help(struct) for more on format strings.")
+    @GenerateNodeFactory
+    public abstract static class StructUnpackNode extends PythonBinaryBuiltinNode {
+        public abstract PTuple execute(VirtualFrame frame, PStruct self, Object buffer);
+
+        @Specialization
+        PTuple unpack(VirtualFrame frame, PStruct self, Object bufferObj,
+                        @Bind("this") Node inliningTarget,
+                        @CachedLibrary(limit = "3") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "1") PythonBufferAccessLibrary bufferLib,
+                        @Cached UnpackNode unpackNode,
+                        @Cached PythonObjectFactory factory,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            StructFormat format = self.getFormat();
+            Object buffer = acquireLib.acquireReadonly(bufferObj, frame, this);
+            try {
+                if (bufferLib.getBufferLength(buffer) != format.size) {
+                    throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_UNPACK_REQ_BUFFER_OF_N_BYTES, format.size);
+                }
+                return factory.createTuple(unpackNode.execute(inliningTarget, format, bufferLib.getInternalOrCopiedByteArray(buffer), 0));
+            } finally {
+                bufferLib.release(buffer, frame, this);
+            }
+        }
+    }
+
+    @Builtin(name = "unpack_from", minNumOfPositionalArgs = 2, parameterNames = {"$self", "buffer", "offset"}, doc = "Return a tuple containing unpacked values.\n\n" +
+                    "Values are unpacked according to the format string Struct.format.\n\n" +
+                    "The buffer's size in bytes, starting at position offset, must be\n" +
+                    "at least Struct.size.\n\n" +
+                    "See help(struct) for more on format strings.")
+    @GenerateNodeFactory
+    public abstract static class StructUnpackFromNode extends PythonTernaryBuiltinNode {
+        public abstract PTuple execute(VirtualFrame frame, PStruct self, Object buffer, Object offset);
+
+        @Specialization
+        PTuple unpackFrom(VirtualFrame frame, PStruct self, Object bufferObj, Object offsetObj,
+                        @Bind("this") Node inliningTarget,
+                        @CachedLibrary(limit = "3") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "1") PythonBufferAccessLibrary bufferLib,
+                        @Cached PyNumberAsSizeNode asSizeNode,
+                        @Cached UnpackNode unpackNode,
+                        @Cached PythonObjectFactory factory,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            StructFormat format = self.getFormat();
+            int offset = PGuards.isPNone(offsetObj) ? 0 : asSizeNode.executeExact(frame, inliningTarget, offsetObj);
+            Object buffer = acquireLib.acquireReadonly(bufferObj, frame, this);
+            try {
+                int bufferLength = bufferLib.getBufferLength(buffer);
+                if (offset < 0) {
+                    if (offset + format.size > 0) {
+                        throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_NOT_ENOUGH_DATA_TO_UNPACK, format.size, offset);
+                    }
+                    if (offset + bufferLength < 0) {
+                        throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_OFFSET_OUT_OF_RANGE, offset, bufferLength);
+                    }
+                    offset += bufferLength;
+                }
+                if (bufferLength - offset < format.size) {
+                    throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_UNPACK_FROM_REQ_BUFFER, (long) format.size + offset, format.size, offset, bufferLength);
+                }
+                if (bufferLib.hasInternalByteArray(buffer)) {
+                    return factory.createTuple(unpackNode.execute(inliningTarget, format, bufferLib.getInternalByteArray(buffer), offset));
+                }
+                // only copy the bytes that are going to be unpacked
+                byte[] bytes = bufferLib.getCopyOfRange(buffer, offset, offset + format.size);
+                return factory.createTuple(unpackNode.execute(inliningTarget, format, bytes, 0));
+            } finally {
+                bufferLib.release(buffer, frame, this);
+            }
+        }
+    }
+
+    @Builtin(name = "iter_unpack", minNumOfPositionalArgs = 2, parameterNames = {"$self", "buffer"}, doc = "Return an iterator yielding tuples.\n\n" +
+                    "Tuples are unpacked from the given bytes source, like a repeated\n" +
+                    "invocation of unpack_from().\n\n" +
+                    "Requires that the bytes length be a multiple of the struct size.")
+    @GenerateNodeFactory
+    public abstract static class StructIterUnpackNode extends PythonBinaryBuiltinNode {
+        public abstract PStructUnpackIterator execute(VirtualFrame frame, PStruct self, Object buffer);
+
+        @Specialization
+        PStructUnpackIterator iterUnpack(VirtualFrame frame, PStruct self, Object bufferObj,
+                        @Bind("this") Node inliningTarget,
+                        @CachedLibrary(limit = "3") PythonBufferAcquireLibrary acquireLib,
+                        @CachedLibrary(limit = "1") PythonBufferAccessLibrary bufferLib,
+                        @Cached PythonObjectFactory factory,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            StructFormat format = self.getFormat();
+            if (format.size == 0) {
+                throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_ITER_UNPACK_STRUCT_OF_LENGTH_0);
+            }
+            Object buffer = acquireLib.acquireReadonly(bufferObj, frame, this);
+            if (bufferLib.getBufferLength(buffer) % format.size != 0) {
+                bufferLib.release(buffer, frame, this);
+                throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_ITER_UNPACK_REQ_MULTIPLE_OF_N_BYTES, format.size);
+            }
+            // the iterator keeps the buffer until it is exhausted or collected
+            PStructUnpackIterator iterator = factory.createStructUnpackIterator(format, buffer);
+            if (!(buffer instanceof PBytesLike)) {
+                // releasing bytes and bytearray buffers is a no-op, no need to track those
+                iterator.registerBufferRelease(getContext());
+            }
+            return iterator;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.struct;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.StructError;
+import static com.oracle.graal.python.nodes.ErrorMessages.STRUCT_BAD_CHAR_IN_FMT;
+import static com.oracle.graal.python.nodes.ErrorMessages.STRUCT_REPEAT_COUNT_WITHOUT_FMT;
+import static com.oracle.graal.python.nodes.ErrorMessages.STRUCT_SIZE_TOO_LONG;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+import com.oracle.graal.python.builtins.PythonOS;
+import com.oracle.graal.python.builtins.modules.struct.FormatCode.Kind;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.util.NumericSupport;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * The result of parsing a struct format string. Instances are immutable and shared between all
+ * {@link PStruct} objects created for the same format through the module level cache, so the
+ * pack and unpack nodes can treat them as compilation constants.
+ */
+public final class StructFormat {
+    private static final int LONG_SIZE = PythonOS.getPythonOS() == PythonOS.PLATFORM_WIN32 ? 4 : 8;
+    private static final NumericSupport NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? NumericSupport.bigEndian() : NumericSupport.littleEndian();
+
+    static final StructFormat EMPTY = new StructFormat(NATIVE_ORDER, new FormatCode[0], 0, 0);
+
+    final NumericSupport numeric;
+    @CompilationFinal(dimensions = 1) final FormatCode[] codes;
+    /** Size of the packed data in bytes. */
+    final int size;
+    /** Number of Python values consumed by pack and produced by unpack. */
+    final int len;
+
+    private StructFormat(NumericSupport numeric, FormatCode[] codes, int size, int len) {
+        this.numeric = numeric;
+        this.codes = codes;
+        this.size = size;
+        this.len = len;
+    }
+
+    @TruffleBoundary
+    static StructFormat compile(Node raisingNode, TruffleString formatString) {
+        String format = formatString.toJavaStringUncached();
+        if (format.indexOf('\0') >= 0) {
+            throw PRaiseNode.raiseUncached(raisingNode, StructError, ErrorMessages.EMBEDDED_NULL_CHARACTER);
+        }
+        int i = 0;
+        boolean nativeMode = false;
+        NumericSupport numeric = NATIVE_ORDER;
+        switch (format.isEmpty() ? '@' : format.charAt(0)) {
+            case '<':
+                numeric = NumericSupport.littleEndian();
+                i++;
+                break;
+            case '>':
+            case '!':
+                numeric = NumericSupport.bigEndian();
+                i++;
+                break;
+            case '=':
+                i++;
+                break;
+            case '@':
+                i++;
+                nativeMode = true;
+                break;
+            default:
+                nativeMode = true;
+                break;
+        }
+
+        ArrayList<FormatCode> codes = new ArrayList<>();
+        long size = 0;
+        int len = 0;
+        while (i < format.length()) {
+            char c = format.charAt(i++);
+            if (isSpace(c)) {
+                continue;
+            }
+            long num = 1;
+            if (c >= '0' && c <= '9') {
+                num = c - '0';
+                while (i < format.length() && (c = format.charAt(i++)) >= '0' && c <= '9') {
+                    num = num * 10 + (c - '0');
+                    if (num > Integer.MAX_VALUE) {
+                        throw PRaiseNode.raiseUncached(raisingNode, StructError, STRUCT_SIZE_TOO_LONG);
+                    }
+                }
+                if (c >= '0' && c <= '9') {
+                    throw PRaiseNode.raiseUncached(raisingNode, StructError, STRUCT_REPEAT_COUNT_WITHOUT_FMT);
+                }
+            }
+            int itemSize = itemSize(c, nativeMode);
+            if (itemSize < 0) {
+                throw PRaiseNode.raiseUncached(raisingNode, StructError, STRUCT_BAD_CHAR_IN_FMT);
+            }
+            if (nativeMode && itemSize > 1) {
+                // native mode aligns every item to its own size
+                size = (size + itemSize - 1) / itemSize * itemSize;
+            }
+            if (c == 's' || c == 'p') {
+                codes.add(new FormatCode(c == 's' ? Kind.STRING : Kind.PASCAL, c, (int) size, (int) num, 1));
+                len++;
+                size += num;
+            } else if (c == 'x') {
+                size += num;
+            } else {
+                if (num > 0) {
+                    codes.add(new FormatCode(kind(c), c, (int) size, itemSize, (int) num));
+                    len += (int) num;
+                }
+                size += num * itemSize;
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw PRaiseNode.raiseUncached(raisingNode, StructError, STRUCT_SIZE_TOO_LONG);
+            }
+        }
+        return new StructFormat(numeric, codes.toArray(new FormatCode[0]), (int) size, len);
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\u000b' || c == '\f';
+    }
+
+    private static int itemSize(char c, boolean nativeMode) {
+        switch (c) {
+            case 'x':
+            case 'c':
+            case 'b':
+            case 'B':
+            case '?':
+            case 's':
+            case 'p':
+                return 1;
+            case 'h':
+            case 'H':
+            case 'e':
+                return 2;
+            case 'i':
+            case 'I':
+            case 'f':
+                return 4;
+            case 'l':
+            case 'L':
+                return nativeMode ? LONG_SIZE : 4;
+            case 'q':
+            case 'Q':
+            case 'd':
+                return 8;
+            case 'n':
+            case 'N':
+            case 'P':
+                // only available in native mode
+                return nativeMode ? 8 : -1;
+            default:
+                return -1;
+        }
+    }
+
+    private static Kind kind(char c) {
+        switch (c) {
+            case 'c':
+                return Kind.CHAR;
+            case '?':
+                return Kind.BOOL;
+            case 'b':
+            case 'h':
+            case 'i':
+            case 'l':
+            case 'q':
+            case 'n':
+                return Kind.SIGNED;
+            case 'e':
+            case 'f':
+            case 'd':
+                return Kind.FLOAT;
+            default:
+                return Kind.UNSIGNED;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.struct;
+
+import static com.oracle.graal.python.nodes.BuiltinNames.J__STRUCT;
+
+import java.util.HashMap;
+import java.util.List;
+
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.Python3Core;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.modules.struct.StructBuiltins.StructIterUnpackNode;
+import com.oracle.graal.python.builtins.modules.struct.StructBuiltins.StructPackIntoNode;
+import com.oracle.graal.python.builtins.modules.struct.StructBuiltins.StructPackNode;
+import com.oracle.graal.python.builtins.modules.struct.StructBuiltins.StructUnpackFromNode;
+import com.oracle.graal.python.builtins.modules.struct.StructBuiltins.StructUnpackNode;
+import com.oracle.graal.python.builtins.modules.struct.StructNodes.GetStructNode;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.bytes.PBytes;
+import com.oracle.graal.python.builtins.objects.function.PKeyword;
+import com.oracle.graal.python.builtins.objects.module.PythonModule;
+import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.nodes.SpecialAttributeNames;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.runtime.PythonContext;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+@CoreFunctions(defineModule = J__STRUCT)
+public final class StructModuleBuiltins extends PythonBuiltins {
+    // same limit as CPython, the cache is cleared completely once it is exceeded
+    private static final int MAXCACHE = 100;
+
+    private static final String STRUCT_DOC = "Functions to convert between Python values and C structs.\n" +
+                    "Python bytes objects are used to hold the data representing the C struct\n" +
+                    "and also as format strings (explained below) to describe the layout of data\n" +
+                    "in the C struct.\n\n" +
+                    "The optional first format char indicates byte order, size and alignment:\n" +
+                    "  @: native order, size & alignment (default)\n" +
+                    "  =: native order, std. size & alignment\n" +
+                    "  <: little-endian, std. size & alignment\n" +
+                    "  >: big-endian, std. size & alignment\n" +
+                    "  !: same as >\n\n" +
+                    "The remaining chars indicate types of args and must match exactly;\n" +
+                    "these can be preceded by a decimal repeat count:\n" +
+                    "  x: pad byte (no data); c:char; b:signed byte; B:unsigned byte;\n" +
+                    "  ?: _Bool (requires C99; if not available, char is used instead)\n" +
+                    "  h:short; H:unsigned short; i:int; I:unsigned int;\n" +
+                    "  l:long; L:unsigned long; f:float; d:double; e:half-float.\n" +
+                    "Special cases (preceding decimal count indicates length):\n" +
+                    "  s:string (array of char); p: pascal string (with count byte).\n" +
+                    "Special cases (only available in native format):\n" +
+                    "  n:ssize_t; N:size_t;\n" +
+                    "  P:an integer type that is wide enough to hold a pointer.\n" +
+                    "Special case (not in native mode unless 'long long' in platform C):\n" +
+                    "  q:long long; Q:unsigned long long\n" +
+                    "Whitespace between formats is ignored.\n\n" +
+                    "The variable struct.error is an exception raised on errors.\n";
+
+    private final HashMap<TruffleString, PStruct> cache = new HashMap<>();
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return StructModuleBuiltinsFactory.getFactories();
+    }
+
+    @Override
+    public void initialize(Python3Core core) {
+        addBuiltinConstant(SpecialAttributeNames.T___DOC__, STRUCT_DOC);
+        addBuiltinConstant("error", PythonBuiltinClassType.StructError);
+        super.initialize(core);
+    }
+
+    @TruffleBoundary
+    PStruct getStruct(Node node, TruffleString format) {
+        PStruct struct = cache.get(format);
+        if (struct == null) {
+            StructFormat compiled = StructFormat.compile(node, format);
+            struct = PythonContext.get(node).factory().createStruct(PythonBuiltinClassType.PStruct);
+            struct.setFormat(format, compiled);
+            if (cache.size() >= MAXCACHE) {
+                cache.clear();
+            }
+            cache.put(format, struct);
+        }
+        return struct;
+    }
+
+    @TruffleBoundary
+    void clearCache() {
+        cache.clear();
+    }
+
+    @Builtin(name = "Struct", minNumOfPositionalArgs = 1, constructsClass = PythonBuiltinClassType.PStruct, takesVarArgs = true, takesVarKeywordArgs = true)
+    @GenerateNodeFactory
+    public abstract static class StructNode extends PythonBuiltinNode {
+        @Specialization
+        static PStruct construct(Object cls, @SuppressWarnings("unused") Object[] args, @SuppressWarnings("unused") PKeyword[] kwargs,
+                        @Cached PythonObjectFactory factory) {
+            // the format is set by __init__
+            return factory.createStruct(cls);
+        }
+    }
+
+    @Builtin(name = "_clearcache", declaresExplicitSelf = true, minNumOfPositionalArgs = 1, parameterNames = {"$mod"}, doc = "Clear the internal cache.")
+    @GenerateNodeFactory
+    public abstract static class ClearCacheNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static PNone clearCache(PythonModule module) {
+            ((StructModuleBuiltins) module.getBuiltins()).clearCache();
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "calcsize", minNumOfPositionalArgs = 1, parameterNames = {"format"}, doc = "Return size in bytes of the struct described by the format string.")
+    @GenerateNodeFactory
+    public abstract static class CalcSizeNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static int calcSize(Object format,
+                        @Bind("this") Node inliningTarget,
+                        @Cached GetStructNode getStructNode) {
+            return getStructNode.execute(inliningTarget, format).getSize();
+        }
+    }
+
+    @Builtin(name = "pack", minNumOfPositionalArgs = 1, parameterNames = {"format"}, takesVarArgs = true, doc = "pack(format, v1, v2, ...) -> bytes\n\n" +
+                    "Return a bytes object containing the values v1, v2, ... packed according\n" +
+                    "to the format string.  See help(struct) for more on format strings.")
+    @GenerateNodeFactory
+    public abstract static class PackNode extends PythonBuiltinNode {
+        @Specialization
+        static PBytes pack(VirtualFrame frame, Object format, Object[] args,
+                        @Bind("this") Node inliningTarget,
+                        @Cached GetStructNode getStructNode,
+                        @Cached StructPackNode packNode) {
+            return packNode.execute(frame, getStructNode.execute(inliningTarget, format), args);
+        }
+    }
+
+    @Builtin(name = "pack_into", minNumOfPositionalArgs = 1, parameterNames = {"format"}, takesVarArgs = true, doc = "pack_into(format, buffer, offset, v1, v2, ...)\n\n" +
+                    "Pack the values v1, v2, ... according to the format string and write\n" +
+                    "the packed bytes into the writable buffer buf starting at offset.  Note\n" +
+                    "that the offset is a required argument.  See help(struct) for more\n" +
+                    "on format strings.")
+    @GenerateNodeFactory
+    public abstract static class PackIntoNode extends PythonBuiltinNode {
+        @Specialization
+        static PNone packInto(VirtualFrame frame, Object format, Object[] args,
+                        @Bind("this") Node inliningTarget,
+                        @Cached GetStructNode getStructNode,
+                        @Cached StructPackIntoNode packIntoNode) {
+            return packIntoNode.execute(frame, getStructNode.execute(inliningTarget, format), args);
+        }
+    }
+
+    @Builtin(name = "unpack", minNumOfPositionalArgs = 2, parameterNames = {"format", "buffer"}, doc = "Return a tuple containing values unpacked according to the format string.\n\n" +
+                    "The buffer's size in bytes must be calcsize(format).\n\n" +
+                    "See help(struct) for more on format strings.")
+    @GenerateNodeFactory
+    public abstract static class UnpackNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static PTuple unpack(VirtualFrame frame, Object format, Object buffer,
+                        @Bind("this") Node inliningTarget,
+                        @Cached GetStructNode getStructNode,
+                        @Cached StructUnpackNode unpackNode) {
+            return unpackNode.execute(frame, getStructNode.execute(inliningTarget, format), buffer);
+        }
+    }
+
+    @Builtin(name = "unpack_from", minNumOfPositionalArgs = 2, parameterNames = {"format", "buffer", "offset"}, doc = "Return a tuple containing values unpacked according to the format string.\n\n" +
+                    "The buffer's size, minus offset, must be at least calcsize(format).\n\n" +
+                    "See help(struct) for more on format strings.")
+    @GenerateNodeFactory
+    public abstract static class UnpackFromNode extends PythonTernaryBuiltinNode {
+        @Specialization
+        static PTuple unpackFrom(VirtualFrame frame, Object format, Object buffer, Object offset,
+                        @Bind("this") Node inliningTarget,
+                        @Cached GetStructNode getStructNode,
+                        @Cached StructUnpackFromNode unpackFromNode) {
+            return unpackFromNode.execute(frame, getStructNode.execute(inliningTarget, format), buffer, offset);
+        }
+    }
+
+    @Builtin(name = "iter_unpack", minNumOfPositionalArgs = 2, parameterNames = {"format", "buffer"}, doc = "Return an iterator yielding tuples unpacked from the given bytes.\n\n" +
+                    "The bytes are unpacked according to the format string, like\n" +
+                    "a repeated invocation of unpack_from().\n\n" +
+                    "Requires that the bytes length be a multiple of the format struct size.")
+    @GenerateNodeFactory
+    public abstract static class IterUnpackNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static PStructUnpackIterator iterUnpack(VirtualFrame frame, Object format, Object buffer,
+                        @Bind("this") Node inliningTarget,
+                        @Cached GetStructNode getStructNode,
+                        @Cached StructIterUnpackNode iterUnpackNode) {
+            return iterUnpackNode.execute(frame, getStructNode.execute(inliningTarget, format), buffer);
+        }
+    }
+}
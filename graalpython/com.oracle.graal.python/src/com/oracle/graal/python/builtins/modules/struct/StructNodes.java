@@ -0,0 +1,455 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.modules.struct;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.StructError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.TypeError;
+import static com.oracle.graal.python.nodes.BuiltinNames.T__STRUCT;
+
+import com.oracle.graal.python.builtins.modules.struct.FormatCode.Kind;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
+import com.oracle.graal.python.builtins.objects.bytes.PBytes;
+import com.oracle.graal.python.builtins.objects.ints.PInt;
+import com.oracle.graal.python.lib.PyFloatAsDoubleNode;
+import com.oracle.graal.python.lib.PyIndexCheckNode;
+import com.oracle.graal.python.lib.PyLongAsLongAndOverflowNode;
+import com.oracle.graal.python.lib.PyNumberIndexNode;
+import com.oracle.graal.python.lib.PyObjectIsTrueNode;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PGuards;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.object.BuiltinClassProfiles.IsBuiltinObjectProfile;
+import com.oracle.graal.python.nodes.util.CannotCastException;
+import com.oracle.graal.python.nodes.util.CastToTruffleStringNode;
+import com.oracle.graal.python.runtime.PythonContext;
+import com.oracle.graal.python.runtime.exception.PException;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.util.NumericSupport;
+import com.oracle.graal.python.util.OverflowException;
+import com.oracle.graal.python.util.PythonUtils;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.dsl.GenerateCached;
+import com.oracle.truffle.api.dsl.GenerateInline;
+import com.oracle.truffle.api.dsl.ImportStatic;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+public abstract class StructNodes {
+    static final int EXPLODE_LOOP_SIZE_LIMIT = 16;
+
+    /**
+     * Converts the format argument of {@code Struct()} and the module level functions to a string.
+     * Like CPython, bytes are accepted and decoded as Latin-1.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    @ImportStatic(PGuards.class)
+    abstract static class FormatArgNode extends Node {
+        abstract TruffleString execute(Node inliningTarget, Object format);
+
+        @Specialization(guards = "isString(format)")
+        static TruffleString doString(Node inliningTarget, Object format,
+                        @Cached CastToTruffleStringNode castNode) {
+            try {
+                return castNode.execute(inliningTarget, format);
+            } catch (CannotCastException e) {
+                throw CompilerDirectives.shouldNotReachHere();
+            }
+        }
+
+        @Specialization
+        static TruffleString doBytes(PBytes format,
+                        @CachedLibrary(limit = "1") PythonBufferAccessLibrary bufferLib,
+                        @Cached(inline = false) TruffleString.FromByteArrayNode fromByteArrayNode,
+                        @Cached(inline = false) TruffleString.SwitchEncodingNode switchEncodingNode) {
+            byte[] bytes = bufferLib.getCopiedByteArray(format);
+            return switchEncodingNode.execute(fromByteArrayNode.execute(bytes, TruffleString.Encoding.ISO_8859_1, false), PythonUtils.TS_ENCODING);
+        }
+
+        @Specialization(guards = {"!isString(format)", "!isPBytes(format)"})
+        static TruffleString doOther(Node inliningTarget, Object format,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            throw raiseNode.get(inliningTarget).raise(TypeError, ErrorMessages.STRUCT_ARG_MUST_BE_STR_OR_BYTES, format);
+        }
+    }
+
+    /**
+     * Returns the {@link PStruct} for a format string or bytes object passed to one of the module
+     * level functions, going through the per-context cache of {@link StructModuleBuiltins}. The
+     * compiled formats are shared this way, which keeps the pack and unpack nodes below
+     * monomorphic for a given format.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    abstract static class GetStructNode extends Node {
+        abstract PStruct execute(Node inliningTarget, Object format);
+
+        @Specialization
+        static PStruct doFormat(Node inliningTarget, Object format,
+                        @Cached FormatArgNode formatArgNode) {
+            return getCached(inliningTarget, formatArgNode.execute(inliningTarget, format));
+        }
+
+        static PStruct getCached(Node inliningTarget, TruffleString formatString) {
+            StructModuleBuiltins builtins = (StructModuleBuiltins) PythonContext.get(inliningTarget).lookupBuiltinModule(T__STRUCT).getBuiltins();
+            return builtins.getStruct(inliningTarget, formatString);
+        }
+    }
+
+    /**
+     * Converts a value to a Java long for the integer codes. The caller checks the range for the
+     * codes smaller than 8 bytes; for the 8 byte unsigned codes, values above
+     * {@link Long#MAX_VALUE} are returned as their two's complement bit pattern.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    abstract static class AsLongNode extends Node {
+        abstract long execute(VirtualFrame frame, Node inliningTarget, Object value, boolean unsigned64);
+
+        @Specialization
+        static long doInt(Node inliningTarget, int value, boolean unsigned64,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            if (unsigned64 && value < 0) {
+                throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_ARG_OUT_OF_RANGE);
+            }
+            return value;
+        }
+
+        @Specialization
+        static long doLong(Node inliningTarget, long value, boolean unsigned64,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            if (unsigned64 && value < 0) {
+                throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_ARG_OUT_OF_RANGE);
+            }
+            return value;
+        }
+
+        @Specialization(replaces = {"doInt", "doLong"})
+        static long doGeneric(VirtualFrame frame, Node inliningTarget, Object value, boolean unsigned64,
+                        @Cached PyIndexCheckNode indexCheckNode,
+                        @Cached PyNumberIndexNode indexNode,
+                        @Cached PyLongAsLongAndOverflowNode asLongNode,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            if (!indexCheckNode.execute(inliningTarget, value)) {
+                throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_REQUIRED_ARG_NOT_AN_INTEGER);
+            }
+            Object index = indexNode.execute(frame, inliningTarget, value);
+            long result;
+            try {
+                result = asLongNode.execute(frame, inliningTarget, index);
+            } catch (OverflowException e) {
+                if (unsigned64 && index instanceof PInt pint && pint.isZeroOrPositive() && pint.bitLength() <= Long.SIZE) {
+                    return pint.longValue();
+                }
+                throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_ARG_OUT_OF_RANGE);
+            }
+            if (unsigned64 && result < 0) {
+                throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_ARG_OUT_OF_RANGE);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Writes a single item of {@code code} at {@code offset} into {@code buffer}.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    @ImportStatic({Kind.class, PGuards.class})
+    abstract static class PackValueNode extends Node {
+        abstract void execute(VirtualFrame frame, Node inliningTarget, FormatCode code, NumericSupport numeric, Object value, byte[] buffer, int offset);
+
+        @Specialization(guards = "code.kind == SIGNED")
+        static void packSigned(VirtualFrame frame, Node inliningTarget, FormatCode code, NumericSupport numeric, Object value, byte[] buffer, int offset,
+                        @Shared @Cached AsLongNode asLongNode,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            long v = asLongNode.execute(frame, inliningTarget, value, false);
+            if (code.size < Long.BYTES) {
+                long max = (1L << (code.size * Byte.SIZE - 1)) - 1;
+                if (v < -max - 1 || v > max) {
+                    throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_FMT_REQUIRES_RANGE, code.code, -max - 1, max);
+                }
+            }
+            numeric.putLong(buffer, offset, v, code.size);
+        }
+
+        @Specialization(guards = "code.kind == UNSIGNED")
+        static void packUnsigned(VirtualFrame frame, Node inliningTarget, FormatCode code, NumericSupport numeric, Object value, byte[] buffer, int offset,
+                        @Shared @Cached AsLongNode asLongNode,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            boolean unsigned64 = code.size == Long.BYTES;
+            long v = asLongNode.execute(frame, inliningTarget, value, unsigned64);
+            if (!unsigned64) {
+                long max = (1L << (code.size * Byte.SIZE)) - 1;
+                if (v < 0 || v > max) {
+                    throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_FMT_REQUIRES_RANGE, code.code, 0, max);
+                }
+            }
+            numeric.putLong(buffer, offset, v, code.size);
+        }
+
+        @Specialization(guards = "code.kind == FLOAT")
+        static void packFloat(VirtualFrame frame, Node inliningTarget, FormatCode code, NumericSupport numeric, Object value, byte[] buffer, int offset,
+                        @Cached PyFloatAsDoubleNode asDoubleNode,
+                        @Cached IsBuiltinObjectProfile errorProfile,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            double v;
+            if (value instanceof Double d) {
+                v = d;
+            } else {
+                try {
+                    v = asDoubleNode.execute(frame, inliningTarget, value);
+                } catch (PException e) {
+                    // only a non-float argument is a struct.error, other errors (e.g., from
+                    // __float__) propagate
+                    e.expectTypeError(inliningTarget, errorProfile);
+                    throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_REQUIRED_ARG_NOT_A_FLOAT);
+                }
+            }
+            numeric.putDouble(inliningTarget, buffer, offset, v, code.size, raiseNode);
+        }
+
+        @Specialization(guards = "code.kind == BOOL")
+        static void packBool(VirtualFrame frame, Node inliningTarget, @SuppressWarnings("unused") FormatCode code, @SuppressWarnings("unused") NumericSupport numeric, Object value,
+                        byte[] buffer, int offset,
+                        @Cached PyObjectIsTrueNode isTrueNode) {
+            buffer[offset] = isTrueNode.execute(frame, inliningTarget, value) ? (byte) 1 : (byte) 0;
+        }
+
+        @Specialization(guards = {"code.kind == CHAR", "isBytes(value)"})
+        static void packChar(Node inliningTarget, @SuppressWarnings("unused") FormatCode code, @SuppressWarnings("unused") NumericSupport numeric, Object value, byte[] buffer, int offset,
+                        @Shared @CachedLibrary(limit = "2") PythonBufferAccessLibrary bufferLib,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            if (bufferLib.getBufferLength(value) != 1) {
+                throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_CHAR_FMT_REQ_BYTES_OF_LENGTH_1);
+            }
+            buffer[offset] = bufferLib.readByte(value, 0);
+        }
+
+        @Specialization(guards = {"code.kind == STRING", "isBytes(value)"})
+        static void packString(FormatCode code, @SuppressWarnings("unused") NumericSupport numeric, Object value, byte[] buffer, int offset,
+                        @Shared @CachedLibrary(limit = "2") PythonBufferAccessLibrary bufferLib) {
+            int n = Math.min(bufferLib.getBufferLength(value), code.size);
+            bufferLib.readIntoByteArray(value, 0, buffer, offset, n);
+            PythonUtils.fill(buffer, offset + n, offset + code.size, (byte) 0);
+        }
+
+        @Specialization(guards = {"code.kind == PASCAL", "isBytes(value)"})
+        static void packPascal(FormatCode code, @SuppressWarnings("unused") NumericSupport numeric, Object value, byte[] buffer, int offset,
+                        @Shared @CachedLibrary(limit = "2") PythonBufferAccessLibrary bufferLib) {
+            if (code.size == 0) {
+                return;
+            }
+            int n = Math.min(bufferLib.getBufferLength(value), code.size - 1);
+            bufferLib.readIntoByteArray(value, 0, buffer, offset + 1, n);
+            PythonUtils.fill(buffer, offset + 1 + n, offset + code.size, (byte) 0);
+            buffer[offset] = (byte) Math.min(n, 255);
+        }
+
+        @Specialization(guards = {"code.kind == CHAR || code.isStringLike()", "!isBytes(value)"})
+        static void packNotBytes(Node inliningTarget, FormatCode code, @SuppressWarnings("unused") NumericSupport numeric, @SuppressWarnings("unused") Object value,
+                        @SuppressWarnings("unused") byte[] buffer, @SuppressWarnings("unused") int offset,
+                        @Shared @Cached PRaiseNode.Lazy raiseNode) {
+            if (code.kind == Kind.CHAR) {
+                throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_CHAR_FMT_REQ_BYTES_OF_LENGTH_1);
+            }
+            throw raiseNode.get(inliningTarget).raise(StructError, ErrorMessages.STRUCT_ARG_FOR_C_MUST_BE_BYTES, code.code);
+        }
+    }
+
+    /**
+     * Reads a single item of {@code code} at {@code offset} from {@code buffer}.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    @ImportStatic(Kind.class)
+    abstract static class UnpackValueNode extends Node {
+        abstract Object execute(Node inliningTarget, FormatCode code, NumericSupport numeric, byte[] buffer, int offset);
+
+        @Specialization(guards = "code.kind == SIGNED")
+        static Object unpackSigned(FormatCode code, NumericSupport numeric, byte[] buffer, int offset) {
+            long v = numeric.getLong(buffer, offset, code.size);
+            if (code.size <= Integer.BYTES) {
+                return (int) v;
+            }
+            return v;
+        }
+
+        @Specialization(guards = "code.kind == UNSIGNED")
+        static Object unpackUnsigned(FormatCode code, NumericSupport numeric, byte[] buffer, int offset,
+                        @Shared @Cached(inline = false) PythonObjectFactory factory) {
+            long v = numeric.getLongUnsigned(buffer, offset, code.size);
+            if (code.size < Integer.BYTES) {
+                return (int) v;
+            }
+            if (v < 0) {
+                return factory.createInt(PInt.longToUnsignedBigInteger(v));
+            }
+            return v;
+        }
+
+        @Specialization(guards = "code.kind == FLOAT")
+        static double unpackFloat(FormatCode code, NumericSupport numeric, byte[] buffer, int offset) {
+            return numeric.getDouble(buffer, offset, code.size);
+        }
+
+        @Specialization(guards = "code.kind == BOOL")
+        static boolean unpackBool(@SuppressWarnings("unused") FormatCode code, @SuppressWarnings("unused") NumericSupport numeric, byte[] buffer, int offset) {
+            return buffer[offset] != 0;
+        }
+
+        @Specialization(guards = "code.kind == CHAR")
+        static PBytes unpackChar(@SuppressWarnings("unused") FormatCode code, @SuppressWarnings("unused") NumericSupport numeric, byte[] buffer, int offset,
+                        @Shared @Cached(inline = false) PythonObjectFactory factory) {
+            return factory.createBytes(new byte[]{buffer[offset]});
+        }
+
+        @Specialization(guards = "code.kind == STRING")
+        static PBytes unpackString(FormatCode code, @SuppressWarnings("unused") NumericSupport numeric, byte[] buffer, int offset,
+                        @Shared @Cached(inline = false) PythonObjectFactory factory) {
+            return factory.createBytes(PythonUtils.arrayCopyOfRange(buffer, offset, offset + code.size));
+        }
+
+        @Specialization(guards = "code.kind == PASCAL")
+        static PBytes unpackPascal(FormatCode code, @SuppressWarnings("unused") NumericSupport numeric, byte[] buffer, int offset,
+                        @Shared @Cached(inline = false) PythonObjectFactory factory) {
+            if (code.size == 0) {
+                return factory.createBytes(PythonUtils.EMPTY_BYTE_ARRAY);
+            }
+            int n = Math.min(buffer[offset] & 0xFF, code.size - 1);
+            return factory.createBytes(PythonUtils.arrayCopyOfRange(buffer, offset + 1, offset + 1 + n));
+        }
+    }
+
+    /**
+     * Packs {@code format.len} values starting at {@code args[argsOffset]} into {@code buffer} at
+     * {@code offset}. The caller checks the number of arguments and the buffer bounds.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    @ImportStatic(StructNodes.class)
+    abstract static class PackNode extends Node {
+        abstract void execute(VirtualFrame frame, Node inliningTarget, StructFormat format, Object[] args, int argsOffset, byte[] buffer, int offset);
+
+        @Specialization(guards = {"format == cachedFormat", "cachedFormat.codes.length < EXPLODE_LOOP_SIZE_LIMIT"}, limit = "3")
+        @ExplodeLoop
+        static void doCached(VirtualFrame frame, Node inliningTarget, @SuppressWarnings("unused") StructFormat format, Object[] args, int argsOffset, byte[] buffer, int offset,
+                        @Cached("format") StructFormat cachedFormat,
+                        @Shared @Cached PackValueNode packValueNode) {
+            int argIndex = argsOffset;
+            for (FormatCode code : cachedFormat.codes) {
+                packItems(frame, inliningTarget, code, cachedFormat.numeric, args, argIndex, buffer, offset, packValueNode);
+                argIndex += code.count;
+            }
+        }
+
+        @Specialization(replaces = "doCached")
+        static void doGeneric(VirtualFrame frame, Node inliningTarget, StructFormat format, Object[] args, int argsOffset, byte[] buffer, int offset,
+                        @Shared @Cached PackValueNode packValueNode) {
+            int argIndex = argsOffset;
+            for (FormatCode code : format.codes) {
+                packItems(frame, inliningTarget, code, format.numeric, args, argIndex, buffer, offset, packValueNode);
+                argIndex += code.count;
+            }
+        }
+
+        private static void packItems(VirtualFrame frame, Node inliningTarget, FormatCode code, NumericSupport numeric, Object[] args, int argIndex, byte[] buffer, int offset,
+                        PackValueNode packValueNode) {
+            int itemOffset = offset + code.offset;
+            for (int i = 0; i < code.count; i++) {
+                packValueNode.execute(frame, inliningTarget, code, numeric, args[argIndex + i], buffer, itemOffset);
+                itemOffset += code.size;
+            }
+        }
+    }
+
+    /**
+     * Unpacks {@code format.len} values from {@code buffer} at {@code offset}. The caller checks
+     * the buffer bounds.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    @ImportStatic(StructNodes.class)
+    abstract static class UnpackNode extends Node {
+        abstract Object[] execute(Node inliningTarget, StructFormat format, byte[] buffer, int offset);
+
+        @Specialization(guards = {"format == cachedFormat", "cachedFormat.codes.length < EXPLODE_LOOP_SIZE_LIMIT"}, limit = "3")
+        @ExplodeLoop
+        static Object[] doCached(Node inliningTarget, @SuppressWarnings("unused") StructFormat format, byte[] buffer, int offset,
+                        @Cached("format") StructFormat cachedFormat,
+                        @Shared @Cached UnpackValueNode unpackValueNode) {
+            Object[] result = new Object[cachedFormat.len];
+            int resultIndex = 0;
+            for (FormatCode code : cachedFormat.codes) {
+                unpackItems(inliningTarget, code, cachedFormat.numeric, buffer, offset, result, resultIndex, unpackValueNode);
+                resultIndex += code.count;
+            }
+            return result;
+        }
+
+        @Specialization(replaces = "doCached")
+        static Object[] doGeneric(Node inliningTarget, StructFormat format, byte[] buffer, int offset,
+                        @Shared @Cached UnpackValueNode unpackValueNode) {
+            Object[] result = new Object[format.len];
+            int resultIndex = 0;
+            for (FormatCode code : format.codes) {
+                unpackItems(inliningTarget, code, format.numeric, buffer, offset, result, resultIndex, unpackValueNode);
+                resultIndex += code.count;
+            }
+            return result;
+        }
+
+        private static void unpackItems(Node inliningTarget, FormatCode code, NumericSupport numeric, byte[] buffer, int offset, Object[] result, int resultIndex,
+                        UnpackValueNode unpackValueNode) {
+            int itemOffset = offset + code.offset;
+            for (int i = 0; i < code.count; i++) {
+                result[resultIndex + i] = unpackValueNode.execute(inliningTarget, code, numeric, buffer, itemOffset);
+                itemOffset += code.size;
+            }
+        }
+    }
+}
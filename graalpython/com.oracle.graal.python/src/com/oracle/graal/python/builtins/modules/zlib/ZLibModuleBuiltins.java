@@ -44,7 +44,6 @@ package com.oracle.graal.python.builtins.modules.zlib;
 import static com.oracle.graal.python.builtins.PythonBuiltinClassType.ZlibCompress;
 import static com.oracle.graal.python.builtins.PythonBuiltinClassType.ZlibDecompress;
 import static com.oracle.graal.python.builtins.modules.zlib.ZlibNodes.Z_OK;
-import static com.oracle.graal.python.nodes.ErrorMessages.EXPECTED_BYTESLIKE_GOT_P;
 import static com.oracle.graal.python.runtime.exception.PythonErrorType.TypeError;
 import static com.oracle.graal.python.runtime.exception.PythonErrorType.ZLibError;
 import static com.oracle.graal.python.util.PythonUtils.TS_ENCODING;
@@ -53,7 +52,6 @@ import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
 
 import java.io.ByteArrayOutputStream;
 import java.util.List;
-import java.util.zip.Adler32;
 import java.util.zip.CRC32;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
@@ -69,11 +67,10 @@ import com.oracle.graal.python.builtins.PythonBuiltinClassType;
 import com.oracle.graal.python.builtins.PythonBuiltins;
 import com.oracle.graal.python.builtins.modules.MathGuards;
 import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
 import com.oracle.graal.python.builtins.objects.bytes.BytesNodes;
-import com.oracle.graal.python.builtins.objects.bytes.BytesNodes.ToBytesNode;
 import com.oracle.graal.python.builtins.objects.bytes.PBytes;
 import com.oracle.graal.python.builtins.objects.bytes.PBytesLike;
-import com.oracle.graal.python.builtins.objects.common.SequenceStorageNodes;
 import com.oracle.graal.python.builtins.objects.ints.PInt;
 import com.oracle.graal.python.builtins.objects.memoryview.PMemoryView;
 import com.oracle.graal.python.builtins.objects.module.PythonModule;
@@ -86,7 +83,7 @@ import com.oracle.graal.python.nodes.function.builtins.PythonClinicBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.PythonTernaryClinicBuiltinNode;
 import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentCastNode;
 import com.oracle.graal.python.nodes.function.builtins.clinic.ArgumentClinicProvider;
-import com.oracle.graal.python.nodes.truffle.PythonArithmeticTypes;
+import com.oracle.graal.python.runtime.GilNode;
 import com.oracle.graal.python.runtime.NFIZlibSupport;
 import com.oracle.graal.python.runtime.NativeLibrary;
 import com.oracle.graal.python.runtime.PythonContext;
@@ -96,7 +93,6 @@ import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Bind;
 import com.oracle.truffle.api.dsl.Cached;
-import com.oracle.truffle.api.dsl.Cached.Exclusive;
 import com.oracle.truffle.api.dsl.Cached.Shared;
 import com.oracle.truffle.api.dsl.Fallback;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
@@ -105,10 +101,10 @@ import com.oracle.truffle.api.dsl.NeverDefault;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.dsl.NonIdempotent;
 import com.oracle.truffle.api.dsl.Specialization;
-import com.oracle.truffle.api.dsl.TypeSystemReference;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.CachedLibrary;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.profiles.InlinedConditionProfile;
 import com.oracle.truffle.api.strings.TruffleString;
@@ -320,9 +316,16 @@ public final class ZLibModuleBuiltins extends PythonBuiltins {
         }
     }
 
+    /**
+     * Checksums and one-shot (de)compression of at least this many bytes run without the GIL, like
+     * in CPython's zlib module.
+     */
+    static final int GIL_MINSIZE = 5 * 1024;
+
     // zlib.crc32(data[, value])
     @Builtin(name = "crc32", minNumOfPositionalArgs = 1, parameterNames = {"data", "value"})
-    @ArgumentClinic(name = "value", conversionClass = ZLibModuleBuiltins.ExpectIntNode.class, defaultValue = "PNone.NO_VALUE", useDefaultForNone = true)
+    @ArgumentClinic(name = "data", conversion = ArgumentClinic.ClinicConversion.ReadableBuffer)
+    @ArgumentClinic(name = "value", conversionClass = ZLibModuleBuiltins.ExpectIntNode.class, defaultValue = "0", useDefaultForNone = true)
     @GenerateNodeFactory
     public abstract static class Crc32Node extends PythonBinaryClinicBuiltinNode {
 
@@ -331,76 +334,58 @@ public final class ZLibModuleBuiltins extends PythonBuiltins {
             return ZLibModuleBuiltinsClinicProviders.Crc32NodeClinicProviderGen.INSTANCE;
         }
 
-        @NonIdempotent
-        protected boolean useNative() {
-            return PythonContext.get(this).getNFIZlibSupport().isAvailable();
-        }
-
-        @Specialization
-        long doitNone(VirtualFrame frame, Object data, @SuppressWarnings("unused") PNone value,
-                        @Shared("bb") @Cached ToBytesNode toBytesNode) {
-            return doCRC32(toBytesNode.execute(frame, data));
+        @Specialization(limit = "3")
+        long doit(VirtualFrame frame, Object buffer, int value,
+                        @Bind("this") Node inliningTarget,
+                        @CachedLibrary("buffer") PythonBufferAccessLibrary bufferLib,
+                        @Cached InlinedConditionProfile largeProfile,
+                        @Cached GilNode gil,
+                        @Cached NativeLibrary.InvokeNativeFunction invoke) {
+            try {
+                byte[] bytes = bufferLib.getInternalOrCopiedByteArray(buffer);
+                int len = bufferLib.getBufferLength(buffer);
+                PythonContext ctxt = getContext();
+                boolean releaseGil = largeProfile.profile(inliningTarget, len >= GIL_MINSIZE);
+                if (releaseGil) {
+                    gil.release(true);
+                }
+                try {
+                    if (ctxt.getNFIZlibSupport().isAvailable()) {
+                        return nativeCrc32(bytes, len, value, ctxt, invoke);
+                    } else if (value == 0) {
+                        return doCRC32(bytes, len);
+                    } else {
+                        return crc32(value, bytes, 0, len);
+                    }
+                } finally {
+                    if (releaseGil) {
+                        gil.acquire();
+                    }
+                }
+            } finally {
+                bufferLib.release(buffer, frame, this);
+            }
         }
 
         @TruffleBoundary
-        static long doCRC32(byte[] data) {
+        static long doCRC32(byte[] data, int len) {
             CRC32 crc32 = new CRC32();
-            crc32.update(data);
+            crc32.update(data, 0, len);
             return crc32.getValue();
         }
 
-        @Specialization(guards = "useNative()")
-        long doNativeBytes(PBytesLike data, int value,
-                        @Bind("this") Node inliningTarget,
-                        @Shared("b") @Cached SequenceStorageNodes.GetInternalBytesNode toBytes,
-                        @Shared @Cached NativeLibrary.InvokeNativeFunction invoke) {
-            byte[] bytes = toBytes.execute(inliningTarget, data);
-            int len = data.getSequenceStorage().length();
-            return nativeCrc32(bytes, len, value, invoke);
-        }
-
-        @Specialization(guards = {"useNative()", "!isBytes(data)"})
-        long doNativeObject(VirtualFrame frame, Object data, int value,
-                        @Shared("bb") @Cached ToBytesNode toBytesNode,
-                        @Shared @Cached NativeLibrary.InvokeNativeFunction invoke) {
-            byte[] bytes = toBytesNode.execute(frame, data);
-            return nativeCrc32(bytes, bytes.length, value, invoke);
-        }
-
-        @Specialization(guards = "!useNative()")
-        static long doJavaBytes(PBytesLike data, int value,
-                        @Bind("this") Node inliningTarget,
-                        @Shared("b") @Cached SequenceStorageNodes.GetInternalBytesNode toBytes) {
-            byte[] bytes = toBytes.execute(inliningTarget, data);
-            int len = data.getSequenceStorage().length();
-            return crc32(value, bytes, 0, len);
-        }
-
-        @Specialization(guards = {"!useNative()", "!isBytes(data)"})
-        static long doJavaObject(VirtualFrame frame, Object data, int value,
-                        @Shared("bb") @Cached ToBytesNode toBytesNode) {
-            byte[] bytes = toBytesNode.execute(frame, data);
-            return crc32(value, bytes, 0, bytes.length);
-        }
-
-        @Fallback
-        static long error(Object data, @SuppressWarnings("unused") Object value,
-                        @Cached PRaiseNode raiseNode) {
-            throw raiseNode.raise(TypeError, EXPECTED_BYTESLIKE_GOT_P, data);
-        }
-
-        long nativeCrc32(byte[] bytes, int len, int value,
+        static long nativeCrc32(byte[] bytes, int len, int value,
+                        PythonContext ctxt,
                         NativeLibrary.InvokeNativeFunction invoke) {
-            PythonContext ctxt = getContext();
             int signedVal = (int) ctxt.getNFIZlibSupport().crc32(value, ctxt.getEnv().asGuestValue(bytes), len, invoke);
             return signedVal & 0xFFFFFFFFL;
         }
     }
 
     // zlib.adler32(data[, value])
-    @Builtin(name = "adler32", minNumOfPositionalArgs = 1, parameterNames = {"", "value"})
-    @ArgumentClinic(name = "value", conversionClass = ZLibModuleBuiltins.ExpectIntNode.class, defaultValue = "PNone.NO_VALUE", useDefaultForNone = true)
-    @TypeSystemReference(PythonArithmeticTypes.class)
+    @Builtin(name = "adler32", minNumOfPositionalArgs = 1, numOfPositionalOnlyArgs = 1, parameterNames = {"data", "value"})
+    @ArgumentClinic(name = "data", conversion = ArgumentClinic.ClinicConversion.ReadableBuffer)
+    @ArgumentClinic(name = "value", conversionClass = ZLibModuleBuiltins.ExpectIntNode.class, defaultValue = "1", useDefaultForNone = true)
     @GenerateNodeFactory
     public abstract static class Adler32Node extends PythonBinaryClinicBuiltinNode {
 
@@ -412,72 +397,51 @@ public final class ZLibModuleBuiltins extends PythonBuiltins {
             return ZLibModuleBuiltinsClinicProviders.Adler32NodeClinicProviderGen.INSTANCE;
         }
 
-        @NonIdempotent
-        protected boolean useNative() {
-            return getContext().getNFIZlibSupport().isAvailable();
-        }
-
-        @Specialization
-        long doitNone(VirtualFrame frame, Object data, @SuppressWarnings("unused") PNone value,
-                        @Shared("bb") @Cached ToBytesNode toBytesNode) {
-            return doAdler32(toBytesNode.execute(frame, data));
-        }
-
-        @TruffleBoundary
-        private static long doAdler32(byte[] bytes) {
-            Adler32 adler32 = new Adler32();
-            adler32.update(bytes);
-            return adler32.getValue();
-        }
-
-        @Specialization(guards = "useNative()")
-        long doNativeBytes(PBytesLike data, int value,
+        @Specialization(limit = "3")
+        long doit(VirtualFrame frame, Object buffer, int value,
                         @Bind("this") Node inliningTarget,
-                        @Shared("b") @Cached SequenceStorageNodes.GetInternalBytesNode toBytes,
-                        @Shared @Cached NativeLibrary.InvokeNativeFunction invoke) {
-            byte[] bytes = toBytes.execute(inliningTarget, data);
-            int len = data.getSequenceStorage().length();
-            return nativeAdler32(bytes, len, value, PythonContext.get(this), invoke);
-        }
-
-        @Specialization(guards = {"useNative()", "!isBytes(data)"})
-        long doNativeObject(VirtualFrame frame, Object data, int value,
-                        @Shared("bb") @Cached ToBytesNode toBytesNode,
-                        @Shared @Cached NativeLibrary.InvokeNativeFunction invoke) {
-            byte[] bytes = toBytesNode.execute(frame, data);
-            return nativeAdler32(bytes, bytes.length, value, PythonContext.get(this), invoke);
-        }
-
-        @Specialization(guards = "!useNative()")
-        long doJavaBytes(PBytesLike data, int value,
-                        @Bind("this") Node inliningTarget,
-                        @Shared("b") @Cached SequenceStorageNodes.GetInternalBytesNode toBytes) {
-            byte[] bytes = toBytes.execute(inliningTarget, data);
-            int len = data.getSequenceStorage().length();
-            return javaAdler32(bytes, len, value);
-        }
-
-        @Specialization(guards = {"!useNative()", "!isBytes(data)"})
-        long doJavaObject(VirtualFrame frame, Object data, int value,
-                        @Shared("bb") @Cached ToBytesNode toBytesNode) {
-            byte[] bytes = toBytesNode.execute(frame, data);
-            return javaAdler32(bytes, bytes.length, value);
+                        @CachedLibrary("buffer") PythonBufferAccessLibrary bufferLib,
+                        @Cached InlinedConditionProfile largeProfile,
+                        @Cached GilNode gil,
+                        @Cached NativeLibrary.InvokeNativeFunction invoke) {
+            try {
+                byte[] bytes = bufferLib.getInternalOrCopiedByteArray(buffer);
+                int len = bufferLib.getBufferLength(buffer);
+                PythonContext ctxt = getContext();
+                boolean releaseGil = largeProfile.profile(inliningTarget, len >= GIL_MINSIZE);
+                if (releaseGil) {
+                    gil.release(true);
+                }
+                try {
+                    if (ctxt.getNFIZlibSupport().isAvailable()) {
+                        return nativeAdler32(bytes, len, value, ctxt, invoke);
+                    } else {
+                        return javaAdler32(bytes, len, value);
+                    }
+                } finally {
+                    if (releaseGil) {
+                        gil.acquire();
+                    }
+                }
+            } finally {
+                bufferLib.release(buffer, frame, this);
+            }
         }
 
-        long nativeAdler32(byte[] bytes, int len, int value,
+        static long nativeAdler32(byte[] bytes, int len, int value,
                         PythonContext ctxt,
                         NativeLibrary.InvokeNativeFunction invoke) {
             int signedVal = (int) ctxt.getNFIZlibSupport().adler32(value, ctxt.getEnv().asGuestValue(bytes), len, invoke);
             return signedVal & 0xFFFFFFFFL;
         }
 
-        long javaAdler32(byte[] bytes, int len, int value) {
+        static long javaAdler32(byte[] bytes, int len, int value) {
             int index = 0;
             int result = value;
             int s1 = result & 0xffff;
             int s2 = result >>> 16;
             while (index < len) {
-                int max = Math.min(index + DEFER, index + len);
+                int max = Math.min(index + DEFER, len);
                 while (index < max) {
                     s1 = (bytes[index++] & 0xff) + s1;
                     s2 += s1;
@@ -491,7 +455,8 @@ public final class ZLibModuleBuiltins extends PythonBuiltins {
     }
 
     // zlib.compress(data, level=-1)
-    @Builtin(name = "compress", minNumOfPositionalArgs = 1, parameterNames = {"", "level"})
+    @Builtin(name = "compress", minNumOfPositionalArgs = 1, numOfPositionalOnlyArgs = 1, parameterNames = {"data", "level"})
+    @ArgumentClinic(name = "data", conversion = ArgumentClinic.ClinicConversion.ReadableBuffer)
     @ArgumentClinic(name = "level", conversionClass = ZLibModuleBuiltins.ExpectIntNode.class, defaultValue = "ZLibModuleBuiltins.Z_DEFAULT_COMPRESSION", useDefaultForNone = true)
     @GenerateNodeFactory
     public abstract static class CompressNode extends PythonBinaryClinicBuiltinNode {
@@ -501,58 +466,51 @@ public final class ZLibModuleBuiltins extends PythonBuiltins {
             return ZLibModuleBuiltinsClinicProviders.CompressNodeClinicProviderGen.INSTANCE;
         }
 
-        @NonIdempotent
-        protected boolean useNative() {
-            return getContext().getNFIZlibSupport().isAvailable();
-        }
-
-        @Specialization(guards = {"useNative()"})
-        static PBytes doNativeBytes(PBytesLike data, int level,
-                        @Bind("this") Node inliningTarget,
-                        @Cached SequenceStorageNodes.GetInternalBytesNode toByte,
-                        @Exclusive @Cached ZlibNodes.ZlibNativeCompress nativeCompress,
-                        @Shared @Cached PythonObjectFactory factory) {
-            byte[] bytes = toByte.execute(inliningTarget, data);
-            int len = data.getSequenceStorage().length();
-            byte[] resultArray = nativeCompress.execute(inliningTarget, bytes, len, level, PythonContext.get(inliningTarget));
-            return factory.createBytes(resultArray);
-        }
-
-        @Specialization(guards = {"useNative()", "!isBytes(data)"})
-        static PBytes doNativeObject(VirtualFrame frame, Object data, int level,
+        @Specialization(limit = "3")
+        PBytes doit(VirtualFrame frame, Object buffer, int level,
                         @Bind("this") Node inliningTarget,
-                        @Shared("bb") @Cached ToBytesNode toBytesNode,
-                        @Exclusive @Cached ZlibNodes.ZlibNativeCompress nativeCompress,
-                        @Shared @Cached PythonObjectFactory factory) {
-            byte[] bytes = toBytesNode.execute(frame, data);
-            return factory.createBytes(nativeCompress.execute(inliningTarget, bytes, bytes.length, level, PythonContext.get(inliningTarget)));
-        }
-
-        @Specialization(guards = {"!useNative()"})
-        static PBytes doJava(VirtualFrame frame, Object data, int level,
-                        @Bind("this") Node inliningTarget,
-                        @Shared("bb") @Cached ToBytesNode toBytesNode,
+                        @CachedLibrary("buffer") PythonBufferAccessLibrary bufferLib,
+                        @Cached ZlibNodes.ZlibNativeCompress nativeCompress,
                         @Cached InlinedConditionProfile wrongLevelProfile,
-                        @Shared @Cached PythonObjectFactory factory,
+                        @Cached InlinedConditionProfile largeProfile,
+                        @Cached GilNode gil,
+                        @Cached PythonObjectFactory factory,
                         @Cached PRaiseNode.Lazy raiseNode) {
-            if (wrongLevelProfile.profile(inliningTarget, level < -1 || 9 < level)) {
-                throw raiseNode.get(inliningTarget).raise(ZLibError, ErrorMessages.BAD_COMPRESSION_LEVEL);
+            try {
+                byte[] bytes = bufferLib.getInternalOrCopiedByteArray(buffer);
+                int len = bufferLib.getBufferLength(buffer);
+                PythonContext ctxt = getContext();
+                boolean useNative = ctxt.getNFIZlibSupport().isAvailable();
+                if (!useNative && wrongLevelProfile.profile(inliningTarget, level < -1 || 9 < level)) {
+                    throw raiseNode.get(inliningTarget).raise(ZLibError, ErrorMessages.BAD_COMPRESSION_LEVEL);
+                }
+                byte[] resultArray;
+                boolean releaseGil = largeProfile.profile(inliningTarget, len >= GIL_MINSIZE);
+                if (useNative) {
+                    // the node raises zlib errors, so it releases the GIL only around the native call
+                    resultArray = nativeCompress.execute(inliningTarget, bytes, len, level, releaseGil, ctxt);
+                } else {
+                    if (releaseGil) {
+                        gil.release(true);
+                    }
+                    try {
+                        resultArray = javaCompress(bytes, len, level);
+                    } finally {
+                        if (releaseGil) {
+                            gil.acquire();
+                        }
+                    }
+                }
+                return factory.createBytes(resultArray);
+            } finally {
+                bufferLib.release(buffer, frame, this);
             }
-            byte[] array = toBytesNode.execute(frame, data);
-            return factory.createBytes(javaCompress(array, level));
-        }
-
-        @SuppressWarnings("unused")
-        @Fallback
-        static Object error(VirtualFrame frame, Object data, Object level,
-                        @Cached PRaiseNode raiseNode) {
-            throw raiseNode.raise(TypeError, ErrorMessages.BYTESLIKE_OBJ_REQUIRED, data);
         }
 
         @TruffleBoundary
-        static byte[] javaCompress(byte[] array, int level) {
+        static byte[] javaCompress(byte[] array, int len, int level) {
             Deflater compresser = new Deflater(level);
-            compresser.setInput(array);
+            compresser.setInput(array, 0, len);
             compresser.finish();
             byte[] resultArray = new byte[DEF_BUF_SIZE];
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -566,10 +524,10 @@ public final class ZLibModuleBuiltins extends PythonBuiltins {
     }
 
     // zlib.decompress(data, wbits=MAX_WBITS, bufsize=DEF_BUF_SIZE)
-    @Builtin(name = "decompress", minNumOfPositionalArgs = 1, parameterNames = {"", "wbits", "bufsize"})
+    @Builtin(name = "decompress", minNumOfPositionalArgs = 1, numOfPositionalOnlyArgs = 1, parameterNames = {"data", "wbits", "bufsize"})
+    @ArgumentClinic(name = "data", conversion = ArgumentClinic.ClinicConversion.ReadableBuffer)
     @ArgumentClinic(name = "wbits", conversionClass = ZLibModuleBuiltins.ExpectIntNode.class, defaultValue = "ZLibModuleBuiltins.MAX_WBITS", useDefaultForNone = true)
     @ArgumentClinic(name = "bufsize", conversionClass = ZLibModuleBuiltins.ExpectIntNode.class, defaultValue = "ZLibModuleBuiltins.DEF_BUF_SIZE", useDefaultForNone = true)
-    @TypeSystemReference(PythonArithmeticTypes.class)
     @GenerateNodeFactory
     public abstract static class DecompressNode extends PythonTernaryClinicBuiltinNode {
 
@@ -578,80 +536,88 @@ public final class ZLibModuleBuiltins extends PythonBuiltins {
             return ZLibModuleBuiltinsClinicProviders.DecompressNodeClinicProviderGen.INSTANCE;
         }
 
-        @NonIdempotent
-        protected boolean useNative() {
-            return PythonContext.get(this).getNFIZlibSupport().isAvailable();
-        }
-
-        @Specialization(guards = {"bufsize >= 0", "useNative()"})
-        static PBytes doNativeBytes(PBytesLike data, int wbits, int bufsize,
-                        @Bind("this") Node inliningTarget,
-                        @Cached SequenceStorageNodes.GetInternalBytesNode toByte,
-                        @Exclusive @Cached ZlibNodes.ZlibNativeDecompress nativeDecompress,
-                        @Shared @Cached PythonObjectFactory factory) {
-            byte[] bytes = toByte.execute(inliningTarget, data);
-            int len = data.getSequenceStorage().length();
-            return factory.createBytes(nativeDecompress.execute(inliningTarget, bytes, len, wbits, bufsize, PythonContext.get(inliningTarget)));
-        }
-
-        @Specialization(guards = {"bufsize >= 0", "useNative()", "!isBytes(data)"})
-        static PBytes doNativeObject(VirtualFrame frame, Object data, int wbits, int bufsize,
+        @Specialization(guards = "bufsize >= 0", limit = "3")
+        PBytes doit(VirtualFrame frame, Object buffer, int wbits, int bufsize,
                         @Bind("this") Node inliningTarget,
-                        @Shared @Cached ToBytesNode toBytesNode,
-                        @Exclusive @Cached ZlibNodes.ZlibNativeDecompress nativeDecompress,
-                        @Shared @Cached PythonObjectFactory factory) {
-            byte[] bytes = toBytesNode.execute(frame, data);
-            int len = bytes.length;
-            return factory.createBytes(nativeDecompress.execute(inliningTarget, bytes, len, wbits, bufsize, PythonContext.get(inliningTarget)));
-        }
-
-        @Specialization(guards = {"bufsize >= 0", "!useNative()"})
-        PBytes doJava(VirtualFrame frame, Object data, int wbits, int bufsize,
-                        @Bind("this") Node inliningTarget,
-                        @Shared @Cached ToBytesNode toBytesNode,
-                        @Shared @Cached PythonObjectFactory factory,
+                        @CachedLibrary("buffer") PythonBufferAccessLibrary bufferLib,
+                        @Cached ZlibNodes.ZlibNativeDecompress nativeDecompress,
+                        @Cached InlinedConditionProfile largeProfile,
+                        @Cached GilNode gil,
+                        @Cached PythonObjectFactory factory,
                         @Cached PRaiseNode.Lazy raiseNode) {
-            byte[] array = toBytesNode.execute(frame, data);
             try {
-                return factory.createBytes(javaDecompress(array, wbits, bufsize == 0 ? 1 : bufsize));
-            } catch (DataFormatException e) {
-                throw raiseNode.get(inliningTarget).raise(ZLibError, ErrorMessages.WHILE_PREPARING_TO_S_DATA, "decompress");
+                byte[] bytes = bufferLib.getInternalOrCopiedByteArray(buffer);
+                int len = bufferLib.getBufferLength(buffer);
+                PythonContext ctxt = getContext();
+                byte[] resultArray;
+                boolean releaseGil = largeProfile.profile(inliningTarget, len >= GIL_MINSIZE);
+                if (ctxt.getNFIZlibSupport().isAvailable()) {
+                    // the node raises zlib errors, so it releases the GIL only around the native call
+                    resultArray = nativeDecompress.execute(inliningTarget, bytes, len, wbits, bufsize, releaseGil, ctxt);
+                } else {
+                    // errors are only raised once we hold the GIL again
+                    boolean dataError = false;
+                    if (releaseGil) {
+                        gil.release(true);
+                    }
+                    try {
+                        resultArray = javaDecompress(bytes, len, wbits, bufsize == 0 ? 1 : bufsize);
+                    } catch (DataFormatException e) {
+                        resultArray = null;
+                        dataError = true;
+                    } finally {
+                        if (releaseGil) {
+                            gil.acquire();
+                        }
+                    }
+                    if (dataError) {
+                        throw raiseNode.get(inliningTarget).raise(ZLibError, ErrorMessages.WHILE_PREPARING_TO_S_DATA, "decompress");
+                    }
+                    if (resultArray == null) {
+                        throw raiseNode.get(inliningTarget).raise(ZLibError, ErrorMessages.ERROR_5_WHILE_DECOMPRESSING);
+                    }
+                }
+                return factory.createBytes(resultArray);
+            } finally {
+                bufferLib.release(buffer, frame, this);
             }
         }
 
         @SuppressWarnings("unused")
-        @Specialization(guards = {"bufsize >= 0"})
-        static PBytes doNative(PBytesLike data, int wbits, int bufsize,
-                        @Shared @Cached PRaiseNode raiseNode) {
+        @Specialization(guards = "bufsize < 0", limit = "3")
+        PBytes negativeBufsize(VirtualFrame frame, Object buffer, int wbits, int bufsize,
+                        @CachedLibrary("buffer") PythonBufferAccessLibrary bufferLib,
+                        @Cached PRaiseNode raiseNode) {
+            bufferLib.release(buffer, frame, this);
             throw raiseNode.raise(ZLibError, ErrorMessages.MUST_BE_NON_NEGATIVE, "bufsize");
         }
 
-        @SuppressWarnings("unused")
-        @Fallback
-        static Object error(VirtualFrame frame, Object data, Object wbits, Object bufsize,
-                        @Shared @Cached PRaiseNode raiseNode) {
-            throw raiseNode.raise(TypeError, ErrorMessages.BYTESLIKE_OBJ_REQUIRED, data);
-        }
-
+        /**
+         * Runs without the GIL for large inputs, so it must not raise Python exceptions. Returns
+         * {@code null} if the input ends before the end of the compressed stream.
+         */
         @TruffleBoundary
-        byte[] javaDecompress(byte[] array, int wbits, int bufsize) throws DataFormatException {
+        static byte[] javaDecompress(byte[] array, int len, int wbits, int bufsize) throws DataFormatException {
             // zlib can decompress all those formats:
             // to (de-)compress deflate format, use wbits = -zlib.MAX_WBITS
             // to (de-)compress zlib format, use wbits = zlib.MAX_WBITS
             // to (de-)compress gzip format, use wbits = zlib.MAX_WBITS | 16
             Inflater decompresser = new Inflater(wbits < 0 || (wbits & 16) == 16);
-            decompresser.setInput(array);
-            byte[] resultArray = new byte[bufsize];
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            while (!decompresser.finished()) {
-                int howmany = decompresser.inflate(resultArray);
-                if (howmany == 0 && decompresser.needsInput()) {
-                    throw PRaiseNode.raiseUncached(this, ZLibError, ErrorMessages.ERROR_5_WHILE_DECOMPRESSING);
+            try {
+                decompresser.setInput(array, 0, len);
+                byte[] resultArray = new byte[bufsize];
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                while (!decompresser.finished()) {
+                    int howmany = decompresser.inflate(resultArray);
+                    if (howmany == 0 && decompresser.needsInput()) {
+                        return null;
+                    }
+                    baos.write(resultArray, 0, howmany);
                 }
-                baos.write(resultArray, 0, howmany);
+                return baos.toByteArray();
+            } finally {
+                decompresser.end();
             }
-            decompresser.end();
-            return baos.toByteArray();
         }
     }
 
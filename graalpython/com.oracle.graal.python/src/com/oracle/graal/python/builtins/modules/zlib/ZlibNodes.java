@@ -80,6 +80,7 @@ import com.oracle.graal.python.builtins.objects.str.StringUtils.SimpleTruffleStr
 import com.oracle.graal.python.nodes.ErrorMessages;
 import com.oracle.graal.python.nodes.PNodeWithContext;
 import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.runtime.GilNode;
 import com.oracle.graal.python.runtime.NFIZlibSupport;
 import com.oracle.graal.python.runtime.NativeLibrary;
 import com.oracle.graal.python.runtime.PythonContext;
@@ -147,19 +148,34 @@ public class ZlibNodes {
     @GenerateCached(false)
     public abstract static class ZlibNativeCompress extends PNodeWithContext {
 
-        public abstract byte[] execute(Node inliningTarget, byte[] bytes, int len, int level, PythonContext context);
+        /**
+         * If {@code releaseGil} is set, the GIL is released only for the native deflate call,
+         * errors are raised after it is acquired again.
+         */
+        public abstract byte[] execute(Node inliningTarget, byte[] bytes, int len, int level, boolean releaseGil, PythonContext context);
 
         @Specialization
-        static byte[] nativeCompress(Node inliningTarget, byte[] bytes, int len, int level, PythonContext context,
+        static byte[] nativeCompress(Node inliningTarget, byte[] bytes, int len, int level, boolean releaseGil, PythonContext context,
                         @Cached(inline = false) NativeLibrary.InvokeNativeFunction createStream,
                         @Cached(inline = false) NativeLibrary.InvokeNativeFunction deallocateStream,
                         @Cached(inline = false) NativeLibrary.InvokeNativeFunction deflateOffHeap,
                         @Cached GetNativeBufferNode getBuffer,
-                        @Cached ZlibNativeErrorHandling errorHandling) {
+                        @Cached ZlibNativeErrorHandling errorHandling,
+                        @Cached(inline = false) GilNode gil) {
             NFIZlibSupport zlibSupport = context.getNFIZlibSupport();
             Object in = context.getEnv().asGuestValue(bytes);
             Object zst = zlibSupport.createStream(createStream);
-            int err = zlibSupport.deflateOffHeap(zst, in, len, DEF_BUF_SIZE, level, deflateOffHeap);
+            int err;
+            if (releaseGil) {
+                gil.release(true);
+            }
+            try {
+                err = zlibSupport.deflateOffHeap(zst, in, len, DEF_BUF_SIZE, level, deflateOffHeap);
+            } finally {
+                if (releaseGil) {
+                    gil.acquire();
+                }
+            }
             if (err != Z_OK) {
                 errorHandling.execute(inliningTarget, zst, err, zlibSupport, true);
             }
@@ -195,19 +211,34 @@ public class ZlibNodes {
     @GenerateCached(false)
     public abstract static class ZlibNativeDecompress extends PNodeWithContext {
 
-        public abstract byte[] execute(Node inliningTarget, byte[] bytes, int len, int wbits, int bufsize, PythonContext context);
+        /**
+         * If {@code releaseGil} is set, the GIL is released only for the native inflate call,
+         * errors are raised after it is acquired again.
+         */
+        public abstract byte[] execute(Node inliningTarget, byte[] bytes, int len, int wbits, int bufsize, boolean releaseGil, PythonContext context);
 
         @Specialization
-        static byte[] nativeCompress(Node inliningTarget, byte[] bytes, int len, int wbits, int bufsize, PythonContext context,
+        static byte[] nativeCompress(Node inliningTarget, byte[] bytes, int len, int wbits, int bufsize, boolean releaseGil, PythonContext context,
                         @Cached(inline = false) NativeLibrary.InvokeNativeFunction createStream,
                         @Cached(inline = false) NativeLibrary.InvokeNativeFunction deallocateStream,
                         @Cached(inline = false) NativeLibrary.InvokeNativeFunction inflateOffHeap,
                         @Cached GetNativeBufferNode getBuffer,
-                        @Cached ZlibNativeErrorHandling errorHandling) {
+                        @Cached ZlibNativeErrorHandling errorHandling,
+                        @Cached(inline = false) GilNode gil) {
             NFIZlibSupport zlibSupport = context.getNFIZlibSupport();
             Object zst = zlibSupport.createStream(createStream);
             Object in = context.getEnv().asGuestValue(bytes);
-            int err = zlibSupport.inflateOffHeap(zst, in, len, bufsize, wbits, inflateOffHeap);
+            int err;
+            if (releaseGil) {
+                gil.release(true);
+            }
+            try {
+                err = zlibSupport.inflateOffHeap(zst, in, len, bufsize, wbits, inflateOffHeap);
+            } finally {
+                if (releaseGil) {
+                    gil.acquire();
+                }
+            }
             if (err != Z_OK) {
                 errorHandling.execute(inliningTarget, zst, err, zlibSupport, true);
             }
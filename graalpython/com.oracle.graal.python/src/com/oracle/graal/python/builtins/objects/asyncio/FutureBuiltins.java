@@ -0,0 +1,694 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.asyncio;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.RuntimeError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.TypeError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.ValueError;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___AWAIT__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___CLASS_GETITEM__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___INIT__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___ITER__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___REPR__;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.T_JOIN;
+import static com.oracle.graal.python.nodes.StringLiterals.T_SPACE;
+import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
+
+import java.util.List;
+
+import com.oracle.graal.python.PythonLanguage;
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.modules.AsyncioModuleBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.exception.ExceptionNodes;
+import com.oracle.graal.python.builtins.objects.function.PKeyword;
+import com.oracle.graal.python.builtins.objects.getsetdescriptor.DescriptorDeleteMarker;
+import com.oracle.graal.python.builtins.objects.type.TypeNodes;
+import com.oracle.graal.python.lib.PyExceptionInstanceCheckNode;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.lib.PyObjectGetAttr;
+import com.oracle.graal.python.lib.PyObjectIsTrueNode;
+import com.oracle.graal.python.lib.PyObjectRichCompareBool;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.call.CallNode;
+import com.oracle.graal.python.nodes.classes.IsSubtypeNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.object.BuiltinClassProfiles.IsBuiltinObjectProfile;
+import com.oracle.graal.python.nodes.object.GetClassNode;
+import com.oracle.graal.python.nodes.statement.AbstractImportNode;
+import com.oracle.graal.python.nodes.util.CastToTruffleStringNode;
+import com.oracle.graal.python.runtime.PythonContext;
+import com.oracle.graal.python.runtime.exception.PException;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.util.PythonUtils;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateCached;
+import com.oracle.truffle.api.dsl.GenerateInline;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.profiles.InlinedConditionProfile;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Implementation of {@code _asyncio.Future}, following {@code Modules/_asynciomodule.c}. Callbacks
+ * are scheduled with {@code loop.call_soon}, so any event loop implementation can be used.
+ */
+@CoreFunctions(extendClasses = PythonBuiltinClassType.PFuture)
+public final class FutureBuiltins extends PythonBuiltins {
+
+    static final TruffleString T_CALL_SOON = tsLiteral("call_soon");
+    static final TruffleString T_CONTEXT = tsLiteral("context");
+    static final TruffleString T_CANCEL = tsLiteral("cancel");
+    static final TruffleString T_MSG = tsLiteral("msg");
+    static final TruffleString T_RESULT = tsLiteral("result");
+    static final TruffleString T_ADD_DONE_CALLBACK = tsLiteral("add_done_callback");
+    static final TruffleString T_GET_LOOP = tsLiteral("get_loop");
+    static final TruffleString T__LOOP = tsLiteral("_loop");
+    static final TruffleString T_ASYNCIO_FUTURE_BLOCKING = tsLiteral("_asyncio_future_blocking");
+    private static final TruffleString T_GET_DEBUG = tsLiteral("get_debug");
+    private static final TruffleString T__REPR_INFO = tsLiteral("_repr_info");
+    private static final TruffleString T_TRACEBACK = tsLiteral("traceback");
+    private static final TruffleString T_EXTRACT_STACK = tsLiteral("extract_stack");
+    private static final TruffleString T_ASYNCIO_EXCEPTIONS = tsLiteral("asyncio.exceptions");
+    private static final TruffleString T_ASYNCIO_BASE_FUTURES = tsLiteral("asyncio.base_futures");
+    private static final TruffleString T_FUTURE_REPR_INFO = tsLiteral("_future_repr_info");
+    private static final TruffleString T_CANCELLED_ERROR = tsLiteral("CancelledError");
+    private static final TruffleString T_INVALID_STATE_ERROR = tsLiteral("InvalidStateError");
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return FutureBuiltinsFactory.getFactories();
+    }
+
+    @TruffleBoundary
+    static Object importAttribute(TruffleString module, TruffleString name) {
+        return PyObjectGetAttr.executeUncached(AbstractImportNode.importModule(module), name);
+    }
+
+    @TruffleBoundary
+    static PException raiseInvalidStateError(Node raisingNode, TruffleString message) {
+        Object exc = CallNode.getUncached().execute(importAttribute(T_ASYNCIO_EXCEPTIONS, T_INVALID_STATE_ERROR), message);
+        throw PRaiseNode.raiseExceptionObject(raisingNode, exc);
+    }
+
+    @TruffleBoundary
+    static boolean isCancelledError(Object exception) {
+        Object cls = importAttribute(T_ASYNCIO_EXCEPTIONS, T_CANCELLED_ERROR);
+        return IsSubtypeNode.getUncached().execute(GetClassNode.executeUncached(exception), cls);
+    }
+
+    /**
+     * Creates the {@code CancelledError} to raise for a cancelled future. This erases the saved
+     * exception context, so it should only be called once when handling a cancellation.
+     */
+    @TruffleBoundary
+    static Object makeCancelledError(PFuture future) {
+        Object cls = importAttribute(T_ASYNCIO_EXCEPTIONS, T_CANCELLED_ERROR);
+        Object message = future.getCancelMessage();
+        Object exc = message == null ? CallNode.getUncached().execute(cls) : CallNode.getUncached().execute(cls, message);
+        Object context = future.getCancelledExc();
+        ExceptionNodes.SetContextNode.executeUncached(exc, context == null ? PNone.NONE : context);
+        future.setCancelledExc(null);
+        return exc;
+    }
+
+    static void ensureAlive(Node inliningTarget, PFuture future, PRaiseNode.Lazy raiseNode) {
+        if (future.getLoop() == null) {
+            throw raiseNode.get(inliningTarget).raise(RuntimeError, ErrorMessages.FUTURE_NOT_INITIALIZED);
+        }
+    }
+
+    static Object noneIfNull(Object value) {
+        return value == null ? PNone.NONE : value;
+    }
+
+    static Object nullIfNone(Object value) {
+        return PNone.NONE == value || PNone.NO_VALUE == value ? null : value;
+    }
+
+    /**
+     * Equivalent of {@code loop.call_soon(callback[, arg], context=context)}, where {@code arg}
+     * and {@code context} may be {@code null}.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    public abstract static class CallSoonNode extends Node {
+        public abstract void execute(VirtualFrame frame, Node inliningTarget, Object loop, Object callback, Object arg, Object context);
+
+        @Specialization
+        static void callSoon(VirtualFrame frame, Node inliningTarget, Object loop, Object callback, Object arg, Object context,
+                        @Cached PyObjectGetAttr getAttr,
+                        @Cached(inline = false) CallNode callNode) {
+            Object callSoon = getAttr.execute(frame, inliningTarget, loop, T_CALL_SOON);
+            Object[] args = arg == null ? new Object[]{callback} : new Object[]{callback, arg};
+            PKeyword[] keywords = context == null ? PKeyword.EMPTY_KEYWORDS : new PKeyword[]{new PKeyword(T_CONTEXT, context)};
+            callNode.execute(frame, callSoon, args, keywords);
+        }
+    }
+
+    @GenerateInline
+    @GenerateCached(false)
+    public abstract static class ScheduleCallbacksNode extends Node {
+        public abstract void execute(VirtualFrame frame, Node inliningTarget, PFuture future);
+
+        @Specialization
+        static void schedule(VirtualFrame frame, Node inliningTarget, PFuture future,
+                        @Cached CallSoonNode callSoonNode) {
+            Object[] callbacks = future.takeCallbacks();
+            if (callbacks == null) {
+                return;
+            }
+            for (int i = 0; i < callbacks.length; i += 2) {
+                callSoonNode.execute(frame, inliningTarget, future.getLoop(), callbacks[i], future, callbacks[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Adds a done callback, {@code context} may be {@code null} to use a copy of the current
+     * context.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    public abstract static class AddDoneCallbackNode extends Node {
+        public abstract void execute(VirtualFrame frame, Node inliningTarget, PFuture future, Object callback, Object context);
+
+        @Specialization
+        static void add(VirtualFrame frame, Node inliningTarget, PFuture future, Object callback, Object context,
+                        @Cached InlinedConditionProfile doneProfile,
+                        @Cached CallSoonNode callSoonNode,
+                        @Cached(inline = false) PythonObjectFactory factory) {
+            if (doneProfile.profile(inliningTarget, future.isDone())) {
+                callSoonNode.execute(frame, inliningTarget, future.getLoop(), callback, future, context);
+            } else {
+                Object ctx = context;
+                if (ctx == null) {
+                    PythonContext.PythonThreadState threadState = PythonContext.get(inliningTarget).getThreadState(PythonLanguage.get(inliningTarget));
+                    ctx = factory.copyContextVarsContext(threadState.getContextVarsContext());
+                }
+                future.addCallback(callback, ctx);
+            }
+        }
+    }
+
+    /**
+     * Returns the result of a done future or raises its exception.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    public abstract static class GetResultNode extends Node {
+        public abstract Object execute(Node inliningTarget, PFuture future);
+
+        @Specialization
+        static Object get(Node inliningTarget, PFuture future,
+                        @Cached ExceptionNodes.SetTracebackNode setTracebackNode) {
+            switch (future.getState()) {
+                case CANCELLED:
+                    throw PRaiseNode.raiseExceptionObject(inliningTarget, makeCancelledError(future));
+                case PENDING:
+                    throw raiseInvalidStateError(inliningTarget, ErrorMessages.FUTURE_RESULT_NOT_READY);
+                default:
+                    future.setLogTraceback(false);
+                    Object exception = future.getException();
+                    if (exception != null) {
+                        setTracebackNode.execute(inliningTarget, exception, future.getExceptionTb());
+                        throw PRaiseNode.raiseExceptionObject(inliningTarget, exception);
+                    }
+                    return future.getResult();
+            }
+        }
+    }
+
+    static void setResult(VirtualFrame frame, Node inliningTarget, PFuture future, Object result, ScheduleCallbacksNode scheduleCallbacksNode) {
+        if (future.isDone()) {
+            throw raiseInvalidStateError(inliningTarget, ErrorMessages.FUTURE_INVALID_STATE);
+        }
+        future.setFinished(result);
+        scheduleCallbacksNode.execute(frame, inliningTarget, future);
+    }
+
+    static void setException(VirtualFrame frame, Node inliningTarget, PFuture future, Object exception, Object traceback, ScheduleCallbacksNode scheduleCallbacksNode) {
+        if (future.isDone()) {
+            throw raiseInvalidStateError(inliningTarget, ErrorMessages.FUTURE_INVALID_STATE);
+        }
+        future.setFinishedWithException(exception, traceback);
+        scheduleCallbacksNode.execute(frame, inliningTarget, future);
+    }
+
+    static boolean cancel(VirtualFrame frame, Node inliningTarget, PFuture future, Object message, ScheduleCallbacksNode scheduleCallbacksNode) {
+        future.setLogTraceback(false);
+        if (future.isDone()) {
+            return false;
+        }
+        future.setCancelled(message);
+        scheduleCallbacksNode.execute(frame, inliningTarget, future);
+        return true;
+    }
+
+    /**
+     * Shared by {@code Future.__init__} and {@code Task.__init__}.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    public abstract static class InitFutureNode extends Node {
+        public abstract void execute(VirtualFrame frame, Node inliningTarget, PFuture future, Object loop);
+
+        @Specialization
+        static void init(VirtualFrame frame, Node inliningTarget, PFuture future, Object loopArg,
+                        @Cached(inline = false) AsyncioModuleBuiltins.GetEventLoop getEventLoop,
+                        @Cached PyObjectCallMethodObjArgs callMethod,
+                        @Cached PyObjectIsTrueNode isTrueNode) {
+            Object loop = nullIfNone(loopArg);
+            if (loop == null) {
+                loop = getEventLoop.execute(frame, PNone.NONE);
+            }
+            future.init(loop);
+            if (isTrueNode.execute(frame, inliningTarget, callMethod.execute(frame, inliningTarget, loop, T_GET_DEBUG))) {
+                future.setSourceTraceback(extractStack());
+            }
+        }
+
+        @TruffleBoundary
+        private static Object extractStack() {
+            return CallNode.getUncached().execute(importAttribute(T_TRACEBACK, T_EXTRACT_STACK));
+        }
+    }
+
+    @Builtin(name = J___INIT__, minNumOfPositionalArgs = 1, parameterNames = {"$self"}, keywordOnlyNames = {"loop"})
+    @GenerateNodeFactory
+    abstract static class InitNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object init(VirtualFrame frame, PFuture self, Object loop,
+                        @Bind("this") Node inliningTarget,
+                        @Cached InitFutureNode initFutureNode) {
+            initFutureNode.execute(frame, inliningTarget, self, loop);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = J___REPR__, minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class ReprNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static TruffleString repr(VirtualFrame frame, PFuture self,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectCallMethodObjArgs callMethod) {
+            Object info = callMethod.execute(frame, inliningTarget, self, T__REPR_INFO);
+            return format(self, info);
+        }
+
+        @TruffleBoundary
+        private static TruffleString format(PFuture self, Object info) {
+            TruffleString name = TypeNodes.GetNameNode.executeUncached(GetClassNode.executeUncached(self));
+            TruffleString joined = CastToTruffleStringNode.executeUncached(PyObjectCallMethodObjArgs.executeUncached(T_SPACE, T_JOIN, info));
+            return PythonUtils.toTruffleStringUncached("<" + name + " " + joined + ">");
+        }
+    }
+
+    @Builtin(name = "_repr_info", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class ReprInfoNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object reprInfo(VirtualFrame frame, PFuture self,
+                        @Cached CallNode callNode) {
+            return callNode.execute(frame, importAttribute(T_ASYNCIO_BASE_FUTURES, T_FUTURE_REPR_INFO), self);
+        }
+    }
+
+    @Builtin(name = "get_loop", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class GetLoopNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object getLoop(PFuture self,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            ensureAlive(inliningTarget, self, raiseNode);
+            return self.getLoop();
+        }
+    }
+
+    @Builtin(name = "result", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class ResultNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object result(PFuture self,
+                        @Bind("this") Node inliningTarget,
+                        @Cached GetResultNode getResultNode) {
+            return getResultNode.execute(inliningTarget, self);
+        }
+    }
+
+    @Builtin(name = "exception", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class ExceptionNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object exception(PFuture self,
+                        @Bind("this") Node inliningTarget) {
+            switch (self.getState()) {
+                case CANCELLED:
+                    throw PRaiseNode.raiseExceptionObject(inliningTarget, makeCancelledError(self));
+                case PENDING:
+                    throw raiseInvalidStateError(inliningTarget, ErrorMessages.FUTURE_EXCEPTION_NOT_SET);
+                default:
+                    self.setLogTraceback(false);
+                    return noneIfNull(self.getException());
+            }
+        }
+    }
+
+    @Builtin(name = "set_result", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    abstract static class SetResultNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object setResult(VirtualFrame frame, PFuture self, Object result,
+                        @Bind("this") Node inliningTarget,
+                        @Cached ScheduleCallbacksNode scheduleCallbacksNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            ensureAlive(inliningTarget, self, raiseNode);
+            FutureBuiltins.setResult(frame, inliningTarget, self, result, scheduleCallbacksNode);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "set_exception", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    abstract static class SetExceptionNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object setException(VirtualFrame frame, PFuture self, Object exceptionArg,
+                        @Bind("this") Node inliningTarget,
+                        @Cached TypeNodes.IsTypeNode isTypeNode,
+                        @Cached IsSubtypeNode isSubtypeNode,
+                        @Cached CallNode callNode,
+                        @Cached PyExceptionInstanceCheckNode exceptionCheckNode,
+                        @Cached IsBuiltinObjectProfile isStopIterationProfile,
+                        @Cached ExceptionNodes.GetTracebackNode getTracebackNode,
+                        @Cached ScheduleCallbacksNode scheduleCallbacksNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            ensureAlive(inliningTarget, self, raiseNode);
+            if (self.isDone()) {
+                throw raiseInvalidStateError(inliningTarget, ErrorMessages.FUTURE_INVALID_STATE);
+            }
+            Object exception = exceptionArg;
+            if (isTypeNode.execute(inliningTarget, exception) && isSubtypeNode.execute(exception, PythonBuiltinClassType.PBaseException)) {
+                exception = callNode.execute(frame, exception);
+            }
+            if (!exceptionCheckNode.execute(inliningTarget, exception)) {
+                throw raiseNode.get(inliningTarget).raise(TypeError, ErrorMessages.FUTURE_INVALID_EXCEPTION_OBJECT);
+            }
+            if (isStopIterationProfile.profileObject(inliningTarget, exception, PythonBuiltinClassType.StopIteration)) {
+                throw raiseNode.get(inliningTarget).raise(TypeError, ErrorMessages.FUTURE_STOP_ITERATION);
+            }
+            FutureBuiltins.setException(frame, inliningTarget, self, exception, getTracebackNode.execute(inliningTarget, exception), scheduleCallbacksNode);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "add_done_callback", minNumOfPositionalArgs = 2, parameterNames = {"$self", "fn"}, keywordOnlyNames = {"context"})
+    @GenerateNodeFactory
+    abstract static class AddDoneCallbackBuiltinNode extends PythonTernaryBuiltinNode {
+        @Specialization
+        static Object addDoneCallback(VirtualFrame frame, PFuture self, Object fn, Object context,
+                        @Bind("this") Node inliningTarget,
+                        @Cached AddDoneCallbackNode addDoneCallbackNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            ensureAlive(inliningTarget, self, raiseNode);
+            addDoneCallbackNode.execute(frame, inliningTarget, self, fn, nullIfNone(context));
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "remove_done_callback", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    abstract static class RemoveDoneCallbackNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object removeDoneCallback(VirtualFrame frame, PFuture self, Object fn,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectRichCompareBool.EqNode eqNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            ensureAlive(inliningTarget, self, raiseNode);
+            Object[] callbacks = self.getCallbacks();
+            if (callbacks == null) {
+                return 0;
+            }
+            Object[] kept = new Object[callbacks.length];
+            int keptLength = 0;
+            for (int i = 0; i < callbacks.length; i += 2) {
+                if (!eqNode.compare(frame, inliningTarget, callbacks[i], fn)) {
+                    kept[keptLength++] = callbacks[i];
+                    kept[keptLength++] = callbacks[i + 1];
+                }
+            }
+            int removed = (callbacks.length - keptLength) / 2;
+            if (removed > 0) {
+                self.setCallbacks(PythonUtils.arrayCopyOf(kept, keptLength));
+            }
+            return removed;
+        }
+    }
+
+    @Builtin(name = "cancel", minNumOfPositionalArgs = 1, parameterNames = {"$self", "msg"})
+    @GenerateNodeFactory
+    abstract static class CancelNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static boolean cancel(VirtualFrame frame, PFuture self, Object msg,
+                        @Bind("this") Node inliningTarget,
+                        @Cached ScheduleCallbacksNode scheduleCallbacksNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            ensureAlive(inliningTarget, self, raiseNode);
+            return FutureBuiltins.cancel(frame, inliningTarget, self, nullIfNone(msg), scheduleCallbacksNode);
+        }
+    }
+
+    @Builtin(name = "cancelled", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class CancelledNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static boolean cancelled(PFuture self) {
+            return self.getState() == PFuture.State.CANCELLED;
+        }
+    }
+
+    @Builtin(name = "done", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class DoneNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static boolean done(PFuture self) {
+            return self.isDone();
+        }
+    }
+
+    @Builtin(name = "_make_cancelled_error", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class MakeCancelledErrorNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object make(PFuture self) {
+            return makeCancelledError(self);
+        }
+    }
+
+    @Builtin(name = J___AWAIT__, minNumOfPositionalArgs = 1)
+    @Builtin(name = J___ITER__, minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class AwaitNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object await(PFuture self,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PythonObjectFactory factory,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            ensureAlive(inliningTarget, self, raiseNode);
+            return factory.createFutureIter(self);
+        }
+    }
+
+    @Builtin(name = J___CLASS_GETITEM__, minNumOfPositionalArgs = 2, isClassmethod = true)
+    @GenerateNodeFactory
+    abstract static class ClassGetItemNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object classGetItem(Object cls, Object key,
+                        @Cached PythonObjectFactory factory) {
+            return factory.createGenericAlias(cls, key);
+        }
+    }
+
+    @Builtin(name = "_state", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class StateNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object state(PFuture self) {
+            if (self.getLoop() == null) {
+                return PNone.NONE;
+            }
+            return self.getState().getName();
+        }
+    }
+
+    @Builtin(name = "_loop", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class LoopNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object loop(PFuture self) {
+            return noneIfNull(self.getLoop());
+        }
+    }
+
+    @Builtin(name = "_result", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class ResultGetterNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object result(PFuture self) {
+            return noneIfNull(self.getResult());
+        }
+    }
+
+    @Builtin(name = "_exception", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class ExceptionGetterNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object exception(PFuture self) {
+            return noneIfNull(self.getException());
+        }
+    }
+
+    @Builtin(name = "_source_traceback", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class SourceTracebackNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object sourceTraceback(PFuture self) {
+            return noneIfNull(self.getSourceTraceback());
+        }
+    }
+
+    @Builtin(name = "_callbacks", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class CallbacksNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object callbacks(PFuture self,
+                        @Cached PythonObjectFactory factory) {
+            Object[] callbacks = self.getCallbacks();
+            if (callbacks == null) {
+                return PNone.NONE;
+            }
+            Object[] pairs = new Object[callbacks.length / 2];
+            for (int i = 0; i < pairs.length; i++) {
+                pairs[i] = factory.createTuple(new Object[]{callbacks[2 * i], callbacks[2 * i + 1]});
+            }
+            return factory.createList(pairs);
+        }
+    }
+
+    @Builtin(name = "_cancel_message", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    abstract static class CancelMessageNode extends PythonBinaryBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PFuture self, @SuppressWarnings("unused") PNone value) {
+            return noneIfNull(self.getCancelMessage());
+        }
+
+        @Specialization
+        static Object delete(PFuture self, @SuppressWarnings("unused") DescriptorDeleteMarker value) {
+            self.setCancelMessage(null);
+            return PNone.NONE;
+        }
+
+        @Specialization(guards = {"!isNoValue(value)", "!isDeleteMarker(value)"})
+        static Object set(PFuture self, Object value) {
+            self.setCancelMessage(nullIfNone(value));
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "_asyncio_future_blocking", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    abstract static class BlockingNode extends PythonBinaryBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PFuture self, @SuppressWarnings("unused") PNone value) {
+            return self.isBlocking();
+        }
+
+        @Specialization(guards = "!isNoValue(value)")
+        static Object set(VirtualFrame frame, PFuture self, Object value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectIsTrueNode isTrueNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            if (value instanceof DescriptorDeleteMarker) {
+                throw raiseNode.get(inliningTarget).raise(PythonBuiltinClassType.AttributeError, ErrorMessages.CANNOT_DELETE);
+            }
+            self.setBlocking(isTrueNode.execute(frame, inliningTarget, value));
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "_log_traceback", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    abstract static class LogTracebackNode extends PythonBinaryBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PFuture self, @SuppressWarnings("unused") PNone value) {
+            return self.isLogTraceback();
+        }
+
+        @Specialization(guards = "!isNoValue(value)")
+        static Object set(VirtualFrame frame, PFuture self, Object value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectIsTrueNode isTrueNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            if (value instanceof DescriptorDeleteMarker) {
+                throw raiseNode.get(inliningTarget).raise(PythonBuiltinClassType.AttributeError, ErrorMessages.CANNOT_DELETE);
+            }
+            if (isTrueNode.execute(frame, inliningTarget, value)) {
+                throw raiseNode.get(inliningTarget).raise(ValueError, ErrorMessages.LOG_TRACEBACK_ONLY_FALSE);
+            }
+            self.setLogTraceback(false);
+            return PNone.NONE;
+        }
+    }
+}
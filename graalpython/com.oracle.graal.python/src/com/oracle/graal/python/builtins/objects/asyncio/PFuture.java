@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.asyncio;
+
+import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
+
+import java.util.ArrayList;
+
+import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.Shape;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * The {@code _asyncio.Future} object, see {@code asyncio/futures.py} for the reference
+ * implementation. Done callbacks are kept as a flat list of {@code (callback, context)} pairs.
+ */
+public class PFuture extends PythonBuiltinObject {
+    public enum State {
+        PENDING("PENDING"),
+        CANCELLED("CANCELLED"),
+        FINISHED("FINISHED");
+
+        private final TruffleString name;
+
+        State(String name) {
+            this.name = tsLiteral(name);
+        }
+
+        public TruffleString getName() {
+            return name;
+        }
+    }
+
+    private State state = State.PENDING;
+    private Object result;
+    private Object exception;
+    private Object exceptionTb;
+    private Object loop;
+    private Object sourceTraceback;
+    private Object cancelMessage;
+    private Object cancelledExc;
+    private boolean logTraceback;
+    private boolean blocking;
+    private ArrayList<Object> callbacks;
+
+    public PFuture(Object cls, Shape instanceShape) {
+        super(cls, instanceShape);
+    }
+
+    public final State getState() {
+        return state;
+    }
+
+    public final boolean isDone() {
+        return state != State.PENDING;
+    }
+
+    public final Object getResult() {
+        return result;
+    }
+
+    public final Object getException() {
+        return exception;
+    }
+
+    public final Object getExceptionTb() {
+        return exceptionTb;
+    }
+
+    public final void setFinished(Object result) {
+        assert state == State.PENDING;
+        this.result = result;
+        this.state = State.FINISHED;
+    }
+
+    public final void setFinishedWithException(Object exception, Object exceptionTb) {
+        assert state == State.PENDING;
+        this.exception = exception;
+        this.exceptionTb = exceptionTb;
+        this.state = State.FINISHED;
+        this.logTraceback = true;
+    }
+
+    public final void setCancelled(Object message) {
+        assert state == State.PENDING;
+        this.cancelMessage = message;
+        this.state = State.CANCELLED;
+    }
+
+    public final Object getLoop() {
+        return loop;
+    }
+
+    /**
+     * (Re-)initializes the future, {@code __init__} may be called more than once.
+     */
+    public final void init(Object newLoop) {
+        this.loop = newLoop;
+        this.state = State.PENDING;
+        this.result = null;
+        this.exception = null;
+        this.exceptionTb = null;
+        this.sourceTraceback = null;
+        this.cancelMessage = null;
+        this.cancelledExc = null;
+        this.logTraceback = false;
+        this.blocking = false;
+        this.callbacks = null;
+    }
+
+    public final Object getSourceTraceback() {
+        return sourceTraceback;
+    }
+
+    public final void setSourceTraceback(Object sourceTraceback) {
+        this.sourceTraceback = sourceTraceback;
+    }
+
+    public final Object getCancelMessage() {
+        return cancelMessage;
+    }
+
+    public final void setCancelMessage(Object cancelMessage) {
+        this.cancelMessage = cancelMessage;
+    }
+
+    public final Object getCancelledExc() {
+        return cancelledExc;
+    }
+
+    public final void setCancelledExc(Object cancelledExc) {
+        this.cancelledExc = cancelledExc;
+    }
+
+    public final boolean isLogTraceback() {
+        return logTraceback;
+    }
+
+    public final void setLogTraceback(boolean logTraceback) {
+        this.logTraceback = logTraceback;
+    }
+
+    public final boolean isBlocking() {
+        return blocking;
+    }
+
+    public final void setBlocking(boolean blocking) {
+        this.blocking = blocking;
+    }
+
+    public final boolean hasCallbacks() {
+        return callbacks != null && !callbacks.isEmpty();
+    }
+
+    @TruffleBoundary
+    public final void addCallback(Object callback, Object context) {
+        if (callbacks == null) {
+            callbacks = new ArrayList<>(2);
+        }
+        callbacks.add(callback);
+        callbacks.add(context);
+    }
+
+    /**
+     * Returns the registered callbacks as alternating callback and context entries and forgets
+     * them.
+     */
+    public final Object[] takeCallbacks() {
+        if (!hasCallbacks()) {
+            return null;
+        }
+        Object[] result = toArray(callbacks);
+        callbacks = null;
+        return result;
+    }
+
+    /**
+     * Returns a copy of the registered callbacks as alternating callback and context entries.
+     */
+    public final Object[] getCallbacks() {
+        if (!hasCallbacks()) {
+            return null;
+        }
+        return toArray(callbacks);
+    }
+
+    public final void setCallbacks(Object[] newCallbacks) {
+        callbacks = newCallbacks == null || newCallbacks.length == 0 ? null : fromArray(newCallbacks);
+    }
+
+    @TruffleBoundary
+    private static Object[] toArray(ArrayList<Object> list) {
+        return list.toArray();
+    }
+
+    @TruffleBoundary
+    private static ArrayList<Object> fromArray(Object[] array) {
+        ArrayList<Object> list = new ArrayList<>(array.length);
+        for (Object o : array) {
+            list.add(o);
+        }
+        return list;
+    }
+}
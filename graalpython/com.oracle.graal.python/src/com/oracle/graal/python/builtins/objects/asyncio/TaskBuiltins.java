@@ -0,0 +1,649 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.asyncio;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.RuntimeError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.TypeError;
+import static com.oracle.graal.python.builtins.objects.asyncio.FutureBuiltins.T_ADD_DONE_CALLBACK;
+import static com.oracle.graal.python.builtins.objects.asyncio.FutureBuiltins.T_ASYNCIO_FUTURE_BLOCKING;
+import static com.oracle.graal.python.builtins.objects.asyncio.FutureBuiltins.T_CANCEL;
+import static com.oracle.graal.python.builtins.objects.asyncio.FutureBuiltins.T_CONTEXT;
+import static com.oracle.graal.python.builtins.objects.asyncio.FutureBuiltins.T_GET_LOOP;
+import static com.oracle.graal.python.builtins.objects.asyncio.FutureBuiltins.T_MSG;
+import static com.oracle.graal.python.builtins.objects.asyncio.FutureBuiltins.T_RESULT;
+import static com.oracle.graal.python.builtins.objects.asyncio.FutureBuiltins.T__LOOP;
+import static com.oracle.graal.python.builtins.objects.asyncio.FutureBuiltins.importAttribute;
+import static com.oracle.graal.python.builtins.objects.asyncio.FutureBuiltins.noneIfNull;
+import static com.oracle.graal.python.builtins.objects.asyncio.FutureBuiltins.nullIfNone;
+import static com.oracle.graal.python.nodes.BuiltinNames.T_ADD;
+import static com.oracle.graal.python.nodes.SpecialMethodNames.J___INIT__;
+import static com.oracle.graal.python.util.PythonUtils.tsLiteral;
+
+import java.util.List;
+
+import com.oracle.graal.python.PythonLanguage;
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.modules.AsyncioModuleBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.dict.PDict;
+import com.oracle.graal.python.builtins.objects.exception.ExceptionNodes;
+import com.oracle.graal.python.builtins.objects.exception.PBaseException;
+import com.oracle.graal.python.builtins.objects.exception.StopIterationBuiltins;
+import com.oracle.graal.python.builtins.objects.function.PKeyword;
+import com.oracle.graal.python.builtins.objects.generator.CommonGeneratorBuiltins;
+import com.oracle.graal.python.builtins.objects.generator.PGenerator;
+import com.oracle.graal.python.builtins.objects.getsetdescriptor.DescriptorDeleteMarker;
+import com.oracle.graal.python.lib.PyDictDelItem;
+import com.oracle.graal.python.lib.PyDictGetItem;
+import com.oracle.graal.python.lib.PyDictSetItem;
+import com.oracle.graal.python.lib.PyObjectCallMethodObjArgs;
+import com.oracle.graal.python.lib.PyObjectGetAttr;
+import com.oracle.graal.python.lib.PyObjectIsTrueNode;
+import com.oracle.graal.python.lib.PyObjectLookupAttr;
+import com.oracle.graal.python.lib.PyObjectReprAsTruffleStringNode;
+import com.oracle.graal.python.lib.PyObjectSetAttr;
+import com.oracle.graal.python.lib.PyObjectStrAsObjectNode;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PGuards;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.call.CallNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonQuaternaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonUnaryBuiltinNode;
+import com.oracle.graal.python.nodes.object.BuiltinClassProfiles.IsBuiltinObjectProfile;
+import com.oracle.graal.python.runtime.PythonContext;
+import com.oracle.graal.python.runtime.exception.PException;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.util.PythonUtils;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateCached;
+import com.oracle.truffle.api.dsl.GenerateInline;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.profiles.InlinedConditionProfile;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Implementation of {@code _asyncio.Task}, following {@code Modules/_asynciomodule.c}. Stepping a
+ * task whose coroutine is a {@link PGenerator} resumes the generator root directly instead of
+ * looking up and calling its {@code send} or {@code throw} methods, and futures created by
+ * {@code _asyncio.Future} are awaited without going through attribute lookups.
+ */
+@CoreFunctions(extendClasses = PythonBuiltinClassType.PTask)
+public final class TaskBuiltins extends PythonBuiltins {
+
+    private static final TruffleString T_SEND = tsLiteral("send");
+    private static final TruffleString T_THROW = tsLiteral("throw");
+    private static final TruffleString T_POP = tsLiteral("pop");
+    private static final TruffleString T_ASYNCIO_COROUTINES = tsLiteral("asyncio.coroutines");
+    private static final TruffleString T_ASYNCIO_BASE_TASKS = tsLiteral("asyncio.base_tasks");
+    private static final TruffleString T_ISCOROUTINE = tsLiteral("iscoroutine");
+    private static final TruffleString T_TASK_REPR_INFO = tsLiteral("_task_repr_info");
+    private static final TruffleString T_TASK_GET_STACK = tsLiteral("_task_get_stack");
+    private static final TruffleString T_TASK_PRINT_STACK = tsLiteral("_task_print_stack");
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return TaskBuiltinsFactory.getFactories();
+    }
+
+    @TruffleBoundary
+    private static TruffleString repr(Object object) {
+        return PyObjectReprAsTruffleStringNode.executeUncached(object);
+    }
+
+    @TruffleBoundary
+    private static boolean isCoroutine(Object coro) {
+        if (coro instanceof PGenerator generator && generator.isCoroutine()) {
+            return true;
+        }
+        Object result = CallNode.getUncached().execute(importAttribute(T_ASYNCIO_COROUTINES, T_ISCOROUTINE), coro);
+        return PyObjectIsTrueNode.getUncached().execute(null, null, result);
+    }
+
+    @TruffleBoundary
+    private static TruffleString nextTaskName() {
+        return PythonUtils.toTruffleStringUncached("Task-" + PTask.nextNameCounter());
+    }
+
+    @TruffleBoundary
+    private static void dropInitFrame(Object sourceTraceback) {
+        // like Task.__init__, hide the frame of the constructor from the source traceback
+        PyObjectCallMethodObjArgs.executeUncached(sourceTraceback, T_POP);
+    }
+
+    @TruffleBoundary
+    private static PException raiseAlreadyDone(Node inliningTarget, PTask task, Object exc) {
+        TruffleString message = PythonUtils.toTruffleStringUncached(
+                        PythonUtils.formatJString(ErrorMessages.TASK_STEP_ALREADY_DONE.toJavaStringUncached(), repr(task), repr(noneIfNull(exc))));
+        throw FutureBuiltins.raiseInvalidStateError(inliningTarget, message);
+    }
+
+    /**
+     * Schedules the next step of the task with {@code loop.call_soon}, {@code exc} may be
+     * {@code null} to resume the coroutine with {@code None}.
+     */
+    static void scheduleStep(VirtualFrame frame, Node inliningTarget, PTask task, Object exc, FutureBuiltins.CallSoonNode callSoonNode, PythonObjectFactory factory) {
+        callSoonNode.execute(frame, inliningTarget, task.getLoop(), factory.createTaskStepMethWrapper(task, exc), null, task.getContext());
+    }
+
+    /**
+     * Resumes the coroutine with either {@code send(None)} or {@code throw(exc)}.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    abstract static class ResumeCoroNode extends Node {
+        abstract Object execute(VirtualFrame frame, Node inliningTarget, Object coro, Object exc);
+
+        static boolean isGenerator(Object coro) {
+            return coro instanceof PGenerator;
+        }
+
+        @Specialization(guards = "exc == null")
+        static Object send(VirtualFrame frame, PGenerator coro, @SuppressWarnings("unused") Object exc,
+                        @Cached(inline = false) CommonGeneratorBuiltins.SendNode sendNode) {
+            return sendNode.execute(frame, coro, PNone.NONE);
+        }
+
+        @Specialization(guards = "exc != null")
+        static Object doThrow(VirtualFrame frame, PGenerator coro, Object exc,
+                        @Cached(inline = false) CommonGeneratorBuiltins.ThrowNode throwNode) {
+            return throwNode.execute(frame, coro, exc, PNone.NO_VALUE, PNone.NO_VALUE);
+        }
+
+        @Specialization(guards = "!isGenerator(coro)")
+        static Object generic(VirtualFrame frame, Node inliningTarget, Object coro, Object exc,
+                        @Cached PyObjectCallMethodObjArgs callMethod) {
+            if (exc == null) {
+                return callMethod.execute(frame, inliningTarget, coro, T_SEND, PNone.NONE);
+            }
+            return callMethod.execute(frame, inliningTarget, coro, T_THROW, exc);
+        }
+    }
+
+    /**
+     * Equivalent of {@code asyncio.futures._get_loop}.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    abstract static class GetFutureLoopNode extends Node {
+        abstract Object execute(VirtualFrame frame, Node inliningTarget, Object future);
+
+        @Specialization
+        static Object get(VirtualFrame frame, Node inliningTarget, Object future,
+                        @Cached PyObjectLookupAttr lookupAttr,
+                        @Cached PyObjectGetAttr getAttr,
+                        @Cached(inline = false) CallNode callNode) {
+            Object getLoop = lookupAttr.execute(frame, inliningTarget, future, T_GET_LOOP);
+            if (getLoop != PNone.NO_VALUE) {
+                return callNode.execute(frame, getLoop);
+            }
+            return getAttr.execute(frame, inliningTarget, future, T__LOOP);
+        }
+    }
+
+    /**
+     * The equivalent of {@code Task.__step}.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    public abstract static class TaskStepNode extends Node {
+        public abstract void execute(VirtualFrame frame, Node inliningTarget, PTask task, Object exc);
+
+        @Specialization
+        static void step(VirtualFrame frame, Node inliningTarget, PTask task, Object excArg,
+                        @Cached PyDictGetItem getItem,
+                        @Cached PyDictSetItem setItem,
+                        @Cached PyDictDelItem delItem,
+                        @Cached TaskStepImplNode stepImplNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            if (task.isDone()) {
+                throw raiseAlreadyDone(inliningTarget, task, excArg);
+            }
+            Object exc = excArg;
+            if (task.isMustCancel()) {
+                if (exc == null || !FutureBuiltins.isCancelledError(exc)) {
+                    exc = FutureBuiltins.makeCancelledError(task);
+                }
+                task.setMustCancel(false);
+            }
+            task.setFutWaiter(null);
+            Object loop = task.getLoop();
+            PDict currentTasks = AsyncioModuleBuiltins.getCurrentTasks(PythonContext.get(inliningTarget));
+            AsyncioModuleBuiltins.enterTask(frame, inliningTarget, currentTasks, loop, task, getItem, setItem, raiseNode);
+            try {
+                stepImplNode.execute(frame, inliningTarget, task, exc);
+            } finally {
+                AsyncioModuleBuiltins.leaveTask(frame, inliningTarget, currentTasks, loop, task, getItem, delItem, raiseNode);
+            }
+        }
+    }
+
+    @GenerateInline
+    @GenerateCached(false)
+    abstract static class TaskStepImplNode extends Node {
+        abstract void execute(VirtualFrame frame, Node inliningTarget, PTask task, Object exc);
+
+        @Specialization
+        static void step(VirtualFrame frame, Node inliningTarget, PTask task, Object exc,
+                        @Cached ResumeCoroNode resumeCoroNode,
+                        @Cached IsBuiltinObjectProfile isStopIteration,
+                        @Cached IsBuiltinObjectProfile isKeyboardInterrupt,
+                        @Cached IsBuiltinObjectProfile isSystemExit,
+                        @Cached(inline = false) StopIterationBuiltins.StopIterationValueNode getValue,
+                        @Cached ExceptionNodes.GetTracebackNode getTracebackNode,
+                        @Cached FutureBuiltins.ScheduleCallbacksNode scheduleCallbacksNode,
+                        @Cached TaskHandleYieldNode handleYieldNode) {
+            Object result;
+            try {
+                result = resumeCoroNode.execute(frame, inliningTarget, task.getCoro(), exc);
+            } catch (PException e) {
+                if (isStopIteration.profileException(inliningTarget, e, PythonBuiltinClassType.StopIteration)) {
+                    if (task.isMustCancel()) {
+                        // Task is cancelled right before coro stops.
+                        task.setMustCancel(false);
+                        FutureBuiltins.cancel(frame, inliningTarget, task, task.getCancelMessage(), scheduleCallbacksNode);
+                    } else {
+                        Object value = getValue.execute((PBaseException) e.getUnreifiedException());
+                        FutureBuiltins.setResult(frame, inliningTarget, task, value, scheduleCallbacksNode);
+                    }
+                    return;
+                }
+                Object exception = e.getEscapedException();
+                if (FutureBuiltins.isCancelledError(exception)) {
+                    // Save the original exception so we can chain it later.
+                    task.setCancelledExc(exception);
+                    FutureBuiltins.cancel(frame, inliningTarget, task, null, scheduleCallbacksNode);
+                    return;
+                }
+                FutureBuiltins.setException(frame, inliningTarget, task, exception, getTracebackNode.execute(inliningTarget, exception), scheduleCallbacksNode);
+                if (isKeyboardInterrupt.profileException(inliningTarget, e, PythonBuiltinClassType.KeyboardInterrupt) ||
+                                isSystemExit.profileException(inliningTarget, e, PythonBuiltinClassType.SystemExit)) {
+                    throw e;
+                }
+                return;
+            }
+            handleYieldNode.execute(frame, inliningTarget, task, result);
+        }
+    }
+
+    /**
+     * Decides what to do with a value yielded by the task's coroutine: wait for a future, yield
+     * control for one loop iteration on a bare {@code yield}, or report a misuse by throwing a
+     * {@code RuntimeError} into the coroutine on the next step.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    abstract static class TaskHandleYieldNode extends Node {
+        abstract void execute(VirtualFrame frame, Node inliningTarget, PTask task, Object result);
+
+        @Specialization
+        static void handle(VirtualFrame frame, Node inliningTarget, PTask task, Object result,
+                        @Cached IsBuiltinObjectProfile isFutureProfile,
+                        @Cached IsBuiltinObjectProfile isTaskProfile,
+                        @Cached InlinedConditionProfile noneProfile,
+                        @Cached FutureBuiltins.AddDoneCallbackNode addDoneCallbackNode,
+                        @Cached FutureBuiltins.CallSoonNode callSoonNode,
+                        @Cached PyObjectLookupAttr lookupAttr,
+                        @Cached PyObjectSetAttr setAttr,
+                        @Cached PyObjectIsTrueNode isTrueNode,
+                        @Cached PyObjectCallMethodObjArgs callMethod,
+                        @Cached GetFutureLoopNode getFutureLoopNode,
+                        @Cached(inline = false) CallNode callNode,
+                        @Cached PyObjectGetAttr getAttr,
+                        @Cached(inline = false) PythonObjectFactory factory) {
+            if (isFutureProfile.profileObject(inliningTarget, result, PythonBuiltinClassType.PFuture) ||
+                            isTaskProfile.profileObject(inliningTarget, result, PythonBuiltinClassType.PTask)) {
+                // fast path for futures created by this module, avoids the attribute protocol
+                PFuture future = (PFuture) result;
+                if (future.getLoop() != task.getLoop()) {
+                    scheduleStep(frame, inliningTarget, task, makeDifferentLoopError(task, result, factory), callSoonNode, factory);
+                } else if (future.isBlocking()) {
+                    if (result == task) {
+                        scheduleStep(frame, inliningTarget, task, factory.createBaseException(RuntimeError, ErrorMessages.TASK_AWAIT_ON_ITSELF, new Object[]{repr(task)}), callSoonNode, factory);
+                    } else {
+                        future.setBlocking(false);
+                        addDoneCallbackNode.execute(frame, inliningTarget, future, factory.createTaskWakeupMethWrapper(task), task.getContext());
+                        waitFor(frame, inliningTarget, task, future, getAttr, callNode, isTrueNode);
+                    }
+                } else {
+                    scheduleStep(frame, inliningTarget, task, makeYieldError(task, result, factory), callSoonNode, factory);
+                }
+                return;
+            }
+            if (noneProfile.profile(inliningTarget, result == PNone.NONE)) {
+                // Bare yield relinquishes control for one event loop iteration.
+                scheduleStep(frame, inliningTarget, task, null, callSoonNode, factory);
+                return;
+            }
+            Object blocking = lookupAttr.execute(frame, inliningTarget, result, T_ASYNCIO_FUTURE_BLOCKING);
+            if (blocking != PNone.NO_VALUE && blocking != PNone.NONE) {
+                // Yielded Future must come from Future.__iter__().
+                if (getFutureLoopNode.execute(frame, inliningTarget, result) != task.getLoop()) {
+                    scheduleStep(frame, inliningTarget, task, makeDifferentLoopError(task, result, factory), callSoonNode, factory);
+                } else if (isTrueNode.execute(frame, inliningTarget, blocking)) {
+                    if (result == task) {
+                        scheduleStep(frame, inliningTarget, task, factory.createBaseException(RuntimeError, ErrorMessages.TASK_AWAIT_ON_ITSELF, new Object[]{repr(task)}), callSoonNode, factory);
+                    } else {
+                        setAttr.execute(frame, inliningTarget, result, T_ASYNCIO_FUTURE_BLOCKING, false);
+                        Object addDoneCallback = getAttr.execute(frame, inliningTarget, result, T_ADD_DONE_CALLBACK);
+                        callNode.execute(frame, addDoneCallback, new Object[]{factory.createTaskWakeupMethWrapper(task)}, new PKeyword[]{new PKeyword(T_CONTEXT, task.getContext())});
+                        waitFor(frame, inliningTarget, task, result, getAttr, callNode, isTrueNode);
+                    }
+                } else {
+                    scheduleStep(frame, inliningTarget, task, makeYieldError(task, result, factory), callSoonNode, factory);
+                }
+                return;
+            }
+            if (result instanceof PGenerator generator && !generator.isCoroutine() && !generator.isAsyncGen()) {
+                // Yielding a generator is just wrong.
+                Object error = factory.createBaseException(RuntimeError, ErrorMessages.TASK_YIELD_GENERATOR, new Object[]{repr(task), repr(result)});
+                scheduleStep(frame, inliningTarget, task, error, callSoonNode, factory);
+            } else {
+                // Yielding something else is an error.
+                scheduleStep(frame, inliningTarget, task, factory.createBaseException(RuntimeError, ErrorMessages.TASK_BAD_YIELD, new Object[]{repr(result)}), callSoonNode, factory);
+            }
+        }
+
+        private static void waitFor(VirtualFrame frame, Node inliningTarget, PTask task, Object future, PyObjectGetAttr getAttr, CallNode callNode, PyObjectIsTrueNode isTrueNode) {
+            task.setFutWaiter(future);
+            if (task.isMustCancel()) {
+                Object cancel = getAttr.execute(frame, inliningTarget, future, T_CANCEL);
+                Object cancelled = callNode.execute(frame, cancel, PythonUtils.EMPTY_OBJECT_ARRAY, new PKeyword[]{new PKeyword(T_MSG, noneIfNull(task.getCancelMessage()))});
+                if (isTrueNode.execute(frame, inliningTarget, cancelled)) {
+                    task.setMustCancel(false);
+                }
+            }
+        }
+
+        private static Object makeDifferentLoopError(PTask task, Object future, PythonObjectFactory factory) {
+            return factory.createBaseException(RuntimeError, ErrorMessages.TASK_FUTURE_DIFFERENT_LOOP, new Object[]{repr(task), repr(future)});
+        }
+
+        private static Object makeYieldError(PTask task, Object result, PythonObjectFactory factory) {
+            return factory.createBaseException(RuntimeError, ErrorMessages.TASK_YIELD_INSTEAD_OF_YIELD_FROM, new Object[]{repr(task), repr(result)});
+        }
+    }
+
+    /**
+     * The equivalent of {@code Task.__wakeup}.
+     */
+    @GenerateInline
+    @GenerateCached(false)
+    public abstract static class TaskWakeupNode extends Node {
+        public abstract void execute(VirtualFrame frame, Node inliningTarget, PTask task, Object future);
+
+        @Specialization
+        static void wakeup(VirtualFrame frame, Node inliningTarget, PTask task, Object future,
+                        @Cached IsBuiltinObjectProfile isFutureProfile,
+                        @Cached IsBuiltinObjectProfile isTaskProfile,
+                        @Cached FutureBuiltins.GetResultNode getResultNode,
+                        @Cached PyObjectCallMethodObjArgs callMethod,
+                        @Cached TaskStepNode stepNode) {
+            Object exc = null;
+            try {
+                if (isFutureProfile.profileObject(inliningTarget, future, PythonBuiltinClassType.PFuture) ||
+                                isTaskProfile.profileObject(inliningTarget, future, PythonBuiltinClassType.PTask)) {
+                    getResultNode.execute(inliningTarget, (PFuture) future);
+                } else {
+                    callMethod.execute(frame, inliningTarget, future, T_RESULT);
+                }
+            } catch (PException e) {
+                // This may also be a cancellation.
+                exc = e.getEscapedException();
+            }
+            // Don't pass the value of the result, Future.__iter__ and Future.__await__ don't need
+            // it and sending None is faster.
+            stepNode.execute(frame, inliningTarget, task, exc);
+        }
+    }
+
+    @Builtin(name = J___INIT__, minNumOfPositionalArgs = 2, parameterNames = {"$self", "coro"}, keywordOnlyNames = {"loop", "name"})
+    @GenerateNodeFactory
+    abstract static class InitNode extends PythonQuaternaryBuiltinNode {
+        @Specialization
+        static Object init(VirtualFrame frame, PTask self, Object coro, Object loop, Object name,
+                        @Bind("this") Node inliningTarget,
+                        @Cached FutureBuiltins.InitFutureNode initFutureNode,
+                        @Cached PyObjectStrAsObjectNode strNode,
+                        @Cached FutureBuiltins.CallSoonNode callSoonNode,
+                        @Cached PyObjectCallMethodObjArgs callMethod,
+                        @Cached PythonObjectFactory factory,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            initFutureNode.execute(frame, inliningTarget, self, loop);
+            if (self.getSourceTraceback() != null) {
+                dropInitFrame(self.getSourceTraceback());
+            }
+            if (!isCoroutine(coro)) {
+                // prevent logging for pending task in __del__
+                self.setLogDestroyPending(false);
+                throw raiseNode.get(inliningTarget).raise(TypeError, ErrorMessages.TASK_EXPECTED_COROUTINE, repr(coro));
+            }
+            if (PGuards.isPNone(name)) {
+                self.setName(nextTaskName());
+            } else if (name instanceof TruffleString) {
+                self.setName(name);
+            } else {
+                self.setName(strNode.execute(frame, inliningTarget, name));
+            }
+            self.setMustCancel(false);
+            self.setFutWaiter(null);
+            self.setCoro(coro);
+            PythonContext.PythonThreadState threadState = PythonContext.get(inliningTarget).getThreadState(PythonLanguage.get(inliningTarget));
+            self.setContext(factory.copyContextVarsContext(threadState.getContextVarsContext()));
+            scheduleStep(frame, inliningTarget, self, null, callSoonNode, factory);
+            callMethod.execute(frame, inliningTarget, AsyncioModuleBuiltins.getAllTasks(PythonContext.get(inliningTarget)), T_ADD, self);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "_repr_info", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class ReprInfoNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object reprInfo(VirtualFrame frame, PTask self,
+                        @Cached CallNode callNode) {
+            return callNode.execute(frame, importAttribute(T_ASYNCIO_BASE_TASKS, T_TASK_REPR_INFO), self);
+        }
+    }
+
+    @Builtin(name = "get_coro", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class GetCoroNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object getCoro(PTask self) {
+            return noneIfNull(self.getCoro());
+        }
+    }
+
+    @Builtin(name = "get_name", minNumOfPositionalArgs = 1)
+    @GenerateNodeFactory
+    abstract static class GetNameNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object getName(PTask self) {
+            return noneIfNull(self.getName());
+        }
+    }
+
+    @Builtin(name = "set_name", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    abstract static class SetNameNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object setName(VirtualFrame frame, PTask self, Object value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectStrAsObjectNode strNode) {
+            self.setName(value instanceof TruffleString ? value : strNode.execute(frame, inliningTarget, value));
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "set_result", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    abstract static class SetResultNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object setResult(@SuppressWarnings("unused") PTask self, @SuppressWarnings("unused") Object result,
+                        @Cached PRaiseNode raiseNode) {
+            throw raiseNode.raise(RuntimeError, ErrorMessages.TASK_NO_SET_RESULT);
+        }
+    }
+
+    @Builtin(name = "set_exception", minNumOfPositionalArgs = 2)
+    @GenerateNodeFactory
+    abstract static class SetExceptionNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object setException(@SuppressWarnings("unused") PTask self, @SuppressWarnings("unused") Object exception,
+                        @Cached PRaiseNode raiseNode) {
+            throw raiseNode.raise(RuntimeError, ErrorMessages.TASK_NO_SET_EXCEPTION);
+        }
+    }
+
+    @Builtin(name = "cancel", minNumOfPositionalArgs = 1, parameterNames = {"$self", "msg"})
+    @GenerateNodeFactory
+    abstract static class CancelNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static boolean cancel(VirtualFrame frame, PTask self, Object msgArg,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectGetAttr getAttr,
+                        @Cached CallNode callNode,
+                        @Cached PyObjectIsTrueNode isTrueNode) {
+            self.setLogTraceback(false);
+            if (self.isDone()) {
+                return false;
+            }
+            Object msg = msgArg == PNone.NO_VALUE ? PNone.NONE : msgArg;
+            Object futWaiter = self.getFutWaiter();
+            if (futWaiter != null) {
+                Object cancel = getAttr.execute(frame, inliningTarget, futWaiter, T_CANCEL);
+                if (isTrueNode.execute(frame, inliningTarget, callNode.execute(frame, cancel, PythonUtils.EMPTY_OBJECT_ARRAY, new PKeyword[]{new PKeyword(T_MSG, msg)}))) {
+                    // Leave fut_waiter; it may be a Task that catches and ignores the
+                    // cancellation so we may have to cancel it again later.
+                    return true;
+                }
+            }
+            // It must be the case that the next step is already scheduled.
+            self.setMustCancel(true);
+            self.setCancelMessage(nullIfNone(msg));
+            return true;
+        }
+    }
+
+    @Builtin(name = "get_stack", minNumOfPositionalArgs = 1, parameterNames = {"$self"}, keywordOnlyNames = {"limit"})
+    @GenerateNodeFactory
+    abstract static class GetStackNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static Object getStack(VirtualFrame frame, PTask self, Object limit,
+                        @Cached CallNode callNode) {
+            return callNode.execute(frame, importAttribute(T_ASYNCIO_BASE_TASKS, T_TASK_GET_STACK), self, noneIfNoValue(limit));
+        }
+    }
+
+    @Builtin(name = "print_stack", minNumOfPositionalArgs = 1, parameterNames = {"$self"}, keywordOnlyNames = {"limit", "file"})
+    @GenerateNodeFactory
+    abstract static class PrintStackNode extends PythonTernaryBuiltinNode {
+        @Specialization
+        static Object printStack(VirtualFrame frame, PTask self, Object limit, Object file,
+                        @Cached CallNode callNode) {
+            return callNode.execute(frame, importAttribute(T_ASYNCIO_BASE_TASKS, T_TASK_PRINT_STACK), self, noneIfNoValue(limit), noneIfNoValue(file));
+        }
+    }
+
+    private static Object noneIfNoValue(Object value) {
+        return value == PNone.NO_VALUE ? PNone.NONE : value;
+    }
+
+    @Builtin(name = "_log_destroy_pending", minNumOfPositionalArgs = 1, maxNumOfPositionalArgs = 2, isGetter = true, isSetter = true)
+    @GenerateNodeFactory
+    abstract static class LogDestroyPendingNode extends PythonBinaryBuiltinNode {
+        @Specialization(guards = "isNoValue(value)")
+        static Object get(PTask self, @SuppressWarnings("unused") PNone value) {
+            return self.isLogDestroyPending();
+        }
+
+        @Specialization(guards = "!isNoValue(value)")
+        static Object set(VirtualFrame frame, PTask self, Object value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectIsTrueNode isTrueNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            if (value instanceof DescriptorDeleteMarker) {
+                throw raiseNode.get(inliningTarget).raise(PythonBuiltinClassType.AttributeError, ErrorMessages.CANNOT_DELETE);
+            }
+            self.setLogDestroyPending(isTrueNode.execute(frame, inliningTarget, value));
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "_must_cancel", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class MustCancelNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object mustCancel(PTask self) {
+            return self.isMustCancel();
+        }
+    }
+
+    @Builtin(name = "_coro", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class CoroNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object coro(PTask self) {
+            return noneIfNull(self.getCoro());
+        }
+    }
+
+    @Builtin(name = "_fut_waiter", minNumOfPositionalArgs = 1, isGetter = true)
+    @GenerateNodeFactory
+    abstract static class FutWaiterNode extends PythonUnaryBuiltinNode {
+        @Specialization
+        static Object futWaiter(PTask self) {
+            return noneIfNull(self.getFutWaiter());
+        }
+    }
+}
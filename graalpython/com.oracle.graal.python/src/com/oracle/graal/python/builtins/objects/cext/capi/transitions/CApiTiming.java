@@ -44,16 +44,32 @@ import static java.util.stream.Collectors.summingLong;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.stream.Stream;
 
 import org.graalvm.nativeimage.ImageInfo;
 
+import com.oracle.graal.python.runtime.PythonOptions.CApiProfilingMode;
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
 
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Counts and times C API upcalls and downcalls, and the native wrappers allocated while they run.
+ * Profiling is off by default and can be switched on with the {@code python.CApiProfiling}
+ * option, from Python via {@code __graalpython__.capi_profiling}, or with the
+ * {@code python.CAPITiming} system property, which also prints the statistics periodically. The
+ * statistics are global to the process and are also emitted as periodic
+ * {@link CApiFunctionEvent JFR events}.
+ */
 public final class CApiTiming {
 
     /**
-     * Set this property to non-zero to enable timing of C API calls (upcalls and downcalls).
+     * Set this property to non-zero to enable timing of C API calls (upcalls and downcalls) and to
+     * print the statistics every so many milliseconds.
      */
     private static final int PROFILE_CALL_INTERVAL = Integer.getInteger("python.CAPITiming", 0);
 
@@ -67,34 +83,54 @@ public final class CApiTiming {
      */
     private static final double CUTOFF_COUNT = 0.95;
 
+    /**
+     * Stays valid as long as profiling has never been enabled, so that {@link #enter()} and
+     * {@link #exit(CApiTiming)} fold away in compiled code.
+     */
+    private static final Assumption NOT_PROFILING = Truffle.getRuntime().createAssumption("C API is not profiled");
+
+    private static volatile CApiProfilingMode mode = CApiProfilingMode.NONE;
+    /**
+     * Incremented on every mode change. Per-thread stacks of an older generation are discarded,
+     * because they may contain calls that were entered in a different mode.
+     */
+    private static volatile int generation;
+    private static boolean jfrRegistered;
+
     private static final class TimingStack {
         long[] subTimes = new long[INITIAL_STACK + 1];
         long[] startTimes = new long[INITIAL_STACK];
+        long[] allocations = new long[INITIAL_STACK];
         int sp;
+        int generation;
     }
 
     private static final ThreadLocal<TimingStack> STACK = ThreadLocal.withInitial(TimingStack::new);
     private static final ArrayList<CApiTiming> TIMINGS = new ArrayList<>();
 
-    private final String name;
+    private final Object delegate;
     private final boolean fromJava;
+    private String name;
     private long time;
     private long count;
+    private long allocations;
 
-    private CApiTiming(boolean fromJava, String name) {
+    private CApiTiming(boolean fromJava, Object delegate) {
         this.fromJava = fromJava;
-        this.name = name;
-        synchronized (TIMINGS) {
-            TIMINGS.add(this);
-        }
+        this.delegate = delegate;
     }
 
+    /**
+     * Creates the statistics of one C API function. The object only registers itself, and only
+     * computes its name, once a call is recorded for it.
+     */
     public static CApiTiming create(boolean fromJava, Object delegate) {
-        return PROFILE_CALL_INTERVAL == 0 ? null : new CApiTiming(fromJava, delegate + (fromJava ? " J->N" : " N->J"));
+        return new CApiTiming(fromJava, delegate);
     }
 
     static {
         if (PROFILE_CALL_INTERVAL != 0 && !ImageInfo.inImageBuildtimeCode()) {
+            setMode(CApiProfilingMode.TIME);
             Thread thread = new Thread() {
                 @Override
                 public void run() {
@@ -122,6 +158,91 @@ public final class CApiTiming {
         }
     }
 
+    @TruffleBoundary
+    public static CApiProfilingMode getMode() {
+        return mode;
+    }
+
+    @TruffleBoundary
+    public static void setMode(CApiProfilingMode newMode) {
+        synchronized (TIMINGS) {
+            if (newMode != CApiProfilingMode.NONE) {
+                NOT_PROFILING.invalidate();
+                if (!jfrRegistered && !ImageInfo.inImageBuildtimeCode()) {
+                    jfrRegistered = true;
+                    registerJfrEvent();
+                }
+            }
+            if (mode != newMode) {
+                mode = newMode;
+                generation++;
+            }
+        }
+    }
+
+    /**
+     * The JFR events are optional, profiling also works if the VM or native image comes without
+     * JFR.
+     */
+    private static void registerJfrEvent() {
+        try {
+            if (FlightRecorder.isAvailable()) {
+                FlightRecorder.addPeriodicEvent(CApiFunctionEvent.class, CApiTiming::emitEvents);
+            }
+        } catch (LinkageError | IllegalStateException | SecurityException e) {
+            // no JFR
+        }
+    }
+
+    /**
+     * Clears the statistics of all functions, also the ones reported in the JFR events.
+     */
+    @TruffleBoundary
+    public static void reset() {
+        synchronized (TIMINGS) {
+            for (CApiTiming t : TIMINGS) {
+                t.count = 0;
+                t.time = 0;
+                t.allocations = 0;
+            }
+        }
+    }
+
+    /**
+     * The statistics of one function, summed over all call sites with the same name and direction.
+     */
+    public record Entry(String name, boolean downcall, long count, long time, long allocations) {
+    }
+
+    /**
+     * Returns the recorded statistics, sorted by descending time and then by descending count.
+     */
+    @TruffleBoundary
+    public static List<Entry> getStatistics() {
+        LinkedHashMap<String, Entry> sums = new LinkedHashMap<>();
+        synchronized (TIMINGS) {
+            for (CApiTiming t : TIMINGS) {
+                sums.merge(t.getDisplayName(), new Entry(t.name, t.fromJava, t.count, t.time, t.allocations),
+                                (a, b) -> new Entry(a.name(), a.downcall(), a.count() + b.count(), a.time() + b.time(), a.allocations() + b.allocations()));
+            }
+        }
+        ArrayList<Entry> result = new ArrayList<>(sums.values());
+        result.sort((a, b) -> a.time() != b.time() ? Long.compare(b.time(), a.time()) : Long.compare(b.count(), a.count()));
+        return result;
+    }
+
+    private static void emitEvents() {
+        for (Entry e : getStatistics()) {
+            CApiFunctionEvent event = new CApiFunctionEvent();
+            event.function = e.name();
+            event.direction = e.downcall() ? "downcall" : "upcall";
+            event.calls = e.count();
+            event.time = e.time();
+            event.wrapperAllocations = e.allocations();
+            event.commit();
+        }
+    }
+
     private static void dumpCallStatistics() {
         ArrayList<CApiTiming> sorted = new ArrayList<>(TIMINGS);
         sorted.sort((a, b) -> Boolean.compare(a.fromJava, b.fromJava) * 100 + a.name.compareTo(b.name));
@@ -136,7 +257,7 @@ public final class CApiTiming {
         long visibleTime = 0;
         for (var e : sorted) {
             if (e.time >= cutoffTime || e.count >= cutoffCount) {
-                System.out.printf("%70s  %8s %8sms %s\n", e.name, e.count, e.time / 1000000, stars(percent, e.time));
+                System.out.printf("%70s  %8s %8sms %s\n", e.getDisplayName(), e.count, e.time / 1000000, stars(percent, e.time));
                 visibleCount += e.count;
                 visibleTime += e.time;
             }
@@ -171,40 +292,104 @@ public final class CApiTiming {
         return String.format("%2d", value) + "% " + STARS.substring(0, value);
     }
 
+    private String getDisplayName() {
+        return name + (fromJava ? " J->N" : " N->J");
+    }
+
     public static void enter() {
-        if (PROFILE_CALL_INTERVAL != 0) {
+        if (!NOT_PROFILING.isValid()) {
             enterInternal();
         }
     }
 
     public static void exit(CApiTiming t) {
-        if (PROFILE_CALL_INTERVAL != 0) {
+        if (!NOT_PROFILING.isValid()) {
             exitInternal(t);
         }
     }
 
+    /**
+     * Records that a native wrapper or a managed reference to a native object was allocated. It is
+     * attributed to the innermost C API function that is currently running on this thread.
+     */
+    public static void allocation() {
+        if (!NOT_PROFILING.isValid()) {
+            allocationInternal();
+        }
+    }
+
+    private static TimingStack getStack() {
+        TimingStack stack = STACK.get();
+        int currentGeneration = generation;
+        if (stack.generation != currentGeneration) {
+            stack.sp = 0;
+            stack.generation = currentGeneration;
+        }
+        return stack;
+    }
+
     @TruffleBoundary
     private static void enterInternal() {
-        TimingStack stack = STACK.get();
+        CApiProfilingMode currentMode = mode;
+        if (currentMode == CApiProfilingMode.NONE) {
+            return;
+        }
+        TimingStack stack = getStack();
         if (stack.sp >= stack.startTimes.length) {
             // grow stack if necessary
             int newSize = stack.startTimes.length * 2;
-            stack.subTimes = Arrays.copyOf(stack.subTimes, newSize);
+            stack.subTimes = Arrays.copyOf(stack.subTimes, newSize + 1);
             stack.startTimes = Arrays.copyOf(stack.startTimes, newSize);
+            stack.allocations = Arrays.copyOf(stack.allocations, newSize);
         }
         stack.subTimes[stack.sp] = 0;
-        stack.startTimes[stack.sp++] = System.nanoTime();
+        stack.allocations[stack.sp] = 0;
+        stack.startTimes[stack.sp++] = currentMode == CApiProfilingMode.TIME ? System.nanoTime() : 0;
     }
 
     @TruffleBoundary
     private static void exitInternal(CApiTiming t) {
-        TimingStack stack = STACK.get();
-        long startTime = stack.startTimes[--stack.sp];
-        long delta = System.nanoTime() - startTime;
-        t.time += delta - stack.subTimes[stack.sp];
-        if (stack.sp > 0) {
-            stack.subTimes[stack.sp - 1] += delta;
+        CApiProfilingMode currentMode = mode;
+        if (currentMode == CApiProfilingMode.NONE) {
+            return;
+        }
+        TimingStack stack = getStack();
+        if (stack.sp == 0) {
+            // the call was entered before profiling was enabled
+            return;
         }
+        int sp = --stack.sp;
+        if (currentMode == CApiProfilingMode.TIME) {
+            long delta = System.nanoTime() - stack.startTimes[sp];
+            t.time += delta - stack.subTimes[sp];
+            if (sp > 0) {
+                stack.subTimes[sp - 1] += delta;
+            }
+        }
+        t.allocations += stack.allocations[sp];
         t.count++;
+        if (t.name == null) {
+            register(t);
+        }
+    }
+
+    @TruffleBoundary
+    private static void allocationInternal() {
+        if (mode != CApiProfilingMode.NONE) {
+            TimingStack stack = getStack();
+            if (stack.sp > 0) {
+                stack.allocations[stack.sp - 1]++;
+            }
+        }
+    }
+
+    private static void register(CApiTiming t) {
+        String name = String.valueOf(t.delegate);
+        synchronized (TIMINGS) {
+            if (t.name == null) {
+                t.name = name;
+                TIMINGS.add(t);
+            }
+        }
     }
 }
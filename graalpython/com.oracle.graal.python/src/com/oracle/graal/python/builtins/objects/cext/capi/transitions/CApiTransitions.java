@@ -43,11 +43,9 @@ package com.oracle.graal.python.builtins.objects.cext.capi.transitions;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.WeakHashMap;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 import com.oracle.graal.python.builtins.objects.PNone;
@@ -73,6 +71,7 @@ import com.oracle.graal.python.builtins.objects.cext.capi.transitions.CApiTransi
 import com.oracle.graal.python.builtins.objects.cext.common.CExtToJavaNode;
 import com.oracle.graal.python.builtins.objects.cext.common.CExtToNativeNode;
 import com.oracle.graal.python.builtins.objects.cext.common.HandleStack;
+import com.oracle.graal.python.builtins.objects.cext.common.LongObjectMap;
 import com.oracle.graal.python.builtins.objects.cext.structs.CStructAccessFactory;
 import com.oracle.graal.python.builtins.objects.getsetdescriptor.DescriptorDeleteMarker;
 import com.oracle.graal.python.nodes.PNodeWithContext;
@@ -121,8 +120,13 @@ public class CApiTransitions {
         private static final int DEFAULT_CAPACITY = 10;
 
         public final NativeObjectReferenceArrayWrapper referencesToBeFreed = new NativeObjectReferenceArrayWrapper();
-        public final HashMap<Long, IdReference<?>> nativeLookup = new HashMap<>();
-        public final ConcurrentHashMap<Long, Long> nativeWeakRef = new ConcurrentHashMap<>();
+        public final LongObjectMap<IdReference<?>> nativeLookup = new LongObjectMap<>();
+        /**
+         * Native objects with weak references that need to be deallocated at exit. Entries are
+         * removed from the weakref callback action without holding the GIL, so all accesses
+         * synchronize on the map.
+         */
+        public final LongObjectMap<NativeObjectReference> nativeWeakRef = new LongObjectMap<>();
         public final WeakHashMap<Object, WeakReference<Object>> managedNativeLookup = new WeakHashMap<>();
         public final ArrayList<PythonObjectReference> nativeHandles = new ArrayList<>(DEFAULT_CAPACITY);
         public final HandleStack nativeHandlesFreeStack = new HandleStack(DEFAULT_CAPACITY);
@@ -160,6 +164,7 @@ public class CApiTransitions {
             this.strongReference = referent.getRefCount() > PythonNativeWrapper.MANAGED_REFCNT ? referent : null;
             LOGGER.finer(() -> PythonUtils.formatJString("new %s PythonObjectReference<%s> to %s", (strongReference == null ? "weak" : "strong"), Long.toHexString(pointer), referent));
             referent.ref = this;
+            CApiTiming.allocation();
         }
 
         @Override
@@ -180,6 +185,7 @@ public class CApiTransitions {
             referent.ref = this;
             assert (pointer & 7) == 0;
             LOGGER.finer(() -> PythonUtils.formatJString("new NativeObjectReference<%s> to %s", Long.toHexString(pointer), referent));
+            CApiTiming.allocation();
         }
 
         @Override
@@ -249,6 +255,7 @@ public class CApiTransitions {
                                 CStructAccessFactory.FreeNodeGen.getUncached().free(array);
                                 referencesToBeFreed.reset();
                             }
+                            context.nativeLookup.trim();
                             context.referenceQueuePollActive = false;
                             LOGGER.fine("collected " + count + " references from native reference queue in " + ((System.nanoTime() - start) / 1000000) + "ms");
                         }
@@ -299,7 +306,10 @@ public class CApiTransitions {
      */
     @TruffleBoundary
     public static void addNativeWeakRef(PythonContext pythonContext, PythonAbstractNativeObject object) {
-        pythonContext.nativeContext.nativeWeakRef.put(getNativePointer(object), 0L);
+        LongObjectMap<NativeObjectReference> nativeWeakRef = pythonContext.nativeContext.nativeWeakRef;
+        synchronized (nativeWeakRef) {
+            nativeWeakRef.put(object.ref.pointer, object.ref);
+        }
     }
 
     /**
@@ -308,7 +318,10 @@ public class CApiTransitions {
      */
     @TruffleBoundary
     public static void removeNativeWeakRef(PythonContext pythonContext, long pointer) {
-        pythonContext.nativeContext.nativeWeakRef.remove(pointer);
+        LongObjectMap<NativeObjectReference> nativeWeakRef = pythonContext.nativeContext.nativeWeakRef;
+        synchronized (nativeWeakRef) {
+            nativeWeakRef.remove(pointer);
+        }
     }
 
     public static long getNativePointer(Object obj) {
@@ -327,12 +340,15 @@ public class CApiTransitions {
         }
         HandleContext context = pythonContext.nativeContext;
         int idx = -1;
-        Object[] list = context.nativeWeakRef.values().toArray();
-        context.nativeWeakRef.clear();
+        long[] list;
+        synchronized (context.nativeWeakRef) {
+            list = context.nativeWeakRef.keys();
+            context.nativeWeakRef.clear();
+        }
         long[] ptrArray = new long[list.length];
-        for (Object ptr : list) {
+        for (long ptr : list) {
             if (context.nativeLookup.containsKey(ptr)) {
-                ptrArray[++idx] = (Long) ptr;
+                ptrArray[++idx] = ptr;
             }
         }
         if (idx != -1) {
@@ -343,11 +359,13 @@ public class CApiTransitions {
                 CExtNodes.PCallCapiFunction.callUncached(NativeCAPISymbol.FUN_SHUTDOWN_BULK_DEALLOC, array, len);
             } finally {
                 CStructAccessFactory.FreeNodeGen.getUncached().free(array);
-                context.nativeWeakRef.clear();
             }
         }
-        if (context.nativeWeakRef.size() > 0) {
-            LOGGER.warning("Weak references have been added during shutdown!");
+        synchronized (context.nativeWeakRef) {
+            if (!context.nativeWeakRef.isEmpty()) {
+                LOGGER.warning("Weak references have been added during shutdown!");
+                context.nativeWeakRef.clear();
+            }
         }
     }
 
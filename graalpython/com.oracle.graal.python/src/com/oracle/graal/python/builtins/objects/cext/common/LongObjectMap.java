@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.cext.common;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from {@code long} keys to objects with open addressing and linear probing. It is
+ * used for the pointer lookup tables of the C API, where a {@code HashMap<Long, V>} would box
+ * every key on each lookup. Zero is not a valid key because it marks free slots. The map is not
+ * synchronized; callers either hold the GIL or lock the map themselves.
+ */
+public final class LongObjectMap<V> {
+    private static final int MIN_CAPACITY = 16;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int shift;
+
+    public LongObjectMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        assert Integer.bitCount(capacity) == 1;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * Pointers are aligned, so their low bits carry no information. Fibonacci hashing takes the
+     * high bits of the product instead.
+     */
+    private int slot(long key) {
+        return (int) ((key * HASH_MULTIPLIER) >>> shift);
+    }
+
+    private int find(long key) {
+        assert key != 0;
+        long[] k = keys;
+        int mask = k.length - 1;
+        int i = slot(key);
+        while (true) {
+            long cur = k[i];
+            if (cur == key) {
+                return i;
+            } else if (cur == 0) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int i = find(key);
+        return i >= 0 ? (V) values[i] : null;
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        assert key != 0;
+        assert value != null;
+        long[] k = keys;
+        int mask = k.length - 1;
+        int i = slot(key);
+        while (true) {
+            long cur = k[i];
+            if (cur == key) {
+                Object old = values[i];
+                values[i] = value;
+                return (V) old;
+            } else if (cur == 0) {
+                k[i] = key;
+                values[i] = value;
+                if (++size * 2 > k.length) {
+                    rehash(k.length * 2);
+                }
+                return null;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes the mapping and moves later entries of the same probe sequence back into the freed
+     * slot, so that the table never contains tombstones.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int hole = find(key);
+        if (hole < 0) {
+            return null;
+        }
+        long[] k = keys;
+        Object[] v = values;
+        int mask = k.length - 1;
+        Object old = v[hole];
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            long cur = k[i];
+            if (cur == 0) {
+                break;
+            }
+            // the entry may move into the hole if the hole lies between its home slot and i
+            if (((i - slot(cur)) & mask) >= ((i - hole) & mask)) {
+                k[hole] = cur;
+                v[hole] = v[i];
+                hole = i;
+            }
+        }
+        k[hole] = 0;
+        v[hole] = null;
+        size--;
+        return (V) old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (keys.length > MIN_CAPACITY) {
+            allocate(MIN_CAPACITY);
+        } else {
+            Arrays.fill(keys, 0);
+            Arrays.fill(values, null);
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns a copy of all keys in no particular order.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int j = 0;
+        for (long key : keys) {
+            if (key != 0) {
+                result[j++] = key;
+            }
+        }
+        assert j == size;
+        return result;
+    }
+
+    /**
+     * Shrinks the table if at most one eighth of it is in use, e.g., after many entries have been
+     * removed while processing the reference queue.
+     */
+    public void trim() {
+        if (keys.length > MIN_CAPACITY && size * 8 <= keys.length) {
+            rehash(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(size, 1) * 4)));
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        long[] k = keys;
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key != 0) {
+                int i = slot(key);
+                while (k[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                k[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
@@ -78,10 +78,26 @@ public class EconomicMapStorage extends HashingStorage {
         return new EconomicMapStorage(initialCapacity, false);
     }
 
+    /**
+     * Creates storage that is expected to hold only {@code None} values, i.e., a storage of a set.
+     * Other values are still supported, but the first one makes the storage reallocate its items.
+     */
+    public static EconomicMapStorage createForSet(int initialCapacity) {
+        return new EconomicMapStorage(initialCapacity, false, true);
+    }
+
+    public static EconomicMapStorage createForSetWithSideEffects() {
+        return new EconomicMapStorage(4, true, true);
+    }
+
     final ObjectHashMap map;
 
     private EconomicMapStorage(int initialCapacity, boolean hasSideEffects) {
-        this.map = new ObjectHashMap(initialCapacity, hasSideEffects);
+        this(initialCapacity, hasSideEffects, false);
+    }
+
+    private EconomicMapStorage(int initialCapacity, boolean hasSideEffects, boolean keysOnly) {
+        this.map = new ObjectHashMap(initialCapacity, hasSideEffects, keysOnly);
     }
 
     private EconomicMapStorage() {
@@ -110,6 +126,14 @@ public class EconomicMapStorage extends HashingStorage {
         return map.size();
     }
 
+    /**
+     * Returns a cursor over the entries in insertion order. Meant for uncached bulk consumers that
+     * would otherwise go through the generic storage iterator for every entry.
+     */
+    public MapCursor getEntries() {
+        return map.getEntries();
+    }
+
     static boolean advance(MapCursor cursor) {
         return cursor.advance();
     }
@@ -54,6 +54,7 @@ import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.Hashi
 import com.oracle.graal.python.builtins.objects.common.HashingStorageNodes.HashingStorageSetItem;
 import com.oracle.graal.python.builtins.objects.dict.PDict;
 import com.oracle.graal.python.builtins.objects.dict.PDictView;
+import com.oracle.graal.python.builtins.objects.range.PIntRange;
 import com.oracle.graal.python.lib.GetNextNode;
 import com.oracle.graal.python.lib.PyObjectGetIter;
 import com.oracle.graal.python.nodes.ErrorMessages;
@@ -193,6 +194,13 @@ public abstract class HashingCollectionNodes {
             return hashingCollectionNode.execute(frame, other.getWrappedDict(), value);
         }
 
+        @Specialization(guards = "isNoValue(value)")
+        static HashingStorage doIntRange(PIntRange range, @SuppressWarnings("unused") Object value) {
+            // range cannot be subclassed, so there is no __iter__ to call and the items are known
+            // to be distinct ints
+            return LongKeyStorage.createForRange(range.getIntStart(), range.getIntStep(), range.getIntLength());
+        }
+
         @Specialization(guards = "isString(strObj)")
         @InliningCutoff
         static HashingStorage doString(Node inliningTarget, Object strObj, Object value,
@@ -135,6 +135,12 @@ public class HashingStorageNodes {
             return getNode.execute(frame, inliningTarget, self, key, keyHash);
         }
 
+        @Specialization
+        static Object longKeys(Frame frame, Node inliningTarget, LongKeyStorage self, Object key, long keyHash,
+                        @Cached LongKeyStorage.GetNode getNode) {
+            return getNode.execute(frame, inliningTarget, self, key, keyHash);
+        }
+
         @Specialization
         @SuppressWarnings("unused")
         static Object empty(Frame frame, EmptyStorage self, Object key, long keyHash) {
@@ -185,8 +191,8 @@ public class HashingStorageNodes {
 
         @Specialization(guards = "isEconomicMapOrEmpty(self)")
         static Object economicMap(Frame frame, Node inliningTarget, HashingStorage self, Object key,
-                        @Cached PyObjectHashNode hashNode,
-                        @Cached InlinedConditionProfile isEconomicMapProfile,
+                        @Exclusive @Cached PyObjectHashNode hashNode,
+                        @Exclusive @Cached InlinedConditionProfile isEconomicMapProfile,
                         @Cached ObjectHashMap.GetNode getNode) {
             // We must not omit the potentially side-effecting call to __hash__
             long hash = hashNode.execute(frame, inliningTarget, key);
@@ -197,6 +203,19 @@ public class HashingStorageNodes {
             }
         }
 
+        @Specialization
+        static Object longKeys(Frame frame, Node inliningTarget, LongKeyStorage self, Object key,
+                        @Exclusive @Cached PyObjectHashNode hashNode,
+                        @Exclusive @Cached InlinedConditionProfile isLongKeyProfile,
+                        @Cached LongKeyStorage.GetNode getNode) {
+            // Hash of an int has no side effects and the lookup of an int key does not need it
+            long hash = 0;
+            if (!isLongKeyProfile.profile(inliningTarget, LongKeyStorage.isLongKey(key))) {
+                hash = hashNode.execute(frame, inliningTarget, key);
+            }
+            return getNode.execute(frame, inliningTarget, self, key, hash);
+        }
+
         @Specialization
         static Object dom(Frame frame, Node inliningTarget, DynamicObjectStorage self, Object key,
                         @Cached DynamicObjectStorage.GetItemNode getNode) {
@@ -275,11 +294,29 @@ public class HashingStorageNodes {
             return self;
         }
 
+        @Specialization
+        static HashingStorage longKeys(Frame frame, Node inliningTarget, LongKeyStorage self, Object key, long keyHash, Object value,
+                        @Exclusive @Cached InlinedConditionProfile isLongKeyProfile,
+                        @Exclusive @Cached IsBuiltinObjectProfile profile,
+                        @Exclusive @Cached ObjectHashMap.PutNode putNode) {
+            if (isLongKeyProfile.profile(inliningTarget, LongKeyStorage.isLongKey(key))) {
+                self.put(LongKeyStorage.asLong(key), value);
+                return self;
+            }
+            return economicMap(frame, inliningTarget, self.generalize(), key, keyHash, value, profile, putNode);
+        }
+
         @Specialization
         static HashingStorage empty(Frame frame, Node inliningTarget, @SuppressWarnings("unused") EmptyStorage self, Object key, long keyHash, Object value,
+                        @Exclusive @Cached InlinedConditionProfile isLongKeyProfile,
                         @Exclusive @Cached IsBuiltinObjectProfile profile,
                         @Exclusive @Cached ObjectHashMap.PutNode putNode) {
-            EconomicMapStorage storage = EconomicMapStorage.create(1);
+            if (isLongKeyProfile.profile(inliningTarget, LongKeyStorage.isLongKey(key))) {
+                LongKeyStorage storage = value == PNone.NONE ? LongKeyStorage.createForSet(1) : new LongKeyStorage();
+                storage.put(LongKeyStorage.asLong(key), value);
+                return storage;
+            }
+            EconomicMapStorage storage = value == PNone.NONE ? EconomicMapStorage.createForSet(1) : EconomicMapStorage.create(1);
             putNode.execute(frame, inliningTarget, storage.map, key, keyHash, value);
             if (!PGuards.isBuiltinString(inliningTarget, key, profile)) {
                 storage.map.setSideEffectingKeysFlag();
@@ -397,17 +434,39 @@ public class HashingStorageNodes {
             return self;
         }
 
+        @Specialization
+        static HashingStorage longKeys(Frame frame, Node inliningTarget, LongKeyStorage self, Object key, Object value,
+                        @Exclusive @Cached InlinedConditionProfile isLongKeyProfile,
+                        @Exclusive @Cached IsBuiltinObjectProfile profile,
+                        @Exclusive @Cached PyObjectHashNode hashNode,
+                        @Exclusive @Cached ObjectHashMap.PutNode putNode) {
+            // Hash of an int has no side effects and the storage does not need it
+            if (isLongKeyProfile.profile(inliningTarget, LongKeyStorage.isLongKey(key))) {
+                self.put(LongKeyStorage.asLong(key), value);
+                return self;
+            }
+            return economicMap(frame, inliningTarget, self.generalize(), key, value, profile, hashNode, putNode);
+        }
+
         @Specialization
         static HashingStorage empty(Frame frame, Node inliningTarget, @SuppressWarnings("unused") EmptyStorage self, Object key, Object value,
+                        @Exclusive @Cached InlinedConditionProfile isLongKeyProfile,
                         @Exclusive @Cached IsBuiltinObjectProfile profile,
                         @Exclusive @Cached PyObjectHashNode hashNode,
                         @Exclusive @Cached ObjectHashMap.PutNode putNode) {
+            if (isLongKeyProfile.profile(inliningTarget, LongKeyStorage.isLongKey(key))) {
+                LongKeyStorage storage = value == PNone.NONE ? LongKeyStorage.createForSet(1) : new LongKeyStorage();
+                storage.put(LongKeyStorage.asLong(key), value);
+                return storage;
+            }
             // The ObjectHashMap.PutNode is @Exclusive because profiles for a put into a freshly new
             // allocated map can be quite different to profiles in the other situations when we are
             // putting into a map that already has or will have some more items in it
             // It is also @Cached(inline = false) because inlining it triggers GR-44836
             // TODO: do we want to try DynamicObjectStorage if the key is a string?
-            return economicMap(frame, inliningTarget, EconomicMapStorage.create(1), key, value, profile, hashNode, putNode);
+            // None values are most likely a set, the map switches layout if that turns out wrong
+            EconomicMapStorage storage = value == PNone.NONE ? EconomicMapStorage.createForSet(1) : EconomicMapStorage.create(1);
+            return economicMap(frame, inliningTarget, storage, key, value, profile, hashNode, putNode);
         }
 
         @Specialization(guards = "!self.shouldTransitionOnPut()")
@@ -532,6 +591,13 @@ public class HashingStorageNodes {
             return null;
         }
 
+        @Specialization
+        static Object longKeys(Frame frame, Node inliningTarget, LongKeyStorage self, Object key, boolean isPop, @SuppressWarnings("unused") PHashingCollection toUpdate,
+                        @Cached LongKeyStorage.RemoveNode removeNode) {
+            Object result = removeNode.execute(frame, inliningTarget, self, key);
+            return isPop ? result : null;
+        }
+
         @Specialization
         @InliningCutoff
         static Object domStringKey(Frame frame, Node inliningTarget, DynamicObjectStorage self, Object keyObj, boolean isPop, @SuppressWarnings("unused") PHashingCollection toUpdate,
@@ -601,6 +667,11 @@ public class HashingStorageNodes {
             return self.length();
         }
 
+        @Specialization
+        static int longKeys(LongKeyStorage self) {
+            return self.length();
+        }
+
         @Specialization
         @InliningCutoff
         static int dom(Node inliningTarget, DynamicObjectStorage self,
@@ -632,6 +703,12 @@ public class HashingStorageNodes {
             return self;
         }
 
+        @Specialization
+        static HashingStorage longKeys(LongKeyStorage self) {
+            self.clear();
+            return self;
+        }
+
         @Specialization
         @InliningCutoff
         static HashingStorage dom(Node inliningTarget, DynamicObjectStorage self,
@@ -670,6 +747,11 @@ public class HashingStorageNodes {
             return map.copy();
         }
 
+        @Specialization
+        static HashingStorage longKeys(LongKeyStorage self) {
+            return self.copy();
+        }
+
         @Specialization
         static EmptyStorage empty(@SuppressWarnings("unused") EmptyStorage map) {
             return EmptyStorage.INSTANCE;
@@ -757,6 +839,11 @@ public class HashingStorageNodes {
             return new HashingStorageIterator();
         }
 
+        @Specialization
+        static HashingStorageIterator longKeys(@SuppressWarnings("unused") LongKeyStorage self) {
+            return new HashingStorageIterator();
+        }
+
         @Specialization
         static HashingStorageIterator dom(DynamicObjectStorage self,
                         @CachedLibrary(limit = "3") DynamicObjectLibrary dylib) {
@@ -798,6 +885,13 @@ public class HashingStorageNodes {
             return it;
         }
 
+        @Specialization
+        static HashingStorageIterator longKeys(LongKeyStorage self) {
+            HashingStorageIterator it = new HashingStorageIterator(true);
+            it.index = self.usedSlots;
+            return it;
+        }
+
         @Specialization
         static HashingStorageIterator dom(DynamicObjectStorage self,
                         @CachedLibrary(limit = "3") DynamicObjectLibrary dylib) {
@@ -874,6 +968,36 @@ public class HashingStorageNodes {
             return false;
         }
 
+        @Specialization(guards = "!it.isReverse")
+        static boolean longKeys(LongKeyStorage self, HashingStorageIterator it) {
+            it.index++;
+            while (it.index < self.usedSlots) {
+                Object val = self.getValue(it.index);
+                if (val != null) {
+                    it.currentValue = val;
+                    return true;
+                }
+                it.index++;
+            }
+            assert (it.currentValue = null) == null;
+            return false;
+        }
+
+        @Specialization(guards = "it.isReverse")
+        static boolean longKeysReverse(LongKeyStorage self, HashingStorageIterator it) {
+            it.index--;
+            while (it.index >= 0) {
+                Object val = self.getValue(it.index);
+                if (val != null) {
+                    it.currentValue = val;
+                    return true;
+                }
+                it.index--;
+            }
+            assert (it.currentValue = null) == null;
+            return false;
+        }
+
         @Specialization(guards = "!it.isReverse")
         static boolean dom(DynamicObjectStorage self, HashingStorageIterator it) {
             it.index++;
@@ -949,6 +1073,11 @@ public class HashingStorageNodes {
             return it.currentValue;
         }
 
+        @Specialization
+        static Object longKeys(@SuppressWarnings("unused") LongKeyStorage self, HashingStorageIterator it) {
+            return it.currentValue;
+        }
+
         @Specialization
         static Object dom(@SuppressWarnings("unused") DynamicObjectStorage self, HashingStorageIterator it) {
             return it.currentValue;
@@ -990,6 +1119,11 @@ public class HashingStorageNodes {
             return self.map.getKey(it.index);
         }
 
+        @Specialization
+        static Object longKeys(LongKeyStorage self, HashingStorageIterator it) {
+            return self.getKey(it.index);
+        }
+
         @Specialization
         static TruffleString dom(@SuppressWarnings("unused") DynamicObjectStorage self, HashingStorageIterator it) {
             return (TruffleString) it.domKeys[it.index];
@@ -1024,6 +1158,11 @@ public class HashingStorageNodes {
             return self.map.hashes[it.index];
         }
 
+        @Specialization
+        static long longKeys(LongKeyStorage self, HashingStorageIterator it) {
+            return self.getKeyHash(it.index);
+        }
+
         @Specialization
         static long dom(@SuppressWarnings("unused") DynamicObjectStorage self, HashingStorageIterator it,
                         @Shared("hash") @Cached(inline = false) TruffleString.HashCodeNode hashNode) {
@@ -1200,13 +1339,18 @@ public class HashingStorageNodes {
     public abstract static class HashingStorageXor extends Node {
         public abstract HashingStorage execute(Frame frame, Node inliningTarget, HashingStorage a, HashingStorage b);
 
+        @Specialization
+        static HashingStorage longKeys(LongKeyStorage aStorage, LongKeyStorage bStorage) {
+            return aStorage.xor(bStorage);
+        }
+
         @Specialization
         static HashingStorage doIt(Frame frame, Node inliningTarget, HashingStorage aStorage, HashingStorage bStorage,
                         @Cached HashingStorageForEach forEachA,
                         @Cached HashingStorageForEach forEachB,
                         @Cached HashingStorageXorCallback callbackA,
                         @Cached HashingStorageXorCallback callbackB) {
-            final EconomicMapStorage result = EconomicMapStorage.createWithSideEffects();
+            final EconomicMapStorage result = EconomicMapStorage.createForSetWithSideEffects();
             ObjectHashMap resultMap = result.map;
 
             ResultAndOther accA = new ResultAndOther(resultMap, bStorage);
@@ -1254,11 +1398,16 @@ public class HashingStorageNodes {
     public abstract static class HashingStorageIntersect extends Node {
         public abstract HashingStorage execute(Frame frame, Node inliningTarget, HashingStorage a, HashingStorage b);
 
+        @Specialization
+        static HashingStorage longKeys(LongKeyStorage aStorage, LongKeyStorage bStorage) {
+            return aStorage.intersect(bStorage);
+        }
+
         @Specialization
         static HashingStorage doIt(Frame frame, Node inliningTarget, HashingStorage aStorage, HashingStorage bStorage,
                         @Cached HashingStorageForEach forEachA,
                         @Cached HashingStorageIntersectCallback callback) {
-            final EconomicMapStorage result = EconomicMapStorage.createWithSideEffects();
+            final EconomicMapStorage result = EconomicMapStorage.createForSetWithSideEffects();
             ResultAndOther acc = new ResultAndOther(result.map, bStorage);
             forEachA.execute(frame, inliningTarget, aStorage, callback, acc);
             return result;
@@ -1301,11 +1450,16 @@ public class HashingStorageNodes {
     public abstract static class HashingStorageDiff extends Node {
         public abstract HashingStorage execute(Frame frame, Node inliningTarget, HashingStorage a, HashingStorage b);
 
+        @Specialization
+        static HashingStorage longKeys(LongKeyStorage aStorage, LongKeyStorage bStorage) {
+            return aStorage.diff(bStorage);
+        }
+
         @Specialization
         static HashingStorage doIt(Frame frame, Node inliningTarget, HashingStorage aStorage, HashingStorage bStorage,
                         @Cached HashingStorageForEach forEachA,
                         @Cached HashingStorageDiffCallback callback) {
-            final EconomicMapStorage result = EconomicMapStorage.createWithSideEffects();
+            final EconomicMapStorage result = EconomicMapStorage.createForSetWithSideEffects();
             ResultAndOther acc = new ResultAndOther(result.map, bStorage);
             forEachA.execute(frame, inliningTarget, aStorage, callback, acc);
             return result;
@@ -1498,6 +1652,12 @@ public class HashingStorageNodes {
             return dest;
         }
 
+        @Specialization(guards = "source != dest")
+        static HashingStorage longKeys(LongKeyStorage source, LongKeyStorage dest) {
+            source.addAllTo(dest);
+            return dest;
+        }
+
         @Specialization(guards = "source != dest")
         static HashingStorage doIt(Frame frame, Node inliningTarget, HashingStorage source, HashingStorage dest,
                         @Cached HashingStorageForEach forEach,
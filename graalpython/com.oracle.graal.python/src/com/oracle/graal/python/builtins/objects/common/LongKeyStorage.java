@@ -0,0 +1,645 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.common;
+
+import java.util.Arrays;
+
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.ints.PInt;
+import com.oracle.graal.python.lib.PyObjectHashNode;
+import com.oracle.graal.python.lib.PyObjectRichCompareBool;
+import com.oracle.graal.python.util.PythonUtils;
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.HostCompilerDirectives.InliningCutoff;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.GenerateCached;
+import com.oracle.truffle.api.dsl.GenerateInline;
+import com.oracle.truffle.api.dsl.GenerateUncached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.Frame;
+import com.oracle.truffle.api.nodes.LoopNode;
+import com.oracle.truffle.api.nodes.Node;
+
+/**
+ * Storage for dicts and sets whose keys are all Python ints that fit into a Java {@code long}.
+ *
+ * The layout follows {@link ObjectHashMap}: a sparse array of indices into compact arrays that
+ * preserve the insertion order, probed with the same perturbation scheme. The difference is that
+ * the keys are stored unboxed in a {@code long[]} and the hashes are not stored at all, because the
+ * hash of an int is cheap to compute from the key and two int keys are equal iff they are the same
+ * {@code long}. Lookups of {@code int} and {@code long} keys therefore neither allocate nor call
+ * {@code __eq__}. Since there are no side effects during the lookup, there is also no need for the
+ * collision bit and the restarts of {@link ObjectHashMap}.
+ *
+ * Keys of other types can still be equal to some int key (e.g., {@code True} or {@code 1.0}).
+ * Lookups of such keys compare them with the boxed int keys that have the same hash. Insertion of
+ * such a key converts the storage to {@link EconomicMapStorage}, see {@link #generalize()}.
+ *
+ * Like {@link ObjectHashMap}, the storage of a set can be created in a "keys only" mode, in which
+ * there is no values array, all values are implicitly {@code None} and removed items are marked in
+ * a bitmap that is only allocated on the first removal. Storing any other value switches to the
+ * regular layout.
+ *
+ * Set operations on two storages of this kind work directly on the {@code long} keys, see
+ * {@link #intersect}, {@link #diff}, {@link #xor} and {@link #addAllTo}.
+ */
+public final class LongKeyStorage extends HashingStorage {
+    private static final int INITIAL_INDICES_SIZE = 8;
+    private static final int MAX_PREALLOCATED_INDICES_SIZE = 1 << 20;
+    private static final int GROWTH_RATE = 4;
+
+    private static final int DUMMY_INDEX = -2;
+    private static final int EMPTY_INDEX = -1;
+
+    private static final int GENERALIZED_BUCKET = -2;
+
+    private static final long PERTURB_SHIFT = 5;
+    // It takes at most this many >>> shifts to turn any long into 0
+    private static final int PERTURB_SHIFTS_COUNT = 13;
+
+    // Sparse array with indices pointing to keys and values
+    private int[] indices;
+
+    // Compact arrays with the actual items, the value of removed items is null
+    long[] keys;
+    // null in the keys only mode, see the class comment
+    private Object[] values;
+    // Bitmap of removed items in the keys only mode, null until something is removed
+    private long[] removedSlots;
+
+    // How many real items are in the storage
+    private int size;
+    // How many of the slots in the keys/values arrays are occupied either by real or removed items
+    int usedSlots;
+    // How many of the buckets in the indices array are not empty, including dummies
+    private int usedIndices;
+
+    // The storage that replaced this one in its collection, see generalize
+    private EconomicMapStorage generalized;
+
+    public LongKeyStorage() {
+        allocateData(INITIAL_INDICES_SIZE, false);
+    }
+
+    public LongKeyStorage(int capacity) {
+        allocateData(getIndicesSize(capacity), false);
+    }
+
+    private LongKeyStorage(int capacity, boolean keysOnly) {
+        allocateData(getIndicesSize(capacity), keysOnly);
+    }
+
+    /**
+     * Creates storage that is expected to hold only {@code None} values, i.e., a storage of a set.
+     */
+    public static LongKeyStorage createForSet(int capacity) {
+        return new LongKeyStorage(capacity, true);
+    }
+
+    /**
+     * Creates set storage with the items of given range, which are known to be distinct.
+     */
+    public static LongKeyStorage createForRange(int start, int step, int length) {
+        LongKeyStorage result = createForSet(length);
+        long key = start;
+        for (int i = 0; i < length; i++) {
+            if (result.needsResize()) {
+                result.rehash();
+            }
+            result.insertNewKey(key, PNone.NONE);
+            key += step;
+        }
+        return result;
+    }
+
+    private LongKeyStorage(LongKeyStorage original) {
+        indices = PythonUtils.arrayCopyOf(original.indices, original.indices.length);
+        keys = PythonUtils.arrayCopyOf(original.keys, original.keys.length);
+        if (original.values != null) {
+            values = PythonUtils.arrayCopyOf(original.values, original.values.length);
+        }
+        if (original.removedSlots != null) {
+            removedSlots = PythonUtils.arrayCopyOf(original.removedSlots, original.removedSlots.length);
+        }
+        size = original.size;
+        usedSlots = original.usedSlots;
+        usedIndices = original.usedIndices;
+    }
+
+    private static int getIndicesSize(int capacity) {
+        // We need the hash table of this size, in order to accommodate "capacity" many entries,
+        // large requests are not preallocated for the same reasons as in ObjectHashMap
+        int indicesCapacity = capacity + (capacity / 3);
+        if (indicesCapacity <= INITIAL_INDICES_SIZE) {
+            return INITIAL_INDICES_SIZE;
+        } else if (indicesCapacity > MAX_PREALLOCATED_INDICES_SIZE) {
+            return MAX_PREALLOCATED_INDICES_SIZE;
+        }
+        return Integer.highestOneBit(indicesCapacity - 1) << 1;
+    }
+
+    private void allocateData(int newSize, boolean keysOnly) {
+        assert Integer.bitCount(newSize) == 1;
+        indices = new int[newSize];
+        Arrays.fill(indices, EMPTY_INDEX);
+        // we fill only up to 3/4 of the hash table, see needsResize
+        int usableSize = 3 * (newSize >> 2) + 2;
+        keys = new long[usableSize];
+        values = keysOnly ? null : new Object[usableSize];
+        removedSlots = null;
+    }
+
+    public boolean isKeysOnly() {
+        return values == null;
+    }
+
+    public static boolean isLongKey(Object key) {
+        return key instanceof Integer || key instanceof Long;
+    }
+
+    static long asLong(Object key) {
+        return key instanceof Integer i ? i : (Long) key;
+    }
+
+    /**
+     * The keys are handed out as {@code int} whenever they fit, which is the canonical
+     * representation of small Python ints.
+     */
+    static Object boxKey(long key) {
+        return PInt.isIntRange(key) ? (Object) (int) key : (Object) key;
+    }
+
+    static long hash(long key) {
+        return PyObjectHashNode.hash(key);
+    }
+
+    public int length() {
+        return size;
+    }
+
+    public LongKeyStorage copy() {
+        return new LongKeyStorage(this);
+    }
+
+    Object getKey(int index) {
+        return boxKey(keys[index]);
+    }
+
+    Object getValue(int index) {
+        return getValue(values, removedSlots, index);
+    }
+
+    private static Object getValue(Object[] values, long[] removedSlots, int index) {
+        if (values != null) {
+            return values[index];
+        }
+        return removedSlots != null && (removedSlots[index >> 6] & (1L << index)) != 0 ? null : PNone.NONE;
+    }
+
+    private void setValue(int index, Object value) {
+        if (values == null) {
+            if (value == PNone.NONE) {
+                return;
+            }
+            convertToKeysAndValues();
+        }
+        values[index] = value;
+    }
+
+    private void removeValue(int index) {
+        if (values != null) {
+            values[index] = null;
+        } else {
+            if (removedSlots == null) {
+                removedSlots = new long[(keys.length >> 6) + 1];
+            }
+            removedSlots[index >> 6] |= 1L << index;
+        }
+    }
+
+    @TruffleBoundary
+    private void convertToKeysAndValues() {
+        assert isKeysOnly();
+        Object[] newValues = new Object[keys.length];
+        for (int i = 0; i < usedSlots; i++) {
+            newValues[i] = getValue(i);
+        }
+        values = newValues;
+        removedSlots = null;
+    }
+
+    long getKeyHash(int index) {
+        return hash(keys[index]);
+    }
+
+    private static int getIndex(int indicesLen, long hash) {
+        // since buckets count is power of 2, the & works as modulo
+        return (int) (hash & (indicesLen - 1));
+    }
+
+    private static int nextIndex(int indicesLen, int i, long perturb) {
+        return getIndex(indicesLen, i * 5L + perturb + 1L);
+    }
+
+    private boolean needsResize() {
+        // when the hash table is 3/4 full, we resize on insertion
+        int bucketsCount = indices.length;
+        return usedIndices + Math.max(1, bucketsCount >> 2) > bucketsCount || usedSlots == keys.length;
+    }
+
+    /**
+     * Returns the bucket in the sparse array that points to given key or {@code -1}.
+     */
+    private int findBucket(long key) {
+        int[] localIndices = indices;
+        int indicesLen = localIndices.length;
+        long perturb = hash(key);
+        int compactIndex = getIndex(indicesLen, perturb);
+        // intentionally counted loop, there is always some empty bucket that terminates it
+        int searchLimit = indicesLen + PERTURB_SHIFTS_COUNT;
+        for (int i = 0; i < searchLimit; i++) {
+            int index = localIndices[compactIndex];
+            if (index == EMPTY_INDEX) {
+                return -1;
+            }
+            if (index != DUMMY_INDEX && keys[index] == key) {
+                return compactIndex;
+            }
+            perturb >>>= PERTURB_SHIFT;
+            compactIndex = nextIndex(indicesLen, compactIndex, perturb);
+        }
+        throw CompilerDirectives.shouldNotReachHere();
+    }
+
+    public Object get(long key) {
+        int bucket = findBucket(key);
+        return bucket == -1 ? null : getValue(indices[bucket]);
+    }
+
+    public void put(long key, Object value) {
+        assert value != null;
+        int bucket = findBucket(key);
+        if (bucket != -1) {
+            setValue(indices[bucket], value);
+            return;
+        }
+        if (values == null && value != PNone.NONE) {
+            convertToKeysAndValues();
+        }
+        if (needsResize()) {
+            rehash();
+        }
+        insertNewKey(key, value);
+    }
+
+    public Object remove(long key) {
+        int bucket = findBucket(key);
+        if (bucket == -1) {
+            return null;
+        }
+        int index = indices[bucket];
+        Object result = getValue(index);
+        indices[bucket] = DUMMY_INDEX;
+        removeValue(index);
+        size--;
+        if (index == usedSlots - 1) {
+            // the slots at the end can be reused right away, nothing points to them anymore
+            do {
+                usedSlots--;
+            } while (usedSlots > 0 && getValue(usedSlots - 1) == null);
+        }
+        return result;
+    }
+
+    void clear() {
+        size = 0;
+        usedSlots = 0;
+        usedIndices = 0;
+        allocateData(INITIAL_INDICES_SIZE, isKeysOnly());
+    }
+
+    /**
+     * Puts a key that is known not to be in the storage into the first empty or dummy bucket of its
+     * collision chain. The caller must ensure there is a free slot.
+     */
+    private void insertNewKey(long key, Object value) {
+        int[] localIndices = indices;
+        int indicesLen = localIndices.length;
+        long perturb = hash(key);
+        int compactIndex = getIndex(indicesLen, perturb);
+        int searchLimit = indicesLen + PERTURB_SHIFTS_COUNT;
+        for (int i = 0; i < searchLimit; i++) {
+            int index = localIndices[compactIndex];
+            if (index < 0) {
+                if (index == EMPTY_INDEX) {
+                    usedIndices++;
+                }
+                localIndices[compactIndex] = usedSlots;
+                keys[usedSlots] = key;
+                if (values != null) {
+                    values[usedSlots] = value;
+                } else if (removedSlots != null) {
+                    assert value == PNone.NONE;
+                    removedSlots[usedSlots >> 6] &= ~(1L << usedSlots);
+                }
+                usedSlots++;
+                size++;
+                return;
+            }
+            perturb >>>= PERTURB_SHIFT;
+            compactIndex = nextIndex(indicesLen, compactIndex, perturb);
+        }
+        throw CompilerDirectives.shouldNotReachHere();
+    }
+
+    /**
+     * Like in {@link ObjectHashMap}, the new size is determined from the number of real items, so
+     * rehashing also gets rid of the dummy entries and may shrink the storage.
+     */
+    @TruffleBoundary
+    private void rehash() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        long[] oldRemovedSlots = removedSlots;
+        int oldUsedSlots = usedSlots;
+        int oldSize = size;
+        int requiredIndicesSize = Math.max(size, 1) * GROWTH_RATE;
+        int indicesCapacity = requiredIndicesSize + (requiredIndicesSize / 3);
+        if (indicesCapacity < 0) {
+            throw new OutOfMemoryError();
+        }
+        allocateData(indicesCapacity <= INITIAL_INDICES_SIZE ? INITIAL_INDICES_SIZE : Integer.highestOneBit(indicesCapacity - 1) << 1, oldValues == null);
+        size = 0;
+        usedSlots = 0;
+        usedIndices = 0;
+        for (int i = 0; i < oldUsedSlots; i++) {
+            Object value = getValue(oldValues, oldRemovedSlots, i);
+            if (value != null) {
+                insertNewKey(oldKeys[i], value);
+            }
+        }
+        assert size == oldSize;
+    }
+
+    /**
+     * Lookup of a key that is not an {@code int} or {@code long}. Only keys with the same hash as
+     * {@code key} are candidates, and those are compared using {@code __eq__}, which may mutate this
+     * storage. In such case the lookup starts over. Returns the bucket like {@link #findBucket}, or
+     * {@link #GENERALIZED_BUCKET} if {@code __eq__} inserted a key that replaced this storage with a
+     * generic one, the operation must then be redone on {@link #generalized}.
+     */
+    private int findBucketGeneric(Frame frame, Node inliningTarget, Object key, long keyHash, PyObjectRichCompareBool.EqNode eqNode) {
+        int i = 0;
+        try {
+            restart: while (true) {
+                int[] localIndices = indices;
+                int indicesLen = localIndices.length;
+                long perturb = keyHash;
+                int compactIndex = getIndex(indicesLen, perturb);
+                int searchLimit = indicesLen + PERTURB_SHIFTS_COUNT;
+                for (int j = 0; j < searchLimit; j++, i++) {
+                    int index = localIndices[compactIndex];
+                    if (index == EMPTY_INDEX) {
+                        return -1;
+                    }
+                    if (index != DUMMY_INDEX) {
+                        long storedKey = keys[index];
+                        if (hash(storedKey) == keyHash) {
+                            boolean equal = eqNode.compare(frame, inliningTarget, boxKey(storedKey), key);
+                            if (generalized != null) {
+                                return GENERALIZED_BUCKET;
+                            }
+                            if (localIndices != indices || localIndices[compactIndex] != index) {
+                                continue restart;
+                            }
+                            if (equal) {
+                                return compactIndex;
+                            }
+                        }
+                    }
+                    perturb >>>= PERTURB_SHIFT;
+                    compactIndex = nextIndex(indicesLen, compactIndex, perturb);
+                }
+                throw CompilerDirectives.shouldNotReachHere();
+            }
+        } finally {
+            LoopNode.reportLoopCount(eqNode, i);
+        }
+    }
+
+    Object getGeneric(Frame frame, Node inliningTarget, Object key, long keyHash, PyObjectRichCompareBool.EqNode eqNode) {
+        int bucket = findBucketGeneric(frame, inliningTarget, key, keyHash, eqNode);
+        if (bucket == GENERALIZED_BUCKET) {
+            return getFromGeneralized(key, keyHash);
+        }
+        return bucket == -1 ? null : getValue(indices[bucket]);
+    }
+
+    Object removeGeneric(Frame frame, Node inliningTarget, Object key, long keyHash, PyObjectRichCompareBool.EqNode eqNode) {
+        int bucket = findBucketGeneric(frame, inliningTarget, key, keyHash, eqNode);
+        if (bucket == GENERALIZED_BUCKET) {
+            return removeFromGeneralized(key, keyHash);
+        }
+        return bucket == -1 ? null : remove(keys[indices[bucket]]);
+    }
+
+    @TruffleBoundary
+    private Object getFromGeneralized(Object key, long keyHash) {
+        return ObjectHashMapFactory.GetNodeGen.getUncached().execute(null, null, generalized.map, key, keyHash);
+    }
+
+    @TruffleBoundary
+    private Object removeFromGeneralized(Object key, long keyHash) {
+        return ObjectHashMapFactory.RemoveNodeGen.getUncached().execute(null, null, generalized.map, key, keyHash);
+    }
+
+    /**
+     * Creates an equivalent {@link EconomicMapStorage}. Used when a key that is not an int needs to
+     * be inserted, the caller replaces this storage with the result. This storage is left intact,
+     * but it remembers the result so that lookups in progress can continue there.
+     */
+    @TruffleBoundary
+    EconomicMapStorage generalize() {
+        EconomicMapStorage result = isKeysOnly() ? EconomicMapStorage.createForSet(size) : EconomicMapStorage.create(size);
+        for (int i = 0; i < usedSlots; i++) {
+            Object value = getValue(i);
+            if (value != null) {
+                ObjectHashMap.PutNode.putUncached(result.map, boxKey(keys[i]), hash(keys[i]), value);
+            }
+        }
+        generalized = result;
+        return result;
+    }
+
+    /**
+     * Adds all items of this storage to {@code dest}, overriding the values of the keys that are
+     * already there.
+     */
+    void addAllTo(LongKeyStorage dest) {
+        for (int i = 0; i < usedSlots; i++) {
+            Object value = getValue(i);
+            if (value != null) {
+                dest.put(keys[i], value);
+            }
+        }
+    }
+
+    /**
+     * Keys present in both storages, with the values from {@code other}.
+     */
+    LongKeyStorage intersect(LongKeyStorage other) {
+        LongKeyStorage result = new LongKeyStorage(Math.min(size, other.size), other.isKeysOnly());
+        for (int i = 0; i < usedSlots; i++) {
+            if (getValue(i) != null) {
+                int bucket = other.findBucket(keys[i]);
+                if (bucket != -1) {
+                    result.put(keys[i], other.getValue(other.indices[bucket]));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Keys of this storage that are not in {@code other}.
+     */
+    LongKeyStorage diff(LongKeyStorage other) {
+        LongKeyStorage result = new LongKeyStorage(size, isKeysOnly());
+        addMissingTo(other, result);
+        return result;
+    }
+
+    /**
+     * Keys that are in exactly one of the storages.
+     */
+    LongKeyStorage xor(LongKeyStorage other) {
+        LongKeyStorage result = new LongKeyStorage(Math.max(size, other.size), isKeysOnly() && other.isKeysOnly());
+        addMissingTo(other, result);
+        other.addMissingTo(this, result);
+        return result;
+    }
+
+    private void addMissingTo(LongKeyStorage other, LongKeyStorage result) {
+        for (int i = 0; i < usedSlots; i++) {
+            Object value = getValue(i);
+            if (value != null && other.findBucket(keys[i]) == -1) {
+                result.put(keys[i], value);
+            }
+        }
+    }
+
+    @GenerateUncached
+    @GenerateInline
+    @GenerateCached(false)
+    public abstract static class GetNode extends Node {
+        public abstract Object execute(Frame frame, Node inliningTarget, LongKeyStorage self, Object key, long keyHash);
+
+        @Specialization
+        static Object doInt(LongKeyStorage self, int key, @SuppressWarnings("unused") long keyHash) {
+            return self.get(key);
+        }
+
+        @Specialization
+        static Object doLong(LongKeyStorage self, long key, @SuppressWarnings("unused") long keyHash) {
+            return self.get(key);
+        }
+
+        @Fallback
+        @InliningCutoff
+        static Object doGeneric(Frame frame, Node inliningTarget, LongKeyStorage self, Object key, long keyHash,
+                        @Cached PyObjectRichCompareBool.EqNode eqNode) {
+            return self.getGeneric(frame, inliningTarget, key, keyHash, eqNode);
+        }
+    }
+
+    @GenerateUncached
+    @GenerateInline
+    @GenerateCached(false)
+    public abstract static class RemoveNode extends Node {
+        public abstract Object execute(Frame frame, Node inliningTarget, LongKeyStorage self, Object key);
+
+        @Specialization
+        static Object doInt(LongKeyStorage self, int key) {
+            return self.remove(key);
+        }
+
+        @Specialization
+        static Object doLong(LongKeyStorage self, long key) {
+            return self.remove(key);
+        }
+
+        @Fallback
+        @InliningCutoff
+        static Object doGeneric(Frame frame, Node inliningTarget, LongKeyStorage self, Object key,
+                        @Cached PyObjectHashNode hashNode,
+                        @Cached PyObjectRichCompareBool.EqNode eqNode) {
+            // We must not omit the potentially side-effecting call to __hash__
+            long hash = hashNode.execute(frame, inliningTarget, key);
+            return self.removeGeneric(frame, inliningTarget, key, hash, eqNode);
+        }
+    }
+
+    @Override
+    public String toString() {
+        CompilerAsserts.neverPartOfCompilation();
+        StringBuilder builder = new StringBuilder();
+        builder.append("longKeys(size=").append(size).append(", {");
+        String sep = "";
+        int printed = 0;
+        for (int i = 0; i < usedSlots; i++) {
+            Object value = getValue(i);
+            if (value == null) {
+                continue;
+            }
+            if (++printed >= 100) {
+                builder.append("...");
+                break;
+            }
+            builder.append(sep).append("(").append(keys[i]).append(",").append(value).append(")");
+            sep = ",";
+        }
+        builder.append("})");
+        return builder.toString();
+    }
+}
@@ -40,10 +40,12 @@
  */
 package com.oracle.graal.python.builtins.objects.common;
 
+import static com.oracle.graal.python.util.PythonUtils.ARRAY_ACCESSOR;
 import static com.oracle.truffle.api.CompilerDirectives.SLOWPATH_PROBABILITY;
 
 import java.util.Arrays;
 
+import com.oracle.graal.python.builtins.objects.PNone;
 import com.oracle.graal.python.lib.PyObjectRichCompareBool;
 import com.oracle.graal.python.lib.PyObjectRichCompareBool.EqNode;
 import com.oracle.graal.python.util.PythonUtils;
@@ -97,28 +99,32 @@ import com.oracle.truffle.api.profiles.InlinedCountingConditionProfile;
  * implications of this is that for close to full maps, lookups of items that are not present in the
  * map are faster, because we can terminate the collisions chain chasing earlier.
  *
- * Notable use case that does not (yet) work well with this approach: repeated insertion and removal
- * of the same key. This keeps on adding dummy entries when removing the entry and creating long
- * collisions chains that the insertion needs to follow to find a free slot. This all repeats until
- * the insertion concludes that the map is too full and rehashes it, in this case actually not
- * growing it, but just removing the dummy entries. The same seems to happen on CPython also, but
- * can be improved.
+ * The sparse indices array is a {@code byte[]} and the width of a single index is chosen according
+ * to the number of buckets: 1 byte for up to {@value #MAX_BYTE_INDICES_SIZE} buckets, 2 bytes for
+ * up to {@value #MAX_SHORT_INDICES_SIZE} buckets and 4 bytes otherwise. The width is a function of
+ * the array length only (the ranges of lengths do not overlap), so it never has to be stored
+ * separately. {@link #EMPTY_INDEX} and {@link #DUMMY_INDEX} are all ones and all ones but the last
+ * bit in any width, and the collision bit is always the sign bit of the narrow index. The number of
+ * usable slots for given buckets count guarantees that a real index never clashes with those.
+ *
+ * Maps used as a storage for sets can be created in a "keys only" mode, in which the
+ * {@code keysAndValues} array contains just the keys and all values are implicitly {@code None}.
+ * Storing any other value switches the map to the regular layout with interleaved keys and values,
+ * so the mode is an optimization hint and never affects the semantics.
+ *
+ * Removal leaves a dummy entry in the sparse array, so that the collision chains going through it
+ * stay intact. Insertion of a key that is not in the map reuses the first dummy bucket it encounters
+ * in its collision chain, and removal of the last item in the compact arrays gives its slot back
+ * right away. Together this means that repeated insertion and removal of the same key (or LRU-like
+ * churn in general) does not keep on adding dummy entries and does not trigger rehashing, which
+ * would otherwise be the only way to get rid of them.
+ *
+ * Dicts and sets with only int keys use {@link LongKeyStorage}, which has the same layout, but
+ * stores the keys unboxed.
  *
  * Areas for future improvements:
  * <ul>
- * <li>Use byte[] array for the sparse indices array and determine the size of an index according to
- * the compact array size, i.e., 1 byte is enough for 256 items. This needs to also properly handle
- * the bit flag used to mark collisions.</li>
- * <li>Use another bit from the index in the sparse indices array to remember index of removed
- * items, i.e., dummy items would carry the old index and collision mask. Such dummy items can be
- * reused when inserting new items. This will help with the insert/remove of the same key
- * scenario.</li>
  * <li>Inline {@link ObjectHashMap} into {@code EconomicMapStorage} to save an indirection.</li>
- * <li>New strategy for long keys where the hashes array is used to store the keys, and the
- * keysAndValues array will store just values. Can be implemented by extending this class and
- * overriding few methods.</li>
- * <li>Flag that indicates that the hash-map is used as a storage for a set, so all values are
- * {@code None} and there is no need to allocate space for values in the keysAndValues array.</li>
  * </ul>
  */
 public final class ObjectHashMap {
@@ -133,6 +139,18 @@ public final class ObjectHashMap {
      */
     private static final int MAX_PREALLOCATED_INDICES_SIZE = 1 << 20;
 
+    /**
+     * Up to this many buckets the sparse indices array uses 1 byte per index. The largest real index
+     * is then {@code 3 * (128 / 4) + 1}, which stays below 0x7e, so even with the collision bit it
+     * cannot be mistaken for the placeholders 0xfe and 0xff. The same holds for 2 byte indices.
+     */
+    private static final int MAX_BYTE_INDICES_SIZE = 1 << 7;
+
+    /**
+     * Up to this many buckets the sparse indices array uses 2 bytes per index.
+     */
+    private static final int MAX_SHORT_INDICES_SIZE = 1 << 15;
+
     /**
      * Indices that participate in a collision chain are marked with the sign bit.
      */
@@ -146,9 +164,50 @@ public final class ObjectHashMap {
     private static final int DUMMY_INDEX = -2;
     private static final int EMPTY_INDEX = -1;
 
-    private static void markCollision(int[] indices, int compactIndex) {
-        assert indices[compactIndex] != EMPTY_INDEX;
-        indices[compactIndex] = indices[compactIndex] | COLLISION_MASK;
+    private static void markCollision(byte[] indices, int compactIndex) {
+        int index = readIndex(indices, compactIndex);
+        assert index != EMPTY_INDEX;
+        writeIndex(indices, compactIndex, index | COLLISION_MASK);
+    }
+
+    private static int readIndex(byte[] indices, int compactIndex) {
+        int length = indices.length;
+        if (length <= MAX_BYTE_INDICES_SIZE) {
+            return widenIndex(indices[compactIndex], Byte.MIN_VALUE);
+        } else if (length <= MAX_SHORT_INDICES_SIZE * Short.BYTES) {
+            return widenIndex(ARRAY_ACCESSOR.getShort(indices, compactIndex * Short.BYTES), Short.MIN_VALUE);
+        } else {
+            return ARRAY_ACCESSOR.getInt(indices, compactIndex * Integer.BYTES);
+        }
+    }
+
+    private static void writeIndex(byte[] indices, int compactIndex, int index) {
+        int length = indices.length;
+        if (length <= MAX_BYTE_INDICES_SIZE) {
+            indices[compactIndex] = (byte) narrowIndex(index, Byte.MIN_VALUE);
+        } else if (length <= MAX_SHORT_INDICES_SIZE * Short.BYTES) {
+            ARRAY_ACCESSOR.putShort(indices, compactIndex * Short.BYTES, (short) narrowIndex(index, Short.MIN_VALUE));
+        } else {
+            ARRAY_ACCESSOR.putInt(indices, compactIndex * Integer.BYTES, index);
+        }
+    }
+
+    /**
+     * Converts sign-extended narrow index to the int representation: the placeholders survive the
+     * sign extension as they are, only the collision bit needs to be moved to the sign bit.
+     */
+    private static int widenIndex(int narrow, int narrowCollisionMask) {
+        if (narrow >= DUMMY_INDEX) {
+            return narrow;
+        }
+        return (narrow & ~narrowCollisionMask) | COLLISION_MASK;
+    }
+
+    private static int narrowIndex(int index, int narrowCollisionMask) {
+        if (index >= DUMMY_INDEX) {
+            return index;
+        }
+        return unwrapIndex(index) | narrowCollisionMask;
     }
 
     private static boolean isCollision(int index) {
@@ -170,13 +229,17 @@ public final class ObjectHashMap {
     // It takes at most this many >>> shifts to turn any long into 0
     private static final int PERTURB_SHIFTS_COUT = 13;
 
-    // Sparse array with indices pointing to hashes and keysAndValues
-    private int[] indices;
+    // Sparse array with indices pointing to hashes and keysAndValues, see readIndex/writeIndex
+    private byte[] indices;
 
     // Compact arrays with the actual dict items:
     long[] hashes;
+    // Keys and values interleaved, or just keys if keysOnly is set
     Object[] keysAndValues;
 
+    // All values are None and are not stored, see the class comment
+    private boolean keysOnly;
+
     // How many real items are in the dict
     int size;
     // How many of the slots in the hashes/keysAndValues arrays are occupied either with real item
@@ -197,6 +260,11 @@ public final class ObjectHashMap {
     boolean hasSideEffectingKeys;
 
     public ObjectHashMap(int capacity, boolean hasSideEffects) {
+        this(capacity, hasSideEffects, false);
+    }
+
+    public ObjectHashMap(int capacity, boolean hasSideEffects, boolean keysOnly) {
+        this.keysOnly = keysOnly;
         if (capacity <= INITIAL_INDICES_SIZE) {
             allocateData(INITIAL_INDICES_SIZE);
         } else {
@@ -232,14 +300,21 @@ public final class ObjectHashMap {
 
     private void allocateData(int newSize) {
         assert isPow2(newSize);
-        indices = new int[newSize];
-        Arrays.fill(indices, EMPTY_INDEX);
+        int indexBytes = newSize <= MAX_BYTE_INDICES_SIZE ? Byte.BYTES : newSize <= MAX_SHORT_INDICES_SIZE ? Short.BYTES : Integer.BYTES;
+        indices = new byte[newSize * indexBytes];
+        // EMPTY_INDEX is all ones in any width
+        Arrays.fill(indices, (byte) EMPTY_INDEX);
+        assert getBucketsCount(indices) == newSize;
         // since we allow ourselves to fill only up to 3/4 of the hash table, we need this many
         // entries for the actual values: (we intentionally over-allocate by a small constant)
         int quarter = newSize >> 2;
         int usableSize = 3 * quarter + 2;
         hashes = new long[usableSize];
-        keysAndValues = new Object[usableSize * 2];
+        keysAndValues = new Object[keysOnly ? usableSize : usableSize * 2];
+    }
+
+    public boolean isKeysOnly() {
+        return keysOnly;
     }
 
     public void setSideEffectingKeysFlag() {
@@ -255,6 +330,7 @@ public final class ObjectHashMap {
 
     public ObjectHashMap copy() {
         ObjectHashMap result = new ObjectHashMap();
+        result.keysOnly = keysOnly;
         result.size = size;
         result.usedHashes = usedHashes;
         result.usedIndices = usedIndices;
@@ -311,16 +387,30 @@ public final class ObjectHashMap {
             return new DictKey(ObjectHashMap.this.getKey(index), hashes[index]);
         }
 
+        /**
+         * Like {@code getKey().getValue()}, but without allocating a {@link DictKey}.
+         */
+        public Object getRawKey() {
+            return ObjectHashMap.this.getKey(index);
+        }
+
         public Object getValue() {
             return ObjectHashMap.this.getValue(index);
         }
     }
 
-    private static int getBucketsCount(int[] indices) {
-        return indices.length;
+    private static int getBucketsCount(byte[] indices) {
+        int length = indices.length;
+        if (length <= MAX_BYTE_INDICES_SIZE) {
+            return length;
+        } else if (length <= MAX_SHORT_INDICES_SIZE * Short.BYTES) {
+            return length / Short.BYTES;
+        } else {
+            return length / Integer.BYTES;
+        }
     }
 
-    private boolean needsResize(int[] localIndices) {
+    private boolean needsResize(byte[] localIndices) {
         // when the hash table is 3/4 full, we resize on insertion
         int bucketsCount = getBucketsCount(localIndices);
         int bucketsCntQuarter = Math.max(1, bucketsCount >> 2);
@@ -366,11 +456,11 @@ public final class ObjectHashMap {
                         InlinedCountingConditionProfile collisionFoundEqKey,
                         PyObjectRichCompareBool.EqNode eqNode) throws RestartLookupException {
             assert map.checkInternalState();
-            int[] indices = map.indices;
-            int indicesLen = indices.length;
+            byte[] indices = map.indices;
+            int indicesLen = getBucketsCount(indices);
 
             int compactIndex = getIndex(indicesLen, keyHash);
-            int index = indices[compactIndex];
+            int index = readIndex(indices, compactIndex);
             if (foundNullKey.profile(inliningTarget, index == EMPTY_INDEX)) {
                 return null;
             }
@@ -378,7 +468,7 @@ public final class ObjectHashMap {
                 int unwrappedIndex = unwrapIndex(index);
                 if (foundEqKey.profile(inliningTarget, map.keysEqual(indices, frame, inliningTarget, unwrappedIndex, key, keyHash, eqNode))) {
                     return map.getValue(unwrappedIndex);
-                } else if (!isCollision(indices[compactIndex])) {
+                } else if (!isCollision(readIndex(indices, compactIndex))) {
                     // ^ note: we need to re-read indices[compactIndex],
                     // it may have been changed during __eq__
                     return null;
@@ -392,7 +482,7 @@ public final class ObjectHashMap {
         private static Object getCollision(Frame frame, ObjectHashMap map, Object key, long keyHash, Node inliningTarget,
                         InlinedCountingConditionProfile collisionFoundNoValue,
                         InlinedCountingConditionProfile collisionFoundEqKey,
-                        EqNode eqNode, int[] indices, int indicesLen, int compactIndex) throws RestartLookupException {
+                        EqNode eqNode, byte[] indices, int indicesLen, int compactIndex) throws RestartLookupException {
             int index;
             // collision: intentionally counted loop
             long perturb = keyHash;
@@ -406,7 +496,7 @@ public final class ObjectHashMap {
                     }
                     perturb >>>= PERTURB_SHIFT;
                     compactIndex = nextIndex(indicesLen, compactIndex, perturb);
-                    index = map.indices[compactIndex];
+                    index = readIndex(indices, compactIndex);
                     if (collisionFoundNoValue.profile(inliningTarget, index == EMPTY_INDEX)) {
                         return null;
                     }
@@ -414,7 +504,7 @@ public final class ObjectHashMap {
                         int unwrappedIndex = unwrapIndex(index);
                         if (collisionFoundEqKey.profile(inliningTarget, map.keysEqual(indices, frame, inliningTarget, unwrappedIndex, key, keyHash, eqNode))) {
                             return map.getValue(unwrappedIndex);
-                        } else if (!isCollision(indices[compactIndex])) {
+                        } else if (!isCollision(readIndex(indices, compactIndex))) {
                             // ^ note: we need to re-read indices[compactIndex],
                             // it may have been changed during __eq__
                             return null;
@@ -482,11 +572,11 @@ public final class ObjectHashMap {
                         InlinedBranchProfile rehash2Profile,
                         PyObjectRichCompareBool.EqNode eqNode) throws RestartLookupException {
             assert map.checkInternalState();
-            int[] indices = map.indices;
-            int indicesLen = indices.length;
+            byte[] indices = map.indices;
+            int indicesLen = getBucketsCount(indices);
 
             int compactIndex = getIndex(indicesLen, keyHash);
-            int index = indices[compactIndex];
+            int index = readIndex(indices, compactIndex);
             if (foundNullKey.profile(inliningTarget, index == EMPTY_INDEX)) {
                 map.putInNewSlot(indices, inliningTarget, rehash1Profile, key, keyHash, value, compactIndex);
                 return;
@@ -505,7 +595,10 @@ public final class ObjectHashMap {
         private static void putCollision(Frame frame, ObjectHashMap map, Object key, long keyHash, Object value, Node inliningTarget,
                         InlinedCountingConditionProfile collisionFoundNoValue, InlinedCountingConditionProfile collisionFoundEqKey,
                         InlinedBranchProfile rehash2Profile, EqNode eqNode,
-                        int[] indices, int indicesLen, int compactIndex) throws RestartLookupException {
+                        byte[] indices, int indicesLen, int compactIndex) throws RestartLookupException {
+            // the first dummy bucket in the chain, we can put the key there once we know that it is
+            // not in the map
+            int dummyBucket = readIndex(indices, compactIndex) == DUMMY_INDEX ? compactIndex : -1;
             markCollision(indices, compactIndex);
             long perturb = keyHash;
             int searchLimit = getBucketsCount(indices) + PERTURB_SHIFTS_COUT;
@@ -518,11 +611,18 @@ public final class ObjectHashMap {
                     }
                     perturb >>>= PERTURB_SHIFT;
                     compactIndex = nextIndex(indicesLen, compactIndex, perturb);
-                    int index = indices[compactIndex];
+                    int index = readIndex(indices, compactIndex);
                     if (collisionFoundNoValue.profile(inliningTarget, index == EMPTY_INDEX)) {
-                        map.putInNewSlot(indices, inliningTarget, rehash2Profile, key, keyHash, value, compactIndex);
+                        if (dummyBucket != -1) {
+                            map.putInDummySlot(indices, inliningTarget, rehash2Profile, key, keyHash, value, dummyBucket);
+                        } else {
+                            map.putInNewSlot(indices, inliningTarget, rehash2Profile, key, keyHash, value, compactIndex);
+                        }
                         return;
                     }
+                    if (index == DUMMY_INDEX && dummyBucket == -1) {
+                        dummyBucket = compactIndex;
+                    }
                     if (collisionFoundEqKey.profile(inliningTarget, index != DUMMY_INDEX && map.keysEqual(indices, frame, inliningTarget, unwrapIndex(index), key, keyHash, eqNode))) {
                         // we found the key, override the value, Python does not override the key
                         // though
@@ -544,10 +644,10 @@ public final class ObjectHashMap {
 
     // Internal helper: it is not profiling, never rehashes, and it assumes that the hash map never
     // contains the key that we are inserting
-    private void insertNewKey(int[] localIndices, Object key, long keyHash, Object value) {
+    private void insertNewKey(byte[] localIndices, Object key, long keyHash, Object value) {
         assert localIndices == this.indices;
-        int compactIndex = getIndex(localIndices.length, keyHash);
-        int index = localIndices[compactIndex];
+        int compactIndex = getIndex(getBucketsCount(localIndices), keyHash);
+        int index = readIndex(localIndices, compactIndex);
         if (index == EMPTY_INDEX) {
             putInNewSlot(localIndices, key, keyHash, value, compactIndex);
             return;
@@ -559,8 +659,8 @@ public final class ObjectHashMap {
         int searchLimit = getBucketsCount(localIndices) + PERTURB_SHIFTS_COUT;
         for (int i = 0; i < searchLimit; i++) {
             perturb >>>= PERTURB_SHIFT;
-            compactIndex = nextIndex(localIndices.length, compactIndex, perturb);
-            index = localIndices[compactIndex];
+            compactIndex = nextIndex(getBucketsCount(localIndices), compactIndex, perturb);
+            index = readIndex(localIndices, compactIndex);
             if (index == EMPTY_INDEX) {
                 putInNewSlot(localIndices, key, keyHash, value, compactIndex);
                 return;
@@ -573,9 +673,10 @@ public final class ObjectHashMap {
         throw CompilerDirectives.shouldNotReachHere();
     }
 
-    private void putInNewSlot(int[] localIndices, Node inliningTarget, InlinedBranchProfile rehashProfile, Object key, long keyHash, Object value, int compactIndex) {
+    private void putInNewSlot(byte[] localIndices, Node inliningTarget, InlinedBranchProfile rehashProfile, Object key, long keyHash, Object value, int compactIndex) {
         assert indices == localIndices;
-        if (CompilerDirectives.injectBranchProbability(SLOWPATH_PROBABILITY, needsResize(localIndices))) {
+        // Note: reused dummy buckets may fill up the compact arrays before the sparse array
+        if (CompilerDirectives.injectBranchProbability(SLOWPATH_PROBABILITY, needsResize(localIndices) || usedHashes == hashes.length)) {
             rehashProfile.enter(inliningTarget);
             rehashAndPut(key, keyHash, value);
             return;
@@ -583,16 +684,57 @@ public final class ObjectHashMap {
         putInNewSlot(localIndices, key, keyHash, value, compactIndex);
     }
 
-    private void putInNewSlot(int[] localIndices, Object key, long keyHash, Object value, int compactIndex) {
+    private void putInNewSlot(byte[] localIndices, Object key, long keyHash, Object value, int compactIndex) {
         size++;
         usedIndices++;
         int newIndex = usedHashes++;
-        localIndices[compactIndex] = newIndex;
+        writeIndex(localIndices, compactIndex, newIndex);
+        setValue(newIndex, value);
+        setKey(newIndex, key);
+        hashes[newIndex] = keyHash;
+    }
+
+    private void putInDummySlot(byte[] localIndices, Node inliningTarget, InlinedBranchProfile rehashProfile, Object key, long keyHash, Object value, int compactIndex)
+                    throws RestartLookupException {
+        assert indices == localIndices;
+        if (readIndex(localIndices, compactIndex) != DUMMY_INDEX) {
+            // someone took the bucket in a side effect of __eq__ while we were searching the chain
+            throw RestartLookupException.INSTANCE;
+        }
+        if (CompilerDirectives.injectBranchProbability(SLOWPATH_PROBABILITY, usedHashes == hashes.length)) {
+            // the dummy bucket is free, but the compact arrays are full of removed items
+            rehashProfile.enter(inliningTarget);
+            rehashAndPut(key, keyHash, value);
+            return;
+        }
+        size++;
+        int newIndex = usedHashes++;
+        // other collision chains may go through the bucket, so it must remain marked as such
+        writeIndex(localIndices, compactIndex, newIndex | COLLISION_MASK);
         setValue(newIndex, value);
         setKey(newIndex, key);
         hashes[newIndex] = keyHash;
     }
 
+    /**
+     * Removes the item from the compact arrays and marks its bucket as a dummy. If the item was the
+     * last one in the compact arrays, the slot (and any removed items just before it) can be used
+     * again by the next insertion.
+     */
+    private Object removeItem(byte[] localIndices, int compactIndex, int index) {
+        Object result = getValue(index);
+        writeIndex(localIndices, compactIndex, DUMMY_INDEX);
+        setValue(index, null);
+        setKey(index, null);
+        size--;
+        if (index == usedHashes - 1) {
+            do {
+                usedHashes--;
+            } while (usedHashes > 0 && getValue(usedHashes - 1) == null);
+        }
+        return result;
+    }
+
     private boolean needsCompaction() {
         // if more than quarter of all the slots are occupied by dummy values -> compact
         int quarterOfUsable = hashes.length >> 2;
@@ -640,25 +782,20 @@ public final class ObjectHashMap {
                 compactProfile.enter(inliningTarget);
                 map.compact();
             }
-            int[] indices = map.indices;
-            int indicesLen = indices.length;
+            byte[] indices = map.indices;
+            int indicesLen = getBucketsCount(indices);
 
             // Note: CPython is not shrinking the capacity of the hash table on delete, we do the
             // same
             int compactIndex = getIndex(indicesLen, keyHash);
-            int index = indices[compactIndex];
+            int index = readIndex(indices, compactIndex);
             if (foundNullKey.profile(inliningTarget, index == EMPTY_INDEX)) {
                 return null; // not found
             }
 
             int unwrappedIndex = unwrapIndex(index);
             if (foundEqKey.profile(inliningTarget, index != DUMMY_INDEX && map.keysEqual(indices, frame, inliningTarget, unwrappedIndex, key, keyHash, eqNode))) {
-                Object result = map.getValue(unwrappedIndex);
-                indices[compactIndex] = DUMMY_INDEX;
-                map.setValue(unwrappedIndex, null);
-                map.setKey(unwrappedIndex, null);
-                map.size--;
-                return result;
+                return map.removeItem(indices, compactIndex, unwrappedIndex);
             }
 
             // collision: intentionally counted loop
@@ -668,7 +805,7 @@ public final class ObjectHashMap {
         @InliningCutoff
         private static Object removeCollision(Frame frame, Node inliningTarget, ObjectHashMap map, Object key, long keyHash,
                         InlinedCountingConditionProfile collisionFoundNoValue, InlinedCountingConditionProfile collisionFoundEqKey,
-                        EqNode eqNode, int[] indices, int indicesLen, int compactIndex) throws RestartLookupException {
+                        EqNode eqNode, byte[] indices, int indicesLen, int compactIndex) throws RestartLookupException {
             int unwrappedIndex;
             long perturb = keyHash;
             int searchLimit = getBucketsCount(indices) + PERTURB_SHIFTS_COUT;
@@ -681,18 +818,13 @@ public final class ObjectHashMap {
                     }
                     perturb >>>= PERTURB_SHIFT;
                     compactIndex = nextIndex(indicesLen, compactIndex, perturb);
-                    int index = indices[compactIndex];
+                    int index = readIndex(indices, compactIndex);
                     if (collisionFoundNoValue.profile(inliningTarget, index == EMPTY_INDEX)) {
                         return null;
                     }
                     unwrappedIndex = unwrapIndex(index);
                     if (collisionFoundEqKey.profile(inliningTarget, index != DUMMY_INDEX && map.keysEqual(indices, frame, inliningTarget, unwrappedIndex, key, keyHash, eqNode))) {
-                        Object result = map.getValue(unwrappedIndex);
-                        indices[compactIndex] = DUMMY_INDEX;
-                        map.setValue(unwrappedIndex, null);
-                        map.setKey(unwrappedIndex, null);
-                        map.size--;
-                        return result;
+                        return map.removeItem(indices, compactIndex, unwrappedIndex);
                     }
                 }
             } finally {
@@ -719,7 +851,7 @@ public final class ObjectHashMap {
         }
     }
 
-    private boolean keysEqual(int[] originalIndices, Frame frame, Node inliningTarget, int index, Object key, long keyHash,
+    private boolean keysEqual(byte[] originalIndices, Frame frame, Node inliningTarget, int index, Object key, long keyHash,
                     PyObjectRichCompareBool.EqNode eqNode) throws RestartLookupException {
         if (hashes[index] != keyHash) {
             return false;
@@ -761,24 +893,26 @@ public final class ObjectHashMap {
             indicesCapacity = INITIAL_INDICES_SIZE;
         } else {
             indicesCapacity = getNextPow2(indicesCapacity);
-            if (indicesCapacity << 1 < 0) {
-                // some arrays we allocate are 2 times the size
+            if (indicesCapacity << 2 <= 0) {
+                // the indices array may take 4 bytes per bucket
                 throw new OutOfMemoryError();
             }
         }
         long[] oldHashes = hashes;
         Object[] oldKeysAndValues = keysAndValues;
+        boolean oldKeysOnly = keysOnly;
         int oldUsedSize = usedHashes;
         int oldSize = size;
         allocateData(indicesCapacity);
         size = 0;
         usedHashes = 0;
         usedIndices = 0;
-        int[] localIndices = this.indices;
+        byte[] localIndices = this.indices;
         for (int i = 0; i < oldUsedSize; i++) {
-            if (getValue(i, oldKeysAndValues) != null) {
-                final Object key = getKey(i, oldKeysAndValues);
-                insertNewKey(localIndices, key, oldHashes[i], getValue(i, oldKeysAndValues));
+            Object value = getValue(i, oldKeysAndValues, oldKeysOnly);
+            if (value != null) {
+                final Object key = getKey(i, oldKeysAndValues, oldKeysOnly);
+                insertNewKey(localIndices, key, oldHashes[i], value);
             }
         }
         assert size == oldSize : String.format("size=%d, oldSize=%d, oldUsedSize=%d, usedHashes=%d, usedIndices=%d",
@@ -809,24 +943,23 @@ public final class ObjectHashMap {
             }
         }
         usedHashes -= dummyCount; // We've "removed" the dummy entries
-        int[] localIndices = indices;
-        for (int i = 0; i < localIndices.length; i++) {
-            int index = localIndices[i];
+        byte[] localIndices = indices;
+        int bucketsCount = getBucketsCount(localIndices);
+        for (int i = 0; i < bucketsCount; i++) {
+            int index = readIndex(localIndices, i);
             if (index != EMPTY_INDEX && index != DUMMY_INDEX) {
                 boolean collision = isCollision(index);
                 int unwrapped = unwrapIndex(index);
                 int newIndex = unwrapped - shuffle[unwrapped];
-                localIndices[i] = newIndex;
+                writeIndex(localIndices, i, newIndex);
                 if (collision) {
                     markCollision(localIndices, i);
                 }
-            } else if (index == DUMMY_INDEX) {
-                dummyCount--;
             }
         }
-        // Indices may contain dummy values removed from hashes and keysAndValues arrays in some
-        // previous rounds of compaction, but we should have seen at least this many dummy values
-        assert dummyCount <= 0;
+        // Note: the number of dummy buckets is not related to the number of removed items in the
+        // compact arrays, dummy buckets may have been reused and the compact arrays may have been
+        // trimmed or compacted in some previous rounds
     }
 
     private static int nextIndex(int indicesLen, int i, long perturb) {
@@ -838,34 +971,65 @@ public final class ObjectHashMap {
         return (int) (hash & (indicesLen - 1));
     }
 
-    public static Object getKey(int index, Object[] keysAndValues) {
-        return keysAndValues[index << 1];
+    private static Object getKey(int index, Object[] keysAndValues, boolean keysOnly) {
+        return keysAndValues[keysOnly ? index : index << 1];
     }
 
-    public static Object getValue(int index, Object[] keysAndValues) {
+    private static Object getValue(int index, Object[] keysAndValues, boolean keysOnly) {
+        if (keysOnly) {
+            // removed items have null key, which is also what we must return as their value
+            return keysAndValues[index] != null ? PNone.NONE : null;
+        }
         return keysAndValues[(index << 1) + 1];
     }
 
     public Object getKey(int index) {
-        return getKey(index, keysAndValues);
+        return getKey(index, keysAndValues, keysOnly);
     }
 
     public Object getValue(int index) {
-        return getValue(index, keysAndValues);
+        return getValue(index, keysAndValues, keysOnly);
     }
 
     public void setValue(int index, Object value) {
+        if (keysOnly) {
+            // null is written only together with null key, which marks the item as removed
+            if (CompilerDirectives.injectBranchProbability(SLOWPATH_PROBABILITY, value != null && value != PNone.NONE)) {
+                convertToKeysAndValues();
+            } else {
+                return;
+            }
+        }
         keysAndValues[(index << 1) + 1] = value;
     }
 
     public void setKey(int index, Object key) {
-        keysAndValues[(index << 1)] = key;
+        keysAndValues[keysOnly ? index : index << 1] = key;
+    }
+
+    /**
+     * Leaves the keys only mode once the map is used for something else than a set.
+     */
+    @TruffleBoundary
+    private void convertToKeysAndValues() {
+        assert keysOnly;
+        Object[] keys = keysAndValues;
+        Object[] newKeysAndValues = new Object[keys.length * 2];
+        for (int i = 0; i < usedHashes; i++) {
+            Object key = keys[i];
+            if (key != null) {
+                newKeysAndValues[i << 1] = key;
+                newKeysAndValues[(i << 1) + 1] = PNone.NONE;
+            }
+        }
+        keysAndValues = newKeysAndValues;
+        keysOnly = false;
     }
 
     private boolean checkInternalState() {
         // We must have at least one empty slot, collision resolution relies on the fact that it is
         // always going to find an empty slot
-        assert usedIndices < indices.length : usedIndices;
+        assert usedIndices < getBucketsCount(indices) : usedIndices;
         return true;
     }
 
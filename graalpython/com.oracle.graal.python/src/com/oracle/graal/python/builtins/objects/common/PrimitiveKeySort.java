@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.common;
+
+import com.oracle.graal.python.builtins.objects.str.StringUtils;
+import com.oracle.graal.python.builtins.objects.tuple.PTuple;
+import com.oracle.graal.python.lib.PyTupleCheckExactNode;
+import com.oracle.graal.python.runtime.sequence.storage.SequenceStorage;
+import com.oracle.graal.python.util.IntArrayBuilder;
+import com.oracle.graal.python.util.PythonUtils;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Decorate-sort-undecorate on unboxed keys. When all sort keys are {@code int}s (including
+ * {@code bool}s), all are {@code float}s, or all are {@code str}s, they are unboxed into a
+ * {@code long[]}, {@code double[]} or {@code TruffleString[]} and merge sorted together with the
+ * values. The comparisons are plain Java comparisons which give the same result as Python's
+ * {@code <} for these types, so no Python code is called during the sort. The merge sort is stable
+ * as required by {@code list.sort}.
+ */
+final class PrimitiveKeySort {
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private enum KeyKind {
+        LONG,
+        DOUBLE,
+        STRING
+    }
+
+    private PrimitiveKeySort() {
+    }
+
+    /**
+     * Sorts {@code values} by the corresponding {@code keys} if the keys are homogeneous primitive
+     * values. Returns {@code null} without touching the arrays if they are not. Otherwise, when
+     * {@code collectRuns} is set, returns the {@code [start, end)} bounds of all runs of two or more
+     * equal keys, else an empty array.
+     */
+    @TruffleBoundary
+    static int[] sort(Object[] keys, Object[] values, int len, boolean collectRuns) {
+        KeyKind kind = classify(keys, len);
+        if (kind == null) {
+            return null;
+        }
+        switch (kind) {
+            case LONG: {
+                long[] unboxed = new long[len];
+                for (int i = 0; i < len; i++) {
+                    unboxed[i] = toLong(keys[i]);
+                }
+                mergeSort(unboxed, values, new long[len], new Object[len], 0, len);
+                return collectRuns ? runs(unboxed, len) : PythonUtils.EMPTY_INT_ARRAY;
+            }
+            case DOUBLE: {
+                double[] unboxed = new double[len];
+                for (int i = 0; i < len; i++) {
+                    unboxed[i] = (double) keys[i];
+                }
+                mergeSort(unboxed, values, new double[len], new Object[len], 0, len);
+                return collectRuns ? runs(unboxed, len) : PythonUtils.EMPTY_INT_ARRAY;
+            }
+            default: {
+                TruffleString[] unboxed = new TruffleString[len];
+                for (int i = 0; i < len; i++) {
+                    unboxed[i] = (TruffleString) keys[i];
+                }
+                mergeSort(unboxed, values, new TruffleString[len], new Object[len], 0, len);
+                return collectRuns ? runs(unboxed, len) : PythonUtils.EMPTY_INT_ARRAY;
+            }
+        }
+    }
+
+    /**
+     * Sorts a list of exact tuples by their first items if those are homogeneous primitive values.
+     * Tuples with equal first items must still be ordered by the remaining items, so the result has
+     * the same meaning as in {@link #sort}: {@code null} if the values don't qualify, otherwise the
+     * bounds of the runs that the caller needs to sort with the generic comparison.
+     */
+    @TruffleBoundary
+    static int[] sortTuplesByFirstItem(Object[] values, int len) {
+        if (!(values[0] instanceof PTuple)) {
+            return null;
+        }
+        Object[] firstItems = new Object[len];
+        for (int i = 0; i < len; i++) {
+            Object value = values[i];
+            if (!(value instanceof PTuple tuple) || !PyTupleCheckExactNode.executeUncached(tuple)) {
+                return null;
+            }
+            SequenceStorage storage = tuple.getSequenceStorage();
+            if (storage.length() == 0) {
+                return null;
+            }
+            Object first = SequenceStorageNodes.GetItemScalarNode.executeUncached(storage, 0);
+            if (first instanceof Double d && Double.isNaN(d)) {
+                /*
+                 * Tuple comparison treats an item as equal to itself before comparing with '<', so
+                 * tuples whose first item is the same NaN object are ordered by their remaining
+                 * items. The unboxed keys lose that identity, so leave these to the generic sort.
+                 */
+                return null;
+            }
+            firstItems[i] = first;
+        }
+        return sort(firstItems, values, len, true);
+    }
+
+    private static KeyKind classify(Object[] keys, int len) {
+        KeyKind kind = kindOf(keys[0]);
+        if (kind == null) {
+            return null;
+        }
+        for (int i = 1; i < len; i++) {
+            if (kindOf(keys[i]) != kind) {
+                return null;
+            }
+        }
+        return kind;
+    }
+
+    private static KeyKind kindOf(Object key) {
+        if (key instanceof Integer || key instanceof Long || key instanceof Boolean) {
+            return KeyKind.LONG;
+        } else if (key instanceof Double) {
+            return KeyKind.DOUBLE;
+        } else if (key instanceof TruffleString) {
+            return KeyKind.STRING;
+        }
+        return null;
+    }
+
+    private static long toLong(Object key) {
+        if (key instanceof Integer i) {
+            return i;
+        } else if (key instanceof Long l) {
+            return l;
+        }
+        return (boolean) key ? 1 : 0;
+    }
+
+    private static void mergeSort(long[] keys, Object[] values, long[] tmpKeys, Object[] tmpValues, int lo, int hi) {
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+            for (int i = lo + 1; i < hi; i++) {
+                long key = keys[i];
+                Object value = values[i];
+                int j = i - 1;
+                while (j >= lo && keys[j] > key) {
+                    keys[j + 1] = keys[j];
+                    values[j + 1] = values[j];
+                    j--;
+                }
+                keys[j + 1] = key;
+                values[j + 1] = value;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(keys, values, tmpKeys, tmpValues, lo, mid);
+        mergeSort(keys, values, tmpKeys, tmpValues, mid, hi);
+        if (keys[mid - 1] <= keys[mid]) {
+            return;
+        }
+        PythonUtils.arraycopy(keys, lo, tmpKeys, lo, hi - lo);
+        PythonUtils.arraycopy(values, lo, tmpValues, lo, hi - lo);
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (j >= hi || (i < mid && tmpKeys[i] <= tmpKeys[j])) {
+                keys[k] = tmpKeys[i];
+                values[k] = tmpValues[i++];
+            } else {
+                keys[k] = tmpKeys[j];
+                values[k] = tmpValues[j++];
+            }
+        }
+    }
+
+    /*
+     * Note that the primitive comparisons treat -0.0 and 0.0 as equal, just like Python does. NaNs
+     * compare false both ways, so the result is a permutation without a well-defined order, which
+     * is what CPython produces as well.
+     */
+    private static void mergeSort(double[] keys, Object[] values, double[] tmpKeys, Object[] tmpValues, int lo, int hi) {
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+            for (int i = lo + 1; i < hi; i++) {
+                double key = keys[i];
+                Object value = values[i];
+                int j = i - 1;
+                while (j >= lo && key < keys[j]) {
+                    keys[j + 1] = keys[j];
+                    values[j + 1] = values[j];
+                    j--;
+                }
+                keys[j + 1] = key;
+                values[j + 1] = value;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(keys, values, tmpKeys, tmpValues, lo, mid);
+        mergeSort(keys, values, tmpKeys, tmpValues, mid, hi);
+        if (!(keys[mid] < keys[mid - 1])) {
+            return;
+        }
+        PythonUtils.arraycopy(keys, lo, tmpKeys, lo, hi - lo);
+        PythonUtils.arraycopy(values, lo, tmpValues, lo, hi - lo);
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (j >= hi || (i < mid && !(tmpKeys[j] < tmpKeys[i]))) {
+                keys[k] = tmpKeys[i];
+                values[k] = tmpValues[i++];
+            } else {
+                keys[k] = tmpKeys[j];
+                values[k] = tmpValues[j++];
+            }
+        }
+    }
+
+    private static void mergeSort(TruffleString[] keys, Object[] values, TruffleString[] tmpKeys, Object[] tmpValues, int lo, int hi) {
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+            for (int i = lo + 1; i < hi; i++) {
+                TruffleString key = keys[i];
+                Object value = values[i];
+                int j = i - 1;
+                while (j >= lo && StringUtils.compareStringsUncached(key, keys[j]) < 0) {
+                    keys[j + 1] = keys[j];
+                    values[j + 1] = values[j];
+                    j--;
+                }
+                keys[j + 1] = key;
+                values[j + 1] = value;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(keys, values, tmpKeys, tmpValues, lo, mid);
+        mergeSort(keys, values, tmpKeys, tmpValues, mid, hi);
+        if (StringUtils.compareStringsUncached(keys[mid], keys[mid - 1]) >= 0) {
+            return;
+        }
+        PythonUtils.arraycopy(keys, lo, tmpKeys, lo, hi - lo);
+        PythonUtils.arraycopy(values, lo, tmpValues, lo, hi - lo);
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (j >= hi || (i < mid && StringUtils.compareStringsUncached(tmpKeys[j], tmpKeys[i]) >= 0)) {
+                keys[k] = tmpKeys[i];
+                values[k] = tmpValues[i++];
+            } else {
+                keys[k] = tmpKeys[j];
+                values[k] = tmpValues[j++];
+            }
+        }
+    }
+
+    private static int[] runs(long[] keys, int len) {
+        IntArrayBuilder bounds = new IntArrayBuilder();
+        int start = 0;
+        for (int i = 1; i <= len; i++) {
+            if (i == len || keys[i] != keys[start]) {
+                addRun(bounds, start, i);
+                start = i;
+            }
+        }
+        return bounds.toArray();
+    }
+
+    private static int[] runs(double[] keys, int len) {
+        IntArrayBuilder bounds = new IntArrayBuilder();
+        int start = 0;
+        for (int i = 1; i <= len; i++) {
+            if (i == len || keys[i] != keys[start]) {
+                addRun(bounds, start, i);
+                start = i;
+            }
+        }
+        return bounds.toArray();
+    }
+
+    private static int[] runs(TruffleString[] keys, int len) {
+        IntArrayBuilder bounds = new IntArrayBuilder();
+        int start = 0;
+        for (int i = 1; i <= len; i++) {
+            if (i == len || StringUtils.compareStringsUncached(keys[i], keys[start]) != 0) {
+                addRun(bounds, start, i);
+                start = i;
+            }
+        }
+        return bounds.toArray();
+    }
+
+    private static void addRun(IntArrayBuilder bounds, int start, int end) {
+        if (end - start > 1) {
+            bounds.add(start);
+            bounds.add(end);
+        }
+    }
+}
@@ -58,8 +58,10 @@ import com.oracle.graal.python.nodes.expression.BinaryComparisonNode;
 import com.oracle.graal.python.runtime.ExecutionContext;
 import com.oracle.graal.python.runtime.ExecutionContext.CallContext;
 import com.oracle.graal.python.runtime.ExecutionContext.IndirectCalleeContext;
+import com.oracle.graal.python.runtime.GilNode;
 import com.oracle.graal.python.runtime.PythonContext;
 import com.oracle.graal.python.runtime.PythonContext.PythonThreadState;
+import com.oracle.graal.python.runtime.PythonOptions;
 import com.oracle.graal.python.runtime.sequence.storage.BoolSequenceStorage;
 import com.oracle.graal.python.runtime.sequence.storage.DoubleSequenceStorage;
 import com.oracle.graal.python.runtime.sequence.storage.EmptySequenceStorage;
@@ -79,13 +81,11 @@ import com.oracle.truffle.api.dsl.Cached.Shared;
 import com.oracle.truffle.api.dsl.Fallback;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
-import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.LoopNode;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.profiles.InlinedConditionProfile;
 import com.oracle.truffle.api.profiles.InlinedCountingConditionProfile;
 import com.oracle.truffle.api.profiles.InlinedLoopConditionProfile;
-import com.oracle.truffle.api.profiles.ValueProfile;
 import com.oracle.truffle.api.strings.TruffleString;
 
 public abstract class SortNodes {
@@ -171,9 +171,9 @@ public abstract class SortNodes {
 
     public abstract static class SortSequenceStorageNode extends PNodeWithContext {
 
-        @CompilationFinal private RootCallTarget comparatorCallTarget;
+        private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0);
 
-        private final ValueProfile keyClassProfile = ValueProfile.createIdentityProfile();
+        @CompilationFinal private RootCallTarget comparatorCallTarget;
 
         public abstract void execute(VirtualFrame frame, SequenceStorage storage, Object keyfunc, boolean reverse);
 
@@ -203,10 +203,20 @@ public abstract class SortNodes {
 
         @Specialization
         @TruffleBoundary
-        void sort(IntSequenceStorage storage, @SuppressWarnings("unused") PNone keyfunc, boolean reverse) {
+        void sort(IntSequenceStorage storage, @SuppressWarnings("unused") PNone keyfunc, boolean reverse,
+                        @Shared @Cached GilNode gil) {
             int[] array = storage.getInternalIntArray();
             int len = storage.length();
-            Arrays.sort(array, 0, len);
+            if (useParallelSort(len)) {
+                gil.release(true);
+                try {
+                    Arrays.parallelSort(array, 0, len);
+                } finally {
+                    gil.acquire();
+                }
+            } else {
+                Arrays.sort(array, 0, len);
+            }
             if (reverse) {
                 reverseArray(array, len);
             }
@@ -214,10 +224,20 @@ public abstract class SortNodes {
 
         @Specialization
         @TruffleBoundary
-        void sort(LongSequenceStorage storage, @SuppressWarnings("unused") PNone keyfunc, boolean reverse) {
+        void sort(LongSequenceStorage storage, @SuppressWarnings("unused") PNone keyfunc, boolean reverse,
+                        @Shared @Cached GilNode gil) {
             long[] array = storage.getInternalLongArray();
             int len = storage.length();
-            Arrays.sort(array, 0, len);
+            if (useParallelSort(len)) {
+                gil.release(true);
+                try {
+                    Arrays.parallelSort(array, 0, len);
+                } finally {
+                    gil.acquire();
+                }
+            } else {
+                Arrays.sort(array, 0, len);
+            }
             if (reverse) {
                 reverseArray(array, len);
             }
@@ -225,17 +245,70 @@ public abstract class SortNodes {
 
         @Specialization
         @TruffleBoundary
-        void sort(DoubleSequenceStorage storage, @SuppressWarnings("unused") PNone keyfunc, boolean reverse) {
+        void sort(DoubleSequenceStorage storage, @SuppressWarnings("unused") PNone keyfunc, boolean reverse,
+                        @Shared @Cached GilNode gil) {
             int len = storage.length();
             double[] array = storage.getInternalDoubleArray();
-            Arrays.sort(array, 0, len);
+            boolean[] negativeZeros = getNegativeZeros(array, len);
+            if (useParallelSort(len)) {
+                gil.release(true);
+                try {
+                    Arrays.parallelSort(array, 0, len);
+                } finally {
+                    gil.acquire();
+                }
+            } else {
+                Arrays.sort(array, 0, len);
+            }
             if (reverse) {
                 reverseArray(array, len);
             }
+            if (negativeZeros != null) {
+                restoreZeros(array, negativeZeros);
+            }
+        }
+
+        /*
+         * -0.0 and 0.0 are equal in Python, so the stable sort keeps them in their original order,
+         * but Arrays.sort and Arrays.parallelSort both put -0.0 first. If there is any -0.0, we
+         * remember the order of the zeros and write it back into the block of zeros in the sorted
+         * array. The common case without -0.0 only costs a single compare per element.
+         */
+        private static boolean[] getNegativeZeros(double[] array, int len) {
+            int firstNegative = 0;
+            while (firstNegative < len && Double.doubleToRawLongBits(array[firstNegative]) != NEGATIVE_ZERO_BITS) {
+                firstNegative++;
+            }
+            if (firstNegative == len) {
+                return null;
+            }
+            int zeros = 0;
+            for (int i = 0; i < len; i++) {
+                if (array[i] == 0.0) {
+                    zeros++;
+                }
+            }
+            boolean[] negative = new boolean[zeros];
+            for (int i = 0, j = 0; i < len; i++) {
+                if (array[i] == 0.0) {
+                    negative[j++] = Double.doubleToRawLongBits(array[i]) == NEGATIVE_ZERO_BITS;
+                }
+            }
+            return negative;
+        }
+
+        private static void restoreZeros(double[] array, boolean[] negative) {
+            int start = 0;
+            while (array[start] != 0.0) {
+                start++;
+            }
+            for (int j = 0; j < negative.length; j++) {
+                array[start + j] = negative[j] ? -0.0 : 0.0;
+            }
         }
 
         @TruffleBoundary
-        private static void sortStrings(ObjectSequenceStorage storage, boolean reverse) {
+        private void sortStrings(ObjectSequenceStorage storage, boolean reverse, GilNode gil) {
             Object[] array = storage.getInternalArray();
             int len = storage.length();
             Comparator<Object> comparator;
@@ -244,7 +317,26 @@ public abstract class SortNodes {
             } else {
                 comparator = (a, b) -> StringUtils.compareStringsUncached((TruffleString) a, (TruffleString) b);
             }
-            Arrays.sort(array, 0, len, comparator);
+            if (useParallelSort(len)) {
+                gil.release(true);
+                try {
+                    Arrays.parallelSort(array, 0, len, comparator);
+                } finally {
+                    gil.acquire();
+                }
+            } else {
+                Arrays.sort(array, 0, len, comparator);
+            }
+        }
+
+        /*
+         * The primitive and string-only sorts don't run any Python code and the list being sorted
+         * is made empty by list.sort for the duration of the sort, so no other thread can observe
+         * the storage. Large sorts can thus use all cores while other Python threads keep running.
+         */
+        private boolean useParallelSort(int len) {
+            int threshold = PythonContext.get(this).getOption(PythonOptions.ParallelSortThreshold);
+            return threshold > 0 && len >= threshold;
         }
 
         protected boolean isStringOnly(Node inliningTarget, ObjectSequenceStorage storage, InlinedLoopConditionProfile isStringOnlyLoopProfile,
@@ -269,12 +361,13 @@ public abstract class SortNodes {
                         @Cached InlinedConditionProfile isStringOnlyProfile,
                         @Cached InlinedLoopConditionProfile isStringOnlyLoopProfile,
                         @Cached InlinedCountingConditionProfile isStringOnlyBreakProfile,
-                        @Shared @Cached CallContext callContext) {
+                        @Shared @Cached CallContext callContext,
+                        @Shared @Cached GilNode gil) {
             if (isStringOnlyProfile.profile(inliningTarget, isStringOnly(inliningTarget, storage, isStringOnlyLoopProfile, isStringOnlyBreakProfile))) {
                 // Sorting of strings seems to be so much faster (especially on SVM) that it is
                 // worth always checking for string only sequences and not replacing the strings
                 // specialized code with generic object storage code
-                sortStrings(storage, reverse);
+                sortStrings(storage, reverse, gil);
             } else {
                 sortWithoutKey(frame, storage.getInternalArray(), storage.length(), reverse, callContext);
             }
@@ -317,20 +410,28 @@ public abstract class SortNodes {
             if (reverse) {
                 reverseArray(array, len);
             }
-            PythonLanguage language = PythonLanguage.get(this);
-            final Object[] arguments = PArguments.create(2);
-            final RootCallTarget callTarget = getComparatorCallTarget(language);
-            if (frame == null) {
-                PythonThreadState threadState = PythonContext.get(this).getThreadState(language);
-                Object state = IndirectCalleeContext.enter(threadState, arguments, callTarget);
-                try {
-                    callSortWithoutKey(array, len, callTarget, arguments);
-                } finally {
-                    IndirectCalleeContext.exit(threadState, state);
+            /*
+             * Lists of tuples are commonly sorted by their first item. If those are all ints, floats
+             * or strs, we presort on them without calling Python code and only need the generic
+             * comparison for the runs of tuples with equal first items.
+             */
+            int[] runs = PrimitiveKeySort.sortTuplesByFirstItem(array, len);
+            if (runs == null || runs.length > 0) {
+                PythonLanguage language = PythonLanguage.get(this);
+                final Object[] arguments = PArguments.create(2);
+                final RootCallTarget callTarget = getComparatorCallTarget(language);
+                if (frame == null) {
+                    PythonThreadState threadState = PythonContext.get(this).getThreadState(language);
+                    Object state = IndirectCalleeContext.enter(threadState, arguments, callTarget);
+                    try {
+                        callSortWithoutKey(array, len, runs, callTarget, arguments);
+                    } finally {
+                        IndirectCalleeContext.exit(threadState, state);
+                    }
+                } else {
+                    callContext.prepareCall(frame, arguments, callTarget, this);
+                    callSortWithoutKey(array, len, runs, callTarget, arguments);
                 }
-            } else {
-                callContext.prepareCall(frame, arguments, callTarget, this);
-                callSortWithoutKey(array, len, callTarget, arguments);
             }
             if (reverse) {
                 reverseArray(array, len);
@@ -338,9 +439,19 @@ public abstract class SortNodes {
         }
 
         @TruffleBoundary
-        private static void callSortWithoutKey(Object[] array, int len, RootCallTarget callTarget, Object[] arguments) {
+        private static void callSortWithoutKey(Object[] array, int len, int[] runs, RootCallTarget callTarget, Object[] arguments) {
+            if (runs == null) {
+                callSortWithoutKey(array, 0, len, callTarget, arguments);
+            } else {
+                for (int i = 0; i < runs.length; i += 2) {
+                    callSortWithoutKey(array, runs[i], runs[i + 1], callTarget, arguments);
+                }
+            }
+        }
+
+        private static void callSortWithoutKey(Object[] array, int from, int to, RootCallTarget callTarget, Object[] arguments) {
             try {
-                Arrays.sort(array, 0, len, (a, b) -> {
+                Arrays.sort(array, from, to, (a, b) -> {
                     PArguments.setArgument(arguments, 0, a);
                     PArguments.setArgument(arguments, 1, b);
                     ObjectComparatorRootNode.Result result = (ObjectComparatorRootNode.Result) callTarget.call(arguments);
@@ -356,32 +467,6 @@ public abstract class SortNodes {
             }
         }
 
-        private enum KeySortComparator {
-            INT(Integer.class, Comparator.comparing(a -> ((Integer) a.key))),
-            LONG(Long.class, Comparator.comparing(a -> ((Long) a.key))),
-            DOUBLE(Double.class, Comparator.comparing(a -> ((Double) a.key))),
-            BOOLEAN(Boolean.class, Comparator.comparing(a -> ((Boolean) a.key))),
-            STRING(TruffleString.class, (a, b) -> StringUtils.compareStringsUncached((TruffleString) a.key, (TruffleString) b.key));
-
-            final Class<?> clazz;
-            final Comparator<SortingPair> comparator;
-
-            KeySortComparator(Class<?> clazz, Comparator<SortingPair> comparator) {
-                this.clazz = clazz;
-                this.comparator = comparator;
-            }
-
-            @ExplodeLoop
-            public static KeySortComparator forClass(Class<?> clazz) {
-                for (KeySortComparator c : KeySortComparator.values()) {
-                    if (clazz == c.clazz) {
-                        return c;
-                    }
-                }
-                return null;
-            }
-        }
-
         private void sortWithKey(VirtualFrame frame, Object[] array, int len, Object keyfunc, boolean reverse, CallNode callNode, CallContext callContext) {
             if (len == 0) {
                 return;
@@ -392,32 +477,29 @@ public abstract class SortNodes {
                 return;
             }
             /*
-             * Box the values into (key, value) pairs so that the comparator can compare they keys.
-             * We want to avoid calling the key function from the comparator because CPython also
-             * computes the keys only once. There is an additional optimization opportunity where we
-             * could avoid boxing primitive numbers, but that would result in quite a lot of
-             * duplicate code.
+             * Compute all the keys first, CPython also computes the keys only once. Like CPython,
+             * a reverse sort is done by sorting the reversed list and reversing the result, which
+             * keeps the sort stable.
              */
-            SortingPair[] pairArray = new SortingPair[len];
+            Object[] keys = new Object[len];
+            keys[0] = key;
+            for (int i = 1; i < len; i++) {
+                keys[i] = callNode.execute(frame, keyfunc, array[i]);
+            }
+            if (reverse) {
+                reverseArray(array, len);
+                reverseArray(keys, len);
+            }
             /*
-             * Look at the first key and determine which comparator we could use to compare if the
-             * keys turn all to be the same primitive type
+             * If the keys are all ints, floats or strs, sort on the unboxed keys directly.
+             * Otherwise, box the values into (key, value) pairs so that the comparator can compare
+             * the keys.
              */
-            pairArray[reverse ? len - 1 : 0] = new SortingPair(key, array[0]);
-            Class<?> keyClass = keyClassProfile.profile(key.getClass());
-            KeySortComparator keySortComparator = KeySortComparator.forClass(keyClass);
-
-            for (int i = 1; i < len; i++) {
-                key = callNode.execute(frame, keyfunc, array[i]);
-                /* Check if the keys are all of the same type */
-                if (keySortComparator != null && key.getClass() != keySortComparator.clazz) {
-                    keySortComparator = null;
+            if (PrimitiveKeySort.sort(keys, array, len, false) == null) {
+                SortingPair[] pairArray = new SortingPair[len];
+                for (int i = 0; i < len; i++) {
+                    pairArray[i] = new SortingPair(keys[i], array[i]);
                 }
-                pairArray[reverse ? len - i - 1 : i] = new SortingPair(key, array[i]);
-            }
-            if (keySortComparator != null) {
-                callSortWithKey(pairArray, len, keySortComparator);
-            } else {
                 PythonLanguage language = PythonLanguage.get(this);
                 final Object[] arguments = PArguments.create(2);
                 final RootCallTarget callTarget = getComparatorCallTarget(language);
@@ -433,17 +515,15 @@ public abstract class SortNodes {
                     callContext.prepareCall(frame, arguments, callTarget, this);
                     callSortWithKey(pairArray, len, callTarget, arguments);
                 }
+                for (int i = 0; i < len; i++) {
+                    array[i] = pairArray[i].value;
+                }
             }
-            for (int i = 0; i < len; i++) {
-                array[reverse ? len - i - 1 : i] = pairArray[i].value;
+            if (reverse) {
+                reverseArray(array, len);
             }
         }
 
-        @TruffleBoundary
-        private static void callSortWithKey(SortingPair[] array, int len, KeySortComparator comparator) {
-            Arrays.sort(array, 0, len, comparator.comparator);
-        }
-
         @TruffleBoundary
         private static void callSortWithKey(SortingPair[] array, int len, RootCallTarget callTarget, Object[] arguments) {
             try {
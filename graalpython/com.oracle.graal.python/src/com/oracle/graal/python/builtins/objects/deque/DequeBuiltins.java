@@ -82,7 +82,6 @@ import static com.oracle.graal.python.nodes.StringLiterals.T_RPAREN;
 import static com.oracle.graal.python.util.PythonUtils.TS_ENCODING;
 import static com.oracle.graal.python.util.PythonUtils.toTruffleStringUncached;
 
-import java.util.Iterator;
 import java.util.List;
 
 import com.oracle.graal.python.annotations.ArgumentClinic;
@@ -282,7 +281,6 @@ public final class DequeBuiltins extends PythonBuiltins {
     public abstract static class DequeClearNode extends PythonUnaryBuiltinNode {
 
         @Specialization
-        @TruffleBoundary
         static PNone doGeneric(PDeque self) {
             self.clear();
             return PNone.NONE;
@@ -313,16 +311,19 @@ public final class DequeBuiltins extends PythonBuiltins {
     public abstract static class DequeCountNode extends PythonBinaryBuiltinNode {
 
         @Specialization
-        @TruffleBoundary
-        int doGeneric(PDeque self, Object value) {
+        static int doGeneric(VirtualFrame frame, PDeque self, Object value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectRichCompareBool.EqNode eqNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
             int n = 0;
+            int size = self.getSize();
             int startState = self.getState();
-            for (Object item : self.data) {
-                if (PyObjectRichCompareBool.EqNode.compareUncached(item, value)) {
+            for (int i = 0; i < size; i++) {
+                if (eqNode.compare(frame, inliningTarget, self.getItem(i), value)) {
                     n++;
                 }
                 if (startState != self.getState()) {
-                    throw PRaiseNode.raiseUncached(this, RuntimeError, ErrorMessages.DEQUE_MUTATED_DURING_ITERATION);
+                    throw raiseNode.get(inliningTarget).raise(RuntimeError, ErrorMessages.DEQUE_MUTATED_DURING_ITERATION);
                 }
             }
             return n;
@@ -340,9 +341,8 @@ public final class DequeBuiltins extends PythonBuiltins {
         }
 
         @Specialization(guards = "self == other")
-        @TruffleBoundary
         PNone doSelf(PDeque self, @SuppressWarnings("unused") PDeque other) {
-            Object[] items = self.data.toArray();
+            Object[] items = self.toArray();
             for (Object item : items) {
                 appendOperation(self, item);
             }
@@ -429,20 +429,12 @@ public final class DequeBuiltins extends PythonBuiltins {
             if (normStart > normStop) {
                 normStart = normStop;
             }
-            Iterator<Object> iterator = self.iterator();
-            for (int idx = 0; idx < normStop; idx++) {
-                /*
-                 * Note: A 'ConcurrentModificationException' should not be possible because we
-                 * manually check for modifications during iteration.
-                 */
-                Object item = next(iterator);
-                if (normStart <= idx) {
-                    if (eqNode.compare(frame, inliningTarget, item, value)) {
-                        return idx;
-                    }
-                    if (startState != self.getState()) {
-                        throw raiseNode.get(inliningTarget).raise(RuntimeError, ErrorMessages.DEQUE_MUTATED_DURING_ITERATION);
-                    }
+            for (int idx = normStart; idx < normStop; idx++) {
+                if (eqNode.compare(frame, inliningTarget, self.getItem(idx), value)) {
+                    return idx;
+                }
+                if (startState != self.getState()) {
+                    throw raiseNode.get(inliningTarget).raise(RuntimeError, ErrorMessages.DEQUE_MUTATED_DURING_ITERATION);
                 }
             }
             throw raiseNode.get(inliningTarget).raise(ValueError, ErrorMessages.S_IS_NOT_DEQUE, value);
@@ -478,11 +470,6 @@ public final class DequeBuiltins extends PythonBuiltins {
             }
             return Math.max(res, 0);
         }
-
-        @TruffleBoundary
-        private static Object next(Iterator<?> it) {
-            return it.next();
-        }
     }
 
     // deque.insert()
@@ -497,11 +484,12 @@ public final class DequeBuiltins extends PythonBuiltins {
         }
 
         @Specialization
-        @TruffleBoundary
-        PNone doGeneric(PDeque self, int index, Object value) {
+        static PNone doGeneric(PDeque self, int index, Object value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PRaiseNode.Lazy raiseNode) {
             int n = self.getSize();
             if (self.getMaxLength() == n) {
-                throw PRaiseNode.raiseUncached(this, IndexError, ErrorMessages.DEQUE_AT_MAX_SIZE);
+                throw raiseNode.get(inliningTarget).raise(IndexError, ErrorMessages.DEQUE_AT_MAX_SIZE);
             }
 
             // shortcuts for simple cases
@@ -510,13 +498,7 @@ public final class DequeBuiltins extends PythonBuiltins {
             } else if (index <= -n || index == 0) {
                 self.appendLeft(value);
             } else {
-                DequeRotateNode.rotate(self, -index);
-                if (index < 0) {
-                    self.append(value);
-                } else {
-                    self.appendLeft(value);
-                }
-                DequeRotateNode.rotate(self, index);
+                self.insert(index < 0 ? index + n : index, value);
             }
 
             return PNone.NONE;
@@ -563,35 +545,23 @@ public final class DequeBuiltins extends PythonBuiltins {
     public abstract static class DequeRemoveNode extends PythonBinaryBuiltinNode {
 
         @Specialization
-        @TruffleBoundary
-        Object doGeneric(PDeque self, Object value) {
+        static Object doGeneric(VirtualFrame frame, PDeque self, Object value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectRichCompareBool.EqNode eqNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
             // CPython captures the size before iteration
             int n = self.getSize();
             for (int i = 0; i < n; i++) {
-                try {
-                    boolean result = PyObjectRichCompareBool.EqNode.compareUncached(self.peekLeft(), value);
-                    if (n != self.getSize()) {
-                        throw PRaiseNode.raiseUncached(this, IndexError, DEQUE_MUTATED_DURING_REMOVE);
-                    }
-                    if (result) {
-                        Object removed = self.popLeft();
-                        assert removed != null;
-                        DequeRotateNode.doRight(self, i);
-                        return PNone.NONE;
-                    } else {
-                        // this is basically 'DequeRotateNode.doLeft(self, -1)'
-                        self.append(self.popLeft());
-                    }
-                } catch (PException e) {
-                    /*
-                     * In case of an error during comparison, we need to restore the original deque
-                     * by rotating.
-                     */
-                    DequeRotateNode.doRight(self, i);
-                    throw e;
+                boolean result = eqNode.compare(frame, inliningTarget, self.getItem(i), value);
+                if (n != self.getSize()) {
+                    throw raiseNode.get(inliningTarget).raise(IndexError, DEQUE_MUTATED_DURING_REMOVE);
+                }
+                if (result) {
+                    self.delItem(i);
+                    return PNone.NONE;
                 }
             }
-            throw PRaiseNode.raiseUncached(this, ValueError, DEQUE_REMOVE_X_NOT_IN_DEQUE);
+            throw raiseNode.get(inliningTarget).raise(ValueError, DEQUE_REMOVE_X_NOT_IN_DEQUE);
         }
     }
 
@@ -601,15 +571,8 @@ public final class DequeBuiltins extends PythonBuiltins {
     public abstract static class DequeReverseNode extends PythonUnaryBuiltinNode {
 
         @Specialization
-        @TruffleBoundary
-        PNone doGeneric(PDeque self) {
-            Object[] items = new Object[self.getSize()];
-            for (int i = 0; i < items.length; i++) {
-                items[i] = self.data.pollLast();
-            }
-            for (int i = 0; i < items.length; i++) {
-                self.data.addLast(items[i]);
-            }
+        static PNone doGeneric(PDeque self) {
+            self.reverse();
             return PNone.NONE;
         }
     }
@@ -625,44 +588,11 @@ public final class DequeBuiltins extends PythonBuiltins {
             return DequeRotateNodeClinicProviderGen.INSTANCE;
         }
 
-        @Specialization(guards = "self.getSize() <= 1")
-        @TruffleBoundary
-        @SuppressWarnings("unused")
-        static PNone doEmptyOrSingleElement(PDeque self, int n) {
-            return PNone.NONE;
-        }
-
-        @Specialization(guards = "n >= 0")
-        @TruffleBoundary
-        static PNone doRight(PDeque self, int n) {
-            if (self.getSize() > 1) {
-                int effectiveRot = n % self.getSize();
-                for (int i = 0; i < effectiveRot; i++) {
-                    self.appendLeft(self.pop());
-                }
-            }
-            return PNone.NONE;
-        }
-
-        @Specialization(guards = "n < 0")
-        @TruffleBoundary
-        static PNone doLeft(PDeque self, int n) {
-            if (self.getSize() > 1) {
-                int effectiveRot = -n % self.getSize();
-                for (int i = 0; i < effectiveRot; i++) {
-                    self.append(self.popLeft());
-                }
-            }
+        @Specialization
+        static PNone doGeneric(PDeque self, int n) {
+            self.rotate(n);
             return PNone.NONE;
         }
-
-        static void rotate(PDeque self, int n) {
-            if (n < 0) {
-                doLeft(self, n);
-            } else {
-                doRight(self, n);
-            }
-        }
     }
 
     // SEQUENCE METHODS
@@ -684,11 +614,10 @@ public final class DequeBuiltins extends PythonBuiltins {
     public abstract static class DequeInplaceAddNode extends PythonBinaryBuiltinNode {
 
         @Specialization
-        @TruffleBoundary
         static PDeque doDeque(PDeque self, PDeque other) {
             if (self == other) {
                 // we need to create a snapshot of 'self'
-                self.addAll(self.data.toArray());
+                self.addAll(self.toArray());
             } else {
                 self.addAll(other);
             }
@@ -785,7 +714,7 @@ public final class DequeBuiltins extends PythonBuiltins {
                 repetitions = (self.getMaxLength() + size - 1) / size;
             }
 
-            Object[] items = self.data.toArray();
+            Object[] items = self.toArray();
             for (int i = 0; i < repetitions - 1; i++) {
                 self.addAll(items);
             }
@@ -830,15 +759,18 @@ public final class DequeBuiltins extends PythonBuiltins {
     public abstract static class DequeContainsNode extends PythonBinaryBuiltinNode {
 
         @Specialization
-        @TruffleBoundary
-        boolean doGeneric(PDeque self, Object value) {
+        static boolean doGeneric(VirtualFrame frame, PDeque self, Object value,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectRichCompareBool.EqNode eqNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            int size = self.getSize();
             int startState = self.getState();
-            for (Object item : self.data) {
-                if (PyObjectRichCompareBool.EqNode.compareUncached(item, value)) {
+            for (int i = 0; i < size; i++) {
+                if (eqNode.compare(frame, inliningTarget, self.getItem(i), value)) {
                     return true;
                 }
                 if (startState != self.getState()) {
-                    throw PRaiseNode.raiseUncached(this, RuntimeError, ErrorMessages.DEQUE_MUTATED_DURING_ITERATION);
+                    throw raiseNode.get(inliningTarget).raise(RuntimeError, ErrorMessages.DEQUE_MUTATED_DURING_ITERATION);
                 }
             }
             return false;
@@ -856,21 +788,10 @@ public final class DequeBuiltins extends PythonBuiltins {
         }
 
         @Specialization
-        @TruffleBoundary
-        Object doGeneric(PDeque self, int idx,
+        static Object doGeneric(PDeque self, int idx,
                         @Cached NormalizeIndexCustomMessageNode normalizeIndexNode) {
             int normIdx = normalizeIndexNode.execute(idx, self.getSize(), ErrorMessages.DEQUE_INDEX_OUT_OF_RANGE);
-            return doGetItem(self, normIdx);
-        }
-
-        @TruffleBoundary
-        Object doGetItem(PDeque self, int idx) {
-            assert 0 <= idx && idx < self.getSize();
-            Iterator<Object> it = self.data.iterator();
-            for (int i = 0; i < idx; i++) {
-                it.next();
-            }
-            return it.next();
+            return self.getItem(normIdx);
         }
     }
 
@@ -888,7 +809,11 @@ public final class DequeBuiltins extends PythonBuiltins {
         static PNone doGeneric(PDeque self, int idx, Object value,
                         @Cached NormalizeIndexCustomMessageNode normalizeIndexNode) {
             int normIdx = normalizeIndexNode.execute(idx, self.getSize(), ErrorMessages.DEQUE_INDEX_OUT_OF_RANGE);
-            self.setItem(normIdx, value != PNone.NO_VALUE ? value : null);
+            if (value != PNone.NO_VALUE) {
+                self.setItem(normIdx, value);
+            } else {
+                self.delItem(normIdx);
+            }
             return PNone.NONE;
         }
     }
@@ -907,7 +832,7 @@ public final class DequeBuiltins extends PythonBuiltins {
         static PNone doGeneric(PDeque self, int idx,
                         @Cached NormalizeIndexCustomMessageNode normalizeIndexNode) {
             int normIdx = normalizeIndexNode.execute(idx, self.getSize(), ErrorMessages.DEQUE_INDEX_OUT_OF_RANGE);
-            self.setItem(normIdx, null);
+            self.delItem(normIdx);
             return PNone.NONE;
         }
     }
@@ -961,7 +886,7 @@ public final class DequeBuiltins extends PythonBuiltins {
             EncapsulatingNodeReference ref = EncapsulatingNodeReference.getCurrent();
             Node outerNode = ref.set(this);
             try {
-                Object[] items = self.data.toArray();
+                Object[] items = self.toArray();
                 PList asList = PythonObjectFactory.getUncached().createList(items);
                 int maxLength = self.getMaxLength();
                 TruffleStringBuilder sb = TruffleStringBuilder.create(TS_ENCODING);
@@ -40,27 +40,31 @@
  */
 package com.oracle.graal.python.builtins.objects.deque;
 
-import java.util.ArrayDeque;
-import java.util.Iterator;
-
 import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
+import com.oracle.graal.python.util.PythonUtils;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.object.Shape;
 
 /**
- * A simple wrapper around Java's {@link ArrayDeque}.
+ * A deque backed by a ring buffer, i.e., an array with a power of two length in which the items
+ * wrap around at the end. The item at index {@code i} is stored at
+ * {@code items[(head + i) & (items.length - 1)]}, which gives constant time indexing. Deques with
+ * {@code maxlen} only grow until they are full, then appending just replaces the item that falls
+ * out on the other side.
  */
 public final class PDeque extends PythonBuiltinObject {
-    final ArrayDeque<Object> data = createArrayDeque();
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private Object[] items = new Object[INITIAL_CAPACITY];
+    private int head;
+    private int size;
     private int maxLength = -1;
 
     /**
      * This is a modification counter and used to produce exceptions if the deque is modified during
-     * iteration. We need it because {@link ArrayDeque}'s iterators have a slightly different
-     * behavior. E.g. if you iterate the deque to the end and the last element comparison would
-     * modify the deque, then {@link ArrayDeque} doesn't complain while CPython's implementation
-     * still complains. The main difference is that CPython will always check if the deque was
-     * modifed right after it called out for {@code __eq__}.
+     * iteration. CPython checks if the deque was modifed right after it called out for
+     * {@code __eq__}, so we need to do the same.
      */
     private int state;
 
@@ -68,13 +72,8 @@ public final class PDeque extends PythonBuiltinObject {
         super(cls, instanceShape);
     }
 
-    @TruffleBoundary
-    private static ArrayDeque<Object> createArrayDeque() {
-        return new ArrayDeque<>();
-    }
-
     int getSize() {
-        return data.size();
+        return size;
     }
 
     int getMaxLength() {
@@ -85,111 +84,223 @@ public final class PDeque extends PythonBuiltinObject {
         this.maxLength = maxLength;
     }
 
+    private int slot(int idx) {
+        return (head + idx) & (items.length - 1);
+    }
+
+    private void ensureCapacity(int newSize) {
+        if (newSize > items.length) {
+            grow();
+        }
+    }
+
     @TruffleBoundary
+    private void grow() {
+        if (items.length >= MAX_CAPACITY) {
+            throw new OutOfMemoryError();
+        }
+        Object[] newItems = new Object[items.length << 1];
+        copyTo(newItems);
+        items = newItems;
+        head = 0;
+    }
+
+    private void copyTo(Object[] dest) {
+        int firstPart = Math.min(size, items.length - head);
+        PythonUtils.arraycopy(items, head, dest, 0, firstPart);
+        PythonUtils.arraycopy(items, 0, dest, firstPart, size - firstPart);
+    }
+
+    Object getItem(int idx) {
+        assert 0 <= idx && idx < size;
+        return items[slot(idx)];
+    }
+
     void append(Object value) {
-        assert maxLength == -1 || data.size() <= maxLength;
-        data.addLast(value);
-        if (maxLength != -1 && data.size() > maxLength) {
-            popLeft();
+        assert maxLength == -1 || size <= maxLength;
+        state++;
+        if (size == maxLength) {
+            if (size == 0) {
+                return;
+            }
+            removeFirst();
         } else {
-            state++;
+            ensureCapacity(size + 1);
         }
-
-        assert maxLength == -1 || data.size() <= maxLength;
+        items[slot(size)] = value;
+        size++;
     }
 
-    @TruffleBoundary
     void appendLeft(Object value) {
-        assert maxLength == -1 || data.size() <= maxLength;
-        data.addFirst(value);
-        if (maxLength != -1 && data.size() > maxLength) {
-            pop();
+        assert maxLength == -1 || size <= maxLength;
+        state++;
+        if (size == maxLength) {
+            if (size == 0) {
+                return;
+            }
+            removeLast();
         } else {
-            state++;
+            ensureCapacity(size + 1);
         }
-        assert maxLength == -1 || data.size() <= maxLength;
+        head = (head - 1) & (items.length - 1);
+        items[head] = value;
+        size++;
     }
 
     /**
      * Returns {@code null} if empty.
      */
-    @TruffleBoundary
     Object pop() {
         state++;
-        return data.pollLast();
+        return size == 0 ? null : removeLast();
     }
 
     /**
      * Returns {@code null} if empty.
      */
-    @TruffleBoundary
     Object popLeft() {
         state++;
-        return data.pollFirst();
+        return size == 0 ? null : removeFirst();
     }
 
     /**
      * Returns {@code null} if empty.
      */
-    @TruffleBoundary
     Object peekLeft() {
-        return data.peekFirst();
+        return size == 0 ? null : items[head];
+    }
+
+    private Object removeFirst() {
+        assert size > 0;
+        Object result = items[head];
+        items[head] = null;
+        head = (head + 1) & (items.length - 1);
+        size--;
+        return result;
+    }
+
+    private Object removeLast() {
+        assert size > 0;
+        int last = slot(size - 1);
+        Object result = items[last];
+        items[last] = null;
+        size--;
+        return result;
     }
 
-    @TruffleBoundary
     void addAll(Object[] c) {
         for (Object e : c) {
             append(e);
         }
     }
 
-    @TruffleBoundary
     void addAll(PDeque other) {
-        for (Object e : other.data) {
-            append(e);
+        assert other != this;
+        for (int i = 0; i < other.size; i++) {
+            append(other.getItem(i));
         }
     }
 
-    @TruffleBoundary
-    public Iterator<Object> iterator() {
-        return data.iterator();
+    Object[] toArray() {
+        Object[] result = new Object[size];
+        copyTo(result);
+        return result;
     }
 
-    @TruffleBoundary
-    public Iterator<Object> reverseIterator() {
-        return data.descendingIterator();
+    public void clear() {
+        items = new Object[INITIAL_CAPACITY];
+        head = 0;
+        size = 0;
+        state++;
     }
 
-    @TruffleBoundary
-    public void clear() {
-        data.clear();
+    void setItem(int idx, Object value) {
+        assert 0 <= idx && idx < size;
+        items[slot(idx)] = value;
+    }
+
+    /**
+     * Removes the item at given index, moving the items on the shorter side of it by one slot.
+     */
+    void delItem(int idx) {
+        assert 0 <= idx && idx < size;
+        if (idx < size / 2) {
+            for (int i = idx; i > 0; i--) {
+                items[slot(i)] = items[slot(i - 1)];
+            }
+            removeFirst();
+        } else {
+            for (int i = idx; i < size - 1; i++) {
+                items[slot(i)] = items[slot(i + 1)];
+            }
+            removeLast();
+        }
         state++;
     }
 
-    @TruffleBoundary
-    public void setItem(int idx, Object value) {
-        assert 0 <= idx && idx < data.size();
-        int n = data.size() - idx - 1;
-        Object[] savedItems = new Object[n];
-        for (int i = 0; i < savedItems.length; i++) {
-            savedItems[i] = data.pollLast();
+    /**
+     * Inserts the item before given index, moving the items on the shorter side of it by one slot.
+     */
+    void insert(int idx, Object value) {
+        assert 0 <= idx && idx <= size;
+        assert maxLength == -1 || size < maxLength;
+        ensureCapacity(size + 1);
+        if (idx < size / 2) {
+            head = (head - 1) & (items.length - 1);
+            for (int i = 0; i < idx; i++) {
+                items[slot(i)] = items[slot(i + 1)];
+            }
+        } else {
+            for (int i = size; i > idx; i--) {
+                items[slot(i)] = items[slot(i - 1)];
+            }
+        }
+        items[slot(idx)] = value;
+        size++;
+        state++;
+    }
+
+    /**
+     * Rotates the deque {@code n} steps to the right, or to the left if {@code n} is negative.
+     */
+    void rotate(int n) {
+        if (size <= 1) {
+            return;
         }
-        // this removes the item we want to replace
-        data.pollLast();
-        assert data.size() == idx;
-        if (value != null) {
-            data.addLast(value);
+        state++;
+        int right = n % size;
+        if (right < 0) {
+            right += size;
+        }
+        if (size == items.length) {
+            // all slots are used, so only the start of the ring moves
+            head = (head - right) & (items.length - 1);
+        } else if (right <= size / 2) {
+            for (int i = 0; i < right; i++) {
+                int last = slot(size - 1);
+                Object item = items[last];
+                items[last] = null;
+                head = (head - 1) & (items.length - 1);
+                items[head] = item;
+            }
         } else {
-            // removal case: this alters the number of elements, so modify the state
-            state++;
+            for (int i = right; i < size; i++) {
+                Object item = items[head];
+                items[head] = null;
+                head = (head + 1) & (items.length - 1);
+                items[slot(size - 1)] = item;
+            }
         }
+    }
 
-        // re-add saved items
-        for (int i = savedItems.length - 1; i >= 0; i--) {
-            data.addLast(savedItems[i]);
+    void reverse() {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            int a = slot(i);
+            int b = slot(j);
+            Object tmp = items[a];
+            items[a] = items[b];
+            items[b] = tmp;
         }
-        assert maxLength == -1 || data.size() <= maxLength;
-        assert value != null && data.size() == n + idx + 1 || value == null && data.size() == n + idx;
     }
 
     public int getState() {
@@ -40,40 +40,36 @@
  */
 package com.oracle.graal.python.builtins.objects.deque;
 
-import java.util.ArrayDeque;
-import java.util.Iterator;
-
 import com.oracle.graal.python.builtins.objects.iterator.PBuiltinIterator;
-import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.object.Shape;
 
 /**
- * A simple wrapper around Java's {@link ArrayDeque}.
+ * Iterates a {@link PDeque} by index. The iterator is invalidated once the deque is modified, so the
+ * indices always refer to the items the iteration started with.
  */
 public final class PDequeIter extends PBuiltinIterator {
     final PDeque deque;
     final int startState;
-    private final Iterator<Object> iterator;
+    private final boolean reverse;
     private int remaining;
 
     public PDequeIter(Object cls, Shape instanceShape, PDeque deque, boolean reverse) {
         super(cls, instanceShape);
         this.deque = deque;
-        this.iterator = reverse ? deque.reverseIterator() : deque.iterator();
+        this.reverse = reverse;
         this.remaining = deque.getSize();
         this.startState = deque.getState();
     }
 
-    @TruffleBoundary
     boolean hasNext() {
-        return iterator.hasNext();
+        return remaining > 0;
     }
 
-    @TruffleBoundary
     Object next() {
-        Object next = iterator.next();
+        assert startState == deque.getState() && remaining > 0;
+        int idx = reverse ? remaining - 1 : deque.getSize() - remaining;
         remaining--;
-        return next;
+        return deque.getItem(idx);
     }
 
     int lengthHint() {
@@ -51,6 +51,7 @@ import com.oracle.graal.python.runtime.AsyncHandler;
 import com.oracle.graal.python.runtime.PosixSupportLibrary;
 import com.oracle.graal.python.runtime.PosixSupportLibrary.PosixException;
 import com.oracle.graal.python.runtime.PythonContext;
+import com.oracle.graal.python.util.PythonUtils;
 import com.oracle.truffle.api.dsl.Bind;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Cached.Exclusive;
@@ -163,6 +164,40 @@ public final class PMMap extends PythonObject {
         }
     }
 
+    @ExportMessage
+    void readIntoByteArray(int srcOffset, byte[] dest, int destOffset, int length,
+                    @Bind("$node") Node inliningTarget,
+                    @Shared @CachedLibrary(limit = "1") PosixSupportLibrary posixLib,
+                    @Shared("raiseNode") @Cached PConstructAndRaiseNode.Lazy raiseNode,
+                    @Shared("js2ts") @Cached TruffleString.FromJavaStringNode fromJavaStringNode) {
+        try {
+            Object posixSupport = PythonContext.get(raiseNode).getPosixSupport();
+            if (destOffset == 0) {
+                posixLib.mmapReadBytes(posixSupport, getPosixSupportHandle(), srcOffset, dest, length);
+            } else {
+                byte[] tmp = new byte[length];
+                posixLib.mmapReadBytes(posixSupport, getPosixSupportHandle(), srcOffset, tmp, length);
+                PythonUtils.arraycopy(tmp, 0, dest, destOffset, length);
+            }
+        } catch (PosixException e) {
+            throw raiseNode.get(inliningTarget).raiseOSError(null, e.getErrorCode(), fromJavaStringNode.execute(e.getMessage(), TS_ENCODING), null, null);
+        }
+    }
+
+    @ExportMessage
+    void writeFromByteArray(int destOffset, byte[] src, int srcOffset, int length,
+                    @Bind("$node") Node inliningTarget,
+                    @Shared @CachedLibrary(limit = "1") PosixSupportLibrary posixLib,
+                    @Shared("raiseNode") @Cached PConstructAndRaiseNode.Lazy raiseNode,
+                    @Shared("js2ts") @Cached TruffleString.FromJavaStringNode fromJavaStringNode) {
+        try {
+            byte[] bytes = srcOffset == 0 ? src : PythonUtils.arrayCopyOfRange(src, srcOffset, srcOffset + length);
+            posixLib.mmapWriteBytes(PythonContext.get(raiseNode).getPosixSupport(), getPosixSupportHandle(), destOffset, bytes, length);
+        } catch (PosixException e) {
+            throw raiseNode.get(inliningTarget).raiseOSError(null, e.getErrorCode(), fromJavaStringNode.execute(e.getMessage(), TS_ENCODING), null, null);
+        }
+    }
+
     @ExportMessage
     Object acquire(@SuppressWarnings("unused") int flags) {
         return this;
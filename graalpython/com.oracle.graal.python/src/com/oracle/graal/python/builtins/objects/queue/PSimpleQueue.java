@@ -40,49 +40,147 @@
  */
 package com.oracle.graal.python.builtins.objects.queue;
 
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.oracle.graal.python.builtins.objects.object.PythonBuiltinObject;
+import com.oracle.graal.python.util.PythonUtils;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.object.Shape;
 
+/**
+ * The items are kept in a growable ring buffer that is only ever accessed while holding the GIL, so
+ * putting and polling items needs no further synchronization. Only a thread that finds the queue
+ * empty and wants to block parks on {@link #notEmpty}. It registers itself in {@link #waiters}
+ * before it releases the GIL, so a producer, which needs the GIL to put an item, either sees the
+ * waiter and signals it, or has already put the item before the consumer checks again under the
+ * {@link #lock}.
+ */
 public final class PSimpleQueue extends PythonBuiltinObject {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private Object[] items = new Object[INITIAL_CAPACITY];
+    private int head;
+    private int size;
 
-    private final LinkedBlockingQueue<Object> data = createQueue();
+    // Number of threads that are blocked in get, guarded by the GIL
+    private int waiters;
+    private ReentrantLock lock;
+    private Condition notEmpty;
 
     public PSimpleQueue(Object cls, Shape instanceShape) {
         super(cls, instanceShape);
     }
 
-    @TruffleBoundary
-    private static LinkedBlockingQueue<Object> createQueue() {
-        return new LinkedBlockingQueue<>();
+    int getQueueSize() {
+        return size;
     }
 
-    @TruffleBoundary
-    int getQueueSize() {
-        return data.size();
+    /**
+     * Returns {@code null} if empty. Must be called with the GIL held.
+     */
+    Object poll() {
+        if (size == 0) {
+            return null;
+        }
+        Object result = items[head];
+        items[head] = null;
+        head = (head + 1) & (items.length - 1);
+        size--;
+        return result;
     }
 
-    @TruffleBoundary
-    Object get() throws InterruptedException {
-        return data.take();
+    /**
+     * Must be called with the GIL held.
+     */
+    boolean put(Object value) {
+        if (size == items.length && !grow()) {
+            return false;
+        }
+        items[(head + size) & (items.length - 1)] = value;
+        size++;
+        if (waiters != 0) {
+            signalNotEmpty();
+        }
+        return true;
     }
 
     @TruffleBoundary
-    Object get(long microSeconds) throws InterruptedException {
-        return data.poll(microSeconds, TimeUnit.MICROSECONDS);
+    private boolean grow() {
+        if (items.length >= MAX_CAPACITY) {
+            return false;
+        }
+        Object[] newItems = new Object[items.length << 1];
+        int firstPart = items.length - head;
+        PythonUtils.arraycopy(items, head, newItems, 0, firstPart);
+        PythonUtils.arraycopy(items, 0, newItems, firstPart, head);
+        items = newItems;
+        head = 0;
+        return true;
+    }
+
+    /**
+     * Must be called with the GIL held, before the GIL is released to wait for an item using
+     * {@link #awaitNotEmpty}.
+     */
+    void addWaiter() {
+        if (lock == null) {
+            lock = new ReentrantLock();
+            notEmpty = lock.newCondition();
+        }
+        waiters++;
+    }
+
+    /**
+     * Must be called with the GIL held, after {@link #awaitNotEmpty} returned and the GIL was
+     * acquired again.
+     */
+    void removeWaiter() {
+        assert waiters > 0;
+        waiters--;
     }
 
     @TruffleBoundary
-    Object poll() {
-        return data.poll();
+    private void signalNotEmpty() {
+        lock.lock();
+        try {
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
     }
 
+    /**
+     * Waits without the GIL until the queue may be non-empty. The caller must acquire the GIL and
+     * try to {@link #poll} again, since another thread may have been faster.
+     */
     @TruffleBoundary
-    boolean put(Object value) {
-        return data.offer(value);
+    void awaitNotEmpty() throws InterruptedException {
+        lock.lock();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
+    /**
+     * Like {@link #awaitNotEmpty}, but gives up after the timeout. Returns the remaining time.
+     */
+    @TruffleBoundary
+    long awaitNotEmpty(long nanos) throws InterruptedException {
+        long remaining = nanos;
+        lock.lock();
+        try {
+            while (size == 0 && remaining > 0) {
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            return remaining;
+        } finally {
+            lock.unlock();
+        }
+    }
 }
@@ -46,6 +46,7 @@ import static com.oracle.graal.python.builtins.PythonBuiltinClassType.ValueError
 import static com.oracle.graal.python.nodes.SpecialMethodNames.J___CLASS_GETITEM__;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import com.oracle.graal.python.annotations.ArgumentClinic;
 import com.oracle.graal.python.annotations.ArgumentClinic.ClinicConversion;
@@ -170,16 +171,23 @@ public final class SimpleQueueBuiltins extends PythonBuiltins {
                 return result;
             }
             if (block) {
-                try {
+                do {
+                    self.addWaiter();
                     ensureGil().release(true);
-                    return self.get();
-                } catch (InterruptedException e) {
-                    CompilerDirectives.transferToInterpreter();
-                    Thread.currentThread().interrupt();
-                    return PNone.NONE;
-                } finally {
-                    ensureGil().acquire();
-                }
+                    try {
+                        self.awaitNotEmpty();
+                    } catch (InterruptedException e) {
+                        CompilerDirectives.transferToInterpreter();
+                        Thread.currentThread().interrupt();
+                        return PNone.NONE;
+                    } finally {
+                        ensureGil().acquire();
+                        self.removeWaiter();
+                    }
+                    // another thread may have taken the item before we got the GIL back
+                    result = self.poll();
+                } while (result == null);
+                return result;
             }
             throw raiseNode.get(inliningTarget).raise(Empty);
         }
@@ -215,17 +223,24 @@ public final class SimpleQueueBuiltins extends PythonBuiltins {
                 return result;
             }
 
-            try {
+            long remaining = TimeUnit.MICROSECONDS.toNanos(ltimeout);
+            while (remaining > 0) {
+                self.addWaiter();
                 ensureGil().release(true);
-                result = self.get(ltimeout);
+                try {
+                    remaining = self.awaitNotEmpty(remaining);
+                } catch (InterruptedException e) {
+                    CompilerDirectives.transferToInterpreter();
+                    Thread.currentThread().interrupt();
+                    break;
+                } finally {
+                    ensureGil().acquire();
+                    self.removeWaiter();
+                }
+                result = self.poll();
                 if (result != null) {
                     return result;
                 }
-            } catch (InterruptedException e) {
-                CompilerDirectives.transferToInterpreter();
-                Thread.currentThread().interrupt();
-            } finally {
-                ensureGil().acquire();
             }
             throw raiseNode.get(inliningTarget).raise(Empty);
         }
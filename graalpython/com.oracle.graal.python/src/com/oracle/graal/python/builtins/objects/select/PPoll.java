@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.select;
+
+import java.util.HashSet;
+
+import com.oracle.graal.python.builtins.objects.object.PythonObject;
+import com.oracle.graal.python.runtime.AsyncHandler;
+import com.oracle.graal.python.runtime.PosixSupportLibrary;
+import com.oracle.graal.python.runtime.PythonContext;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.Shape;
+
+/**
+ * The {@code select.poll} object. The registered file descriptors and their event masks live in
+ * the poll set of the {@link PosixSupportLibrary} backend, so that polling does not have to pass
+ * them down on every call. This object only remembers which file descriptors are registered to
+ * implement the error reporting of {@code modify} and {@code unregister}.
+ */
+public final class PPoll extends PythonObject {
+    private final PollSetRef ref;
+    private final HashSet<Integer> registered = new HashSet<>();
+    private boolean running;
+
+    public PPoll(Object pythonClass, Shape instanceShape, PythonContext context, Object pollSet) {
+        super(pythonClass, instanceShape);
+        this.ref = new PollSetRef(this, pollSet, context.getSharedFinalizer());
+    }
+
+    public Object getPollSet() {
+        return ref.getReference();
+    }
+
+    @TruffleBoundary
+    public boolean addRegistered(int fd) {
+        return registered.add(fd);
+    }
+
+    @TruffleBoundary
+    public boolean isRegistered(int fd) {
+        return registered.contains(fd);
+    }
+
+    @TruffleBoundary
+    public boolean removeRegistered(int fd) {
+        return registered.remove(fd);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    static final class PollSetRef extends AsyncHandler.SharedFinalizer.FinalizableReference {
+
+        PollSetRef(PPoll referent, Object pollSet, AsyncHandler.SharedFinalizer finalizer) {
+            super(referent, pollSet, finalizer);
+        }
+
+        @Override
+        public AsyncHandler.AsyncAction release() {
+            if (!isReleased()) {
+                return new PollSetReleaseCallback(this);
+            }
+            return null;
+        }
+    }
+
+    static final class PollSetReleaseCallback implements AsyncHandler.AsyncAction {
+        private final PollSetRef ref;
+
+        PollSetReleaseCallback(PollSetRef ref) {
+            this.ref = ref;
+        }
+
+        @Override
+        public void execute(PythonContext context) {
+            synchronized (ref) {
+                if (ref.isReleased()) {
+                    return;
+                }
+                ref.markReleased();
+            }
+            PosixSupportLibrary.getUncached().pollClose(context.getPosixSupport(), ref.getReference());
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.builtins.objects.select;
+
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.KeyError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.OverflowError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.RuntimeError;
+import static com.oracle.graal.python.builtins.PythonBuiltinClassType.ValueError;
+import static com.oracle.graal.python.runtime.PosixConstants.POLLIN;
+import static com.oracle.graal.python.runtime.PosixConstants.POLLOUT;
+import static com.oracle.graal.python.runtime.PosixConstants.POLLPRI;
+import static com.oracle.graal.python.util.TimeUtils.MS_TO_NS;
+
+import java.util.List;
+
+import com.oracle.graal.python.builtins.Builtin;
+import com.oracle.graal.python.builtins.CoreFunctions;
+import com.oracle.graal.python.builtins.PythonBuiltinClassType;
+import com.oracle.graal.python.builtins.PythonBuiltins;
+import com.oracle.graal.python.builtins.objects.PNone;
+import com.oracle.graal.python.builtins.objects.exception.OSErrorEnum;
+import com.oracle.graal.python.builtins.objects.list.PList;
+import com.oracle.graal.python.lib.PyLongAsIntNode;
+import com.oracle.graal.python.lib.PyObjectAsFileDescriptor;
+import com.oracle.graal.python.lib.PyTimeFromObjectNode;
+import com.oracle.graal.python.lib.PyTimeFromObjectNode.RoundType;
+import com.oracle.graal.python.nodes.ErrorMessages;
+import com.oracle.graal.python.nodes.PConstructAndRaiseNode;
+import com.oracle.graal.python.nodes.PGuards;
+import com.oracle.graal.python.nodes.PRaiseNode;
+import com.oracle.graal.python.nodes.function.PythonBuiltinBaseNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonBinaryBuiltinNode;
+import com.oracle.graal.python.nodes.function.builtins.PythonTernaryBuiltinNode;
+import com.oracle.graal.python.runtime.GilNode;
+import com.oracle.graal.python.runtime.PosixSupport;
+import com.oracle.graal.python.runtime.PosixSupportLibrary;
+import com.oracle.graal.python.runtime.PosixSupportLibrary.PosixException;
+import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.util.TimeUtils;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.Node;
+
+@CoreFunctions(extendClasses = PythonBuiltinClassType.PPoll)
+public final class PollBuiltins extends PythonBuiltins {
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinBaseNode>> getNodeFactories() {
+        return PollBuiltinsFactory.getFactories();
+    }
+
+    /**
+     * Equivalent of CPython's {@code _PyLong_UnsignedShort_Converter}.
+     */
+    static int toEventMask(VirtualFrame frame, Node inliningTarget, Object eventmask, PyLongAsIntNode asIntNode, PRaiseNode.Lazy raiseNode) {
+        int events = asIntNode.execute(frame, inliningTarget, eventmask);
+        if (events < 0) {
+            throw raiseNode.get(inliningTarget).raise(ValueError, ErrorMessages.VALUE_MUST_BE_POSITIVE);
+        }
+        if (events > 0xFFFF) {
+            throw raiseNode.get(inliningTarget).raise(OverflowError, ErrorMessages.PYTHON_INT_TOO_LARGE_FOR_C_UNSIGNED_SHORT);
+        }
+        return events;
+    }
+
+    @Builtin(name = "register", minNumOfPositionalArgs = 2, parameterNames = {"$self", "fd", "eventmask"}, //
+                    doc = "register($self, fd, eventmask=select.POLLIN | select.POLLPRI | select.POLLOUT, /)\n--\n\nRegister a file descriptor with the polling object.")
+    @GenerateNodeFactory
+    abstract static class RegisterNode extends PythonTernaryBuiltinNode {
+        @Specialization
+        static PNone register(VirtualFrame frame, PPoll self, Object fdObj, Object eventmask,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectAsFileDescriptor asFileDescriptor,
+                        @Cached PyLongAsIntNode asIntNode,
+                        @CachedLibrary(limit = "1") PosixSupportLibrary posixLib,
+                        @Cached PConstructAndRaiseNode.Lazy constructAndRaiseNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            int fd = asFileDescriptor.execute(frame, inliningTarget, fdObj);
+            int events;
+            if (eventmask == PNone.NO_VALUE) {
+                events = POLLIN.value | POLLPRI.value | POLLOUT.value;
+            } else {
+                events = toEventMask(frame, inliningTarget, eventmask, asIntNode, raiseNode);
+            }
+            try {
+                posixLib.pollRegister(PosixSupport.get(inliningTarget), self.getPollSet(), fd, events);
+            } catch (PosixException e) {
+                throw constructAndRaiseNode.get(inliningTarget).raiseOSErrorFromPosixException(frame, e);
+            }
+            self.addRegistered(fd);
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "modify", minNumOfPositionalArgs = 3, parameterNames = {"$self", "fd", "eventmask"}, //
+                    doc = "modify($self, fd, eventmask, /)\n--\n\nModify an already registered file descriptor.")
+    @GenerateNodeFactory
+    abstract static class ModifyNode extends PythonTernaryBuiltinNode {
+        @Specialization
+        static PNone modify(VirtualFrame frame, PPoll self, Object fdObj, Object eventmask,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectAsFileDescriptor asFileDescriptor,
+                        @Cached PyLongAsIntNode asIntNode,
+                        @CachedLibrary(limit = "1") PosixSupportLibrary posixLib,
+                        @Cached PConstructAndRaiseNode.Lazy constructAndRaiseNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            int fd = asFileDescriptor.execute(frame, inliningTarget, fdObj);
+            int events = toEventMask(frame, inliningTarget, eventmask, asIntNode, raiseNode);
+            if (!self.isRegistered(fd)) {
+                throw constructAndRaiseNode.get(inliningTarget).raiseOSError(frame, OSErrorEnum.ENOENT);
+            }
+            try {
+                posixLib.pollRegister(PosixSupport.get(inliningTarget), self.getPollSet(), fd, events);
+            } catch (PosixException e) {
+                throw constructAndRaiseNode.get(inliningTarget).raiseOSErrorFromPosixException(frame, e);
+            }
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "unregister", minNumOfPositionalArgs = 2, parameterNames = {"$self", "fd"}, //
+                    doc = "unregister($self, fd, /)\n--\n\nRemove a file descriptor being tracked by the polling object.")
+    @GenerateNodeFactory
+    abstract static class UnregisterNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static PNone unregister(VirtualFrame frame, PPoll self, Object fdObj,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyObjectAsFileDescriptor asFileDescriptor,
+                        @CachedLibrary(limit = "1") PosixSupportLibrary posixLib,
+                        @Cached PConstructAndRaiseNode.Lazy constructAndRaiseNode,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            int fd = asFileDescriptor.execute(frame, inliningTarget, fdObj);
+            if (!self.removeRegistered(fd)) {
+                throw raiseNode.get(inliningTarget).raise(KeyError, new Object[]{fd});
+            }
+            try {
+                posixLib.pollUnregister(PosixSupport.get(inliningTarget), self.getPollSet(), fd);
+            } catch (PosixException e) {
+                throw constructAndRaiseNode.get(inliningTarget).raiseOSErrorFromPosixException(frame, e);
+            }
+            return PNone.NONE;
+        }
+    }
+
+    @Builtin(name = "poll", minNumOfPositionalArgs = 1, parameterNames = {"$self", "timeout"}, //
+                    doc = "poll($self, timeout=None, /)\n--\n\nPolls the set of registered file descriptors.\n\n" +
+                                    "Returns a list containing any descriptors that have events or errors to\nreport, as a list of (fd, event) 2-tuples.")
+    @GenerateNodeFactory
+    abstract static class PollNode extends PythonBinaryBuiltinNode {
+        @Specialization
+        static PList poll(VirtualFrame frame, PPoll self, Object timeoutObj,
+                        @Bind("this") Node inliningTarget,
+                        @Cached PyTimeFromObjectNode pyTimeFromObjectNode,
+                        @CachedLibrary(limit = "1") PosixSupportLibrary posixLib,
+                        @Cached GilNode gil,
+                        @Cached PConstructAndRaiseNode.Lazy constructAndRaiseNode,
+                        @Cached PythonObjectFactory factory,
+                        @Cached PRaiseNode.Lazy raiseNode) {
+            long timeoutMs = -1;
+            if (!PGuards.isPNone(timeoutObj)) {
+                long timeoutNs = pyTimeFromObjectNode.execute(frame, inliningTarget, timeoutObj, RoundType.TIMEOUT, MS_TO_NS);
+                if (timeoutNs >= 0) {
+                    timeoutMs = TimeUtils.pyTimeDivide(timeoutNs, MS_TO_NS);
+                }
+            }
+            if (self.isRunning()) {
+                throw raiseNode.get(inliningTarget).raise(RuntimeError, ErrorMessages.CONCURRENT_POLL_INVOCATION);
+            }
+            int[] ready;
+            self.setRunning(true);
+            try {
+                gil.release(true);
+                try {
+                    ready = posixLib.poll(PosixSupport.get(inliningTarget), self.getPollSet(), timeoutMs);
+                } finally {
+                    gil.acquire();
+                }
+            } catch (PosixException e) {
+                throw constructAndRaiseNode.get(inliningTarget).raiseOSErrorFromPosixException(frame, e);
+            } finally {
+                self.setRunning(false);
+            }
+            Object[] result = new Object[ready.length / 2];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = factory.createTuple(new Object[]{ready[2 * i], ready[2 * i + 1]});
+            }
+            return factory.createList(result);
+        }
+    }
+}
@@ -209,6 +209,10 @@ public class RaisePythonExceptionErrorCallback implements ErrorCallback {
         deprecationWarnings.add(new DeprecationWarning(type, sourceRange, toTruffleStringUncached(message)));
     }
 
+    public boolean hasDeprecationWarnings() {
+        return deprecationWarnings != null;
+    }
+
     public void triggerDeprecationWarnings() {
         if (deprecationWarnings != null) {
             triggerDeprecationWarningsBoundary();
@@ -245,6 +245,7 @@ public abstract class ErrorMessages {
     public static final TruffleString COMPLEX_CANT_TAKE_ARG = tsLiteral("complex() can't take second arg if first is a string");
     public static final TruffleString COMPLEX_EXPONENTIATION = tsLiteral("complex exponentiation");
     public static final TruffleString COMPLEX_ZERO_TO_NEGATIVE_POWER = tsLiteral("0.0 to a negative or complex power");
+    public static final TruffleString CONCURRENT_POLL_INVOCATION = tsLiteral("concurrent poll() invocation");
     public static final TruffleString COMPLEX_MODULO = tsLiteral("complex modulo");
     public static final TruffleString COMPLEX_RETURNED_NON_COMPLEX = tsLiteral("__complex__ returned non-complex (type %p)");
     public static final TruffleString CONSTRUCTOR_REQUIRES_A_SEQUENCE = tsLiteral("constructor requires a sequence");
@@ -572,6 +573,7 @@ public abstract class ErrorMessages {
     public static final TruffleString NO_CURRENT_FRAME = tsLiteral("%s: no current frame");
     public static final TruffleString NO_FUNCTION_FOUND = tsLiteral("no function %s%s found in %s");
     public static final TruffleString NO_SUCH_FILE_OR_DIR = tsLiteral("No such file or directory: '%s:/%s'");
+    public static final TruffleString NO_SUCH_GROUP = tsLiteral("no such group");
     public static final TruffleString NO_SUCH_NAME = tsLiteral("no such name");
     public static final TruffleString NONEMPTY_SLOTS_NOT_ALLOWED_FOR_SUBTYPE_OF_S = tsLiteral("nonempty __slots__ not supported for subtype of '%s'");
     public static final TruffleString NON_HEX_DIGIT_FOUND = tsLiteral("Non-hexadecimal digit found");
@@ -625,6 +627,7 @@ public abstract class ErrorMessages {
     public static final TruffleString PRIVATE_IDENTIFIER_TOO_LARGE_TO_BE_MANGLED = tsLiteral("private identifier too large to be mangled");
     public static final TruffleString PROCESS_STOPPED_BY_DELIVERY_OF_SIGNAL = tsLiteral("process stopped by delivery of signal %d");
     public static final TruffleString PROVIDED_OBJ_NOT_ARRAY = tsLiteral("provided object is not an array");
+    public static final TruffleString PYTHON_INT_TOO_LARGE_FOR_C_UNSIGNED_SHORT = tsLiteral("Python int too large for C unsigned short");
     public static final TruffleString PYTHON_INT_TOO_LARGE_TO_CONV_TO = tsLiteral("Python int too large to convert to %s");
     public static final TruffleString PYTHON_INT_TOO_LARGE_TO_CONV_TO_C_TYPE = tsLiteral("Python int too large to convert to %s-byte C type");
     public static final TruffleString RANGE_OUT_OF_BOUNDS = tsLiteral("range index out of range");
@@ -787,6 +790,7 @@ public abstract class ErrorMessages {
     public static final TruffleString UNKNOWN_OPCODE = tsLiteral("unknown opcode");
     public static final TruffleString UNKNOWN_S_TYPE = tsLiteral("unknown %s type");
     public static final TruffleString UNKNOWN_STORAGE_STRATEGY = tsLiteral("Unknown storage strategy name");
+    public static final TruffleString UNKNOWN_CAPI_PROFILING_MODE = tsLiteral("C API profiling mode must be one of 'none', 'count' or 'time', not '%s'");
     public static final TruffleString EXPECTED_RBRACE_BEFORE_END_OF_STRING = tsLiteral("expected '}' before end of string");
     public static final TruffleString UNRECOGNIZED_FLAGS = tsLiteral("compile(): unrecognised flags");
     public static final TruffleString UNRECOGNIZED_FORMAT_CHAR = tsLiteral("unrecognized format char in arguments parsing: %c");
@@ -809,6 +813,7 @@ public abstract class ErrorMessages {
     public static final TruffleString UNSUPPORTED_USE_OF_SYS_EXECUTABLE = tsLiteral("internal error: unsupported use of sys.executable");
     public static final TruffleString UPDATING_FINALIZED_DIGEST_IS_NOT_SUPPORTED = tsLiteral("internal error: updating a finalized digest is not supported");
     public static final TruffleString UTIME_CANNOT_USE_DIR_FD_AND_FOLLOW_SYMLINKS = tsLiteral("utime: cannot use dir_fd and follow_symlinks together on this platform");
+    public static final TruffleString VALUE_MUST_BE_POSITIVE = tsLiteral("value must be positive");
     public static final TruffleString VALUE_TOO_LARGE_TO_FIT_INTO_INDEX = tsLiteral("value too large to fit into index-sized integer");
     public static final TruffleString VARS_ARGUMENT_MUST_HAVE_DICT = tsLiteral("vars() argument must have __dict__ attribute");
     public static final TruffleString WAS_NOT_POSSIBLE_TO_MARSHAL_P = tsLiteral("Was not possible to marshal %p");
@@ -1323,6 +1328,68 @@ public abstract class ErrorMessages {
 
     // pickle errors
     public static final TruffleString CANNOT_PICKLE_OBJECT_TYPE = tsLiteral("cannot pickle '%p' object");
+    public static final TruffleString ARGS0_FROM_NEWOBJ_ARGS_HAS_THE_WRONG_CLASS = tsLiteral("args[0] from __newobj__ args has the wrong class");
+    public static final TruffleString ARGS0_FROM_NEWOBJ_ARGS_IS_NOT_A_TYPE = tsLiteral("args[0] from __newobj__ args is not a type");
+    public static final TruffleString ATTRIBUTE_DELETION_IS_NOT_SUPPORTED = tsLiteral("attribute deletion is not supported");
+    public static final TruffleString BUFFER_CALLBACK_NEEDS_PROTOCOL_5 = tsLiteral("buffer_callback needs protocol >= 5");
+    public static final TruffleString CANT_GET_LOCAL_ATTRIBUTE_S_ON_S = tsLiteral("Can't get local attribute %s on %s");
+    public static final TruffleString CANT_PICKLE_LOCAL_OBJECT_S = tsLiteral("Can't pickle local object %s");
+    public static final TruffleString CANT_PICKLE_S_ATTRIBUTE_LOOKUP_S_ON_S_FAILED = tsLiteral("Can't pickle %s: attribute lookup %s on %s failed");
+    public static final TruffleString CANT_PICKLE_S_EXTENSION_CODE_S_IS_OUT_OF_RANGE = tsLiteral("Can't pickle %s: extension code %s is out of range");
+    public static final TruffleString CANT_PICKLE_S_IDENTIFIER_S_USING_PICKLE_PROTOCOL_D = tsLiteral("can't pickle %s identifier '%s' using pickle protocol %d");
+    public static final TruffleString CANT_PICKLE_S_IMPORT_OF_MODULE_S_FAILED = tsLiteral("Can't pickle %s: import of module %s failed");
+    public static final TruffleString CANT_PICKLE_S_ITS_NOT_THE_SAME_OBJECT_AS_S_S = tsLiteral("Can't pickle %s: it's not the same object as %s.%s");
+    public static final TruffleString COMPAT_PICKLE_S_VALUES_SHOULD_BE_S_NOT_P = tsLiteral("_compat_pickle.%s values should be %s, not %p");
+    public static final TruffleString COULD_NOT_FIND_MARK = tsLiteral("could not find MARK");
+    public static final TruffleString DICT_ITEMS_ITERATOR_MUST_RETURN_2_TUPLES = tsLiteral("dict items iterator must return 2-tuples");
+    public static final TruffleString FILE_MUST_HAVE_A_WRITE_ATTRIBUTE = tsLiteral("file must have a 'write' attribute");
+    public static final TruffleString FILE_MUST_HAVE_READ_AND_READLINE_ATTRIBUTES = tsLiteral("file must have 'read' and 'readline' attributes");
+    public static final TruffleString FIRST_ITEM_OF_REDUCE_TUPLE_MUST_BE_CALLABLE = tsLiteral("first item of the tuple returned by __reduce__ must be callable");
+    public static final TruffleString INVALID_LOAD_KEY_S = tsLiteral("invalid load key, '%s'.");
+    public static final TruffleString INVERTED_REGISTRY_D_ISNT_A_2_TUPLE_OF_STRINGS = tsLiteral("_inverted_registry[%d] isn't a 2-tuple of strings");
+    public static final TruffleString LENGTH_OF_NEWOBJ_EX_ARGUMENT_TUPLE_MUST_BE_3_NOT_D = tsLiteral("length of the NEWOBJ_EX argument tuple must be exactly 3, not %d");
+    public static final TruffleString LONG_PICKLE_HAS_NEGATIVE_BYTE_COUNT = tsLiteral("LONG pickle has negative byte count");
+    public static final TruffleString MAXIMUM_RECURSION_DEPTH_EXCEEDED_WHILE_PICKLING = tsLiteral("maximum recursion depth exceeded while pickling an object");
+    public static final TruffleString MEMO_KEY_MUST_BE_INTEGERS = tsLiteral("memo key must be integers");
+    public static final TruffleString MEMO_KEY_MUST_BE_POSITIVE_INTEGERS = tsLiteral("memo key must be positive integers.");
+    public static final TruffleString MEMO_MUST_BE_PICKLER_MEMO_PROXY_OR_DICT_NOT_P = tsLiteral("'memo' attribute must be a PicklerMemoProxy object or dict, not %p");
+    public static final TruffleString MEMO_MUST_BE_UNPICKLER_MEMO_PROXY_OR_DICT_NOT_P = tsLiteral("'memo' attribute must be an UnpicklerMemoProxy object or dict, not %p");
+    public static final TruffleString MEMO_VALUES_MUST_BE_2_ITEM_TUPLES = tsLiteral("'memo' values must be 2-item tuples");
+    public static final TruffleString MEMO_VALUE_NOT_FOUND_AT_INDEX_D = tsLiteral("Memo value not found at index %d");
+    public static final TruffleString NEGATIVE_PUT_ARGUMENT = tsLiteral("negative PUT argument");
+    public static final TruffleString NEWOBJ_ARGLIST_IS_EMPTY = tsLiteral("__newobj__ arglist is empty");
+    public static final TruffleString NEWOBJ_EX_KWARGS_ARGUMENT_MUST_BE_A_DICT_NOT_P = tsLiteral("NEWOBJ_EX kwargs argument must be a dict, not %p");
+    public static final TruffleString NOT_ENOUGH_OUT_OF_BAND_BUFFERS = tsLiteral("not enough out-of-band buffers");
+    public static final TruffleString NO_PERSISTENT_LOAD_FUNCTION = tsLiteral("A load persistent id instruction was encountered, but no persistent_load function was specified.");
+    public static final TruffleString ODD_NUMBER_OF_ITEMS_FOR_S = tsLiteral("odd number of items for %s");
+    public static final TruffleString OPERATION_FORBIDDEN_ON_RELEASED_PICKLEBUFFER = tsLiteral("operation forbidden on released PickleBuffer object");
+    public static final TruffleString PERSISTENT_IDS_IN_PROTOCOL_0_MUST_BE_ASCII = tsLiteral("persistent IDs in protocol 0 must be ASCII strings");
+    public static final TruffleString PICKLEBUFFER_CAN_ONLY_BE_PICKLED_WITH_PROTOCOL_5 = tsLiteral("PickleBuffer can only pickled with protocol >= 5");
+    public static final TruffleString PICKLER_INIT_NOT_CALLED_BY_P = tsLiteral("Pickler.__init__() was not called by %p.__init__()");
+    public static final TruffleString PICKLE_DATA_WAS_TRUNCATED = tsLiteral("pickle data was truncated");
+    public static final TruffleString PICKLE_EXHAUSTED_BEFORE_END_OF_FRAME = tsLiteral("pickle exhausted before end of frame");
+    public static final TruffleString PICKLE_PROTOCOL_MUST_BE_LE_D = tsLiteral("pickle protocol must be <= %d");
+    public static final TruffleString PICKLE_STREAM_REFERS_TO_OUT_OF_BAND_DATA_BUT_NO_BUFFERS = tsLiteral("pickle stream refers to out-of-band data but no *buffers* argument was given");
+    public static final TruffleString RAN_OUT_OF_INPUT = tsLiteral("Ran out of input");
+    public static final TruffleString REDUCE_MUST_RETURN_STRING_OR_TUPLE = tsLiteral("__reduce__ must return a string or tuple");
+    public static final TruffleString SECOND_ITEM_OF_REDUCE_TUPLE_MUST_BE_TUPLE = tsLiteral("second item of the tuple returned by __reduce__ must be a tuple");
+    public static final TruffleString SIXTH_ELEMENT_OF_REDUCE_TUPLE_MUST_BE_FUNCTION_NOT_P = tsLiteral("sixth element of the tuple returned by __reduce__ must be a function, not %p");
+    public static final TruffleString SLOT_STATE_IS_NOT_A_DICTIONARY = tsLiteral("slot state is not a dictionary");
+    public static final TruffleString STACK_GLOBAL_REQUIRES_STR = tsLiteral("STACK_GLOBAL requires str");
+    public static final TruffleString STATE_IS_NOT_A_DICTIONARY = tsLiteral("state is not a dictionary");
+    public static final TruffleString S_ARGS_ARGUMENT_MUST_BE_A_TUPLE_NOT_P = tsLiteral("%s args argument must be a tuple, not %p");
+    public static final TruffleString S_CLASS_ARGUMENT_MUST_BE_A_TYPE_NOT_P = tsLiteral("%s class argument must be a type, not %p");
+    public static final TruffleString S_ELEMENT_OF_REDUCE_TUPLE_MUST_BE_ITERATOR_NOT_P = tsLiteral("%s element of the tuple returned by __reduce__ must be an iterator, not %p");
+    public static final TruffleString S_EXCEEDS_SYSTEMS_MAXIMUM_SIZE = tsLiteral("%s exceeds system's maximum size");
+    public static final TruffleString S_ITEM_FROM_NEWOBJ_EX_ARGUMENT_TUPLE_MUST_BE_S_NOT_P = tsLiteral("%s item from NEWOBJ_EX argument tuple must be %s, not %p");
+    public static final TruffleString S_MUST_BE_CALLABLE_TAKING_ONE_ARGUMENT = tsLiteral("%s must be a callable taking one argument");
+    public static final TruffleString THE_STRING_OPCODE_ARGUMENT_MUST_BE_QUOTED = tsLiteral("the STRING opcode argument must be quoted");
+    public static final TruffleString TUPLE_RETURNED_BY_REDUCE_MUST_CONTAIN_2_THROUGH_6_ELEMENTS = tsLiteral("tuple returned by __reduce__ must contain 2 through 6 elements");
+    public static final TruffleString UNEXPECTED_MARK_FOUND = tsLiteral("unexpected MARK found");
+    public static final TruffleString UNPICKLER_INIT_NOT_CALLED_BY_P = tsLiteral("Unpickler.__init__() was not called by %p.__init__()");
+    public static final TruffleString UNPICKLING_STACK_UNDERFLOW = tsLiteral("unpickling stack underflow");
+    public static final TruffleString UNREGISTERED_EXTENSION_CODE_D = tsLiteral("unregistered extension code %d");
+    public static final TruffleString UNSUPPORTED_PICKLE_PROTOCOL_D = tsLiteral("unsupported pickle protocol: %d");
 
     // csv errors
     public static final TruffleString MUST_BE_ONE_CHARACTER_STRING = tsLiteral("\"%s\" must be a 1-character string");
@@ -1341,6 +1408,29 @@ public abstract class ErrorMessages {
     public static final TruffleString ESCAPE_WITHOUT_ESCAPECHAR = tsLiteral("need to escape, but no escapechar set");
     public static final TruffleString S_MUST_HAVE_WRITE_METHOD = tsLiteral("%s must have \"write\" method");
 
+    // struct errors
+    public static final TruffleString STRUCT_BAD_CHAR_IN_FMT = tsLiteral("bad char in struct format");
+    public static final TruffleString STRUCT_REPEAT_COUNT_WITHOUT_FMT = tsLiteral("repeat count given without format specifier");
+    public static final TruffleString STRUCT_SIZE_TOO_LONG = tsLiteral("total struct size too long");
+    public static final TruffleString STRUCT_ARG_MUST_BE_STR_OR_BYTES = tsLiteral("Struct() argument 1 must be a str or bytes object, not %p");
+    public static final TruffleString STRUCT_PACK_EXPECTED_N_ITEMS_GOT_M = tsLiteral("%s expected %d items for packing (got %d)");
+    public static final TruffleString STRUCT_PACK_INTO_EXPECTED_BUFFER_ARG = tsLiteral("pack_into expected buffer argument");
+    public static final TruffleString STRUCT_PACK_INTO_EXPECTED_OFFSET_ARG = tsLiteral("pack_into expected offset argument");
+    public static final TruffleString STRUCT_OFFSET_OUT_OF_RANGE = tsLiteral("offset %d out of range for %d-byte buffer");
+    public static final TruffleString STRUCT_NO_SPACE_TO_PACK_N_BYTES = tsLiteral("no space to pack %d bytes at offset %d");
+    public static final TruffleString STRUCT_PACK_INTO_REQ_BUFFER_TO_PACK = tsLiteral("pack_into requires a buffer of at least %d bytes for packing %d bytes at offset %d (actual buffer size is %d)");
+    public static final TruffleString STRUCT_UNPACK_REQ_BUFFER_OF_N_BYTES = tsLiteral("unpack requires a buffer of %d bytes");
+    public static final TruffleString STRUCT_NOT_ENOUGH_DATA_TO_UNPACK = tsLiteral("not enough data to unpack %d bytes at offset %d");
+    public static final TruffleString STRUCT_UNPACK_FROM_REQ_BUFFER = tsLiteral("unpack_from requires a buffer of at least %d bytes for unpacking %d bytes at offset %d (actual buffer size is %d)");
+    public static final TruffleString STRUCT_ITER_UNPACK_STRUCT_OF_LENGTH_0 = tsLiteral("cannot iteratively unpack with a struct of length 0");
+    public static final TruffleString STRUCT_ITER_UNPACK_REQ_MULTIPLE_OF_N_BYTES = tsLiteral("iterative unpacking requires a buffer of a multiple of %d bytes");
+    public static final TruffleString STRUCT_REQUIRED_ARG_NOT_AN_INTEGER = tsLiteral("required argument is not an integer");
+    public static final TruffleString STRUCT_REQUIRED_ARG_NOT_A_FLOAT = tsLiteral("required argument is not a float");
+    public static final TruffleString STRUCT_ARG_OUT_OF_RANGE = tsLiteral("argument out of range");
+    public static final TruffleString STRUCT_FMT_REQUIRES_RANGE = tsLiteral("'%c' format requires %d <= number <= %d");
+    public static final TruffleString STRUCT_CHAR_FMT_REQ_BYTES_OF_LENGTH_1 = tsLiteral("char format requires a bytes object of length 1");
+    public static final TruffleString STRUCT_ARG_FOR_C_MUST_BE_BYTES = tsLiteral("argument for '%c' must be a bytes object");
+
     // frozen module errors
     public static final TruffleString NO_SUCH_FROZEN_OBJECT = tsLiteral("No such frozen object named %s");
     public static final TruffleString FROZEN_DISABLED = tsLiteral("Frozen modules are disabled and the frozen object named %s is not essential");
@@ -1425,6 +1515,7 @@ public abstract class ErrorMessages {
     public static final TruffleString ATTRIBUTE_TYPE_VALUE_MUST_BE_BOOL = tsLiteral("attribute type value must be bool");
 
     public static final TruffleString INVALID_SEQ_ITEM = tsLiteral("sequence item %d: expected str instance, %p found");
+    public static final TruffleString INVALID_BYTES_SEQ_ITEM = tsLiteral("sequence item %d: expected a bytes-like object, %p found");
     public static final TruffleString NEW_X_ISNT_TYPE_OBJ = tsLiteral("%s.__new__(X): X is not a type object (%p)");
     public static final TruffleString NEW_IS_NOT_SAFE_USE_ELSE = tsLiteral("%s.__new__(%N) is not safe, use %N.__new__()");
 
@@ -1545,6 +1636,23 @@ public abstract class ErrorMessages {
     public static final TruffleString NO_RUNNING_EVENT_LOOP = tsLiteral("no running event loop");
     public static final TruffleString CANT_ENTER_TASK_ALREADY_RUNNING = tsLiteral("Cannot enter into task %s while another task %s is being executed.");
     public static final TruffleString TASK_NOT_ENTERED = tsLiteral("Leaving task %s does not match the current task %s.");
+    public static final TruffleString FUTURE_NOT_INITIALIZED = tsLiteral("Future object is not initialized.");
+    public static final TruffleString FUTURE_INVALID_STATE = tsLiteral("invalid state");
+    public static final TruffleString FUTURE_RESULT_NOT_READY = tsLiteral("Result is not ready.");
+    public static final TruffleString FUTURE_EXCEPTION_NOT_SET = tsLiteral("Exception is not set.");
+    public static final TruffleString FUTURE_INVALID_EXCEPTION_OBJECT = tsLiteral("invalid exception object");
+    public static final TruffleString FUTURE_STOP_ITERATION = tsLiteral("StopIteration interacts badly with generators and cannot be raised into a Future");
+    public static final TruffleString AWAIT_WASNT_USED_WITH_FUTURE = tsLiteral("await wasn't used with future");
+    public static final TruffleString LOG_TRACEBACK_ONLY_FALSE = tsLiteral("_log_traceback can only be set to False");
+    public static final TruffleString TASK_EXPECTED_COROUTINE = tsLiteral("a coroutine was expected, got %s");
+    public static final TruffleString TASK_NO_SET_RESULT = tsLiteral("Task does not support set_result operation");
+    public static final TruffleString TASK_NO_SET_EXCEPTION = tsLiteral("Task does not support set_exception operation");
+    public static final TruffleString TASK_STEP_ALREADY_DONE = tsLiteral("_step(): already done: %s, %s");
+    public static final TruffleString TASK_FUTURE_DIFFERENT_LOOP = tsLiteral("Task %s got Future %s attached to a different loop");
+    public static final TruffleString TASK_AWAIT_ON_ITSELF = tsLiteral("Task cannot await on itself: %s");
+    public static final TruffleString TASK_YIELD_INSTEAD_OF_YIELD_FROM = tsLiteral("yield was used instead of yield from in task %s with %s");
+    public static final TruffleString TASK_YIELD_GENERATOR = tsLiteral("yield was used instead of yield from for generator in task %s with %s");
+    public static final TruffleString TASK_BAD_YIELD = tsLiteral("Task got bad yield: %s");
     public static final TruffleString ENCODING_NAME_MUST_BE_A_STRING = tsLiteral("encoding name must be a string.");
     public static final TruffleString NO_SUCH_CODEC_IS_SUPPORTED = tsLiteral("no such codec is supported.");
     public static final TruffleString COULDN_T_CONVERT_THE_OBJECT_TO_UNICODE = tsLiteral("couldn't convert the object to unicode.");
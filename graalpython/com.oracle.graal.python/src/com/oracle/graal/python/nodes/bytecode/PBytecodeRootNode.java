@@ -5806,6 +5806,10 @@ public final class PBytecodeRootNode extends PRootNode implements BytecodeOSRNod
         return new PBytecodeRootNode(PythonLanguage.get(this), getFrameDescriptor(), getSignature(), co, source, parserErrorCallback);
     }
 
+    public boolean hasDeferredDeprecationWarnings() {
+        return parserErrorCallback != null && parserErrorCallback.hasDeprecationWarnings();
+    }
+
     public void triggerDeferredDeprecationWarnings() {
         if (parserErrorCallback != null) {
             parserErrorCallback.triggerDeprecationWarnings();
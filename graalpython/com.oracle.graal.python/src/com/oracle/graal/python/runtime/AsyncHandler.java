@@ -51,7 +51,9 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -180,8 +182,11 @@ public class AsyncHandler {
 
     private final WeakReference<PythonContext> context;
     private final Queue<AsyncAction> rescheduled = new ConcurrentLinkedDeque<>();
+    private final Object gilSwitchLock = new Object();
+    private Runnable gilReleaseAction;
+    private Runnable gilSwitchTick;
+    private ScheduledFuture<?> gilSwitchFuture;
     private static final int ASYNC_ACTION_DELAY = 25;
-    private static final int GIL_RELEASE_DELAY = 50;
 
     private class AsyncRunnable implements Runnable {
         private final Supplier<AsyncAction> actionSupplier;
@@ -348,7 +353,8 @@ public class AsyncHandler {
         final Env env = ctx.getEnv();
         final AtomicBoolean gilReleaseRequested = new AtomicBoolean(false);
         final Runnable gilReleaseRunnable = () -> {
-            if (gilReleaseRequested.compareAndSet(false, true)) {
+            // only bother the GIL owner if some other thread actually wants to run
+            if (ctx.hasGilWaiters() && gilReleaseRequested.compareAndSet(false, true)) {
                 Thread gilOwner = ctx.getGilOwner();
                 // There is a race, but that's no problem. The gil owner may release the gil before
                 // getting to run this safepoint. In that case, it just ignores it. Some other
@@ -371,11 +377,7 @@ public class AsyncHandler {
                                     return;
                                 }
                                 // we only release the gil in ordinary Python code nodes
-                                GilNode gil = GilNode.getUncached();
-                                if (gil.tryRelease()) {
-                                    Thread.yield();
-                                    gil.acquire(access.getLocation());
-                                }
+                                ctx.switchGil(access.getLocation());
                             }
                         }
                     });
@@ -385,7 +387,10 @@ public class AsyncHandler {
             }
         };
         if (PythonOptions.AUTOMATIC_ASYNC_ACTIONS) {
-            executorService.scheduleWithFixedDelay(gilReleaseRunnable, GIL_RELEASE_DELAY, GIL_RELEASE_DELAY, TimeUnit.MILLISECONDS);
+            synchronized (gilSwitchLock) {
+                gilReleaseAction = gilReleaseRunnable;
+                scheduleGilSwitch(ctx);
+            }
         } else {
             // we will release the gil when polled to do so
             registeredActions.add(new AsyncRunnable(() -> {
@@ -395,6 +400,56 @@ public class AsyncHandler {
         }
     }
 
+    /**
+     * The switch interval can be changed at any time through {@code sys.setswitchinterval}, so we
+     * reschedule the tick after each run rather than running at a fixed rate. Each scheduled tick
+     * only reschedules itself if it has not been replaced by {@link #switchIntervalChanged()} in
+     * the meantime.
+     */
+    private void scheduleGilSwitch(PythonContext ctx) {
+        assert Thread.holdsLock(gilSwitchLock);
+        Runnable tick = new Runnable() {
+            @Override
+            public void run() {
+                gilReleaseAction.run();
+                synchronized (gilSwitchLock) {
+                    if (gilSwitchTick == this) {
+                        scheduleGilSwitch(ctx);
+                    }
+                }
+            }
+        };
+        try {
+            gilSwitchFuture = executorService.schedule(tick, getSwitchInterval(ctx), TimeUnit.MICROSECONDS);
+            gilSwitchTick = tick;
+        } catch (RejectedExecutionException e) {
+            // we are shutting down
+        }
+    }
+
+    /**
+     * Cancels the pending GIL switch tick and schedules it again using the current switch
+     * interval, so that a shorter interval takes effect immediately.
+     */
+    @TruffleBoundary
+    public void switchIntervalChanged() {
+        PythonContext ctx = context.get();
+        if (ctx == null || !PythonOptions.AUTOMATIC_ASYNC_ACTIONS) {
+            return;
+        }
+        synchronized (gilSwitchLock) {
+            if (gilSwitchFuture != null) {
+                gilSwitchFuture.cancel(false);
+                gilSwitchTick = null;
+                scheduleGilSwitch(ctx);
+            }
+        }
+    }
+
+    private static long getSwitchInterval(PythonContext ctx) {
+        return Math.max(1, (long) ctx.getSysModuleState().getSwitchInterval());
+    }
+
     public void shutdown() {
         if (executorService != null) {
             executorService.shutdownNow();
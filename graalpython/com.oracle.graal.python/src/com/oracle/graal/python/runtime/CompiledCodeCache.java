@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2023, 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.runtime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+
+import org.graalvm.nativeimage.ImageInfo;
+
+import com.oracle.graal.python.PythonLanguage;
+import com.oracle.graal.python.builtins.modules.MarshalModuleBuiltins;
+import com.oracle.graal.python.compiler.CodeUnit;
+import com.oracle.graal.python.compiler.Compiler;
+import com.oracle.graal.python.runtime.exception.PException;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.api.TruffleLanguage.Env;
+import com.oracle.truffle.api.TruffleLogger;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * An on-disk cache of {@link CodeUnit}s compiled from Python source files, enabled with
+ * {@link PythonOptions#CompiledCodeCache}. Entries are keyed by a hash of the source text, the
+ * compilation parameters and the GraalPy and bytecode versions, so they never need to be
+ * invalidated when sources change. Entries are written to a temporary file first and then
+ * atomically moved into place, so concurrent writers (including other processes) only ever
+ * replace a complete entry with an equivalent one and readers never see partial entries.
+ *
+ * Loading an entry executes whatever code it contains, so on file systems with POSIX attributes
+ * the cache directory and every entry must be owned by the current user and must not be writable
+ * by anyone else. The default directory in the shared temporary directory is per user and created
+ * accessible to its owner only. Where these attributes are not available, the cache is only used
+ * with an explicitly configured directory.
+ */
+public final class CompiledCodeCache {
+    private static final TruffleLogger LOGGER = PythonLanguage.getLogger(CompiledCodeCache.class);
+
+    private static final String CACHE_DIR_NAME = "graalpy-code-cache";
+    private static final String ENTRY_SUFFIX = ".gpyc";
+    private static final String VERSION_KEY = PythonLanguage.VERSION + '-' + PythonLanguage.GRAALVM_MAJOR + '.' + PythonLanguage.GRAALVM_MINOR + '-' + PythonLanguage.DEV_TAG + '-' +
+                    Compiler.BYTECODE_VERSION;
+    /*
+     * The version key is part of the hash and also of the entry header, so that an entry that
+     * ended up under the wrong name is never deserialized by an incompatible version.
+     */
+    private static final byte[] HEADER = ("GPYCODE " + VERSION_KEY + '\n').getBytes(StandardCharsets.US_ASCII);
+    private static final int NO_UID = -1;
+
+    private final Env env;
+    private final TruffleFile directory;
+    private final int ownerUid;
+
+    private CompiledCodeCache(Env env, TruffleFile directory, int ownerUid) {
+        this.env = env;
+        this.directory = directory;
+        this.ownerUid = ownerUid;
+    }
+
+    /**
+     * Returns the cache configured for the given context, or {@code null} if the cache is disabled
+     * or its directory is not accessible.
+     */
+    @TruffleBoundary
+    public static CompiledCodeCache create(PythonContext context) {
+        if (ImageInfo.inImageBuildtimeCode() || !context.getOption(PythonOptions.CompiledCodeCache)) {
+            return null;
+        }
+        Env env = context.getEnv();
+        try {
+            TruffleFile directory;
+            TruffleString dir = context.getOption(PythonOptions.CompiledCodeCacheDir);
+            TruffleString pycachePrefix = context.getOption(PythonOptions.PyCachePrefix);
+            int uid = getCurrentUid(env);
+            if (!dir.isEmpty()) {
+                directory = env.getPublicTruffleFile(dir.toJavaStringUncached());
+            } else if (!pycachePrefix.isEmpty()) {
+                directory = env.getPublicTruffleFile(pycachePrefix.toJavaStringUncached()).resolve(CACHE_DIR_NAME);
+            } else if (uid != NO_UID) {
+                directory = env.getTempDirectory().resolve(CACHE_DIR_NAME + '-' + uid);
+            } else {
+                LOGGER.warning("Compiled code cache disabled, cannot secure a directory in the shared temporary directory, set CompiledCodeCacheDir instead");
+                return null;
+            }
+            createDirectories(directory, uid);
+            if (uid != NO_UID && !isPrivate(directory, uid, true)) {
+                LOGGER.warning("Compiled code cache disabled, " + directory + " must be a directory owned by the current user and not writable by others");
+                return null;
+            }
+            return new CompiledCodeCache(env, directory, uid);
+        } catch (IOException | SecurityException | UnsupportedOperationException | InvalidPathException e) {
+            LOGGER.log(Level.WARNING, "Compiled code cache disabled, cannot create cache directory", e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the uid that owns files created by this process, or {@link #NO_UID} if the file
+     * system does not report it.
+     */
+    private static int getCurrentUid(Env env) throws IOException {
+        TruffleFile probe = env.createTempFile(null, CACHE_DIR_NAME, null);
+        try {
+            return probe.getAttribute(TruffleFile.UNIX_UID, LinkOption.NOFOLLOW_LINKS);
+        } catch (UnsupportedOperationException e) {
+            return NO_UID;
+        } finally {
+            probe.delete();
+        }
+    }
+
+    private static void createDirectories(TruffleFile dir, int uid) throws IOException {
+        if (uid != NO_UID) {
+            FileAttribute<Set<PosixFilePermission>> ownerOnly = PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"));
+            dir.createDirectories(ownerOnly);
+        } else {
+            dir.createDirectories();
+        }
+    }
+
+    /**
+     * Checks that the file is owned by the given user and cannot be written by anyone else. Links
+     * are not followed, so a link planted by somebody else is rejected as well.
+     */
+    private static boolean isPrivate(TruffleFile file, int uid, boolean directory) throws IOException {
+        TruffleFile.Attributes attributes = file.getAttributes(List.of(TruffleFile.IS_DIRECTORY, TruffleFile.IS_REGULAR_FILE, TruffleFile.UNIX_UID, TruffleFile.UNIX_PERMISSIONS),
+                        LinkOption.NOFOLLOW_LINKS);
+        Set<PosixFilePermission> permissions = attributes.get(TruffleFile.UNIX_PERMISSIONS);
+        return (directory ? attributes.get(TruffleFile.IS_DIRECTORY) : attributes.get(TruffleFile.IS_REGULAR_FILE)) && attributes.get(TruffleFile.UNIX_UID) == uid &&
+                        !permissions.contains(PosixFilePermission.GROUP_WRITE) && !permissions.contains(PosixFilePermission.OTHERS_WRITE);
+    }
+
+    /**
+     * Only sources backed by files are cached, sources of arbitrary {@code exec} strings would
+     * just fill up the cache directory.
+     */
+    public static boolean isCacheable(Source source) {
+        return source.getPath() != null;
+    }
+
+    /**
+     * Returns the cached code for the given source and compilation parameters or {@code null} if
+     * there is no usable entry. Entries that cannot be read back are treated as a miss and removed,
+     * so that they get replaced by the next {@link #store}.
+     */
+    @TruffleBoundary
+    public CodeUnit lookup(Source source, int optimize, int flags) {
+        TruffleFile entry = entryFile(source, optimize, flags);
+        try {
+            if (!entry.exists(LinkOption.NOFOLLOW_LINKS)) {
+                return null;
+            }
+            if (ownerUid != NO_UID && !isPrivate(entry, ownerUid, false)) {
+                LOGGER.fine(() -> "Ignoring compiled code cache entry " + entry + " not owned by the current user or writable by others");
+                return null;
+            }
+            byte[] bytes = entry.readAllBytes();
+            if (bytes.length < HEADER.length || !Arrays.equals(bytes, 0, HEADER.length, HEADER, 0, HEADER.length)) {
+                evict(entry);
+                return null;
+            }
+            CodeUnit code = MarshalModuleBuiltins.deserializeCodeUnit(Arrays.copyOfRange(bytes, HEADER.length, bytes.length));
+            LOGGER.finer(() -> "Loaded compiled code for " + source.getPath() + " from " + entry);
+            return code;
+        } catch (IOException | RuntimeException e) {
+            // a corrupt entry can fail deserialization in arbitrary ways, e.g., with a
+            // BufferUnderflowException or ClassCastException
+            LOGGER.log(Level.FINE, e, () -> "Ignoring unreadable compiled code cache entry " + entry);
+            evict(entry);
+            return null;
+        }
+    }
+
+    private static void evict(TruffleFile entry) {
+        try {
+            entry.delete();
+        } catch (IOException | SecurityException | UnsupportedOperationException e) {
+            // ignore, another process may have replaced or removed it already
+        }
+    }
+
+    /**
+     * Stores the code compiled for the given source. Failures are logged and otherwise ignored.
+     */
+    @TruffleBoundary
+    public void store(Source source, int optimize, int flags, CodeUnit code) {
+        TruffleFile entry = entryFile(source, optimize, flags);
+        TruffleFile tmp = null;
+        try {
+            byte[] bytes = MarshalModuleBuiltins.serializeCodeUnit(code);
+            TruffleFile parent = entry.getParent();
+            createDirectories(parent, ownerUid);
+            tmp = env.createTempFile(parent, entry.getName(), null);
+            try (OutputStream out = tmp.newOutputStream()) {
+                out.write(HEADER);
+                out.write(bytes);
+            }
+            tmp.move(entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            tmp = null;
+            LOGGER.finer(() -> "Stored compiled code for " + source.getPath() + " to " + entry);
+        } catch (IOException | SecurityException | UnsupportedOperationException | PException e) {
+            LOGGER.log(Level.FINE, e, () -> "Cannot write compiled code cache entry " + entry);
+        } finally {
+            if (tmp != null) {
+                try {
+                    tmp.delete();
+                } catch (IOException | SecurityException e) {
+                    // ignore, we tried our best
+                }
+            }
+        }
+    }
+
+    private TruffleFile entryFile(Source source, int optimize, int flags) {
+        String hash = computeKey(source, optimize, flags);
+        return directory.resolve(hash.substring(0, 2)).resolve(hash.substring(2) + ENTRY_SUFFIX);
+    }
+
+    private static String computeKey(Source source, int optimize, int flags) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw CompilerDirectives.shouldNotReachHere(e);
+        }
+        digest.update((VERSION_KEY + '-' + optimize + '-' + flags + '\n').getBytes(StandardCharsets.UTF_8));
+        digest.update(source.getCharacters().toString().getBytes(StandardCharsets.UTF_8));
+        byte[] hash = digest.digest();
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
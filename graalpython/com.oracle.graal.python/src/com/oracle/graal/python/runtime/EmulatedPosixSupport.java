@@ -76,6 +76,7 @@ import static com.oracle.graal.python.runtime.PosixConstants.LOCK_NB;
 import static com.oracle.graal.python.runtime.PosixConstants.LOCK_SH;
 import static com.oracle.graal.python.runtime.PosixConstants.LOCK_UN;
 import static com.oracle.graal.python.runtime.PosixConstants.MAP_ANONYMOUS;
+import static com.oracle.graal.python.runtime.PosixConstants.MAP_PRIVATE;
 import static com.oracle.graal.python.runtime.PosixConstants.NI_DGRAM;
 import static com.oracle.graal.python.runtime.PosixConstants.NI_NAMEREQD;
 import static com.oracle.graal.python.runtime.PosixConstants.NI_NUMERICHOST;
@@ -91,6 +92,9 @@ import static com.oracle.graal.python.runtime.PosixConstants.O_SYNC;
 import static com.oracle.graal.python.runtime.PosixConstants.O_TMPFILE;
 import static com.oracle.graal.python.runtime.PosixConstants.O_TRUNC;
 import static com.oracle.graal.python.runtime.PosixConstants.O_WRONLY;
+import static com.oracle.graal.python.runtime.PosixConstants.POLLIN;
+import static com.oracle.graal.python.runtime.PosixConstants.POLLNVAL;
+import static com.oracle.graal.python.runtime.PosixConstants.POLLOUT;
 import static com.oracle.graal.python.runtime.PosixConstants.PROT_EXEC;
 import static com.oracle.graal.python.runtime.PosixConstants.PROT_NONE;
 import static com.oracle.graal.python.runtime.PosixConstants.PROT_READ;
@@ -168,6 +172,8 @@ import java.net.StandardSocketOptions;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ReadOnlyBufferException;
 import java.nio.channels.AlreadyConnectedException;
 import java.nio.channels.ByteChannel;
 import java.nio.channels.Channel;
@@ -244,9 +250,8 @@ import com.oracle.graal.python.runtime.PosixSupportLibrary.UnsupportedPosixFeatu
 import com.oracle.graal.python.runtime.exception.PythonExitException;
 import com.oracle.graal.python.util.FileDeleteShutdownHook;
 import com.oracle.graal.python.util.IPAddressUtil;
-import com.oracle.graal.python.util.OverflowException;
+import com.oracle.graal.python.util.IntArrayBuilder;
 import com.oracle.graal.python.util.PythonUtils;
-import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleFile;
 import com.oracle.truffle.api.TruffleFile.Attributes;
@@ -534,6 +539,31 @@ public final class EmulatedPosixSupport extends PosixResources {
         }
     }
 
+    @ExportMessage
+    @SuppressWarnings({"unused", "static-method"})
+    public int readInto(int fd, byte[] buf, int offset, int len,
+                    @Bind("$node") Node inliningTarget,
+                    @Shared("errorBranch") @Cached InlinedBranchProfile errorBranch,
+                    @Shared("eq") @Cached TruffleString.EqualNode eqNode) throws PosixException {
+        Channel channel = getFileChannel(fd);
+        if (!(channel instanceof ReadableByteChannel)) {
+            errorBranch.enter(inliningTarget);
+            throw posixException(OSErrorEnum.EBADF);
+        }
+        try {
+            return readIntoFromChannel((ReadableByteChannel) channel, buf, offset, len);
+        } catch (Exception e) {
+            errorBranch.enter(inliningTarget);
+            throw posixException(OSErrorEnum.fromException(e, eqNode));
+        }
+    }
+
+    @TruffleBoundary
+    private static int readIntoFromChannel(ReadableByteChannel channel, byte[] buf, int offset, int len) throws IOException {
+        int readSize = channel.read(ByteBuffer.wrap(buf, offset, len));
+        return Math.max(readSize, 0);
+    }
+
     @Override
     @ExportMessage
     public int dup(int fd) {
@@ -699,26 +729,273 @@ public final class EmulatedPosixSupport extends PosixResources {
             if (ch == null) {
                 throw posixException(OSErrorEnum.EBADF);
             }
-            if (ch instanceof SelectableChannel) {
-                channels[i] = (SelectableChannel) ch;
-            } else if (ch instanceof EmulatedDatagramSocket) {
-                channels[i] = ((EmulatedDatagramSocket) ch).channel;
-            } else if (ch instanceof EmulatedStreamSocket) {
-                EmulatedStreamSocket streamSocket = (EmulatedStreamSocket) ch;
-                synchronized (streamSocket) {
-                    if (streamSocket.clientChannel != null) {
-                        channels[i] = streamSocket.clientChannel;
-                    } else if (streamSocket.serverChannel != null) {
-                        channels[i] = streamSocket.serverChannel;
-                    } else {
-                        throw ChannelNotSelectableException.INSTANCE;
+            channels[i] = getSelectableChannel(ch);
+        }
+        return channels;
+    }
+
+    private static SelectableChannel getSelectableChannel(Channel ch) {
+        if (ch instanceof SelectableChannel) {
+            return (SelectableChannel) ch;
+        } else if (ch instanceof EmulatedDatagramSocket) {
+            return ((EmulatedDatagramSocket) ch).channel;
+        } else if (ch instanceof EmulatedStreamSocket) {
+            EmulatedStreamSocket streamSocket = (EmulatedStreamSocket) ch;
+            synchronized (streamSocket) {
+                if (streamSocket.clientChannel != null) {
+                    return streamSocket.clientChannel;
+                } else if (streamSocket.serverChannel != null) {
+                    return streamSocket.serverChannel;
+                }
+            }
+        }
+        throw ChannelNotSelectableException.INSTANCE;
+    }
+
+    /**
+     * A poll set backed by a {@link Selector} that lives as long as the {@code poll} object.
+     * Non-blocking channels stay registered between calls and only have their interest set
+     * updated, so a steady-state {@code poll} does not re-register anything. Blocking channels
+     * cannot stay registered, because that would prevent switching them back to blocking mode, so
+     * they are registered just for the duration of a single {@code poll}.
+     */
+    private static final class EmulatedPollSet {
+        private final Selector selector;
+        private final HashMap<Integer, Integer> events = new HashMap<>();
+
+        EmulatedPollSet(Selector selector) {
+            this.selector = selector;
+        }
+
+        /**
+         * Must be called while holding the lock of this poll set.
+         */
+        void detach(SelectableChannel channel) throws IOException {
+            SelectionKey key = channel.keyFor(selector);
+            if (key != null) {
+                key.cancel();
+                // the channel is deregistered during the next selection operation
+                selector.wakeup();
+                selector.selectNow();
+            }
+        }
+    }
+
+    private final Set<EmulatedPollSet> pollSets = ConcurrentHashMap.newKeySet();
+
+    private static int pollEventsToOps(int events, SelectableChannel channel) {
+        int ops = 0;
+        if ((events & POLLIN.value) != 0) {
+            ops |= SelectionKey.OP_READ | SelectionKey.OP_ACCEPT;
+        }
+        if ((events & POLLOUT.value) != 0) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        return ops & channel.validOps();
+    }
+
+    private static int readyOpsToPollEvents(int readyOps) {
+        int revents = 0;
+        if ((readyOps & (SelectionKey.OP_READ | SelectionKey.OP_ACCEPT)) != 0) {
+            revents |= POLLIN.value;
+        }
+        if ((readyOps & SelectionKey.OP_WRITE) != 0) {
+            revents |= POLLOUT.value;
+        }
+        return revents;
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    public Object pollCreate() throws PosixException {
+        if (PythonOptions.WITHOUT_JAVA_INET || withoutIOSocket) {
+            throw new UnsupportedPosixFeatureException("poll was excluded");
+        }
+        try {
+            EmulatedPollSet pollSet = new EmulatedPollSet(Selector.open());
+            pollSets.add(pollSet);
+            return pollSet;
+        } catch (IOException e) {
+            throw posixException(OSErrorEnum.fromException(e, TruffleString.EqualNode.getUncached()));
+        }
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    public void pollRegister(Object pollSetObj, int fd, int events) {
+        EmulatedPollSet pollSet = (EmulatedPollSet) pollSetObj;
+        synchronized (pollSet) {
+            pollSet.events.put(fd, events);
+            // Channels whose key is already valid only need the interest set adjusted, any other
+            // channel is (re-)registered lazily by the next poll
+            SelectionKey key = getPollKey(pollSet, fd);
+            if (key != null) {
+                key.interestOps(pollEventsToOps(events, key.channel()));
+            }
+        }
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    public void pollUnregister(Object pollSetObj, int fd) throws PosixException {
+        EmulatedPollSet pollSet = (EmulatedPollSet) pollSetObj;
+        synchronized (pollSet) {
+            if (pollSet.events.remove(fd) == null) {
+                throw posixException(OSErrorEnum.ENOENT);
+            }
+            SelectionKey key = getPollKey(pollSet, fd);
+            if (key != null) {
+                key.cancel();
+            }
+        }
+    }
+
+    private SelectionKey getPollKey(EmulatedPollSet pollSet, int fd) {
+        Channel ch = getFileChannel(fd);
+        if (ch == null) {
+            return null;
+        }
+        try {
+            SelectionKey key = getSelectableChannel(ch).keyFor(pollSet.selector);
+            return key != null && key.isValid() ? key : null;
+        } catch (ChannelNotSelectableException e) {
+            return null;
+        }
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    public int[] poll(Object pollSetObj, long timeoutMs) throws PosixException {
+        EmulatedPollSet pollSet = (EmulatedPollSet) pollSetObj;
+        Selector selector = pollSet.selector;
+        ArrayList<SelectableChannel> temporarilyRegistered = new ArrayList<>();
+        // pairs of fd and revents
+        IntArrayBuilder ready = new IntArrayBuilder();
+        try {
+            synchronized (pollSet) {
+                selector.selectedKeys().clear();
+                for (Map.Entry<Integer, Integer> entry : pollSet.events.entrySet()) {
+                    int fd = entry.getKey();
+                    int events = entry.getValue();
+                    Channel ch = getFileChannel(fd);
+                    if (ch == null) {
+                        ready.add(fd);
+                        ready.add(POLLNVAL.value);
+                        continue;
+                    }
+                    SelectableChannel channel;
+                    try {
+                        channel = getSelectableChannel(ch);
+                    } catch (ChannelNotSelectableException e) {
+                        // regular files are always ready for reading and writing
+                        int revents = events & (POLLIN.value | POLLOUT.value);
+                        if (revents != 0) {
+                            ready.add(fd);
+                            ready.add(revents);
+                        }
+                        continue;
+                    }
+                    int ops = pollEventsToOps(events, channel);
+                    SelectionKey key = channel.keyFor(selector);
+                    if (key != null && key.isValid()) {
+                        if (key.interestOps() != ops) {
+                            key.interestOps(ops);
+                        }
+                        continue;
+                    }
+                    if (ops == 0) {
+                        continue;
                     }
+                    if (key != null) {
+                        // flush the cancelled key before registering the channel again
+                        selector.selectNow();
+                        selector.selectedKeys().clear();
+                    }
+                    if (channel.isBlocking()) {
+                        channel.configureBlocking(false);
+                        temporarilyRegistered.add(channel);
+                    }
+                    channel.register(selector, ops, fd);
                 }
+            }
+
+            // IMPORTANT: like in select(), zero timeout means we should not block at all, while a
+            // negative timeout means infinite, which is 0 for the Java API
+            if (timeoutMs == 0 || ready.size() > 0) {
+                selector.selectNow();
             } else {
-                throw ChannelNotSelectableException.INSTANCE;
+                selector.select(timeoutMs < 0 ? 0 : timeoutMs);
+            }
+
+            synchronized (pollSet) {
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (key.isValid()) {
+                        int revents = readyOpsToPollEvents(key.readyOps());
+                        if (revents != 0) {
+                            ready.add((Integer) key.attachment());
+                            ready.add(revents);
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+            return ready.toArray();
+        } catch (IOException e) {
+            throw posixException(OSErrorEnum.fromException(e, TruffleString.EqualNode.getUncached()));
+        } finally {
+            if (!temporarilyRegistered.isEmpty()) {
+                try {
+                    synchronized (pollSet) {
+                        for (SelectableChannel channel : temporarilyRegistered) {
+                            pollSet.detach(channel);
+                        }
+                    }
+                    for (SelectableChannel channel : temporarilyRegistered) {
+                        channel.configureBlocking(true);
+                    }
+                } catch (IOException e) {
+                    // We didn't manage to restore the blocking status, ignore
+                }
+            }
+        }
+    }
+
+    @ExportMessage
+    @TruffleBoundary
+    public void pollClose(Object pollSetObj) {
+        EmulatedPollSet pollSet = (EmulatedPollSet) pollSetObj;
+        pollSets.remove(pollSet);
+        try {
+            pollSet.selector.close();
+        } catch (IOException e) {
+            // ignore, the keys are cancelled even if closing fails
+        }
+    }
+
+    /**
+     * Channels that stay registered with a poll set cannot be switched to blocking mode, so they
+     * are removed from all poll sets first. The next {@code poll} will register them temporarily.
+     */
+    @TruffleBoundary
+    private void detachFromPollSets(Channel ch) throws IOException {
+        if (pollSets.isEmpty()) {
+            return;
+        }
+        SelectableChannel channel;
+        try {
+            channel = getSelectableChannel(ch);
+        } catch (ChannelNotSelectableException e) {
+            // e.g., a socket that is not connected yet
+            return;
+        }
+        if (!channel.isRegistered()) {
+            return;
+        }
+        for (EmulatedPollSet pollSet : pollSets) {
+            synchronized (pollSet) {
+                pollSet.detach(channel);
             }
         }
-        return channels;
     }
 
     @ExportMessage
@@ -937,11 +1214,17 @@ public final class EmulatedPosixSupport extends PosixResources {
         try {
             Channel channel = getChannel(fd);
             if (channel instanceof EmulatedSocket) {
+                if (blocking) {
+                    detachFromPollSets(channel);
+                }
                 setBlocking((EmulatedSocket) channel, blocking);
                 return;
             }
             Channel fileChannel = getFileChannel(fd);
             if (fileChannel instanceof SelectableChannel) {
+                if (blocking) {
+                    detachFromPollSets(fileChannel);
+                }
                 setBlocking((SelectableChannel) fileChannel, blocking);
             } else if (fileChannel != null) {
                 if (blocking) {
@@ -2243,7 +2526,7 @@ public final class EmulatedPosixSupport extends PosixResources {
             pb.environment(env);
         }
 
-        ProcessWrapper process = new ProcessWrapper(pb.start(), p2cwrite != -1, c2pread != 1, errread != -1);
+        ProcessWrapper process = new ProcessWrapper(pb.start(), p2cwrite != -1, c2pread != -1, errread != -1);
         try {
             if (p2cwrite != -1) {
                 // user code is expected to close the unused ends of the pipes
@@ -2343,6 +2626,16 @@ public final class EmulatedPosixSupport extends PosixResources {
         throw new PythonExitException(null, pr.exitValue());
     }
 
+    // How long system() waits for the output of a finished command to be forwarded
+    private static final long SYSTEM_PUMP_DRAIN_MILLIS = 1000;
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+        }
+    }
+
     @ExportMessage
     @TruffleBoundary
     public int system(Object commandObj) {
@@ -2362,7 +2655,7 @@ public final class EmulatedPosixSupport extends PosixResources {
         try {
             TruffleProcessBuilder pb = context.getEnv().newProcessBuilder(command);
             pb.directory(env.getCurrentWorkingDirectory());
-            PipePump stdout = null, stderr = null;
+            ProcessWrapper.ChannelPump stdout = null, stderr = null;
             boolean stdsArePipes = !context.getOption(PythonOptions.TerminalIsInteractive);
             if (stdsArePipes) {
                 pb.redirectInput(Redirect.PIPE);
@@ -2374,15 +2667,24 @@ public final class EmulatedPosixSupport extends PosixResources {
             Process proc = pb.start();
             if (stdsArePipes) {
                 proc.getOutputStream().close(); // stdin will be closed
-                stdout = new PipePump(cmd + " [stdout]", proc.getInputStream(), env.out());
-                stderr = new PipePump(cmd + " [stderr]", proc.getErrorStream(), env.err());
+                stdout = new ProcessWrapper.ChannelPump(cmd + " [stdout]", proc.getInputStream(), env.out());
+                stderr = new ProcessWrapper.ChannelPump(cmd + " [stderr]", proc.getErrorStream(), env.err());
+                stdout.setDaemon(true);
+                stderr.setDaemon(true);
                 stdout.start();
                 stderr.start();
             }
             int exitStatus = proc.waitFor();
             if (stdsArePipes) {
-                stdout.finish();
-                stderr.finish();
+                // The pumps see EOF once the child is gone and forward the rest. A process started
+                // in the background by the command may keep the pipes open though, so we do not
+                // wait for it and close our ends instead.
+                stdout.join(SYSTEM_PUMP_DRAIN_MILLIS);
+                stderr.join(SYSTEM_PUMP_DRAIN_MILLIS);
+                if (stdout.isAlive() || stderr.isAlive()) {
+                    closeQuietly(proc.getInputStream());
+                    closeQuietly(proc.getErrorStream());
+                }
             }
             return exitStatus;
         } catch (IOException | InterruptedException e) {
@@ -2390,123 +2692,73 @@ public final class EmulatedPosixSupport extends PosixResources {
         }
     }
 
-    // TODO merge with ProcessWrapper
-    static class PipePump extends Thread {
-        private static final int MAX_READ = 8192;
-        private final InputStream in;
-        private final OutputStream out;
-        private final byte[] buffer;
-        private volatile boolean finish;
-
-        public PipePump(String name, InputStream in, OutputStream out) {
-            this.setName(name);
-            this.in = in;
-            this.out = out;
-            this.buffer = new byte[MAX_READ];
-            this.finish = false;
-        }
-
-        @Override
-        public void run() {
-            try {
-                while (!finish || in.available() > 0) {
-                    if (Thread.interrupted()) {
-                        finish = true;
-                    }
-                    int read = in.read(buffer, 0, Math.min(MAX_READ, in.available()));
-                    if (read == -1) {
-                        return;
-                    }
-                    out.write(buffer, 0, read);
-                }
-            } catch (IOException e) {
-            }
-        }
-
-        public void finish() {
-            finish = true;
-            // Make ourselves max priority to flush data out as quickly as possible
-            setPriority(Thread.MAX_PRIORITY);
-            Thread.yield();
-        }
-    }
+    // Java buffers are indexed by int, larger mappings are split into chunks of this size
+    private static final int MMAP_CHUNK_SHIFT = 30;
+    private static final int MMAP_CHUNK_SIZE = 1 << MMAP_CHUNK_SHIFT;
 
+    /**
+     * Anonymous mappings and mappings of files that are backed by a {@link FileChannel} are kept as
+     * (possibly memory mapped) {@link ByteBuffer} chunks that are accessed directly. Files provided
+     * by a file system that does not give us a {@link FileChannel} fall back to positioned reads
+     * and writes on the channel.
+     */
     public static final class MMapHandle {
-        private static final MMapHandle NONE = new MMapHandle(null, 0);
+        private static final MMapHandle NONE = new MMapHandle(null, null, 0, 0);
+        private ByteBuffer[] chunks;
         private SeekableByteChannel channel;
         private final long offset;
+        private final long length;
 
-        public MMapHandle(SeekableByteChannel channel, long offset) {
+        private MMapHandle(ByteBuffer[] chunks, SeekableByteChannel channel, long offset, long length) {
+            this.chunks = chunks;
             this.channel = channel;
             this.offset = offset;
+            this.length = length;
         }
 
         @Override
         public String toString() {
             neverPartOfCompilation();
+            if (chunks != null) {
+                return String.format("Emulated mmap [chunks=%d, offset=%d, length=%d]", chunks.length, offset, length);
+            }
             return String.format("Emulated mmap [channel=%s, offset=%d]", channel, offset);
         }
     }
 
-    private static final class AnonymousMap implements SeekableByteChannel {
-        private final byte[] data;
-
-        private boolean open = true;
-        private int cur;
-
-        public AnonymousMap(int cap) {
-            this.data = new byte[cap];
-        }
-
-        @Override
-        public boolean isOpen() {
-            return open;
-        }
-
-        @Override
-        public void close() throws IOException {
-            open = false;
-        }
-
-        @Override
-        public int read(ByteBuffer dst) throws IOException {
-            int nread = Math.min(dst.remaining(), data.length - cur);
-            dst.put(data, cur, nread);
-            return nread;
-        }
-
-        @Override
-        public int write(ByteBuffer src) throws IOException {
-            int nwrite = Math.min(src.remaining(), data.length - cur);
-            src.get(data, cur, nwrite);
-            return nwrite;
-        }
+    private static int mmapChunkCount(long length) {
+        return (int) ((length + MMAP_CHUNK_SIZE - 1) >>> MMAP_CHUNK_SHIFT);
+    }
 
-        @Override
-        public long position() throws IOException {
-            return cur;
-        }
+    private static int mmapChunkSize(long length, int chunk) {
+        return (int) Math.min(MMAP_CHUNK_SIZE, length - ((long) chunk << MMAP_CHUNK_SHIFT));
+    }
 
-        @Override
-        public SeekableByteChannel position(long newPosition) throws IOException {
-            if (newPosition < 0 || newPosition >= data.length) {
-                throw new IllegalArgumentException();
-            }
-            cur = (int) newPosition;
-            return this;
+    @TruffleBoundary
+    private static ByteBuffer[] allocateAnonymousMap(long length) {
+        ByteBuffer[] chunks = new ByteBuffer[mmapChunkCount(length)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocate(mmapChunkSize(length, i));
         }
+        return chunks;
+    }
 
-        @Override
-        public long size() throws IOException {
-            return data.length;
+    @TruffleBoundary
+    private static ByteBuffer[] mapFileChannel(FileChannel channel, FileChannel.MapMode mode, long offset, long length) throws IOException {
+        ByteBuffer[] chunks = new ByteBuffer[mmapChunkCount(length)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = channel.map(mode, offset + ((long) i << MMAP_CHUNK_SHIFT), mmapChunkSize(length, i));
         }
+        return chunks;
+    }
 
-        @Override
-        public SeekableByteChannel truncate(long size) throws IOException {
-            for (int i = 0; i < size; i++) {
-                data[i] = 0;
-            }
-            return this;
+    private static FileChannel.MapMode mmapMapMode(int prot, int flags) {
+        if ((prot & PROT_WRITE.value) == 0) {
+            return FileChannel.MapMode.READ_ONLY;
+        } else if ((flags & MAP_PRIVATE.value) != 0) {
+            return FileChannel.MapMode.PRIVATE;
+        } else {
+            return FileChannel.MapMode.READ_WRITE;
         }
     }
 
@@ -2523,12 +2775,7 @@ public final class EmulatedPosixSupport extends PosixResources {
 
         // Note: the profile is not really defaultDirProfile, but it's good to share...
         if (isAnonymousProfile.profile(inliningTarget, (flags & MAP_ANONYMOUS.value) != 0)) {
-            try {
-                return new MMapHandle(new AnonymousMap(PythonUtils.toIntExact(length)), 0);
-            } catch (OverflowException e) {
-                CompilerDirectives.transferToInterpreter();
-                throw new UnsupportedPosixFeatureException(String.format("Anonymous mapping in mmap for memory larger than %d", Integer.MAX_VALUE));
-            }
+            return new MMapHandle(allocateAnonymousMap(length), null, 0, length);
         }
 
         TruffleString path = getFilePath(fd, fromJavaStringNode);
@@ -2539,8 +2786,14 @@ public final class EmulatedPosixSupport extends PosixResources {
         SeekableByteChannel fileChannel;
         try {
             fileChannel = newByteChannel(file, options);
+            if (fileChannel instanceof FileChannel) {
+                ByteBuffer[] chunks = mapFileChannel((FileChannel) fileChannel, mmapMapMode(prot, flags), offset, length);
+                // the mapping stays valid after the channel is closed
+                closeChannel(fileChannel);
+                return new MMapHandle(chunks, null, offset, length);
+            }
             position(fileChannel, offset);
-            return new MMapHandle(fileChannel, offset);
+            return new MMapHandle(null, fileChannel, offset, length);
         } catch (IOException e) {
             throw posixException(OSErrorEnum.fromException(e, eqNode));
         }
@@ -2549,9 +2802,8 @@ public final class EmulatedPosixSupport extends PosixResources {
     @TruffleBoundary
     private static Set<StandardOpenOption> mmapProtToOptions(int prot) {
         HashSet<StandardOpenOption> options = new HashSet<>();
-        if ((prot & PROT_READ.value) != 0) {
-            options.add(StandardOpenOption.READ);
-        }
+        // Java cannot map a file that is not readable, so we always ask for READ
+        options.add(StandardOpenOption.READ);
         if ((prot & PROT_WRITE.value) != 0) {
             options.add(StandardOpenOption.WRITE);
         }
@@ -2566,6 +2818,32 @@ public final class EmulatedPosixSupport extends PosixResources {
         return file.newByteChannel(options);
     }
 
+    @TruffleBoundary(allowInlining = true)
+    private static byte getChunkByte(ByteBuffer[] chunks, long index) {
+        return chunks[(int) (index >>> MMAP_CHUNK_SHIFT)].get((int) (index & (MMAP_CHUNK_SIZE - 1)));
+    }
+
+    /**
+     * Copies {@code length} bytes between the chunks starting at {@code index} and the array. The
+     * caller must ensure that the range is within the mapping.
+     */
+    @TruffleBoundary
+    private static void copyChunks(ByteBuffer[] chunks, long index, byte[] bytes, int length, boolean write) {
+        int done = 0;
+        while (done < length) {
+            long pos = index + done;
+            ByteBuffer chunk = chunks[(int) (pos >>> MMAP_CHUNK_SHIFT)];
+            int chunkOffset = (int) (pos & (MMAP_CHUNK_SIZE - 1));
+            int n = Math.min(length - done, chunk.limit() - chunkOffset);
+            if (write) {
+                chunk.put(chunkOffset, bytes, done, n);
+            } else {
+                chunk.get(chunkOffset, bytes, done, n);
+            }
+            done += n;
+        }
+    }
+
     @ExportMessage
     @SuppressWarnings("static-method")
     public byte mmapReadByte(Object mmap, long index,
@@ -2577,6 +2855,13 @@ public final class EmulatedPosixSupport extends PosixResources {
             throw posixException(OSErrorEnum.EACCES);
         }
         MMapHandle handle = (MMapHandle) mmap;
+        if (handle.chunks != null) {
+            if (index < 0 || index >= handle.length) {
+                errBranch.enter(inliningTarget);
+                throw posixException(OSErrorEnum.ENODATA);
+            }
+            return getChunkByte(handle.chunks, index);
+        }
         ByteBuffer readingBuffer = allocateByteBuffer(1);
         int readSize = readBytes(inliningTarget, handle, index, readingBuffer, errBranch, eqNode);
         if (readSize == 0) {
@@ -2605,14 +2890,12 @@ public final class EmulatedPosixSupport extends PosixResources {
             throw posixException(OSErrorEnum.EACCES);
         }
         MMapHandle handle = (MMapHandle) mmap;
-        int sz;
-        try {
-            sz = PythonUtils.toIntExact(length);
-        } catch (OverflowException e) {
-            errBranch.enter(inliningTarget);
-            throw posixException(OSErrorEnum.EOVERFLOW);
+        if (handle.chunks != null) {
+            int readSize = (int) Math.max(0, Math.min(length, handle.length - index));
+            copyChunks(handle.chunks, index, bytes, readSize, false);
+            return readSize;
         }
-        ByteBuffer readingBuffer = allocateByteBuffer(sz);
+        ByteBuffer readingBuffer = allocateByteBuffer(length);
         int readSize = readBytes(inliningTarget, handle, index, readingBuffer, errBranch, eqNode);
         if (readSize > 0) {
             getByteBufferArray(readingBuffer, bytes, readSize);
@@ -2641,6 +2924,19 @@ public final class EmulatedPosixSupport extends PosixResources {
             throw posixException(OSErrorEnum.EACCES);
         }
         MMapHandle handle = (MMapHandle) mmap;
+        if (handle.chunks != null) {
+            if (index < 0 || handle.length - index < length) {
+                errBranch.enter(inliningTarget);
+                throw posixException(OSErrorEnum.EIO);
+            }
+            try {
+                copyChunks(handle.chunks, index, bytes, length, true);
+            } catch (ReadOnlyBufferException e) {
+                errBranch.enter(inliningTarget);
+                throw posixException(OSErrorEnum.EACCES);
+            }
+            return;
+        }
         try {
             SeekableByteChannel channel = handle.channel;
             position(channel, handle.offset + index);
@@ -2661,13 +2957,32 @@ public final class EmulatedPosixSupport extends PosixResources {
     }
 
     @ExportMessage
-    @SuppressWarnings({"static-method", "unused"})
+    @SuppressWarnings("static-method")
     public void mmapFlush(Object mmap, long offset, long length) {
-        // Intentionally noop
-        // If we had access to the underlying NIO FileChannel, we could explicitly set force(true)
-        // when creating the channel. Another possibility would be exposing JDK's memory mapped
-        // files support via Truffle API, which would allow for more compatible (and completely
-        // different implementation of mmap in emulated posix)
+        if (mmap == MMapHandle.NONE) {
+            return;
+        }
+        MMapHandle handle = (MMapHandle) mmap;
+        if (handle.chunks != null) {
+            forceChunks(handle.chunks, offset, Math.min(length, handle.length - offset));
+        }
+        // Channels that could not be mapped are written through on every write, there is nothing
+        // to flush
+    }
+
+    @TruffleBoundary
+    private static void forceChunks(ByteBuffer[] chunks, long offset, long length) {
+        long pos = offset;
+        long end = offset + length;
+        while (pos < end) {
+            ByteBuffer chunk = chunks[(int) (pos >>> MMAP_CHUNK_SHIFT)];
+            int chunkOffset = (int) (pos & (MMAP_CHUNK_SIZE - 1));
+            int n = (int) Math.min(end - pos, chunk.limit() - chunkOffset);
+            if (chunk instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) chunk).force(chunkOffset, n);
+            }
+            pos += n;
+        }
     }
 
     @ExportMessage
@@ -2678,6 +2993,8 @@ public final class EmulatedPosixSupport extends PosixResources {
             return;
         }
         MMapHandle handle = (MMapHandle) mmap;
+        // Java has no explicit unmap, the mapping is released once the buffers are collected
+        handle.chunks = null;
         if (handle.channel != null) {
             try {
                 closeChannel(handle.channel);
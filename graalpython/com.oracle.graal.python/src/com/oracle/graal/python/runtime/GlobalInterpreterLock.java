@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.graal.python.runtime;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * The GIL. Unlike a fair {@link ReentrantLock}, releasing it while other threads are waiting hands
+ * ownership directly to one of them, so the lock is never free while there are waiters and the
+ * releasing thread cannot race the woken thread to reacquire it. Threads that gave up the GIL
+ * voluntarily (e.g. around blocking I/O) are queued ahead of threads that were preempted by the
+ * switch interval, so that they can quickly respond and block again. To keep a steady stream of
+ * such threads from starving the preempted ones, a preempted thread that has been waiting for
+ * longer than the switch interval is served first.
+ *
+ * Should not be used directly, see {@link PythonContext} and {@link GilNode}.
+ */
+public final class GlobalInterpreterLock {
+    private static final class Waiter {
+        final Thread thread = Thread.currentThread();
+        final long enqueuedNanos = System.nanoTime();
+        volatile boolean granted;
+    }
+
+    private final LongSupplier maxPriorityNanos;
+    private volatile Thread owner;
+    private final ArrayDeque<Waiter> priorityWaiters = new ArrayDeque<>();
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+    /**
+     * @param maxPriorityNanos how long a preempted thread may be kept waiting behind threads that
+     *            released the GIL voluntarily, usually the switch interval
+     */
+    public GlobalInterpreterLock(LongSupplier maxPriorityNanos) {
+        this.maxPriorityNanos = maxPriorityNanos;
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return owner == Thread.currentThread();
+    }
+
+    public Thread getOwner() {
+        return owner;
+    }
+
+    public synchronized boolean hasWaiters() {
+        return !priorityWaiters.isEmpty() || !waiters.isEmpty();
+    }
+
+    public synchronized boolean tryLock() {
+        if (owner == null) {
+            assert !hasWaiters();
+            owner = Thread.currentThread();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Acquires the GIL, waiting until it is handed to the current thread. Threads passing
+     * {@code preempted = true} queue behind those that released the GIL voluntarily.
+     */
+    public void lockInterruptibly(boolean preempted) throws InterruptedException {
+        Waiter waiter;
+        synchronized (this) {
+            if (owner == null) {
+                owner = Thread.currentThread();
+                return;
+            }
+            waiter = new Waiter();
+            (preempted ? waiters : priorityWaiters).addLast(waiter);
+        }
+        while (!waiter.granted) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                synchronized (this) {
+                    if (!waiter.granted) {
+                        (preempted ? waiters : priorityWaiters).remove(waiter);
+                        throw new InterruptedException();
+                    }
+                }
+                // the GIL was handed to us concurrently, keep it and the interrupt status
+                Thread.currentThread().interrupt();
+            }
+        }
+        assert owner == Thread.currentThread();
+    }
+
+    public void unlock() {
+        Waiter next;
+        synchronized (this) {
+            assert owner == Thread.currentThread();
+            next = pollWaiter();
+            owner = next == null ? null : next.thread;
+        }
+        grant(next);
+    }
+
+    /**
+     * Hands the GIL to the next waiting thread, if any. Returns {@code false} and keeps the GIL if
+     * there is nobody to switch to.
+     */
+    public boolean handOff() {
+        Waiter next;
+        synchronized (this) {
+            assert owner == Thread.currentThread();
+            next = pollWaiter();
+            if (next == null) {
+                return false;
+            }
+            owner = next.thread;
+        }
+        grant(next);
+        return true;
+    }
+
+    private Waiter pollWaiter() {
+        Waiter preempted = waiters.peekFirst();
+        if (preempted != null && (priorityWaiters.isEmpty() || System.nanoTime() - preempted.enqueuedNanos > maxPriorityNanos.getAsLong())) {
+            return waiters.pollFirst();
+        }
+        return priorityWaiters.pollFirst();
+    }
+
+    private static void grant(Waiter next) {
+        if (next != null) {
+            next.granted = true;
+            LockSupport.unpark(next.thread);
+        }
+    }
+}
@@ -201,6 +201,15 @@ public class ImageBuildtimePosixSupport extends PosixSupport {
         return nativeLib.read(nativePosixSupport, fd, length);
     }
 
+    @ExportMessage
+    final int readInto(int fd, byte[] buf, int offset, int len,
+                    @CachedLibrary("this.nativePosixSupport") PosixSupportLibrary nativeLib) throws PosixException {
+        if (ImageInfo.inImageBuildtimeCode()) {
+            return PosixSupportLibrary.getUncached().readInto(emulatedPosixSupport, fd, buf, offset, len);
+        }
+        return nativeLib.readInto(nativePosixSupport, fd, buf, offset, len);
+    }
+
     @ExportMessage
     final long write(int fd, Buffer data,
                     @CachedLibrary("this.nativePosixSupport") PosixSupportLibrary nativeLib) throws PosixException {
@@ -252,6 +261,40 @@ public class ImageBuildtimePosixSupport extends PosixSupport {
         return nativeLib.select(nativePosixSupport, readfds, writefds, errorfds, timeout);
     }
 
+    @ExportMessage
+    final Object pollCreate(@CachedLibrary("this.nativePosixSupport") PosixSupportLibrary nativeLib) throws PosixException {
+        checkNotInImageBuildtime();
+        return nativeLib.pollCreate(nativePosixSupport);
+    }
+
+    @ExportMessage
+    final void pollRegister(Object pollSet, int fd, int events,
+                    @CachedLibrary("this.nativePosixSupport") PosixSupportLibrary nativeLib) throws PosixException {
+        checkNotInImageBuildtime();
+        nativeLib.pollRegister(nativePosixSupport, pollSet, fd, events);
+    }
+
+    @ExportMessage
+    final void pollUnregister(Object pollSet, int fd,
+                    @CachedLibrary("this.nativePosixSupport") PosixSupportLibrary nativeLib) throws PosixException {
+        checkNotInImageBuildtime();
+        nativeLib.pollUnregister(nativePosixSupport, pollSet, fd);
+    }
+
+    @ExportMessage
+    final int[] poll(Object pollSet, long timeoutMs,
+                    @CachedLibrary("this.nativePosixSupport") PosixSupportLibrary nativeLib) throws PosixException {
+        checkNotInImageBuildtime();
+        return nativeLib.poll(nativePosixSupport, pollSet, timeoutMs);
+    }
+
+    @ExportMessage
+    final void pollClose(Object pollSet,
+                    @CachedLibrary("this.nativePosixSupport") PosixSupportLibrary nativeLib) {
+        checkNotInImageBuildtime();
+        nativeLib.pollClose(nativePosixSupport, pollSet);
+    }
+
     @ExportMessage
     final long lseek(int fd, long offset, int how,
                     @CachedLibrary("this.nativePosixSupport") PosixSupportLibrary nativeLib) throws PosixException {
@@ -83,6 +83,8 @@ import static com.oracle.truffle.api.CompilerDirectives.shouldNotReachHere;
 import static com.oracle.truffle.api.strings.TruffleString.Encoding.UTF_8;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Level;
 
@@ -171,11 +173,16 @@ public final class NFIPosixSupport extends PosixSupport {
         call_openat("(sint32, [sint8], sint32, sint32):sint32"),
         call_close("(sint32):sint32"),
         call_read("(sint32, [sint8], uint64):sint64"),
+        call_readinto("(sint32, [sint8], sint32, sint32):sint32"),
         call_write("(sint32, [sint8], uint64):sint64"),
         call_dup("(sint32):sint32"),
         call_dup2("(sint32, sint32, sint32):sint32"),
         call_pipe2("([sint32]):sint32"),
         call_select("(sint32, [sint32], sint32, [sint32], sint32, [sint32], sint32, sint64, sint64, [sint8]):sint32"),
+        call_poll_realloc("(sint64, sint32):sint64"),
+        call_poll_free("(sint64):void"),
+        call_poll_fill("(sint64, [sint32], [sint32], sint32):void"),
+        call_poll("(sint64, sint32, [sint32], sint32):sint32"),
         call_lseek("(sint32, sint64, sint32):sint64"),
         call_ftruncate("(sint32, sint64):sint32"),
         call_fsync("(sint32):sint32"),
@@ -526,6 +533,17 @@ public final class NFIPosixSupport extends PosixSupport {
         return buffer.withLength(n);
     }
 
+    @ExportMessage
+    public int readInto(int fd, byte[] buf, int offset, int len,
+                    @Shared("invoke") @Cached InvokeNativeFunction invokeNode) throws PosixException {
+        checkBounds(buf, offset, len);
+        int n = invokeNode.callInt(this, PosixNativeFunction.call_readinto, fd, wrap(buf), offset, len);
+        if (n < 0) {
+            throw getErrnoAndThrowPosixException(invokeNode);
+        }
+        return n;
+    }
+
     @ExportMessage
     public long write(int fd, Buffer data,
                     @Shared("invoke") @Cached InvokeNativeFunction invokeNode) throws PosixException {
@@ -633,6 +651,148 @@ public final class NFIPosixSupport extends PosixSupport {
         return max;
     }
 
+    /**
+     * The file descriptors and event masks of a {@code poll} object. They are also kept in a native
+     * {@code pollfd} array that is reused by all calls to {@code call_poll} and only refilled after
+     * the set has changed. Unregistering moves the last entry into the freed slot.
+     *
+     * The Java arrays can be changed by any thread, while the native array is only accessed by the
+     * thread that polls, the {@code poll} object makes sure there is at most one.
+     */
+    private static final class NFIPollSet {
+        private int[] fds = new int[8];
+        private int[] events = new int[8];
+        private int count;
+        private final HashMap<Integer, Integer> indices = new HashMap<>();
+        // Whether the native array needs to be refilled before the next poll
+        private boolean dirty = true;
+
+        // The native pollfd array, its capacity and the file descriptors in it, owned by the
+        // polling thread
+        private long nativeFds;
+        private int nativeCapacity;
+        private int[] polledFds = PythonUtils.EMPTY_INT_ARRAY;
+        private int[] revents = PythonUtils.EMPTY_INT_ARRAY;
+
+        @TruffleBoundary
+        synchronized void register(int fd, int eventMask) {
+            dirty = true;
+            Integer index = indices.get(fd);
+            if (index != null) {
+                events[index] = eventMask;
+                return;
+            }
+            if (count == fds.length) {
+                fds = Arrays.copyOf(fds, count * 2);
+                events = Arrays.copyOf(events, count * 2);
+            }
+            fds[count] = fd;
+            events[count] = eventMask;
+            indices.put(fd, count++);
+        }
+
+        @TruffleBoundary
+        synchronized boolean unregister(int fd) {
+            Integer index = indices.remove(fd);
+            if (index == null) {
+                return false;
+            }
+            dirty = true;
+            int last = --count;
+            if (index != last) {
+                fds[index] = fds[last];
+                events[index] = events[last];
+                indices.put(fds[index], index);
+            }
+            return true;
+        }
+
+        @TruffleBoundary
+        synchronized void markDirty() {
+            dirty = true;
+        }
+
+        /**
+         * Returns the current file descriptors and event masks if they changed since the last
+         * call, otherwise {@code null}.
+         */
+        @TruffleBoundary
+        synchronized int[][] takeChanges() {
+            if (!dirty) {
+                return null;
+            }
+            dirty = false;
+            return new int[][]{Arrays.copyOf(fds, count), Arrays.copyOf(events, count)};
+        }
+    }
+
+    @ExportMessage
+    public Object pollCreate() {
+        return new NFIPollSet();
+    }
+
+    @ExportMessage
+    public void pollRegister(Object pollSet, int fd, int events) {
+        ((NFIPollSet) pollSet).register(fd, events);
+    }
+
+    @ExportMessage
+    public void pollUnregister(Object pollSet, int fd) throws PosixException {
+        if (!((NFIPollSet) pollSet).unregister(fd)) {
+            throw new PosixException(OSErrorEnum.ENOENT.getNumber(), OSErrorEnum.ENOENT.getMessage());
+        }
+    }
+
+    @ExportMessage
+    public int[] poll(Object pollSetObj, long timeoutMs,
+                    @Shared("invoke") @Cached InvokeNativeFunction invokeNode) throws PosixException {
+        NFIPollSet pollSet = (NFIPollSet) pollSetObj;
+        int[][] changes = pollSet.takeChanges();
+        if (changes != null) {
+            int[] fds = changes[0];
+            if (fds.length > pollSet.nativeCapacity) {
+                int newCapacity = Math.max(fds.length, pollSet.nativeCapacity * 2);
+                long ptr = invokeNode.callLong(this, PosixNativeFunction.call_poll_realloc, pollSet.nativeFds, newCapacity);
+                if (ptr == 0) {
+                    pollSet.markDirty();
+                    throw getErrnoAndThrowPosixException(invokeNode);
+                }
+                pollSet.nativeFds = ptr;
+                pollSet.nativeCapacity = newCapacity;
+                pollSet.revents = new int[newCapacity];
+            }
+            invokeNode.call(this, PosixNativeFunction.call_poll_fill, pollSet.nativeFds, wrap(fds), wrap(changes[1]), fds.length);
+            pollSet.polledFds = fds;
+        }
+        int[] fds = pollSet.polledFds;
+        int[] revents = pollSet.revents;
+        int timeout = timeoutMs < 0 ? -1 : (int) Math.min(timeoutMs, Integer.MAX_VALUE);
+        int result = invokeNode.callInt(this, PosixNativeFunction.call_poll, pollSet.nativeFds, fds.length, wrap(revents), timeout);
+        if (result < 0) {
+            throw getErrnoAndThrowPosixException(invokeNode);
+        }
+        int[] ready = new int[result * 2];
+        int j = 0;
+        for (int i = 0; i < fds.length && j < ready.length; i++) {
+            if (revents[i] != 0) {
+                ready[j++] = fds[i];
+                ready[j++] = revents[i];
+            }
+        }
+        return ready;
+    }
+
+    @ExportMessage
+    public void pollClose(Object pollSetObj,
+                    @Shared("invoke") @Cached InvokeNativeFunction invokeNode) {
+        NFIPollSet pollSet = (NFIPollSet) pollSetObj;
+        if (pollSet.nativeFds != 0) {
+            invokeNode.call(this, PosixNativeFunction.call_poll_free, pollSet.nativeFds);
+            pollSet.nativeFds = 0;
+            pollSet.nativeCapacity = 0;
+        }
+    }
+
     @ExportMessage
     public long lseek(int fd, long offset, int how,
                     @Shared("invoke") @Cached InvokeNativeFunction invokeNode) throws PosixException {
@@ -161,6 +161,18 @@ public final class PosixConstants {
     public static final MandatoryIntConstant DT_WHT;
     public static final MandatoryIntConstant WNOHANG;
     public static final MandatoryIntConstant WUNTRACED;
+    public static final MandatoryIntConstant POLLIN;
+    public static final MandatoryIntConstant POLLPRI;
+    public static final MandatoryIntConstant POLLOUT;
+    public static final MandatoryIntConstant POLLERR;
+    public static final MandatoryIntConstant POLLHUP;
+    public static final MandatoryIntConstant POLLNVAL;
+    public static final OptionalIntConstant POLLRDNORM;
+    public static final OptionalIntConstant POLLRDBAND;
+    public static final OptionalIntConstant POLLWRNORM;
+    public static final OptionalIntConstant POLLWRBAND;
+    public static final OptionalIntConstant POLLMSG;
+    public static final OptionalIntConstant POLLRDHUP;
     public static final MandatoryIntConstant R_OK;
     public static final MandatoryIntConstant W_OK;
     public static final MandatoryIntConstant X_OK;
@@ -337,6 +349,7 @@ public final class PosixConstants {
     public static final IntConstant[] flockType;
     public static final IntConstant[] direntType;
     public static final IntConstant[] waitOptions;
+    public static final IntConstant[] pollEvents;
     public static final IntConstant[] accessMode;
     public static final IntConstant[] exitStatus;
     public static final IntConstant[] rtld;
@@ -439,6 +452,18 @@ public final class PosixConstants {
         DT_WHT = reg.createMandatoryInt("DT_WHT");
         WNOHANG = reg.createMandatoryInt("WNOHANG");
         WUNTRACED = reg.createMandatoryInt("WUNTRACED");
+        POLLIN = reg.createMandatoryInt("POLLIN");
+        POLLPRI = reg.createMandatoryInt("POLLPRI");
+        POLLOUT = reg.createMandatoryInt("POLLOUT");
+        POLLERR = reg.createMandatoryInt("POLLERR");
+        POLLHUP = reg.createMandatoryInt("POLLHUP");
+        POLLNVAL = reg.createMandatoryInt("POLLNVAL");
+        POLLRDNORM = reg.createOptionalInt("POLLRDNORM");
+        POLLRDBAND = reg.createOptionalInt("POLLRDBAND");
+        POLLWRNORM = reg.createOptionalInt("POLLWRNORM");
+        POLLWRBAND = reg.createOptionalInt("POLLWRBAND");
+        POLLMSG = reg.createOptionalInt("POLLMSG");
+        POLLRDHUP = reg.createOptionalInt("POLLRDHUP");
         R_OK = reg.createMandatoryInt("R_OK");
         W_OK = reg.createMandatoryInt("W_OK");
         X_OK = reg.createMandatoryInt("X_OK");
@@ -616,6 +641,7 @@ public final class PosixConstants {
         flockType = new IntConstant[]{F_RDLCK, F_WRLCK, F_UNLCK};
         direntType = new IntConstant[]{DT_UNKNOWN, DT_FIFO, DT_CHR, DT_DIR, DT_BLK, DT_REG, DT_LNK, DT_SOCK, DT_WHT};
         waitOptions = new IntConstant[]{WNOHANG, WUNTRACED};
+        pollEvents = new IntConstant[]{POLLIN, POLLPRI, POLLOUT, POLLERR, POLLHUP, POLLNVAL, POLLRDNORM, POLLRDBAND, POLLWRNORM, POLLWRBAND, POLLMSG, POLLRDHUP};
         accessMode = new IntConstant[]{R_OK, W_OK, X_OK, F_OK};
         exitStatus = new IntConstant[]{EX_OK, EX_USAGE, EX_DATAERR, EX_NOINPUT, EX_NOUSER, EX_NOHOST, EX_UNAVAILABLE, EX_SOFTWARE, EX_OSERR, EX_OSFILE, EX_CANTCREAT, EX_IOERR, EX_TEMPFAIL,
                         EX_PROTOCOL, EX_NOPERM, EX_CONFIG, EX_NOTFOUND};
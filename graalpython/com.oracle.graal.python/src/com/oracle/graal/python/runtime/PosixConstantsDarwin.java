@@ -120,6 +120,16 @@ class PosixConstantsDarwin {
         constants.put("DT_WHT", 14);
         constants.put("WNOHANG", 1);
         constants.put("WUNTRACED", 2);
+        constants.put("POLLIN", 0x00000001);
+        constants.put("POLLPRI", 0x00000002);
+        constants.put("POLLOUT", 0x00000004);
+        constants.put("POLLERR", 0x00000008);
+        constants.put("POLLHUP", 0x00000010);
+        constants.put("POLLNVAL", 0x00000020);
+        constants.put("POLLRDNORM", 0x00000040);
+        constants.put("POLLRDBAND", 0x00000080);
+        constants.put("POLLWRNORM", 0x00000004);
+        constants.put("POLLWRBAND", 0x00000100);
         constants.put("R_OK", 0x00000004);
         constants.put("W_OK", 0x00000002);
         constants.put("X_OK", 0x00000001);
@@ -93,6 +93,14 @@ public abstract class PosixSupportLibrary extends Library {
 
     public abstract Buffer read(Object receiver, int fd, long length) throws PosixException;
 
+    /**
+     * Reads at most {@code len} bytes into {@code buf} starting at {@code offset}. Unlike
+     * {@link #read(Object, int, long)}, this does not allocate a new buffer for every call.
+     *
+     * @return the number of bytes read, {@code 0} at the end of file
+     */
+    public abstract int readInto(Object receiver, int fd, byte[] buf, int offset, int len) throws PosixException;
+
     public abstract long write(Object receiver, int fd, Buffer data) throws PosixException;
 
     public abstract int dup(Object receiver, int fd) throws PosixException;
@@ -107,6 +115,29 @@ public abstract class PosixSupportLibrary extends Library {
 
     public abstract SelectResult select(Object receiver, int[] readfds, int[] writefds, int[] errorfds, Timeval timeout) throws PosixException;
 
+    /**
+     * Creates an opaque poll set that keeps the registered file descriptors and their event masks
+     * between calls to {@link #poll}. The poll set must be released with {@link #pollClose}.
+     */
+    public abstract Object pollCreate(Object receiver) throws PosixException;
+
+    /**
+     * Registers {@code fd} in the poll set, or replaces its event mask if it is already registered.
+     */
+    public abstract void pollRegister(Object receiver, Object pollSet, int fd, int events) throws PosixException;
+
+    public abstract void pollUnregister(Object receiver, Object pollSet, int fd) throws PosixException;
+
+    /**
+     * Waits until at least one file descriptor in the poll set is ready or until the timeout (in
+     * milliseconds, negative means infinite) expires.
+     *
+     * @return the ready file descriptors as pairs {@code [fd0, revents0, fd1, revents1, ...]}
+     */
+    public abstract int[] poll(Object receiver, Object pollSet, long timeoutMs) throws PosixException;
+
+    public abstract void pollClose(Object receiver, Object pollSet);
+
     public abstract long lseek(Object receiver, int fd, long offset, int how) throws PosixException;
 
     public abstract void ftruncate(Object receiver, int fd, long length) throws PosixException;
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2020, 2021, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020, 2023, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -45,7 +45,6 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
-import java.nio.channels.Channels;
 import java.nio.channels.Pipe;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
@@ -79,7 +78,7 @@ public final class ProcessWrapper extends Process {
         this.process = process;
         if (pipeStdin) {
             inPipe = Pipe.open();
-            inThread = new ChannelPump("stdin", inPipe.source(), Channels.newChannel(process.getOutputStream()));
+            inThread = new ChannelPump("stdin", inPipe.source(), process.getOutputStream());
             inThread.start();
         } else {
             inPipe = null;
@@ -87,7 +86,7 @@ public final class ProcessWrapper extends Process {
         }
         if (pipeStdout) {
             outPipe = Pipe.open();
-            outThread = new ChannelPump("stdout", Channels.newChannel(process.getInputStream()), outPipe.sink());
+            outThread = new ChannelPump("stdout", process.getInputStream(), outPipe.sink());
             outThread.start();
         } else {
             outPipe = null;
@@ -95,7 +94,7 @@ public final class ProcessWrapper extends Process {
         }
         if (pipeStderr) {
             errPipe = Pipe.open();
-            errThread = new ChannelPump("stderr", Channels.newChannel(process.getErrorStream()), errPipe.sink());
+            errThread = new ChannelPump("stderr", process.getErrorStream(), errPipe.sink());
             errThread.start();
         } else {
             errPipe = null;
@@ -168,44 +167,96 @@ public final class ProcessWrapper extends Process {
         return process.isAlive();
     }
 
-    static class ChannelPump extends Thread {
+    /**
+     * Forwards data from a source to a sink using blocking reads, so an idle pump parks in the read
+     * instead of polling for available data. Reads from {@link InputStream}s go straight into the
+     * backing array of the buffer and writes to {@link OutputStream}s are flushed immediately so
+     * that the other side sees the data without waiting for the pump to fill a buffer.
+     */
+    static final class ChannelPump extends Thread {
 
-        private static final int BUF_SIZE = 8192;
+        private static final int BUF_SIZE = 64 * 1024;
 
+        private final InputStream in;
         private final ReadableByteChannel source;
+        private final OutputStream out;
         private final WritableByteChannel sink;
+        private final boolean closeSink;
 
-        ChannelPump(String streamName, ReadableByteChannel source, WritableByteChannel sink) {
+        private ChannelPump(String streamName, InputStream in, ReadableByteChannel source, OutputStream out, WritableByteChannel sink, boolean closeSink) {
             super("ChannelPump-" + streamName);
+            this.in = in;
             this.source = source;
+            this.out = out;
             this.sink = sink;
+            this.closeSink = closeSink;
+        }
+
+        ChannelPump(String streamName, InputStream in, WritableByteChannel sink) {
+            this(streamName, in, null, null, sink, true);
+        }
+
+        ChannelPump(String streamName, ReadableByteChannel source, OutputStream out) {
+            this(streamName, null, source, out, null, true);
+        }
+
+        /**
+         * Creates a pump that forwards into a stream shared with others (e.g. the context's
+         * stdout), the sink is therefore only flushed, but never closed.
+         */
+        ChannelPump(String streamName, InputStream in, OutputStream out) {
+            this(streamName, in, null, out, null, false);
         }
 
         @Override
         public void run() {
             ByteBuffer buf = ByteBuffer.allocate(BUF_SIZE);
+            byte[] array = buf.array();
             try {
                 while (true) {
                     buf.clear();
-                    int r = source.read(buf);
+                    int r;
+                    if (in != null) {
+                        r = in.read(array, 0, array.length);
+                        if (r > 0) {
+                            buf.position(r);
+                        }
+                    } else {
+                        r = source.read(buf);
+                    }
                     if (r == -1) {
                         return;
                     }
                     buf.flip();
-                    while (buf.hasRemaining()) {
-                        sink.write(buf);
+                    if (out != null) {
+                        out.write(array, 0, buf.limit());
+                        out.flush();
+                    } else {
+                        while (buf.hasRemaining()) {
+                            sink.write(buf);
+                        }
                     }
                 }
             } catch (IOException e) {
                 // TODO report the error to the other end of the pipe
                 // (for now just close both channels)
             } finally {
-                try {
-                    sink.close();
-                } catch (IOException ignored) {
+                if (closeSink) {
+                    try {
+                        if (out != null) {
+                            out.close();
+                        } else {
+                            sink.close();
+                        }
+                    } catch (IOException ignored) {
+                    }
                 }
                 try {
-                    source.close();
+                    if (in != null) {
+                        in.close();
+                    } else {
+                        source.close();
+                    }
                 } catch (IOException ignored) {
                 }
             }
@@ -89,7 +89,6 @@ import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -156,6 +155,7 @@ import com.oracle.graal.python.runtime.exception.PException;
 import com.oracle.graal.python.runtime.exception.PythonThreadKillException;
 import com.oracle.graal.python.runtime.object.IDUtils;
 import com.oracle.graal.python.runtime.object.PythonObjectFactory;
+import com.oracle.graal.python.runtime.sequence.storage.ByteSequenceStorage;
 import com.oracle.graal.python.util.Consumer;
 import com.oracle.graal.python.util.PythonUtils;
 import com.oracle.graal.python.util.ShutdownHook;
@@ -641,6 +641,9 @@ public final class PythonContext extends Python3Core {
     @CompilationFinal private NFIBz2Support nativeBz2lib;
     @CompilationFinal private NFILZMASupport nativeLZMA;
 
+    /* the on-disk cache of compiled code, null if disabled */
+    @CompilationFinal private CompiledCodeCache compiledCodeCache;
+
     // if set to 0 the VM will set it to whatever it likes
     private final AtomicLong pythonThreadStackSize = new AtomicLong(0);
 
@@ -663,20 +666,7 @@ public final class PythonContext extends Python3Core {
 
     private static final Assumption singleNativeContext = Truffle.getRuntime().createAssumption("single native context assumption");
 
-    private static final class GlobalInterpreterLock extends ReentrantLock {
-        private static final long serialVersionUID = 1L;
-
-        public GlobalInterpreterLock() {
-            super(true);
-        }
-
-        @Override
-        public Thread getOwner() {
-            return super.getOwner();
-        }
-    }
-
-    private final GlobalInterpreterLock globalInterpreterLock = new GlobalInterpreterLock();
+    private final GlobalInterpreterLock globalInterpreterLock = new GlobalInterpreterLock(() -> (long) (getSysModuleState().getSwitchInterval() * 1000));
 
     /*
      * Used to avoid triggering more async handlers from an async handler. We run those only on the
@@ -884,7 +874,9 @@ public final class PythonContext extends Python3Core {
 
         /**
          * Maps the two fake file descriptors created in {@link #pipe()} to one
-         * {@link LinkedBlockingQueue}
+         * {@link LinkedBlockingQueue}. The queue holds the written chunks as
+         * {@link ByteSequenceStorage}s that share the array of the written {@code bytes} object, so
+         * data is not copied on its way to the other context.
          */
         private final ConcurrentSkipListMap<Integer, LinkedBlockingQueue<Object>> pipeData = new ConcurrentSkipListMap<>();
 
@@ -949,7 +941,7 @@ public final class PythonContext extends Python3Core {
          * one or no queue registered for a given fd.
          */
         @TruffleBoundary
-        public void addPipeData(int fd, byte[] bytes, Runnable noFDHandler, Runnable brokenPipeHandler) {
+        public void addPipeData(int fd, ByteSequenceStorage bytes, Runnable noFDHandler, Runnable brokenPipeHandler) {
             assert isWriteFD(fd);
             LinkedBlockingQueue<Object> q = pipeData.get(fd);
             if (q == null) {
@@ -1039,7 +1031,7 @@ public final class PythonContext extends Python3Core {
             Object v = q.take();
             if (v == SENTINEL) {
                 q.offer(SENTINEL);
-                return PythonUtils.EMPTY_BYTE_ARRAY;
+                return new ByteSequenceStorage(PythonUtils.EMPTY_BYTE_ARRAY);
             } else {
                 return v;
             }
@@ -1302,6 +1294,10 @@ public final class PythonContext extends Python3Core {
         return nativeLZMA;
     }
 
+    public CompiledCodeCache getCompiledCodeCache() {
+        return compiledCodeCache;
+    }
+
     public ConcurrentHashMap<Long, Object> getCtypesAdrMap() {
         return ptrAdrMap;
     }
@@ -1592,6 +1588,7 @@ public final class PythonContext extends Python3Core {
             nativeBz2lib = NFIBz2Support.createNative(this, "");
             nativeLZMA = NFILZMASupport.createNative(this, "");
         }
+        compiledCodeCache = CompiledCodeCache.create(this);
 
         mainModule = factory().createPythonModule(T___MAIN__);
         mainModule.setAttribute(T___BUILTINS__, getBuiltins());
@@ -2242,13 +2239,7 @@ public final class PythonContext extends Python3Core {
      */
     @TruffleBoundary
     boolean tryAcquireGil() {
-        try {
-            // Using tryLock with empty timeout to ensure fairness
-            return globalInterpreterLock.tryLock(0, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return false;
-        }
+        return globalInterpreterLock.tryLock();
     }
 
     /**
@@ -2260,12 +2251,41 @@ public final class PythonContext extends Python3Core {
     void acquireGil() throws InterruptedException {
         assert !ownsGil() : dumpStackOnAssertionHelper("trying to acquire the GIL more than once");
         boolean wasInterrupted = Thread.interrupted();
-        globalInterpreterLock.lockInterruptibly();
+        globalInterpreterLock.lockInterruptibly(false);
         if (wasInterrupted) {
             Thread.currentThread().interrupt();
         }
     }
 
+    private void acquireGilAfterSwitch() throws InterruptedException {
+        boolean wasInterrupted = Thread.interrupted();
+        globalInterpreterLock.lockInterruptibly(true);
+        if (wasInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Should not be used outside of {@link AsyncHandler}
+     */
+    boolean hasGilWaiters() {
+        return globalInterpreterLock.hasWaiters();
+    }
+
+    /**
+     * Hands the GIL over to the next waiting thread and queues the current thread behind the
+     * threads that are already waiting. Does nothing if the current thread does not own the GIL
+     * or if no other thread is waiting for it.
+     *
+     * Should not be used outside of {@link AsyncHandler}
+     */
+    @TruffleBoundary
+    void switchGil(Node location) {
+        if (ownsGil() && globalInterpreterLock.handOff()) {
+            TruffleSafepoint.setBlockedThreadInterruptible(location, PythonContext::acquireGilAfterSwitch, this);
+        }
+    }
+
     static final String dumpStackOnAssertionHelper(String msg) {
         Thread.dumpStack();
         return msg;
@@ -2278,7 +2298,7 @@ public final class PythonContext extends Python3Core {
      */
     @TruffleBoundary
     void releaseGil() {
-        assert globalInterpreterLock.getHoldCount() == 1 : dumpStackOnAssertionHelper("trying to release the GIL with invalid hold count " + globalInterpreterLock.getHoldCount());
+        assert ownsGil() : dumpStackOnAssertionHelper("trying to release the GIL without owning it");
         globalInterpreterLock.unlock();
     }
 
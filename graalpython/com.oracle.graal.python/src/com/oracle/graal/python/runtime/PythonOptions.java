@@ -129,6 +129,20 @@ public final class PythonOptions {
         LLVM
     }
 
+    public enum CApiProfilingMode {
+        NONE,
+        COUNT,
+        TIME
+    }
+
+    static final OptionType<CApiProfilingMode> CAPI_PROFILING_TYPE = new OptionType<>("CApiProfiling", s -> {
+        try {
+            return CApiProfilingMode.valueOf(s.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Mode can be one of: " + Arrays.toString(CApiProfilingMode.values()));
+        }
+    });
+
     static final OptionType<HPyBackendMode> HPY_BACKEND_TYPE = new OptionType<>("HPyBackend", s -> {
         try {
             return HPyBackendMode.valueOf(s.toUpperCase());
@@ -220,6 +234,15 @@ public final class PythonOptions {
                     "Equivalent to setting the PYTHONPYCACHEPREFIX environment variable for the standard launcher.", usageSyntax = "<path>", stability = OptionStability.STABLE) //
     public static final OptionKey<TruffleString> PyCachePrefix = new OptionKey<>(T_EMPTY_STRING, TS_OPTION_TYPE);
 
+    @Option(category = OptionCategory.EXPERT, help = "Cache the bytecode compiled for Python source files on disk and reuse it in later contexts instead of parsing and compiling the " +
+                    "sources again. Entries are keyed by a hash of the source and the GraalPy version.", usageSyntax = "true|false") //
+    public static final OptionKey<Boolean> CompiledCodeCache = new OptionKey<>(false);
+
+    @Option(category = OptionCategory.EXPERT, help = "The directory used by the compiled code cache. Defaults to a subdirectory of PyCachePrefix if that is set, " +
+                    "otherwise a per-user directory in the temporary directory. The directory and its entries must be owned by the current user " +
+                    "and not writable by others.", usageSyntax = "<path>") //
+    public static final OptionKey<TruffleString> CompiledCodeCacheDir = new OptionKey<>(T_EMPTY_STRING, TS_OPTION_TYPE);
+
     @Option(category = OptionCategory.USER, help = "Equivalent to setting the PYTHONWARNINGS environment variable for the standard launcher.", //
                     usageSyntax = "<action>[:<message>[:<category>[:<module>[:<line>]]]][,<action>[:<message>[:<category>[:<module>[:<line>]]]]]", stability = OptionStability.STABLE) //
     public static final OptionKey<TruffleString> WarnOptions = new OptionKey<>(T_EMPTY_STRING, TS_OPTION_TYPE);
@@ -370,6 +393,15 @@ public final class PythonOptions {
     @Option(category = OptionCategory.EXPERT, usageSyntax = "true|false", help = "Propagate append operations to lists created as literals back to where they were created, to inform overallocation to avoid having to grow them later.") //
     public static final OptionKey<Boolean> OverallocateLiteralLists = new OptionKey<>(true);
 
+    @Option(category = OptionCategory.EXPERT, usageSyntax = "<length>", help = "Lists of ints, floats or strs with at least this many elements are sorted in parallel on the common fork-join pool, " +
+                    "with the GIL released. 0 disables parallel sorting.") //
+    public static final OptionKey<Integer> ParallelSortThreshold = new OptionKey<>(1_000_000);
+
+    @Option(category = OptionCategory.EXPERT, usageSyntax = "none|count|time", help = "Profiles C API upcalls and downcalls. 'count' records the number of calls of each function and " +
+                    "the native wrappers allocated while it runs, 'time' also measures the time spent in it. The results are available from __graalpython__.capi_profile() " +
+                    "and as JFR events.") //
+    public static final OptionKey<CApiProfilingMode> CApiProfiling = new OptionKey<>(CApiProfilingMode.NONE, CAPI_PROFILING_TYPE);
+
     @Option(category = OptionCategory.EXPERT, usageSyntax = "true|false", help = "Forces AST sharing for inner contexts.") //
     public static final OptionKey<Boolean> ForceSharingForInnerContexts = new OptionKey<>(true);
 
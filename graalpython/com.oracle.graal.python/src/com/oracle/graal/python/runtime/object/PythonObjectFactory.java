@@ -37,6 +37,7 @@ import com.oracle.graal.python.PythonLanguage;
 import com.oracle.graal.python.builtins.Python3Core;
 import com.oracle.graal.python.builtins.PythonBuiltinClassType;
 import com.oracle.graal.python.builtins.modules.PosixModuleBuiltins.PosixFileHandle;
+import com.oracle.graal.python.builtins.modules.SREModuleBuiltins.TRegexCache;
 import com.oracle.graal.python.builtins.modules.bz2.BZ2Object;
 import com.oracle.graal.python.builtins.modules.cjkcodecs.MultibyteCodec;
 import com.oracle.graal.python.builtins.modules.cjkcodecs.MultibyteCodecObject;
@@ -73,6 +74,15 @@ import com.oracle.graal.python.builtins.modules.json.PJSONEncoder;
 import com.oracle.graal.python.builtins.modules.json.PJSONEncoder.FastEncode;
 import com.oracle.graal.python.builtins.modules.json.PJSONScanner;
 import com.oracle.graal.python.builtins.modules.lzma.LZMAObject;
+import com.oracle.graal.python.builtins.modules.pickle.PPickleBuffer;
+import com.oracle.graal.python.builtins.modules.pickle.PPickler;
+import com.oracle.graal.python.builtins.modules.pickle.PPicklerMemoProxy;
+import com.oracle.graal.python.builtins.modules.pickle.PUnpickler;
+import com.oracle.graal.python.builtins.modules.pickle.PUnpicklerMemoProxy;
+import com.oracle.graal.python.builtins.modules.re.PMatch;
+import com.oracle.graal.python.builtins.modules.struct.PStruct;
+import com.oracle.graal.python.builtins.modules.struct.PStructUnpackIterator;
+import com.oracle.graal.python.builtins.modules.struct.StructFormat;
 import com.oracle.graal.python.builtins.modules.zlib.ZLibCompObject;
 import com.oracle.graal.python.builtins.objects.PNone;
 import com.oracle.graal.python.builtins.objects.array.PArray;
@@ -81,6 +91,11 @@ import com.oracle.graal.python.builtins.objects.asyncio.PAsyncGenASend;
 import com.oracle.graal.python.builtins.objects.asyncio.PAsyncGenAThrow;
 import com.oracle.graal.python.builtins.objects.asyncio.PAsyncGenWrappedValue;
 import com.oracle.graal.python.builtins.objects.asyncio.PCoroutineWrapper;
+import com.oracle.graal.python.builtins.objects.asyncio.PFuture;
+import com.oracle.graal.python.builtins.objects.asyncio.PFutureIter;
+import com.oracle.graal.python.builtins.objects.asyncio.PTask;
+import com.oracle.graal.python.builtins.objects.asyncio.PTaskStepMethWrapper;
+import com.oracle.graal.python.builtins.objects.asyncio.PTaskWakeupMethWrapper;
 import com.oracle.graal.python.builtins.objects.bytes.PByteArray;
 import com.oracle.graal.python.builtins.objects.bytes.PBytes;
 import com.oracle.graal.python.builtins.objects.capsule.PyCapsule;
@@ -180,6 +195,7 @@ import com.oracle.graal.python.builtins.objects.range.PIntRange;
 import com.oracle.graal.python.builtins.objects.referencetype.PReferenceType;
 import com.oracle.graal.python.builtins.objects.reversed.PSequenceReverseIterator;
 import com.oracle.graal.python.builtins.objects.reversed.PStringReverseIterator;
+import com.oracle.graal.python.builtins.objects.select.PPoll;
 import com.oracle.graal.python.builtins.objects.set.PBaseSet;
 import com.oracle.graal.python.builtins.objects.set.PFrozenSet;
 import com.oracle.graal.python.builtins.objects.set.PSet;
@@ -880,6 +896,10 @@ public abstract class PythonObjectFactory extends Node {
         return trace(new PKeyWrapper(PythonBuiltinClassType.PKeyWrapper, getShape(PythonBuiltinClassType.PKeyWrapper), cmp));
     }
 
+    public final PMatch createMatch(Object pattern, TRegexCache cache, Object string, TruffleString input, Object regexResult, int pos, int endPos) {
+        return trace(new PMatch(PythonBuiltinClassType.SREMatch, getShape(PythonBuiltinClassType.SREMatch), pattern, cache, string, input, regexResult, pos, endPos));
+    }
+
     public final PPartial createPartial(Object cls, Object function, Object[] args, PDict kwDict) {
         return trace(new PPartial(cls, getShape(cls), function, args, kwDict));
     }
@@ -936,6 +956,46 @@ public abstract class PythonObjectFactory extends Node {
         return trace(new PCoroutineWrapper(getLanguage(), generator));
     }
 
+    public final PFuture createFuture(Object cls) {
+        return trace(new PFuture(cls, getShape(cls)));
+    }
+
+    public final PTask createTask(Object cls) {
+        return trace(new PTask(cls, getShape(cls)));
+    }
+
+    public final PFutureIter createFutureIter(PFuture future) {
+        return trace(new PFutureIter(PythonBuiltinClassType.PFutureIter, getShape(PythonBuiltinClassType.PFutureIter), future));
+    }
+
+    public final PTaskStepMethWrapper createTaskStepMethWrapper(PTask task, Object arg) {
+        return trace(new PTaskStepMethWrapper(PythonBuiltinClassType.PTaskStepMethWrapper, getShape(PythonBuiltinClassType.PTaskStepMethWrapper), task, arg));
+    }
+
+    public final PTaskWakeupMethWrapper createTaskWakeupMethWrapper(PTask task) {
+        return trace(new PTaskWakeupMethWrapper(PythonBuiltinClassType.PTaskWakeupMethWrapper, getShape(PythonBuiltinClassType.PTaskWakeupMethWrapper), task));
+    }
+
+    public final PPickler createPickler(Object cls) {
+        return trace(new PPickler(cls, getShape(cls)));
+    }
+
+    public final PUnpickler createUnpickler(Object cls) {
+        return trace(new PUnpickler(cls, getShape(cls)));
+    }
+
+    public final PPicklerMemoProxy createPicklerMemoProxy(PPickler pickler) {
+        return trace(new PPicklerMemoProxy(PythonBuiltinClassType.PicklerMemoProxy, getShape(PythonBuiltinClassType.PicklerMemoProxy), pickler));
+    }
+
+    public final PUnpicklerMemoProxy createUnpicklerMemoProxy(PUnpickler unpickler) {
+        return trace(new PUnpicklerMemoProxy(PythonBuiltinClassType.UnpicklerMemoProxy, getShape(PythonBuiltinClassType.UnpicklerMemoProxy), unpickler));
+    }
+
+    public final PPickleBuffer createPickleBuffer(Object cls, Object owner, Object view) {
+        return trace(new PPickleBuffer(cls, getShape(cls), owner, view));
+    }
+
     public final PAsyncGen createAsyncGenerator(TruffleString name, TruffleString qualname, PBytecodeRootNode rootNode, RootCallTarget[] callTargets, Object[] arguments) {
         return trace(PAsyncGen.create(getLanguage(), name, qualname, rootNode, callTargets, arguments));
     }
@@ -1241,6 +1301,10 @@ public abstract class PythonObjectFactory extends Node {
         return trace(new PMMap(clazz, getShape(clazz), context, mmapHandle, fd, length, access));
     }
 
+    public final PPoll createPoll(PythonContext context, Object pollSet) {
+        return trace(new PPoll(PythonBuiltinClassType.PPoll, getShape(PythonBuiltinClassType.PPoll), context, pollSet));
+    }
+
     public final BZ2Object.BZ2Compressor createBZ2Compressor(Object clazz) {
         return trace(BZ2Object.createCompressor(clazz, getShape(clazz)));
     }
@@ -1269,6 +1333,14 @@ public abstract class PythonObjectFactory extends Node {
         return trace(LZMAObject.createCompressor(clazz, getShape(clazz), isNative));
     }
 
+    public final PStruct createStruct(Object clazz) {
+        return trace(new PStruct(clazz, getShape(clazz)));
+    }
+
+    public final PStructUnpackIterator createStructUnpackIterator(StructFormat format, Object buffer) {
+        return trace(new PStructUnpackIterator(PythonBuiltinClassType.PStructUnpackIterator, getShape(PythonBuiltinClassType.PStructUnpackIterator), format, buffer));
+    }
+
     public final CSVReader createCSVReader(Object clazz, Object inputIter, CSVDialect dialect) {
         return trace(new CSVReader(clazz, getShape(clazz), inputIter, dialect));
     }
@@ -40,6 +40,8 @@
  */
 package com.oracle.graal.python.util;
 
+import java.util.Arrays;
+
 import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAccessLibrary;
 import com.oracle.graal.python.builtins.objects.buffer.PythonBufferAcquireLibrary;
 import com.oracle.graal.python.nodes.PNodeWithRaiseAndIndirectCall;
@@ -70,9 +72,26 @@ public final class ByteArrayBuilder {
     }
 
     public void add(byte[] bytes, int len) {
+        add(bytes, 0, len);
+    }
+
+    public void add(byte[] bytes, int offset, int len) {
+        ensureCanAppend(len);
+        PythonUtils.arraycopy(bytes, offset, data, size, len);
+        size += len;
+    }
+
+    /**
+     * Appends {@code len} zero bytes and returns the index of the first one, so that the caller
+     * can fill them in later using {@link #set(int, byte)}.
+     */
+    public int reserve(int len) {
         ensureCanAppend(len);
-        PythonUtils.arraycopy(bytes, 0, data, size, len);
+        int start = size;
         size += len;
+        // the array may still contain bytes that were cleared or removed
+        Arrays.fill(data, start, size, (byte) 0);
+        return start;
     }
 
     public int get(int index) {
@@ -80,6 +99,25 @@ public final class ByteArrayBuilder {
         return data[index];
     }
 
+    public void set(int index, byte item) {
+        assert index >= 0 && index < size;
+        data[index] = item;
+    }
+
+    /**
+     * Removes {@code len} bytes starting at {@code index}, shifting the remaining bytes to the
+     * left.
+     */
+    public void remove(int index, int len) {
+        assert index >= 0 && len >= 0 && index + len <= size;
+        PythonUtils.arraycopy(data, index + len, data, index, size - index - len);
+        size -= len;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
     public byte[] toArray() {
         return arrayCopyOf(data, size);
     }
@@ -98,12 +136,12 @@ public final class ByteArrayBuilder {
         try {
             int newSize = PythonUtils.addExact(size, bytesToAdd);
             if (newSize > data.length) {
-                int sizeTimes2 = PythonUtils.multiplyExact(size, 2);
-                if (newSize < sizeTimes2) {
-                    newSize = sizeTimes2;
+                // grow geometrically; appending must not copy the whole array every time
+                if (data.length < Integer.MAX_VALUE / 2 && newSize < data.length * 2) {
+                    newSize = data.length * 2;
                 }
+                data = arrayCopyOf(data, newSize);
             }
-            data = arrayCopyOf(data, newSize);
         } catch (OverflowException e) {
             CompilerDirectives.transferToInterpreter();
             throw new OutOfMemoryError();
@@ -422,6 +422,4 @@ try:
 except ImportError:
     pass
 else:
-    # graalpy change: C Futures are not implemented yet, so we keep the python Future
-    pass
-    # Future = _CFuture = _asyncio.Future
+    Future = _CFuture = _asyncio.Future
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.graalvm.python.embedding.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests of package-private parts of {@link VirtualFileSystem}. The resources are in the
+ * {@code test/vfs} directory next to this file.
+ */
+public class VirtualFileSystemResourceTest {
+    private static final String VFS_PREFIX = "/org/graalvm/python/embedding/utils/test/vfs";
+    private static final String A = VFS_PREFIX + "/dir/a.txt";
+    private static final String B = VFS_PREFIX + "/dir/b.txt";
+    private static final String C = VFS_PREFIX + "/dir2/c.txt";
+
+    private static VirtualFileSystem createVfs(long resourceCacheSize) {
+        return VirtualFileSystem.newBuilder().vfsPrefix(VFS_PREFIX).filesListPath(VFS_PREFIX + "/fileslist.txt").resourceCacheSize(resourceCacheSize).build();
+    }
+
+    private static void assertContents(String expected, byte[] actual) {
+        assertEquals(expected, new String(actual, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void resourceCacheBudget() throws IOException {
+        // each resource is 10 bytes, so two fit into the cache
+        try (VirtualFileSystem vfs = createVfs(25)) {
+            assertContents("aaaaaaaaaa", vfs.readCachedResource(A));
+            assertEquals(10, vfs.getResourceCacheBytes());
+            assertContents("bbbbbbbbbb", vfs.readCachedResource(B));
+            assertEquals(20, vfs.getResourceCacheBytes());
+            assertContents("cccccccccc", vfs.readCachedResource(C));
+            assertEquals(20, vfs.getResourceCacheBytes());
+            assertEquals(List.of(B, C), vfs.getCachedResources());
+        }
+    }
+
+    @Test
+    public void resourceCacheLruEviction() throws IOException {
+        try (VirtualFileSystem vfs = createVfs(25)) {
+            byte[] a = vfs.readCachedResource(A);
+            vfs.readCachedResource(B);
+            // a hit returns the cached contents and makes them the most recently used
+            assertSame(a, vfs.readCachedResource(A));
+            assertEquals(List.of(B, A), vfs.getCachedResources());
+            vfs.readCachedResource(C);
+            assertEquals(List.of(A, C), vfs.getCachedResources());
+            assertSame(a, vfs.readCachedResource(A));
+            // an evicted resource is read again
+            assertContents("bbbbbbbbbb", vfs.readCachedResource(B));
+            assertEquals(List.of(A, B), vfs.getCachedResources());
+            assertEquals(20, vfs.getResourceCacheBytes());
+        }
+    }
+
+    @Test
+    public void resourceLargerThanCache() throws IOException {
+        try (VirtualFileSystem vfs = createVfs(5)) {
+            assertContents("aaaaaaaaaa", vfs.readCachedResource(A));
+            assertEquals(0, vfs.getResourceCacheBytes());
+            assertEquals(List.of(), vfs.getCachedResources());
+        }
+        try (VirtualFileSystem vfs = createVfs(0)) {
+            assertContents("aaaaaaaaaa", vfs.readCachedResource(A));
+            assertContents("aaaaaaaaaa", vfs.readCachedResource(A));
+            assertEquals(0, vfs.getResourceCacheBytes());
+            assertEquals(List.of(), vfs.getCachedResources());
+        }
+    }
+
+    @Test
+    public void fileBuffers() throws IOException {
+        int[] sizes = {0, 100, (int) VirtualFileSystem.MMAP_THRESHOLD - 1, (int) VirtualFileSystem.MMAP_THRESHOLD, (int) VirtualFileSystem.MMAP_THRESHOLD * 2 + 1};
+        for (int size : sizes) {
+            byte[] data = new byte[size];
+            for (int i = 0; i < size; i++) {
+                data[i] = (byte) i;
+            }
+            Path file = Files.createTempFile("vfs", ".bin");
+            try {
+                Files.write(file, data);
+                ByteBuffer buffer = VirtualFileSystem.getFileBuffer(file);
+                assertTrue(buffer.isReadOnly());
+                assertEquals(0, buffer.position());
+                assertEquals(size, buffer.limit());
+                if (size < VirtualFileSystem.MMAP_THRESHOLD) {
+                    assertFalse(buffer.isDirect());
+                } else {
+                    assertTrue(buffer instanceof MappedByteBuffer);
+                }
+                byte[] contents = new byte[size];
+                buffer.get(contents);
+                assertArrayEquals(data, contents);
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -43,6 +43,13 @@ package org.graalvm.python.embedding.utils.test;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.graalvm.python.embedding.utils.VirtualFileSystem;
 import org.junit.Test;
 
@@ -56,4 +63,29 @@ public class VirtualFileSystemTest {
         assertEquals(vfs.getPrefix(), vfs2.getPrefix());
         assertEquals(vfs.getFileListPath(), vfs2.getFileListPath());
     }
+
+    /**
+     * The resources are in the {@code vfs} directory next to this file. It contains the sibling
+     * directories {@code dir} and {@code dir2}, whose names share a prefix.
+     */
+    @Test
+    public void siblingDirectoriesWithCommonPrefix() throws Exception {
+        String prefix = "/org/graalvm/python/embedding/utils/test/vfs";
+        try (VirtualFileSystem vfs = VirtualFileSystem.newBuilder().vfsPrefix(prefix).filesListPath(prefix + "/fileslist.txt").build()) {
+            Path dir = Path.of(vfs.resourcePathToPlatformPath(prefix + "/dir"));
+            Path dir2 = Path.of(vfs.resourcePathToPlatformPath(prefix + "/dir2"));
+            assertEquals(List.of(dir.resolve("a.txt"), dir.resolve("b.txt")), list(vfs, dir));
+            assertEquals(List.of(dir2.resolve("c.txt")), list(vfs, dir2));
+            assertEquals(List.of(dir, dir2, dir.resolveSibling("fileslist.txt")), list(vfs, dir.getParent()));
+        }
+    }
+
+    private static List<Path> list(VirtualFileSystem vfs, Path dir) throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> ds = vfs.newDirectoryStream(dir, (p) -> true)) {
+            ds.forEach(result::add);
+        }
+        Collections.sort(result);
+        return result;
+    }
 }
@@ -47,8 +47,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.AccessMode;
 import java.nio.file.DirectoryStream;
@@ -71,6 +73,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -99,6 +102,7 @@ public final class VirtualFileSystem implements FileSystem, AutoCloseable {
         private String unixMountPoint = "/graalpy_vfs";
         private Predicate<Path> extractFilter = DEFAULT_EXTRACT_FILTER;
         private HostIO allowHostIO = HostIO.READ_WRITE;
+        private long resourceCacheSize = DEFAULT_RESOURCE_CACHE_SIZE;
 
         private Builder() {
         }
@@ -164,8 +168,23 @@ public final class VirtualFileSystem implements FileSystem, AutoCloseable {
             return this;
         }
 
+        /**
+         * The maximum number of bytes of resource contents that are kept in memory after being
+         * read from a jar. Least recently used contents are dropped once this size is exceeded and
+         * read again on the next access. Resources that are available as plain files (e.g. when
+         * running from an exploded classpath directory) are read from the file, or memory-mapped
+         * if they are large, and never count against this limit. Setting this to <code>0</code> disables the cache.
+         */
+        public Builder resourceCacheSize(long bytes) {
+            if (bytes < 0) {
+                throw new IllegalArgumentException("resource cache size must not be negative");
+            }
+            resourceCacheSize = bytes;
+            return this;
+        }
+
         public VirtualFileSystem build() {
-            return new VirtualFileSystem(extractFilter, vfsPrefix, filesListPath, windowsMountPoint, unixMountPoint, allowHostIO);
+            return new VirtualFileSystem(extractFilter, vfsPrefix, filesListPath, windowsMountPoint, unixMountPoint, allowHostIO, resourceCacheSize);
         }
     }
 
@@ -194,11 +213,33 @@ public final class VirtualFileSystem implements FileSystem, AutoCloseable {
      */
     private final TreeMap<String, Entry> vfsEntries = new TreeMap<>();
 
+    private static final long DEFAULT_RESOURCE_CACHE_SIZE = 64 * 1024 * 1024;
+
+    /*
+     * Resources that exist as files and are at least this large are memory-mapped, smaller ones
+     * are read into the heap, see getFileBuffer.
+     */
+    static final long MMAP_THRESHOLD = 64 * 1024;
+
+    /*
+     * Contents of resources read from a jar, keyed by resource path, in access order. Bounded by
+     * resourceCacheSize bytes, see Builder#resourceCacheSize.
+     */
+    private final LinkedHashMap<String, byte[]> resourceCache = new LinkedHashMap<>(16, 0.75f, true);
+    private final long resourceCacheSize;
+    private long resourceCacheBytes;
+
     /*
      * These use '/' as the separator and start with VFS_PREFIX, no trailing slashes.
      */
-    private static Set<String> filesList;
     private static Set<String> dirsList;
+
+    /*
+     * Maps each directory to its immediate children (files and directories), built once from the
+     * files list so that listing a directory does not have to scan all resources. Uses the same
+     * path format as dirsList.
+     */
+    private static Map<String, List<String>> dirChildren;
     private static Map<String, String> lowercaseToResourceMap;
 
     private final FileSystem delegate;
@@ -208,12 +249,19 @@ public final class VirtualFileSystem implements FileSystem, AutoCloseable {
     private static final String RESOURCE_SEPARATOR = String.valueOf(RESOURCE_SEPARATOR_CHAR);
 
     /*
-     * For files, `data` is a byte[], for directories it is a Path[] which contains
+     * For files, `data` is a Resource, for directories it is a Path[] which contains
      * platform-specific paths.
      */
     private static final record Entry(boolean isFile, Object data) {
     }
 
+    /*
+     * A file in the resources. `file` is the path in the real filesystem if the resource is not
+     * packed in a jar, otherwise it is null. The contents are not kept here, see getResourceBuffer.
+     */
+    private static final record Resource(String path, Path file, long size) {
+    }
+
     /*
      * Determines where the virtual filesystem lives in the real filesystem, e.g. if set to
      * "X:\graalpy_vfs", then a resource with path /vfs/xyz/abc is visible as
@@ -269,6 +317,73 @@ public final class VirtualFileSystem implements FileSystem, AutoCloseable {
         }
     }
 
+    /**
+     * A read-only channel over the contents of a resource. The buffer is either a heap buffer, which
+     * is shared with the resource cache for jar entries, or a memory-mapped file region. In both
+     * cases reads copy directly from it into the destination without intermediate buffers.
+     */
+    private static final class ResourceChannel implements SeekableByteChannel {
+        private final ByteBuffer buffer;
+        private long position = 0;
+
+        ResourceChannel(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int size = buffer.limit();
+            if (position > size) {
+                return -1;
+            } else if (position == size) {
+                return 0;
+            } else {
+                int length = Math.min(size - (int) position, dst.remaining());
+                dst.put(buffer.slice((int) position, length));
+                position += length;
+                if (dst.hasRemaining()) {
+                    position++;
+                }
+                return length;
+            }
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            throw new IOException("read-only");
+        }
+
+        @Override
+        public long position() throws IOException {
+            return position;
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) throws IOException {
+            position = Math.max(0, newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return buffer.limit();
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) throws IOException {
+            throw new IOException("read-only");
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
     /**
      * If an extract filter is given, the virtual file system will lazily extract files and
      * directories matching the filter to a temporary directory. This happens if the
@@ -280,8 +395,10 @@ public final class VirtualFileSystem implements FileSystem, AutoCloseable {
                     String fileListResource,
                     String windowsMountPoint,
                     String unixMountPoint,
-                    HostIO allowHostIO) {
+                    HostIO allowHostIO,
+                    long resourceCacheSize) {
         this.vfsPrefix = resourcesPrefix;
+        this.resourceCacheSize = resourceCacheSize;
         this.filesListPath = fileListResource;
         String mp = System.getenv("GRAALPY_VFS_MOUNT_POINT");
         if (mp == null) {
@@ -346,18 +463,18 @@ public final class VirtualFileSystem implements FileSystem, AutoCloseable {
         return path;
     }
 
-    private Set<String> getFilesList() throws IOException {
-        if (filesList == null) {
+    private Set<String> getDirsList() throws IOException {
+        if (dirsList == null) {
             initFilesAndDirsList();
         }
-        return filesList;
+        return dirsList;
     }
 
-    private Set<String> getDirsList() throws IOException {
-        if (dirsList == null) {
+    private Map<String, List<String>> getDirChildren() throws IOException {
+        if (dirChildren == null) {
             initFilesAndDirsList();
         }
-        return dirsList;
+        return dirChildren;
     }
 
     private Map<String, String> getLowercaseToResourceMap() throws IOException {
@@ -369,8 +486,8 @@ public final class VirtualFileSystem implements FileSystem, AutoCloseable {
     }
 
     private void initFilesAndDirsList() throws IOException {
-        filesList = new HashSet<>();
         dirsList = new HashSet<>();
+        dirChildren = new HashMap<>();
         if (caseInsensitive) {
             lowercaseToResourceMap = new HashMap<>();
         }
@@ -384,8 +501,10 @@ public final class VirtualFileSystem implements FileSystem, AutoCloseable {
                 if (line.endsWith(RESOURCE_SEPARATOR)) {
                     line = line.substring(0, line.length() - 1);
                     dirsList.add(line);
-                } else {
-                    filesList.add(line);
+                }
+                int lastSeparator = line.lastIndexOf(RESOURCE_SEPARATOR_CHAR);
+                if (lastSeparator > 0) {
+                    dirChildren.computeIfAbsent(line.substring(0, lastSeparator), k -> new ArrayList<>()).add(line);
                 }
                 if (caseInsensitive) {
                     lowercaseToResourceMap.put(line.toLowerCase(Locale.ROOT), line);
@@ -395,36 +514,107 @@ public final class VirtualFileSystem implements FileSystem, AutoCloseable {
     }
 
     private Entry readDirEntry(String parentDir) throws IOException {
-        List<String> l = new ArrayList<>();
+        List<String> l = getDirChildren().getOrDefault(parentDir, List.of());
+        Path[] paths = new Path[l.size()];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = Paths.get(resourcePathToPlatformPath(l.get(i)));
+        }
+        return new Entry(false, paths);
+    }
 
-        // find all files in parent dir
-        for (String file : getFilesList()) {
-            if (isParent(parentDir, file)) {
-                l.add(file);
+    private static Entry readFileEntry(String file, URL url) throws IOException {
+        Path realFile = null;
+        long size;
+        if ("file".equals(url.getProtocol())) {
+            try {
+                realFile = Path.of(url.toURI());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                // fall back to reading it as a resource
             }
         }
+        if (realFile != null) {
+            size = Files.size(realFile);
+        } else {
+            size = url.openConnection().getContentLengthLong();
+            if (size < 0) {
+                byte[] bytes = readResource(file);
+                size = bytes == null ? 0 : bytes.length;
+            }
+        }
+        return new Entry(true, new Resource(file, realFile, size));
+    }
 
-        // find all dirs in parent dir
-        for (String file : getDirsList()) {
-            if (isParent(parentDir, file)) {
-                l.add(file);
+    /**
+     * Returns the contents of a resource that is packed in a jar, using the bounded cache.
+     */
+    byte[] readCachedResource(String path) throws IOException {
+        synchronized (resourceCache) {
+            byte[] bytes = resourceCache.get(path);
+            if (bytes != null) {
+                return bytes;
+            }
+        }
+        byte[] bytes = readResource(path);
+        if (bytes == null) {
+            throw new FileNotFoundException(path);
+        }
+        if (bytes.length <= resourceCacheSize) {
+            synchronized (resourceCache) {
+                if (resourceCache.put(path, bytes) == null) {
+                    resourceCacheBytes += bytes.length;
+                }
+                Iterator<byte[]> it = resourceCache.values().iterator();
+                while (resourceCacheBytes > resourceCacheSize && it.hasNext()) {
+                    resourceCacheBytes -= it.next().length;
+                    it.remove();
+                }
             }
         }
+        return bytes;
+    }
 
-        Path[] paths = new Path[l.size()];
-        for (int i = 0; i < paths.length; i++) {
-            paths[i] = Paths.get(resourcePathToPlatformPath(l.get(i)));
+    // for testing
+    long getResourceCacheBytes() {
+        synchronized (resourceCache) {
+            return resourceCacheBytes;
         }
-        return new Entry(false, paths);
     }
 
-    private static boolean isParent(String parentDir, String file) {
-        return file.length() > parentDir.length() && file.startsWith(parentDir) &&
-                        file.indexOf(RESOURCE_SEPARATOR_CHAR, parentDir.length() + 1) < 0;
+    // for testing, in order from least to most recently used
+    List<String> getCachedResources() {
+        synchronized (resourceCache) {
+            return new ArrayList<>(resourceCache.keySet());
+        }
     }
 
-    private static Entry readFileEntry(String file) throws IOException {
-        return new Entry(true, readResource(file));
+    /**
+     * Returns a read-only buffer with the contents of the given resource.
+     */
+    private ByteBuffer getResourceBuffer(Resource resource) throws IOException {
+        if (resource.file() != null) {
+            return getFileBuffer(resource.file());
+        }
+        return ByteBuffer.wrap(readCachedResource(resource.path())).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a read-only buffer with the contents of a resource that exists as a file. Small files
+     * are read into the heap, a mapping would cost more than the read itself and holds on to at
+     * least a page of address space until it is garbage collected. Larger files are memory-mapped,
+     * so their contents do not occupy the Java heap.
+     */
+    static ByteBuffer getFileBuffer(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MMAP_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read until the buffer is full or the file ends
+            }
+            return buffer.flip().asReadOnlyBuffer();
+        }
     }
 
     static byte[] readResource(String path) throws IOException {
@@ -463,7 +653,7 @@ public final class VirtualFileSystem implements FileSystem, AutoCloseable {
                 if (getDirsList().contains(pathString)) {
                     e = readDirEntry(pathString);
                 } else {
-                    e = readFileEntry(pathString);
+                    e = readFileEntry(pathString, uri);
                 }
                 vfsEntries.put(entryKey, e);
             } else {
@@ -527,7 +717,12 @@ public final class VirtualFileSystem implements FileSystem, AutoCloseable {
                     Files.createDirectories(parent);
 
                     // write data extracted file
-                    Files.write(xPath, (byte[]) e.data());
+                    Resource resource = (Resource) e.data();
+                    if (resource.file() != null) {
+                        Files.copy(resource.file(), xPath);
+                    } else {
+                        Files.write(xPath, readCachedResource(resource.path()));
+                    }
                 } else {
                     Files.createDirectories(xPath);
                 }
@@ -603,63 +798,7 @@ public final class VirtualFileSystem implements FileSystem, AutoCloseable {
                 // appropriate python error
                 throw new FileSystemException(path.toString(), null, "Is a directory");
             }
-            return new SeekableByteChannel() {
-                long position = 0;
-
-                byte[] bytes = (byte[]) e.data;
-
-                @Override
-                public int read(ByteBuffer dst) throws IOException {
-                    if (position > bytes.length) {
-                        return -1;
-                    } else if (position == bytes.length) {
-                        return 0;
-                    } else {
-                        int length = Math.min(bytes.length - (int) position, dst.remaining());
-                        dst.put(bytes, (int) position, length);
-                        position += length;
-                        if (dst.hasRemaining()) {
-                            position++;
-                        }
-                        return length;
-                    }
-                }
-
-                @Override
-                public int write(ByteBuffer src) throws IOException {
-                    throw new IOException("read-only");
-                }
-
-                @Override
-                public long position() throws IOException {
-                    return position;
-                }
-
-                @Override
-                public SeekableByteChannel position(long newPosition) throws IOException {
-                    position = Math.max(0, newPosition);
-                    return this;
-                }
-
-                @Override
-                public long size() throws IOException {
-                    return bytes.length;
-                }
-
-                @Override
-                public SeekableByteChannel truncate(long size) throws IOException {
-                    throw new IOException("read-only");
-                }
-
-                @Override
-                public boolean isOpen() {
-                    return true;
-                }
-
-                @Override
-                public void close() throws IOException {
-                }
-            };
+            return new ResourceChannel(getResourceBuffer((Resource) e.data));
         } else {
             throw new SecurityException("read-only filesystem");
         }
@@ -730,7 +869,7 @@ public final class VirtualFileSystem implements FileSystem, AutoCloseable {
         attrs.put("isDirectory", !e.isFile);
         attrs.put("isSymbolicLink", false);
         attrs.put("isOther", false);
-        attrs.put("size", (long) (e.isFile ? ((byte[]) e.data).length : 0));
+        attrs.put("size", e.isFile ? ((Resource) e.data).size() : 0L);
         attrs.put("mode", 0555);
         attrs.put("dev", 0L);
         attrs.put("nlink", 1);
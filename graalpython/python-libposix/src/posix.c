@@ -55,6 +55,7 @@
 #include <fcntl.h>
 #include <netdb.h>
 #include <netinet/in.h>
+#include <poll.h>
 #include <signal.h>
 #include <stddef.h>
 #include <stdio.h>
@@ -128,6 +129,10 @@ int64_t call_read(int32_t fd, void *buf, uint64_t count) {
     return read(fd, buf, count);
 }
 
+int32_t call_readinto(int32_t fd, int8_t *buf, int32_t offset, int32_t len) {
+    return read(fd, buf + offset, len);
+}
+
 int64_t call_write(int32_t fd, void *buf, uint64_t count) {
     return write(fd, buf, count);
 }
@@ -211,6 +216,43 @@ int32_t call_select(int32_t nfds, int32_t* readfds, int32_t readfdsLen,
     return (int32_t) result;
 }
 
+// Resizes the pollfd array of a poll set to 'nfds' elements, 'pfds' may be
+// 0 for a new poll set. Returns 0 and sets errno on failure, in which case
+// the old array is left intact.
+intptr_t call_poll_realloc(intptr_t pfds, int32_t nfds) {
+    struct pollfd *result = (struct pollfd *) realloc((void *) pfds, nfds * sizeof(struct pollfd));
+    if (result == NULL) {
+        errno = ENOMEM;
+    }
+    return (intptr_t) result;
+}
+
+void call_poll_free(intptr_t pfds) {
+    free((void *) pfds);
+}
+
+// Stores the file descriptors in 'fds' and the events in 'events' into the
+// pollfd array of a poll set. Only needed after the poll set has changed.
+void call_poll_fill(intptr_t pfds, int32_t* fds, int32_t* events, int32_t nfds) {
+    struct pollfd *p = (struct pollfd *) pfds;
+    for (int32_t i = 0; i < nfds; i++) {
+        p[i].fd = fds[i];
+        p[i].events = (short) events[i];
+    }
+}
+
+// Waits for the events in the first 'nfds' elements of the pollfd array of a
+// poll set and stores the returned events into 'revents'. Negative timeout
+// means infinite.
+int32_t call_poll(intptr_t pfds, int32_t nfds, int32_t* revents, int32_t timeout) {
+    struct pollfd *p = (struct pollfd *) pfds;
+    int result = poll(p, (nfds_t) nfds, timeout);
+    for (int32_t i = 0; i < nfds; i++) {
+        revents[i] = (int32_t) (unsigned short) p[i].revents;
+    }
+    return (int32_t) result;
+}
+
 int64_t call_lseek(int32_t fd, int64_t offset, int32_t whence) {
     return lseek(fd, offset, whence);
 }
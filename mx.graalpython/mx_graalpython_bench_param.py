@@ -85,6 +85,10 @@ MICRO_BENCHMARKS = {
     'list-sort-objects': ITER_10 + ['10_000'],
     'list-sort-strings': ITER_10 + ['500_000'],
     'list-sort-keyed': ITER_10 + ['50_000'],
+    'list-sort-keyed-primitive': ITER_10 + ['5', '1_000_000'],
+    'list-sort-tuples': ITER_10 + ['5', '1_000_000'],
+    'hashlib-zlib-threads': ITER_10 + ['20', '1_000_000', '4'],
+    'gil-switch-latency': ITER_10 + ['200', '2', '2'],
     'dict-getitem-sized': ITER_10 + ['50_000_000'],
     'math-sqrt': ITER_10 + ['500000000'],
     'object-allocate': ITER_10 + ['5000'],
@@ -110,11 +114,25 @@ MICRO_BENCHMARKS = {
     'codeobject-interpretation': ITER_10 + ['2000'],
     'regexp': ITER_10,
     'regexp-split': ITER_10,
+    'regexp-log-parsing': ITER_10 + ['200', '2000'],
     'regexp-literal-no-match': ITER_10,
     'regexp-literal-match': ITER_10,
     'regexp-universal-match': ITER_10,
     'regexp-char-class-match': ITER_10,
     'regexp-char-class-no-match': ITER_10,
+    'json-loads-objects': ITER_10 + ['200'],
+    'json-loads-numbers': ITER_10 + ['200'],
+    'json-loads-strings': ITER_10 + ['200'],
+    'json-dumps': ITER_10 + ['200'],
+    'dict-set-lookup-sized': ITER_10 + ['5_000_000'],
+    'dict-set-allocate-sized': ITER_10 + ['2_000_000'],
+    'dict-churn': ITER_10 + ['2_000_000'],
+    'dict-int-keys': ITER_10 + ['5_000_000'],
+    'set-algebra': ITER_10 + ['10'],
+    'deque-window': ITER_10 + ['5_000_000'],
+    'mmap-scan': ITER_10 + ['256'],
+    'subprocess-cat': ITER_10 + ['256'],
+    'asyncio-gather': ITER_10 + ['100_000'],
 }
 
 MICRO_BENCHMARKS_SMALL = {
@@ -164,6 +182,19 @@ MICRO_BENCHMARKS_SMALL = {
     'with-exception': ITER_6 + WARMUP_2 + ['5_000_000'],
     'tuple-indexing-from-constructor': ITER_6 + WARMUP_2 + ['250_000'],
     'tuple-indexing-from-literal': ITER_6 + WARMUP_2 + ['400_000'],
+    'json-loads-objects': ITER_6 + WARMUP_2 + ['10'],
+    'json-loads-numbers': ITER_6 + WARMUP_2 + ['10'],
+    'json-loads-strings': ITER_6 + WARMUP_2 + ['10'],
+    'json-dumps': ITER_6 + WARMUP_2 + ['10'],
+    'dict-set-lookup-sized': ITER_6 + WARMUP_2 + ['200_000'],
+    'dict-set-allocate-sized': ITER_6 + WARMUP_2 + ['200_000'],
+    'dict-churn': ITER_6 + WARMUP_2 + ['200_000'],
+    'dict-int-keys': ITER_6 + WARMUP_2 + ['500_000'],
+    'set-algebra': ITER_6 + WARMUP_2 + ['2'],
+    'deque-window': ITER_6 + WARMUP_2 + ['1_000_000'],
+    'mmap-scan': ITER_6 + WARMUP_2 + ['64'],
+    'subprocess-cat': ITER_6 + WARMUP_2 + ['64'],
+    'asyncio-gather': ITER_6 + WARMUP_2 + ['10_000'],
 }
 
 def _pickling_benchmarks(module='pickle'):
@@ -177,7 +208,7 @@ def _pickling_benchmarks(module='pickle'):
 
 
 # MICRO_BENCHMARKS.update(_pickling_benchmarks('pickle'))
-# MICRO_BENCHMARKS.update(_pickling_benchmarks('cPickle'))
+MICRO_BENCHMARKS.update(_pickling_benchmarks('cPickle'))
 
 
 MICRO_NATIVE_BENCHMARKS = {
@@ -193,6 +224,8 @@ MICRO_NATIVE_BENCHMARKS = {
     'c-issubtype-monorphic': ITER_10 + ['50000000'],
     'c-call-method': ITER_15 + ['5000000'],
     'c-instantiate-large': ITER_15 + ['1000'],
+    'c-native-lookup': ITER_10 + ['10_000_000', '100_000'],
+    'c-managed-roundtrip': ITER_10 + ['5_000_000', '100_000'],
 }
 
 
@@ -227,6 +260,7 @@ MESO_BENCHMARKS = {
     'image-magix-sized2': ITER_10 + ['30000'],
     'parrot-b2': ITER_10 + ['200'],
     'threadring': ITER_25 + ['100_000_000'],
+    'asyncio-echo': ITER_15 + ['100'],
     'regexdna-sized2': ITER_25 + ['4'],
     'knucleotide': ITER_25 + [],
     'chaos-sized2': ITER_10 + ['500'],
@@ -249,6 +283,7 @@ MESO_BENCHMARKS_SMALL = {
     'chaos': ITER_10 + WARMUP_2 + ['2'],
     'image-magix': ITER_10 + WARMUP_2 + ['100'],
     'raytrace-simple': ITER_10 + WARMUP_2 + ['110', '110'],
+    'asyncio-echo': ITER_10 + WARMUP_2 + ['10'],
 }
 
 
@@ -278,6 +313,8 @@ INTEROP_JAVA_BENCHMARKS = {
     'euler11': [_INTEROP_JAVA_PACKAGE + 'PyEuler11'] + MESO_BENCHMARKS['euler11'],
     'nbody3': [_INTEROP_JAVA_PACKAGE + 'PyNbody'] + MESO_BENCHMARKS['nbody3'],
     'fannkuchredux3': [_INTEROP_JAVA_PACKAGE + 'PyFannkuchredux'] + MESO_BENCHMARKS['fannkuchredux3'],
+    'vfs-walk': ['com.oracle.graal.python.benchmarks.embedding.VirtualFileSystemImport.walkTree'] + ITER_10 + ['200', '20'],
+    'vfs-import': ['com.oracle.graal.python.benchmarks.embedding.VirtualFileSystemImport.importPackages'] + ITER_6 + ['50', '20'],
 }
 
 JAVA_EMBEDDING_MESO_BENCHMARKS = {
@@ -294,6 +331,14 @@ JAVA_EMBEDDING_MESO_BENCHMARKS_SMALL = {
     'raytrace-simple': ITER_6 + WARMUP_2 + ['--', '110', '110'],
 }
 
+JAVA_EMBEDDING_STARTUP_BENCHMARKS = {
+    'startup-webapp': ITER_10 + WARMUP_2 + [],
+}
+
+JAVA_EMBEDDING_STARTUP_CODE_CACHE_BENCHMARKS = {
+    'startup-webapp': ITER_10 + WARMUP_2 + ['--experimental-options', '--python.CompiledCodeCache=true'],
+}
+
 # -------------------------------------------------------
 # Parameters for parsing bench marks
 # Parameters for parsing bench marks
@@ -328,6 +373,8 @@ BENCHMARKS = {
 JAVA_DRIVER_BENCHMARKS = {
     "java-embedding-meso": [PATH_MESO, JAVA_EMBEDDING_MESO_BENCHMARKS],
     "java-embedding-meso-small": [PATH_MESO, JAVA_EMBEDDING_MESO_BENCHMARKS_SMALL],
+    "java-embedding-startup": [PATH_MESO, JAVA_EMBEDDING_STARTUP_BENCHMARKS],
+    "java-embedding-startup-code-cache": [PATH_MESO, JAVA_EMBEDDING_STARTUP_CODE_CACHE_BENCHMARKS],
 }
 
 WARMUP_BENCHMARKS = {
@@ -423,6 +423,7 @@ suite = {
             "requires": [
                 "java.logging",
                 "java.management",
+                "jdk.jfr",
                 "jdk.management",
                 "jdk.unsupported",
                 "jdk.security.auth",
@@ -514,6 +515,7 @@ suite = {
             "sourceDirs": ["java"],
             "dependencies": [
                 "com.oracle.graal.python",
+                "org.graalvm.python.embedding.utils",
                 "sdk:POLYGLOT",
                 "sdk:LAUNCHER_COMMON",
                 "mx:JMH_1_21"
@@ -1053,6 +1055,7 @@ suite = {
                 "java.base",
                 "java.logging",
                 "java.management",
+                "jdk.jfr",
                 "jdk.management",
                 "jdk.unsupported",
                 "jdk.security.auth",
@@ -1150,6 +1153,7 @@ suite = {
             "distDependencies": [
                 "GRAALPYTHON",
                 "GRAALPYTHON-LAUNCHER",
+                "GRAALPYTHON_EMBEDDING_UTILS",
                 "sdk:POLYGLOT",
             ],
             "testDistribution": True,
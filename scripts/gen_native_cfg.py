@@ -75,6 +75,7 @@ includes = '''
 # include <netdb.h>
 # include <netinet/in.h>
 # include <netinet/tcp.h>
+# include <poll.h>
 # include <sys/mman.h>
 # include <sys/select.h>
 # include <sys/socket.h>
@@ -227,6 +228,20 @@ u x S_IFCHR
 0 i WNOHANG
 0 i WUNTRACED
 
+[pollEvents]
+0 x POLLIN
+0 x POLLPRI
+0 x POLLOUT
+0 x POLLERR
+0 x POLLHUP
+0 x POLLNVAL
+* x POLLRDNORM
+* x POLLRDBAND
+* x POLLWRNORM
+* x POLLWRBAND
+* x POLLMSG
+* x POLLRDHUP
+
 [accessMode]
 0 x R_OK
 0 x W_OK